@@ -0,0 +1,122 @@
+package com.sebastianrodriguez.backend.jmh;
+
+import com.sebastianrodriguez.backend.BackendApplication;
+import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
+import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
+import com.sebastianrodriguez.backend.entity.Branch;
+import com.sebastianrodriguez.backend.entity.Franchise;
+import com.sebastianrodriguez.backend.entity.Product;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductImportService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+
+/**
+ * Utilidades compartidas por los benchmarks: arranque del contexto sobre H2 y datos de prueba.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Arranca la aplicacion sin servidor web, con el perfil de test (H2) y sin cache de lecturas,
+     * para medir el acceso a la base.
+     *
+     * @param properties propiedades adicionales ({@code clave=valor}).
+     * @return contexto iniciado.
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--app.cache.ttl=0s",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--logging.level.root=WARN"
+        ));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Siembra una franquicia por los servicios, con productos insertados por la importacion masiva.
+     *
+     * @param context contexto iniciado.
+     * @param branches cantidad de sucursales.
+     * @param productsPerBranch productos por sucursal.
+     * @return ids de la franquicia y sus sucursales.
+     * @throws IOException si falla la importacion.
+     */
+    static Seeded seed(ConfigurableApplicationContext context, int branches, int productsPerBranch)
+            throws IOException {
+        FranchiseService franchiseService = context.getBean(FranchiseService.class);
+        BranchService branchService = context.getBean(BranchService.class);
+        ProductImportService importService = context.getBean(ProductImportService.class);
+        long franchiseId = franchiseService.create(new FranchiseCreateRequest("Bench")).id();
+        long[] branchIds = new long[branches];
+        for (int b = 0; b < branches; b++) {
+            branchIds[b] = branchService.create(franchiseId, new BranchCreateRequest("Sucursal " + b)).id();
+            StringBuilder csv = new StringBuilder();
+            for (int p = 0; p < productsPerBranch; p++) {
+                csv.append("Producto ").append(b).append('-').append(p).append(',').append((p * 37) % 1000).append('\n');
+            }
+            importService.importProducts(branchIds[b], MediaType.parseMediaType(ProductImportService.TEXT_CSV_VALUE),
+                    new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+        return new Seeded(franchiseId, branchIds);
+    }
+
+    /**
+     * Construye en memoria una franquicia con sucursales y productos, sin base de datos.
+     *
+     * @param branches cantidad de sucursales.
+     * @param productsPerBranch productos por sucursal.
+     * @return franquicia con su arbol completo.
+     */
+    static Franchise franchiseTree(int branches, int productsPerBranch) {
+        Franchise franchise = new Franchise();
+        franchise.setId(1L);
+        franchise.setName("Bench");
+        List<Branch> branchList = new ArrayList<>(branches);
+        long productId = 1;
+        for (int b = 0; b < branches; b++) {
+            Branch branch = new Branch();
+            branch.setId((long) b + 1);
+            branch.setName("Sucursal " + b);
+            branch.setFranchise(franchise);
+            List<Product> products = new ArrayList<>(productsPerBranch);
+            for (int p = 0; p < productsPerBranch; p++) {
+                Product product = new Product();
+                product.setId(productId++);
+                product.setName("Producto " + b + "-" + p);
+                product.setStock((p * 37) % 1000);
+                product.setBranch(branch);
+                products.add(product);
+            }
+            branch.setProducts(products);
+            branchList.add(branch);
+        }
+        franchise.setBranches(branchList);
+        return franchise;
+    }
+
+    /**
+     * Ids de los datos sembrados.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param branchIds identificadores de las sucursales.
+     */
+    record Seeded(long franchiseId, long[] branchIds) {
+    }
+}
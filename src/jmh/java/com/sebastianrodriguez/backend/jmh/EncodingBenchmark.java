@@ -0,0 +1,123 @@
+package com.sebastianrodriguez.backend.jmh;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.sebastianrodriguez.backend.config.AvroHttpMessageConverter;
+import com.sebastianrodriguez.backend.config.MessageEncodingConfig;
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Tiempo y tamano de codificacion de las respuestas en JSON, CBOR, Smile y Avro.
+ *
+ * <p>Cada codificacion usa el mismo mapper que su convertidor HTTP. Los tamanos en bytes se
+ * imprimen al preparar cada combinacion de parametros.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EncodingBenchmark {
+
+    @Param({"json", "cbor", "smile", "avro"})
+    private String format;
+
+    @Param({"20", "500"})
+    private int items;
+
+    private ObjectWriter productWriter;
+    private ObjectWriter branchWriter;
+    private ObjectWriter topStockWriter;
+    private ProductResponse product;
+    private BranchDetailResponse branch;
+    private List<BranchTopStockProductResponse> topStock;
+
+    /**
+     * Arma los DTO y los escritores de la codificacion indicada, e imprime los tamanos.
+     *
+     * @throws JsonProcessingException si falla la codificacion de muestra.
+     */
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<ProductResponse> products = IntStream.rangeClosed(1, items)
+                .mapToObj(i -> new ProductResponse((long) i, "Producto " + i, random.nextInt(1_000)))
+                .toList();
+        product = products.get(0);
+        branch = new BranchDetailResponse(1L, "Sucursal 1", products);
+        topStock = IntStream.rangeClosed(1, items)
+                .mapToObj(i -> new BranchTopStockProductResponse((long) i, "Sucursal " + i,
+                        (long) i * items, "Producto " + i, random.nextInt(1_000)))
+                .toList();
+
+        TypeReference<List<BranchTopStockProductResponse>> topStockType = new TypeReference<>() { };
+        if ("avro".equals(format)) {
+            AvroHttpMessageConverter converter = MessageEncodingConfig.avroHttpMessageConverter();
+            AvroMapper mapper = new AvroMapper();
+            productWriter = mapper.writer(converter.schemaFor(ProductResponse.class));
+            branchWriter = mapper.writer(converter.schemaFor(BranchDetailResponse.class));
+            topStockWriter = mapper.writer(converter.schemaFor(topStockType.getType()));
+        } else {
+            Jackson2ObjectMapperBuilder builder = switch (format) {
+                case "json" -> Jackson2ObjectMapperBuilder.json();
+                case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+                case "smile" -> Jackson2ObjectMapperBuilder.smile();
+                default -> throw new IllegalArgumentException("Unknown format: " + format);
+            };
+            var mapper = builder.build();
+            productWriter = mapper.writerFor(ProductResponse.class);
+            branchWriter = mapper.writerFor(BranchDetailResponse.class);
+            topStockWriter = mapper.writerFor(topStockType);
+        }
+        System.out.printf("%n[%s, %d items] product=%d B, branchDetail=%d B, topStock=%d B%n", format, items,
+                product().length, branchDetail().length, topStock().length);
+    }
+
+    /**
+     * Codifica un producto.
+     *
+     * @return bytes codificados.
+     * @throws JsonProcessingException si falla la codificacion.
+     */
+    @Benchmark
+    public byte[] product() throws JsonProcessingException {
+        return productWriter.writeValueAsBytes(product);
+    }
+
+    /**
+     * Codifica el detalle de una sucursal con {@code items} productos.
+     *
+     * @return bytes codificados.
+     * @throws JsonProcessingException si falla la codificacion.
+     */
+    @Benchmark
+    public byte[] branchDetail() throws JsonProcessingException {
+        return branchWriter.writeValueAsBytes(branch);
+    }
+
+    /**
+     * Codifica el reporte de mayor stock de una franquicia con {@code items} sucursales.
+     *
+     * @return bytes codificados.
+     * @throws JsonProcessingException si falla la codificacion.
+     */
+    @Benchmark
+    public byte[] topStock() throws JsonProcessingException {
+        return topStockWriter.writeValueAsBytes(topStock);
+    }
+}
@@ -0,0 +1,68 @@
+package com.sebastianrodriguez.backend.jmh;
+
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.entity.Franchise;
+import com.sebastianrodriguez.backend.entity.Product;
+import com.sebastianrodriguez.backend.service.ResponseMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Mapeo de entidades ya cargadas a DTOs, aislado de la base de datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MappingBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int branches;
+
+    @Param({"20"})
+    private int productsPerBranch;
+
+    private Franchise franchise;
+    private List<Product> products;
+
+    /**
+     * Construye el arbol de entidades en memoria.
+     */
+    @Setup
+    public void setUp() {
+        franchise = BenchmarkData.franchiseTree(branches, productsPerBranch);
+        products = franchise.getBranches()
+                .stream()
+                .flatMap(branch -> branch.getProducts().stream())
+                .toList();
+    }
+
+    /**
+     * Agrupa los productos por sucursal y arma el detalle de franquicia desde entidades (el
+     * servicio ahora arma el detalle desde filas proyectadas; ver {@code ReadPathBenchmark}).
+     *
+     * @return detalle de la franquicia.
+     */
+    @Benchmark
+    public FranchiseDetailResponse franchiseDetail() {
+        return ResponseMapper.toDetail(franchise, ResponseMapper.groupByBranch(products));
+    }
+
+    /**
+     * Arma el detalle de una sucursal desde su coleccion de productos.
+     *
+     * @return detalle de la sucursal.
+     */
+    @Benchmark
+    public BranchDetailResponse branchDetail() {
+        return ResponseMapper.toDetail(franchise.getBranches().get(0));
+    }
+}
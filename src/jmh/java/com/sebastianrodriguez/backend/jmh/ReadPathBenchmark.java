@@ -0,0 +1,179 @@
+package com.sebastianrodriguez.backend.jmh;
+
+import com.sebastianrodriguez.backend.dto.BranchSummaryResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.entity.Branch;
+import com.sebastianrodriguez.backend.entity.Franchise;
+import com.sebastianrodriguez.backend.entity.Product;
+import com.sebastianrodriguez.backend.repository.BranchRepository;
+import com.sebastianrodriguez.backend.repository.FranchiseRepository;
+import com.sebastianrodriguez.backend.repository.ProductRepository;
+import com.sebastianrodriguez.backend.service.ResponseMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Lecturas con entidades administradas frente a proyecciones a DTO, contra H2.
+ *
+ * <p>Las variantes {@code *Entities} repiten las consultas de entidades que usaban los servicios
+ * antes de las proyecciones, en la misma transaccion de solo lectura. Con {@code -prof gc} la
+ * metrica {@code gc.alloc.rate.norm} muestra los bytes asignados por solicitud.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadPathBenchmark {
+
+    private static final int PAGE = 50;
+
+    @Param({"10", "100", "500"})
+    private int branches;
+
+    @Param({"20"})
+    private int productsPerBranch;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+    private FranchiseRepository franchiseRepository;
+    private BranchRepository branchRepository;
+    private ProductRepository productRepository;
+    private BenchmarkData.Seeded seeded;
+
+    /**
+     * Arranca el contexto y siembra los datos del tamano indicado.
+     *
+     * @throws IOException si falla la siembra.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkData.start();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        franchiseRepository = context.getBean(FranchiseRepository.class);
+        branchRepository = context.getBean(BranchRepository.class);
+        productRepository = context.getBean(ProductRepository.class);
+        seeded = BenchmarkData.seed(context, branches, productsPerBranch);
+    }
+
+    /**
+     * Cierra el contexto.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Detalle de franquicia cargando la franquicia con sus sucursales y luego sus productos.
+     *
+     * @return detalle.
+     */
+    @Benchmark
+    public FranchiseDetailResponse franchiseDetailEntities() {
+        return readOnlyTransaction.execute(status -> {
+            Franchise franchise = entityManager
+                    .createQuery("select f from Franchise f left join fetch f.branches where f.id = :id",
+                            Franchise.class)
+                    .setParameter("id", seeded.franchiseId())
+                    .getSingleResult();
+            List<Product> products = entityManager
+                    .createQuery("select p from Product p where p.branch.franchise.id = :id order by p.id",
+                            Product.class)
+                    .setParameter("id", seeded.franchiseId())
+                    .getResultList();
+            return ResponseMapper.toDetail(franchise, ResponseMapper.groupByBranch(products));
+        });
+    }
+
+    /**
+     * Detalle de franquicia desde sus datos proyectados y las filas del arbol.
+     *
+     * @return detalle.
+     */
+    @Benchmark
+    public FranchiseDetailResponse franchiseDetailProjection() {
+        return readOnlyTransaction.execute(status -> ResponseMapper.toDetail(
+                franchiseRepository.findHeaderById(seeded.franchiseId()).orElseThrow(),
+                branchRepository.findTreeByFranchiseId(seeded.franchiseId())));
+    }
+
+    /**
+     * Pagina de sucursales de la franquicia cargando entidades.
+     *
+     * @return sucursales.
+     */
+    @Benchmark
+    public List<BranchSummaryResponse> branchPageEntities() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("select b from Branch b where b.franchise.id = :id and b.id > 0 order by b.id",
+                        Branch.class)
+                .setParameter("id", seeded.franchiseId())
+                .setMaxResults(PAGE + 1)
+                .getResultList()
+                .stream()
+                .map(ResponseMapper::toSummary)
+                .toList());
+    }
+
+    /**
+     * Pagina de sucursales de la franquicia proyectada a DTO.
+     *
+     * @return sucursales.
+     */
+    @Benchmark
+    public List<BranchSummaryResponse> branchPageProjection() {
+        return readOnlyTransaction.execute(status ->
+                branchRepository.findSummariesByFranchiseId(seeded.franchiseId(), 0L, Limit.of(PAGE + 1)));
+    }
+
+    /**
+     * Pagina de productos de una sucursal cargando entidades.
+     *
+     * @return productos.
+     */
+    @Benchmark
+    public List<ProductResponse> productPageEntities() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("select p from Product p where p.branch.id = :id and p.id > 0 order by p.id",
+                        Product.class)
+                .setParameter("id", seeded.branchIds()[0])
+                .setMaxResults(PAGE + 1)
+                .getResultList()
+                .stream()
+                .map(ResponseMapper::toResponse)
+                .toList());
+    }
+
+    /**
+     * Pagina de productos de una sucursal proyectada a DTO.
+     *
+     * @return productos.
+     */
+    @Benchmark
+    public List<ProductResponse> productPageProjection() {
+        return readOnlyTransaction.execute(status ->
+                productRepository.findResponsesByBranchId(seeded.branchIds()[0], 0L, Limit.of(PAGE + 1)));
+    }
+}
@@ -0,0 +1,111 @@
+package com.sebastianrodriguez.backend.jmh;
+
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import com.sebastianrodriguez.backend.dto.ProductSearchHit;
+import com.sebastianrodriguez.backend.service.ProductSearchService;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Busqueda de productos por nombre con el indice de tokens frente a un {@code like '%...%'} sobre
+ * los productos de la franquicia, contra H2.
+ *
+ * <p>Los productos sembrados se llaman {@code Producto <sucursal>-<n>}: {@code 42} coincide con
+ * las sucursales 42 y 420 a 429 y con el producto 42 de cada sucursal (unos 2700 productos con 500
+ * sucursales); {@code 42 199} solo con los pocos que cumplen ambos terminos.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchBenchmark {
+
+    private static final int LIMIT = 20;
+
+    private static final String SCAN = """
+            select p.id, p.name from products p
+            join branches b on b.id = p.branch_id
+            where b.franchise_id = :franchiseId
+            and b.deleted = false
+            and p.deleted = false
+            and lower(p.name) like :first
+            and lower(p.name) like :second
+            order by p.id
+            limit :limit
+            """;
+
+    @Param({"42", "42 199"})
+    private String query;
+
+    @Param({"100", "500"})
+    private int branches;
+
+    @Param({"200"})
+    private int productsPerBranch;
+
+    private ConfigurableApplicationContext context;
+    private ProductSearchService productSearchService;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private long franchiseId;
+
+    /**
+     * Arranca el contexto y siembra los datos del tamano indicado.
+     *
+     * @throws IOException si falla la siembra.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Igual que en TopStockBenchmark, sin reutilizar resultados de consultas repetidas.
+        context = BenchmarkData.start("spring.datasource.url=jdbc:h2:mem:search;MODE=MySQL;DB_CLOSE_DELAY=-1;"
+                + "DATABASE_TO_LOWER=TRUE;OPTIMIZE_REUSE_RESULTS=FALSE");
+        productSearchService = context.getBean(ProductSearchService.class);
+        jdbcTemplate = context.getBean(NamedParameterJdbcTemplate.class);
+        franchiseId = BenchmarkData.seed(context, branches, productsPerBranch).franchiseId();
+    }
+
+    /**
+     * Cierra el contexto.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Primera pagina desde el indice de tokens.
+     *
+     * @return pagina de resultados.
+     */
+    @Benchmark
+    public CursorPage<ProductSearchHit> indexed() {
+        return productSearchService.search(franchiseId, query, null, LIMIT);
+    }
+
+    /**
+     * Primera pagina recorriendo los nombres de la franquicia con un {@code like} por termino.
+     *
+     * @return ids y nombres encontrados.
+     */
+    @Benchmark
+    public List<Map<String, Object>> likeScan() {
+        String[] terms = query.split(" ");
+        return jdbcTemplate.queryForList(SCAN, Map.of(
+                "franchiseId", franchiseId,
+                "first", "%" + terms[0] + "%",
+                "second", "%" + terms[terms.length - 1] + "%",
+                "limit", LIMIT));
+    }
+}
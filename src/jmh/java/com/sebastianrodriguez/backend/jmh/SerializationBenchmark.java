@@ -0,0 +1,59 @@
+package com.sebastianrodriguez.backend.jmh;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.entity.Franchise;
+import com.sebastianrodriguez.backend.service.ResponseMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Serializacion Jackson del detalle de franquicia con la configuracion por defecto de Spring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int branches;
+
+    @Param({"20"})
+    private int productsPerBranch;
+
+    private ObjectMapper objectMapper;
+    private FranchiseDetailResponse detail;
+
+    /**
+     * Prepara el mapper y el DTO a serializar.
+     */
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Franchise franchise = BenchmarkData.franchiseTree(branches, productsPerBranch);
+        detail = ResponseMapper.toDetail(franchise, ResponseMapper.groupByBranch(franchise.getBranches()
+                .stream()
+                .flatMap(branch -> branch.getProducts().stream())
+                .toList()));
+    }
+
+    /**
+     * Serializa el detalle a bytes JSON.
+     *
+     * @return documento JSON.
+     * @throws JsonProcessingException si falla la serializacion.
+     */
+    @Benchmark
+    public byte[] franchiseDetailJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(detail);
+    }
+}
@@ -0,0 +1,93 @@
+package com.sebastianrodriguez.backend.jmh;
+
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Rutas de lectura de los servicios contra H2, sin cache de respuestas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int branches;
+
+    @Param({"20"})
+    private int productsPerBranch;
+
+    private ConfigurableApplicationContext context;
+    private FranchiseService franchiseService;
+    private ProductService productService;
+    private BenchmarkData.Seeded seeded;
+
+    /**
+     * Arranca el contexto y siembra los datos del tamano indicado.
+     *
+     * @throws IOException si falla la siembra.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkData.start();
+        franchiseService = context.getBean(FranchiseService.class);
+        productService = context.getBean(ProductService.class);
+        seeded = BenchmarkData.seed(context, branches, productsPerBranch);
+    }
+
+    /**
+     * Cierra el contexto.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Detalle completo de la franquicia.
+     *
+     * @return detalle.
+     */
+    @Benchmark
+    public FranchiseDetailResponse franchiseGet() {
+        return franchiseService.get(seeded.franchiseId());
+    }
+
+    /**
+     * Reporte de producto con mayor stock por sucursal.
+     *
+     * @return reporte.
+     */
+    @Benchmark
+    public List<BranchTopStockProductResponse> topStockByBranch() {
+        return franchiseService.topStockByBranch(seeded.franchiseId(), 1);
+    }
+
+    /**
+     * Primera pagina de productos de una sucursal.
+     *
+     * @return pagina de productos.
+     */
+    @Benchmark
+    public CursorPage<ProductResponse> listByBranch() {
+        return productService.listByBranch(seeded.branchIds()[0], null, 50);
+    }
+}
@@ -0,0 +1,226 @@
+package com.sebastianrodriguez.backend.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Tiempo hasta la primera respuesta exitosa de un proceso nuevo de la aplicacion, con y sin AOT y
+ * CDS.
+ *
+ * <p>Usa el jar de {@code target} construido con {@code -Paot}, extraido con
+ * {@code -Djarmode=tools} como en {@code Dockerfile.aot}, contra H2 en memoria (migraciones de
+ * Flyway incluidas). Cada invocacion arranca una JVM y consulta {@code GET /api/franchises} hasta
+ * recibir 200; el archivo CDS de los modos {@code cds} se genera una vez por modo con una corrida
+ * de entrenamiento ({@code -Dspring.context.exit=onRefresh}).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(3);
+
+    private static final String MAIN_CLASS = "com.sebastianrodriguez.backend.BackendApplication";
+
+    @Param({"jar", "cds", "aot", "aot-cds"})
+    private String mode;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private Path workDir;
+    private String classpath;
+    private List<String> jvmOptions;
+    private Process process;
+
+    /**
+     * Extrae el jar, arma el classpath con el driver de H2 y, en los modos {@code cds}, entrena el
+     * archivo de clases.
+     *
+     * @throws Exception si falla la extraccion o el entrenamiento.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path jar = findJar();
+        workDir = Paths.get("target", "startup");
+        Path extracted = workDir.resolve("application");
+        run(List.of(java(), "-Djarmode=tools", "-jar", jar.toString(), "extract", "--force",
+                "--destination", extracted.toString(), "--application-filename", "app.jar"));
+        classpath = extracted.resolve("app.jar") + File.pathSeparator + h2Jar();
+
+        jvmOptions = new ArrayList<>();
+        if (mode.startsWith("aot")) {
+            jvmOptions.add("-Dspring.aot.enabled=true");
+        }
+        if (mode.endsWith("cds")) {
+            Path archive = workDir.resolve(mode + ".jsa");
+            Files.deleteIfExists(archive);
+            List<String> training = new ArrayList<>(jvmOptions);
+            training.add("-XX:ArchiveClassesAtExit=" + archive);
+            training.add("-Dspring.context.exit=onRefresh");
+            run(command(training, freePort()));
+            jvmOptions.add("-XX:SharedArchiveFile=" + archive);
+        }
+    }
+
+    /**
+     * Arranca la aplicacion y espera la primera respuesta 200.
+     *
+     * @return estado HTTP obtenido.
+     * @throws Exception si el proceso termina o no responde a tiempo.
+     */
+    @Benchmark
+    public int firstSuccessfulRequest() throws Exception {
+        int port = freePort();
+        process = new ProcessBuilder(command(jvmOptions, port))
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve(mode + ".log").toFile())
+                .start();
+        HttpRequest request = HttpRequest.newBuilder(new URI("http://localhost:" + port + "/api/franchises")).build();
+        long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + ", see "
+                        + workDir.resolve(mode + ".log"));
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return response.statusCode();
+                }
+            } catch (IOException e) {
+                // Todavia no escucha.
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("No successful response within " + START_TIMEOUT);
+    }
+
+    /**
+     * Detiene el proceso de la invocacion, fuera del tiempo medido.
+     *
+     * @throws InterruptedException si se interrumpe la espera.
+     */
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            process = null;
+        }
+    }
+
+    /**
+     * Arma la linea de comando de la aplicacion contra una base H2 en memoria nueva.
+     *
+     * @param options opciones de la JVM.
+     * @param port puerto HTTP.
+     * @return comando.
+     */
+    private List<String> command(List<String> options, int port) {
+        List<String> command = new ArrayList<>();
+        command.add(java());
+        command.addAll(options);
+        command.addAll(List.of("-cp", classpath, MAIN_CLASS,
+                "--server.port=" + port,
+                "--management.server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--logging.level.root=WARN"));
+        return command;
+    }
+
+    /**
+     * Ejecuta un comando hasta que termine.
+     *
+     * @param command comando.
+     * @throws IOException si falla el arranque o termina con error.
+     * @throws InterruptedException si se interrumpe la espera.
+     */
+    private void run(List<String> command) throws IOException, InterruptedException {
+        Files.createDirectories(workDir);
+        Process setup = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("setup.log").toFile())
+                .start();
+        if (setup.waitFor() != 0) {
+            throw new IOException("Command failed, see " + workDir.resolve("setup.log") + ": " + command);
+        }
+    }
+
+    /**
+     * Busca el jar ejecutable en {@code target}.
+     *
+     * @return ruta del jar.
+     * @throws IOException si no existe.
+     */
+    private static Path findJar() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get("target"))) {
+            return files.filter(path -> path.toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IOException("No jar in target, run ./mvnw -Paot package first"));
+        }
+    }
+
+    /**
+     * Ruta del jar de H2 del classpath de test.
+     *
+     * @return ruta del jar.
+     */
+    private static String h2Jar() {
+        try {
+            return Paths.get(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ejecutable de la JVM actual.
+     *
+     * @return ruta de {@code java}.
+     */
+    private static String java() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    /**
+     * Reserva un puerto libre.
+     *
+     * @return numero de puerto.
+     */
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
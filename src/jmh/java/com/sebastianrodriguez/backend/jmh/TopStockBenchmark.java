@@ -0,0 +1,156 @@
+package com.sebastianrodriguez.backend.jmh;
+
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.repository.BranchTopStockRepository;
+import com.sebastianrodriguez.backend.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reporte de mayor stock por sucursal: tabla de lideres y consulta de ventana frente a las
+ * subconsultas correlacionadas, contra H2.
+ *
+ * <p>Las variantes {@code correlated*} repiten la consulta con {@code p.stock = max(...)} que
+ * usaba el reporte antes de la tabla de lideres y su generalizacion a K (contar los productos
+ * que superan a cada uno), que vuelven a recorrer la sucursal por cada producto.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TopStockBenchmark {
+
+    private static final int K = 5;
+
+    private static final String RESPONSE = """
+            select new com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse(
+                b.id, b.name, p.id, p.name, p.stock
+            )
+            from Product p
+            join p.branch b
+            where b.franchise.id = :franchiseId
+            and b.deleted = false
+            """;
+
+    @Param({"100", "500"})
+    private int branches;
+
+    @Param({"200"})
+    private int productsPerBranch;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+    private BranchTopStockRepository topStockRepository;
+    private ProductRepository productRepository;
+    private long franchiseId;
+
+    /**
+     * Arranca el contexto y siembra los datos del tamano indicado.
+     *
+     * @throws IOException si falla la siembra.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // H2 reutiliza el resultado de una consulta repetida si las tablas no cambiaron; se desactiva
+        // para medir la ejecucion de cada consulta.
+        context = BenchmarkData.start("spring.datasource.url=jdbc:h2:mem:topstock;MODE=MySQL;DB_CLOSE_DELAY=-1;"
+                + "DATABASE_TO_LOWER=TRUE;OPTIMIZE_REUSE_RESULTS=FALSE");
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        topStockRepository = context.getBean(BranchTopStockRepository.class);
+        productRepository = context.getBean(ProductRepository.class);
+        franchiseId = BenchmarkData.seed(context, branches, productsPerBranch).franchiseId();
+    }
+
+    /**
+     * Cierra el contexto.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Top 1 leido de la tabla de lideres ({@code k=1}).
+     *
+     * @return reporte.
+     */
+    @Benchmark
+    public List<BranchTopStockProductResponse> top1LeaderTable() {
+        return readOnlyTransaction.execute(status -> topStockRepository.findReportByFranchiseId(franchiseId));
+    }
+
+    /**
+     * Top 1 con la consulta de ventana.
+     *
+     * @return reporte.
+     */
+    @Benchmark
+    public List<BranchTopStockProductResponse> top1Window() {
+        return readOnlyTransaction.execute(status -> productRepository.findTopStockByFranchiseId(franchiseId, 1));
+    }
+
+    /**
+     * Top 1 con el maximo correlacionado por sucursal; devuelve todos los empatados.
+     *
+     * @return reporte.
+     */
+    @Benchmark
+    public List<BranchTopStockProductResponse> top1Correlated() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery(RESPONSE + """
+                        and p.stock = (select max(p2.stock) from Product p2 where p2.branch = b)
+                        order by b.id, p.id
+                        """, BranchTopStockProductResponse.class)
+                .setParameter("franchiseId", franchiseId)
+                .getResultList());
+    }
+
+    /**
+     * Top K con la consulta de ventana.
+     *
+     * @return reporte.
+     */
+    @Benchmark
+    public List<BranchTopStockProductResponse> topKWindow() {
+        return readOnlyTransaction.execute(status -> productRepository.findTopStockByFranchiseId(franchiseId, K));
+    }
+
+    /**
+     * Top K contando, por producto, los productos de su sucursal que lo superan.
+     *
+     * @return reporte.
+     */
+    @Benchmark
+    public List<BranchTopStockProductResponse> topKCorrelated() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery(RESPONSE + """
+                        and (select count(p2) from Product p2
+                             where p2.branch = b
+                             and (p2.stock > p.stock or (p2.stock = p.stock and p2.id < p.id))) < :k
+                        order by b.id, p.stock desc, p.id
+                        """, BranchTopStockProductResponse.class)
+                .setParameter("franchiseId", franchiseId)
+                .setParameter("k", (long) K)
+                .getResultList());
+    }
+}
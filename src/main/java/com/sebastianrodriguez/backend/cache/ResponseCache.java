@@ -0,0 +1,299 @@
+package com.sebastianrodriguez.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache en proceso de las respuestas de lectura mas consultadas.
+ *
+ * <p>Cada cache es acotado por peso (cantidad de productos que contiene), expira por TTL y usa el
+ * desalojo W-TinyLFU de Caffeine. Las escrituras invalidan exactamente las entradas afectadas: se
+ * invalida en el momento y de nuevo al confirmar la transaccion, para descartar valores que una
+ * lectura concurrente haya cargado antes del commit.</p>
+ */
+@Component
+public class ResponseCache {
+
+    private final Cache<Long, ProductEntry> products;
+    private final Cache<Long, BranchEntry> branches;
+    private final Cache<Long, FranchiseEntry> franchises;
+    private final Cache<String, CursorPage<FranchiseSummaryResponse>> franchisePages;
+    private final AtomicLong productInvalidations = new AtomicLong();
+
+    /**
+     * Construye los caches con sus limites.
+     *
+     * @param maximumWeight peso maximo de cada cache (aprox. cantidad de productos retenidos).
+     * @param ttl tiempo de vida de cada entrada desde que se carga.
+     */
+    public ResponseCache(
+            @Value("${app.cache.maximum-weight:100000}") long maximumWeight,
+            @Value("${app.cache.ttl:30s}") Duration ttl
+    ) {
+        this.products = build(maximumWeight, ttl, (Long id, ProductEntry entry) -> 1);
+        this.branches = build(maximumWeight, ttl, (Long id, BranchEntry entry) -> 1 + entry.response().products().size());
+        this.franchises = build(maximumWeight, ttl, (Long id, FranchiseEntry entry) -> 1 + entry.response().branches()
+                .stream()
+                .mapToInt(branch -> 1 + branch.products().size())
+                .sum());
+        this.franchisePages = build(maximumWeight, ttl,
+                (String key, CursorPage<FranchiseSummaryResponse> page) -> 1 + page.items().size());
+    }
+
+    /**
+     * Obtiene un producto del cache o lo carga.
+     *
+     * @param id identificador del producto.
+     * @param loader carga el producto junto con sus ids de sucursal y franquicia.
+     * @return producto.
+     */
+    public ProductResponse product(Long id, Function<Long, ProductEntry> loader) {
+        return products.get(id, loader).response();
+    }
+
+    /**
+     * Obtiene varios productos del cache y carga los faltantes con una sola llamada.
+     *
+     * <p>La carga en lote no es atomica con las invalidaciones como la de un solo producto: cada
+     * producto cargado se guarda solo si no hubo invalidaciones de productos desde que empezo la
+     * carga, y si no se devuelve sin cachear.</p>
+     *
+     * @param ids identificadores de los productos.
+     * @param loader carga los productos faltantes; omite los que no existen, que no se cachean.
+     * @return productos encontrados por id.
+     */
+    public Map<Long, ProductResponse> products(
+            Set<Long> ids,
+            Function<Set<? extends Long>, Map<Long, ProductEntry>> loader
+    ) {
+        Map<Long, ProductResponse> found = new HashMap<>();
+        products.getAllPresent(ids).forEach((id, entry) -> found.put(id, entry.response()));
+        Set<Long> missing = new HashSet<>(ids);
+        missing.removeAll(found.keySet());
+        if (missing.isEmpty()) {
+            return found;
+        }
+        long invalidations = productInvalidations.get();
+        loader.apply(missing).forEach((id, entry) -> {
+            found.put(id, entry.response());
+            // Se compara dentro de compute: una invalidacion posterior a la comparacion ve la entrada.
+            products.asMap().compute(id, (key, current) ->
+                    current != null || productInvalidations.get() != invalidations ? current : entry);
+        });
+        return found;
+    }
+
+    /**
+     * Obtiene el detalle de una sucursal del cache o lo carga.
+     *
+     * @param id identificador de la sucursal.
+     * @param loader carga el detalle junto con el id de su franquicia y su revision.
+     * @return detalle de la sucursal con su revision.
+     */
+    public BranchEntry branch(Long id, Function<Long, BranchEntry> loader) {
+        return branches.get(id, loader);
+    }
+
+    /**
+     * Obtiene el detalle de una franquicia del cache o lo carga.
+     *
+     * @param id identificador de la franquicia.
+     * @param loader carga el detalle junto con su revision.
+     * @return detalle de la franquicia con su revision.
+     */
+    public FranchiseEntry franchise(Long id, Function<Long, FranchiseEntry> loader) {
+        return franchises.get(id, loader);
+    }
+
+    /**
+     * Obtiene una pagina del listado de franquicias del cache o la carga.
+     *
+     * @param after cursor de la pagina.
+     * @param limit tamano de pagina.
+     * @param loader carga la pagina.
+     * @return pagina de franquicias.
+     */
+    public CursorPage<FranchiseSummaryResponse> franchisePage(
+            String after,
+            int limit,
+            Function<String, CursorPage<FranchiseSummaryResponse>> loader
+    ) {
+        return franchisePages.get((after == null ? "" : after) + "|" + limit, loader);
+    }
+
+    /**
+     * Invalida un producto y el detalle de su sucursal y franquicia.
+     *
+     * @param productId identificador del producto.
+     * @param branchId identificador de la sucursal.
+     * @param franchiseId identificador de la franquicia.
+     */
+    public void evictProduct(Long productId, Long branchId, Long franchiseId) {
+        evict(() -> {
+            productInvalidations.incrementAndGet();
+            products.invalidate(productId);
+            branches.invalidate(branchId);
+            franchises.invalidate(franchiseId);
+        });
+    }
+
+    /**
+     * Invalida el detalle de una sucursal y de su franquicia.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param franchiseId identificador de la franquicia.
+     */
+    public void evictBranch(Long branchId, Long franchiseId) {
+        evict(() -> {
+            branches.invalidate(branchId);
+            franchises.invalidate(franchiseId);
+        });
+    }
+
+    /**
+     * Invalida una sucursal eliminada junto con todos sus productos.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param franchiseId identificador de la franquicia.
+     */
+    public void evictBranchSubtree(Long branchId, Long franchiseId) {
+        evict(() -> {
+            productInvalidations.incrementAndGet();
+            products.asMap().values().removeIf(entry -> branchId.equals(entry.branchId()));
+            branches.invalidate(branchId);
+            franchises.invalidate(franchiseId);
+        });
+    }
+
+    /**
+     * Invalida el detalle de una franquicia y el listado de franquicias.
+     *
+     * @param franchiseId identificador de la franquicia.
+     */
+    public void evictFranchise(Long franchiseId) {
+        evict(() -> {
+            franchises.invalidate(franchiseId);
+            franchisePages.invalidateAll();
+        });
+    }
+
+    /**
+     * Invalida una franquicia eliminada junto con sus sucursales y productos.
+     *
+     * @param franchiseId identificador de la franquicia.
+     */
+    public void evictFranchiseSubtree(Long franchiseId) {
+        evict(() -> {
+            productInvalidations.incrementAndGet();
+            products.asMap().values().removeIf(entry -> franchiseId.equals(entry.franchiseId()));
+            branches.asMap().values().removeIf(entry -> franchiseId.equals(entry.franchiseId()));
+            franchises.invalidate(franchiseId);
+            franchisePages.invalidateAll();
+        });
+    }
+
+    /**
+     * Invalida el listado de franquicias.
+     */
+    public void evictFranchisePages() {
+        evict(franchisePages::invalidateAll);
+    }
+
+    /**
+     * Expone los caches por nombre para estadisticas y metricas.
+     *
+     * @return caches indexados por nombre.
+     */
+    public Map<String, Cache<?, ?>> caches() {
+        Map<String, Cache<?, ?>> caches = new LinkedHashMap<>();
+        caches.put("products", products);
+        caches.put("branches", branches);
+        caches.put("franchises", franchises);
+        caches.put("franchisePages", franchisePages);
+        return caches;
+    }
+
+    /**
+     * Ejecuta una invalidacion ahora y, si hay transaccion activa, otra vez tras el commit.
+     *
+     * @param eviction invalidacion a ejecutar.
+     */
+    private void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Construye un cache acotado por peso, con TTL y estadisticas.
+     *
+     * @param maximumWeight peso maximo.
+     * @param ttl tiempo de vida desde la carga.
+     * @param weigher peso de cada entrada.
+     * @param <K> tipo de clave.
+     * @param <V> tipo de valor.
+     * @return cache configurado.
+     */
+    private static <K, V> Cache<K, V> build(long maximumWeight, Duration ttl, Weigher<K, V> weigher) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher(weigher)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Producto cacheado con los ids de su jerarquia, para invalidar subarboles.
+     *
+     * @param response respuesta del producto.
+     * @param branchId identificador de la sucursal.
+     * @param franchiseId identificador de la franquicia.
+     */
+    public record ProductEntry(ProductResponse response, Long branchId, Long franchiseId) {
+    }
+
+    /**
+     * Detalle de sucursal cacheado con el id de su franquicia, para invalidar subarboles, y la
+     * revision con que se armo.
+     *
+     * @param response detalle de la sucursal.
+     * @param franchiseId identificador de la franquicia.
+     * @param revision revision de la sucursal leida junto con el detalle.
+     */
+    public record BranchEntry(BranchDetailResponse response, Long franchiseId, long revision) {
+    }
+
+    /**
+     * Detalle de franquicia cacheado con la revision con que se armo.
+     *
+     * @param response detalle de la franquicia.
+     * @param revision revision de la franquicia leida junto con el detalle.
+     */
+    public record FranchiseEntry(FranchiseDetailResponse response, long revision) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.sebastianrodriguez.backend.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Escribe respuestas en Avro binario ({@code application/avro}) para un conjunto fijo de DTO y
+ * listas de ellos.
+ *
+ * <p>El cuerpo no incluye el esquema: cada campo va en el orden del esquema, sin nombres ni
+ * marcas de tipo. Los esquemas se derivan de los records con Jackson, se guardan por tipo y se
+ * publican en {@code /api/schemas/avro} para que el cliente pueda decodificar.</p>
+ */
+public class AvroHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    /**
+     * Tipo de contenido negociado para Avro binario.
+     */
+    public static final MediaType APPLICATION_AVRO = MediaType.valueOf("application/avro");
+
+    private final AvroMapper mapper = new AvroMapper();
+    private final Set<Class<?>> supportedTypes;
+    private final Map<Type, AvroSchema> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * Construye el convertidor para los tipos indicados.
+     *
+     * @param supportedTypes DTO que pueden escribirse, solos o en listas.
+     */
+    public AvroHttpMessageConverter(Set<Class<?>> supportedTypes) {
+        super(APPLICATION_AVRO);
+        this.supportedTypes = Set.copyOf(supportedTypes);
+    }
+
+    /**
+     * Esquema Avro de un tipo soportado, generado una vez.
+     *
+     * @param type tipo a escribir.
+     * @return esquema del tipo.
+     */
+    public AvroSchema schemaFor(Type type) {
+        return schemas.computeIfAbsent(type, key -> {
+            try {
+                return mapper.schemaFor(mapper.constructType(key));
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not derive the Avro schema of " + key, ex);
+            }
+        });
+    }
+
+    /**
+     * Tipos de DTO soportados.
+     *
+     * @return tipos soportados.
+     */
+    public Set<Class<?>> supportedTypes() {
+        return supportedTypes;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        // Las listas solo se conocen por su clase aqui; el tipo de elemento se valida en canWrite(Type, ...).
+        return supportedTypes.contains(clazz) || Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        JavaType javaType = mapper.constructType(type != null ? type : clazz);
+        if (javaType.isCollectionLikeType()) {
+            javaType = javaType.getContentType();
+        }
+        return supportedTypes.contains(javaType.getRawClass());
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Type schemaType = type != null ? type : value.getClass();
+        mapper.writer(schemaFor(schemaType)).writeValue(StreamUtils.nonClosing(outputMessage.getBody()), value);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Avro request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Avro request bodies are not supported", inputMessage);
+    }
+}
@@ -0,0 +1,130 @@
+package com.sebastianrodriguez.backend.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Limita la cantidad de solicitudes de la API en curso.
+ *
+ * <p>Con hilos virtuales no hay un pool de hilos que acote la concurrencia, asi que sin este
+ * limite una rafaga dejaria miles de solicitudes esperando una conexion de Hikari hasta agotar su
+ * {@code connection-timeout}. Las solicitudes que no obtienen un permiso dentro del tiempo de
+ * espera reciben {@code 503} con {@code Retry-After}. Las respuestas asincronas (detalle en
+ * streaming) conservan el permiso hasta completar, salvo los streams de eventos de stock: no usan
+ * conexiones tras suscribirse y pueden durar horas.</p>
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+
+    /**
+     * Construye el filtro.
+     *
+     * @param maxInFlight solicitudes simultaneas permitidas.
+     * @param acquireTimeout espera maxima por un permiso antes de responder 503.
+     */
+    public ConcurrencyLimitFilter(int maxInFlight, Duration acquireTimeout) {
+        this.permits = new Semaphore(maxInFlight, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    /**
+     * Ejecuta la solicitud si obtiene un permiso o responde 503.
+     *
+     * @param request solicitud HTTP.
+     * @param response respuesta HTTP.
+     * @param chain cadena de filtros.
+     * @throws ServletException si falla la cadena.
+     * @throws IOException si falla la escritura.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!acquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+        AtomicBoolean held = new AtomicBoolean(true);
+        Runnable release = () -> {
+            if (held.compareAndSet(true, false)) {
+                permits.release();
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Excluye los streams de eventos de stock ({@code /api/franchises/{id}/stock-events}).
+     *
+     * @param request solicitud HTTP.
+     * @return true si la solicitud no pasa por el limite.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/stock-events");
+    }
+
+    /**
+     * Intenta obtener un permiso dentro del tiempo de espera.
+     *
+     * @return true si se obtuvo.
+     */
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Libera el permiso al terminar una respuesta asincrona.
+     *
+     * @param release accion idempotente que libera el permiso.
+     */
+    private record ReleaseListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.sebastianrodriguez.backend.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Codificaciones binarias negociadas por {@code Accept}, ademas de JSON.
+ *
+ * <ul>
+ *     <li>{@code application/cbor} y {@code application/x-jackson-smile}: mismo documento que
+ *     JSON en binario, para cualquier respuesta.</li>
+ *     <li>{@code application/avro}: Avro binario con esquema para {@link ProductResponse},
+ *     {@link BranchDetailResponse} y {@link BranchTopStockProductResponse}.</li>
+ * </ul>
+ *
+ * <p>Los convertidores se agregan despues del de JSON, que sigue siendo el elegido cuando la
+ * solicitud no pide un tipo concreto.</p>
+ */
+@Configuration
+public class MessageEncodingConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> mapperBuilder;
+    private final AvroHttpMessageConverter avroConverter;
+
+    /**
+     * Construye la configuracion.
+     *
+     * @param mapperBuilder constructor de mappers de Spring Boot, con la configuracion de JSON.
+     * @param avroConverter convertidor Avro.
+     */
+    public MessageEncodingConfig(
+            ObjectProvider<Jackson2ObjectMapperBuilder> mapperBuilder,
+            AvroHttpMessageConverter avroConverter
+    ) {
+        this.mapperBuilder = mapperBuilder;
+        this.avroConverter = avroConverter;
+    }
+
+    /**
+     * Convertidor Avro para los DTO con esquema.
+     *
+     * @return convertidor Avro.
+     */
+    @Bean
+    public static AvroHttpMessageConverter avroHttpMessageConverter() {
+        return new AvroHttpMessageConverter(Set.of(
+                ProductResponse.class,
+                BranchDetailResponse.class,
+                BranchTopStockProductResponse.class
+        ));
+    }
+
+    /**
+     * Reemplaza los convertidores CBOR y Smile por defecto por otros con la configuracion de
+     * Jackson de Spring Boot, los ubica despues del de JSON y agrega Avro al final.
+     *
+     * @param converters convertidores de Spring MVC.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter
+                || converter instanceof AvroHttpMessageConverter);
+        int json = 0;
+        while (json < converters.size() && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+            json++;
+        }
+        int position = Math.min(json + 1, converters.size());
+        converters.add(position, new MappingJackson2SmileHttpMessageConverter(
+                mapperBuilder.getObject().factory(new SmileFactory()).build()));
+        converters.add(position, new MappingJackson2CborHttpMessageConverter(
+                mapperBuilder.getObject().factory(new CBORFactory()).build()));
+        converters.add(avroConverter);
+    }
+}
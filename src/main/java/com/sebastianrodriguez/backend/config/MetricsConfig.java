@@ -0,0 +1,40 @@
+package com.sebastianrodriguez.backend.config;
+
+import com.sebastianrodriguez.backend.cache.ResponseCache;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metricas propias de la aplicacion, expuestas junto a las de HTTP, Hikari y JVM que registra
+ * Spring Boot Actuator.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Habilita {@code @Timed} en los servicios.
+     *
+     * @param registry registro de metricas.
+     * @return aspecto que mide los metodos anotados.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /**
+     * Registra aciertos, fallos, desalojos y tamano de cada cache de respuestas.
+     *
+     * @param responseCache cache de respuestas de lectura.
+     * @return binder de las metricas de cache.
+     */
+    @Bean
+    public MeterBinder responseCacheMetrics(ResponseCache responseCache) {
+        return registry -> responseCache.caches()
+                .forEach((name, cache) -> CaffeineCacheMetrics.monitor(registry, cache, name));
+    }
+}
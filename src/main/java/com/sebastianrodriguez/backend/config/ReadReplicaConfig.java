@@ -0,0 +1,114 @@
+package com.sebastianrodriguez.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Enrutamiento de las transacciones de solo lectura a replicas ({@code app.replica.urls}).
+ *
+ * <p>El {@link DataSource} principal es un {@link LazyConnectionDataSourceProxy}: la conexion
+ * real se pide recien en la primera sentencia, cuando la transaccion ya la marco como de solo
+ * lectura, y en ese caso sale de {@link ReplicaRoutingDataSource}. Todo lo demas (escrituras,
+ * Flyway, trabajos en segundo plano) usa el primario.</p>
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.replica.urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    /**
+     * Pool del primario, configurado con {@code spring.datasource.*}; Flyway migra sobre el.
+     *
+     * @param properties propiedades del datasource.
+     * @return pool del primario.
+     */
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Pools de las replicas con las mismas credenciales y ajustes Hikari que el primario.
+     *
+     * @param primaryDataSource pool del primario, respaldo de las lecturas.
+     * @param properties propiedades del datasource.
+     * @param environment entorno, para copiar {@code spring.datasource.hikari.*}.
+     * @param urls URLs JDBC de las replicas.
+     * @param maxLag atraso maximo tolerado por replica.
+     * @param connectionTimeout espera maxima por una conexion de replica.
+     * @return origen de conexiones de solo lectura.
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${app.replica.urls}") List<String> urls,
+            @Value("${app.replica.max-lag:30s}") Duration maxLag,
+            @Value("${app.replica.connection-timeout:2s}") Duration connectionTimeout
+    ) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag);
+    }
+
+    /**
+     * Datasource de la aplicacion: primario por defecto, replicas en transacciones de solo lectura.
+     *
+     * @param primaryDataSource pool del primario.
+     * @param replicaDataSource origen de conexiones de solo lectura.
+     * @return proxy de conexion diferida.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaDataSource);
+        return proxy;
+    }
+
+    /**
+     * Publica cuantas replicas estan en uso.
+     *
+     * @param replicaDataSource origen de conexiones de solo lectura.
+     * @return binder de la metrica {@code app.replica.available}.
+     */
+    @Bean
+    public MeterBinder replicaMetrics(ReplicaRoutingDataSource replicaDataSource) {
+        return registry -> Gauge.builder("app.replica.available", replicaDataSource,
+                        ReplicaRoutingDataSource::availableCount)
+                .description("Read replicas currently receiving read-only transactions")
+                .register(registry);
+    }
+}
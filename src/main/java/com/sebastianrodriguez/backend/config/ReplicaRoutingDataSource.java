@@ -0,0 +1,186 @@
+package com.sebastianrodriguez.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Origen de conexiones de solo lectura: reparte en round-robin entre las replicas disponibles y
+ * usa el primario si no hay ninguna.
+ *
+ * <p>Una replica esta disponible si responde y el latido de {@code replication_heartbeat} que ya
+ * recibio no supera el atraso maximo. El primario escribe el latido en cada verificacion, de modo
+ * que la antiguedad del valor en la replica mide su atraso (mas el intervalo de verificacion).</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final String WRITE_HEARTBEAT = "update replication_heartbeat set beat_at = ? where id = 1";
+
+    private static final String READ_HEARTBEAT = "select beat_at from replication_heartbeat where id = 1";
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final JdbcTemplate primaryJdbc;
+    private final List<HikariDataSource> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<HikariDataSource> available = List.of();
+
+    /**
+     * Construye el origen; las replicas quedan fuera de uso hasta la primera verificacion.
+     *
+     * @param primary origen del primario, usado como respaldo.
+     * @param replicas pools de las replicas.
+     * @param maxLag atraso maximo tolerado; debe superar el intervalo de verificacion.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.primaryJdbc = new JdbcTemplate(primary);
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+    }
+
+    /**
+     * Obtiene una conexion de la siguiente replica disponible, o del primario si no hay replicas
+     * disponibles o la elegida falla al conectar.
+     *
+     * @return conexion para lectura.
+     * @throws SQLException si tampoco se obtiene del primario.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    /**
+     * Igual que {@link #getConnection()}, pasando las credenciales al origen elegido.
+     *
+     * @param username usuario.
+     * @param password contrasena.
+     * @return conexion para lectura.
+     * @throws SQLException si tampoco se obtiene del primario.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Escribe el latido en el primario y recalcula las replicas disponibles segun su salud y atraso.
+     */
+    @Scheduled(fixedDelayString = "${app.replica.check-interval:5s}")
+    public void refresh() {
+        Instant now = Instant.now();
+        try {
+            primaryJdbc.update(WRITE_HEARTBEAT, Timestamp.from(now));
+        } catch (DataAccessException ex) {
+            log.warn("Could not write the replication heartbeat on the primary", ex);
+        }
+        List<HikariDataSource> healthy = new ArrayList<>(replicas.size());
+        for (HikariDataSource replica : replicas) {
+            if (isHealthy(replica, now)) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.size() != available.size()) {
+            log.info("Read replicas available: {} of {}", healthy.size(), replicas.size());
+        }
+        available = List.copyOf(healthy);
+    }
+
+    /**
+     * Cantidad de replicas en uso.
+     *
+     * @return replicas disponibles.
+     */
+    public int availableCount() {
+        return available.size();
+    }
+
+    /**
+     * Cierra los pools de las replicas.
+     */
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    /**
+     * Pide la conexion a la siguiente replica disponible o, si no hay o falla, al primario.
+     *
+     * @param connect forma de pedir la conexion a un origen.
+     * @return conexion para lectura.
+     * @throws SQLException si tampoco se obtiene del primario.
+     */
+    private Connection route(ConnectionSource connect) throws SQLException {
+        List<HikariDataSource> candidates = available;
+        if (candidates.isEmpty()) {
+            return connect.from(primary);
+        }
+        HikariDataSource replica = candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        try {
+            return connect.from(replica);
+        } catch (SQLException ex) {
+            log.warn("Replica {} unavailable, reading from primary", replica.getPoolName(), ex);
+            return connect.from(primary);
+        }
+    }
+
+    /**
+     * Lee el latido de una replica y compara su antiguedad con el atraso maximo; si la consulta
+     * falla, descarta las conexiones del pool de esa replica.
+     *
+     * @param replica pool de la replica.
+     * @param now momento de la verificacion.
+     * @return true si responde y esta al dia.
+     */
+    private boolean isHealthy(HikariDataSource replica, Instant now) {
+        try {
+            Timestamp beat = new JdbcTemplate(replica).queryForObject(READ_HEARTBEAT, Timestamp.class);
+            Duration lag = Duration.between(beat.toInstant(), now);
+            if (lag.compareTo(maxLag) > 0) {
+                log.warn("Replica {} is {} behind (max {}), reading from the others", replica.getPoolName(), lag, maxLag);
+                return false;
+            }
+            return true;
+        } catch (DataAccessException ex) {
+            log.warn("Replica {} failed its health check: {}", replica.getPoolName(), ex.getMessage());
+            // Tras una caida o un failover las conexiones del pool pueden quedar rotas sin que el
+            // driver lo indique; se renuevan para que la siguiente verificacion use conexiones nuevas.
+            if (replica.getHikariPoolMXBean() != null) {
+                replica.getHikariPoolMXBean().softEvictConnections();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Pedido de conexion a un origen concreto.
+     */
+    @FunctionalInterface
+    private interface ConnectionSource {
+
+        /**
+         * Obtiene la conexion del origen.
+         *
+         * @param dataSource origen elegido.
+         * @return conexion.
+         * @throws SQLException si el origen falla.
+         */
+        Connection from(DataSource dataSource) throws SQLException;
+    }
+}
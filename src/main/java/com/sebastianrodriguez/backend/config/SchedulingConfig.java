@@ -0,0 +1,21 @@
+package com.sebastianrodriguez.backend.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas, como el procesamiento de borrados en segundo plano.
+ *
+ * <p>Se desactiva con {@code app.scheduling.enabled=false}, por ejemplo en benchmarks. Solo corre en
+ * la pila servlet: un despliegue {@code WEB_STACK=reactive} solo atiende lecturas y no procesa
+ * borrados, no secuencia ni purga el registro de cambios, no escribe el latido de replicacion ni
+ * mantiene cache que invalidar; esas tareas quedan a cargo de las instancias servlet.</p>
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,38 @@
+package com.sebastianrodriguez.backend.config;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuracion del modo de hilos virtuales ({@code spring.threads.virtual.enabled=true}).
+ *
+ * <p>Spring Boot ya ejecuta Tomcat y las tareas asincronas en hilos virtuales; aqui solo se agrega
+ * el limite de solicitudes en curso, dimensionado por defecto al tamano del pool de conexiones.</p>
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    /**
+     * Registra el limite de concurrencia para la API.
+     *
+     * @param maxInFlight solicitudes simultaneas permitidas.
+     * @param acquireTimeout espera maxima por un permiso.
+     * @return registro del filtro.
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${app.concurrency.max-in-flight:${spring.datasource.hikari.maximum-pool-size:10}}") int maxInFlight,
+            @Value("${app.concurrency.acquire-timeout:2s}") Duration acquireTimeout
+    ) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxInFlight, acquireTimeout));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
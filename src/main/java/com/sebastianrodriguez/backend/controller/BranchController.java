@@ -1,15 +1,27 @@
 package com.sebastianrodriguez.backend.controller;
 
+import com.sebastianrodriguez.backend.dto.BranchAnalyticsResponse;
 import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
 import com.sebastianrodriguez.backend.dto.BranchSummaryResponse;
 import com.sebastianrodriguez.backend.dto.BranchUpdateRequest;
 import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductImportResponse;
 import com.sebastianrodriguez.backend.dto.ProductResponse;
 import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.Cursors;
+import com.sebastianrodriguez.backend.service.InventoryAnalyticsService;
+import com.sebastianrodriguez.backend.service.ProductImportService;
 import com.sebastianrodriguez.backend.service.ProductService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,39 +29,69 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Controlador REST para operaciones sobre sucursales y productos por sucursal.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/branches")
 public class BranchController {
 
     private final BranchService branchService;
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final InventoryAnalyticsService inventoryAnalyticsService;
 
     /**
      * Construye el controlador con sus dependencias.
      *
      * @param branchService servicio de sucursales.
      * @param productService servicio de productos.
+     * @param productImportService servicio de importacion masiva de productos.
+     * @param inventoryAnalyticsService servicio de estadisticas de inventario.
      */
-    public BranchController(BranchService branchService, ProductService productService) {
+    public BranchController(
+            BranchService branchService,
+            ProductService productService,
+            ProductImportService productImportService,
+            InventoryAnalyticsService inventoryAnalyticsService
+    ) {
         this.branchService = branchService;
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.inventoryAnalyticsService = inventoryAnalyticsService;
     }
 
     /**
      * Obtiene el detalle de una sucursal con sus productos.
      *
+     * <p>Publica la revision de la sucursal como {@code ETag}; con un {@code If-None-Match} vigente
+     * responde 304 tras leer solo la revision.</p>
+     *
      * @param id identificador de la sucursal.
-     * @return detalle de la sucursal.
+     * @param request solicitud, con sus encabezados condicionales.
+     * @return detalle de la sucursal, o null si se respondio 304.
      */
     @GetMapping("/{id}")
-    public BranchDetailResponse get(@PathVariable Long id) {
-        return branchService.get(id);
+    public ResponseEntity<BranchDetailResponse> get(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.of(request, () -> branchService.revision(id), () -> branchService.getVersioned(id));
+    }
+
+    /**
+     * Retorna las estadisticas de inventario de una sucursal.
+     *
+     * @param id identificador de la sucursal.
+     * @return totales, minimo/maximo/promedio, productos sin stock e histograma de stock.
+     */
+    @GetMapping("/{id}/analytics")
+    public BranchAnalyticsResponse analytics(@PathVariable Long id) {
+        return inventoryAnalyticsService.branch(id);
     }
 
     /**
@@ -71,12 +113,11 @@ public class BranchController {
      * Elimina una sucursal con borrado logico y cascada sobre productos.
      *
      * @param id identificador de la sucursal.
-     * @return respuesta sin contenido.
+     * @return 204 si termino o 202 con el trabajo en segundo plano que completa la cascada.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        branchService.delete(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<?> delete(@PathVariable Long id) {
+        return DeletionResponses.of(branchService.delete(id));
     }
 
     /**
@@ -96,14 +137,41 @@ public class BranchController {
     }
 
     /**
-     * Lista los productos de una sucursal.
+     * Lista los productos de una sucursal con paginacion por cursor.
      *
      * @param branchId identificador de la sucursal.
+     * @param after cursor de la pagina anterior (cabecera {@code X-Next-Cursor}).
+     * @param limit tamano de pagina.
      * @return listado de productos.
      */
     @GetMapping("/{branchId}/products")
-    public List<ProductResponse> listProducts(@PathVariable Long branchId) {
-        return productService.listByBranch(branchId);
+    public ResponseEntity<List<ProductResponse>> listProducts(
+            @PathVariable Long branchId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = Cursors.DEFAULT_LIMIT) @Min(1) @Max(Cursors.MAX_LIMIT) int limit
+    ) {
+        return PageResponses.of(productService.listByBranch(branchId, after, limit));
+    }
+
+    /**
+     * Importa productos masivamente en una sucursal desde CSV ({@code name,stock}) o NDJSON.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param contentType tipo del cuerpo recibido.
+     * @param body cuerpo de la solicitud, leido en streaming.
+     * @return cantidad de filas aceptadas y rechazadas.
+     * @throws IOException si falla la lectura del cuerpo.
+     */
+    @PostMapping(
+            value = "/{branchId}/products/import",
+            consumes = {ProductImportService.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE}
+    )
+    public ProductImportResponse importProducts(
+            @PathVariable Long branchId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) throws IOException {
+        return productImportService.importProducts(branchId, contentType, body);
     }
 
     // Endpoints de productos individuales estan en ProductController.
@@ -0,0 +1,54 @@
+package com.sebastianrodriguez.backend.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sebastianrodriguez.backend.cache.ResponseCache;
+import com.sebastianrodriguez.backend.dto.CacheStatsResponse;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST para consultar el estado del cache de respuestas.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final ResponseCache responseCache;
+
+    /**
+     * Construye el controlador con su dependencia principal.
+     *
+     * @param responseCache cache de respuestas de lectura.
+     */
+    public CacheController(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Lista los contadores de aciertos, fallos y desalojos de cada cache.
+     *
+     * @return estadisticas por cache.
+     */
+    @GetMapping("/stats")
+    public List<CacheStatsResponse> stats() {
+        return responseCache.caches()
+                .entrySet()
+                .stream()
+                .map(entry -> {
+                    CacheStats stats = entry.getValue().stats();
+                    return new CacheStatsResponse(
+                            entry.getKey(),
+                            entry.getValue().estimatedSize(),
+                            stats.hitCount(),
+                            stats.missCount(),
+                            stats.evictionCount(),
+                            stats.hitRate()
+                    );
+                })
+                .toList();
+    }
+}
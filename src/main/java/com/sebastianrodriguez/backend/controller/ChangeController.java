@@ -0,0 +1,48 @@
+package com.sebastianrodriguez.backend.controller;
+
+import com.sebastianrodriguez.backend.dto.ChangeFeedResponse;
+import com.sebastianrodriguez.backend.service.ChangeLogService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST del feed incremental de cambios.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/changes")
+public class ChangeController {
+
+    private final ChangeLogService changeLogService;
+
+    /**
+     * Construye el controlador con su dependencia principal.
+     *
+     * @param changeLogService registro de cambios.
+     */
+    public ChangeController(ChangeLogService changeLogService) {
+        this.changeLogService = changeLogService;
+    }
+
+    /**
+     * Lista los cambios posteriores a una posicion; el cliente repite la consulta con {@code next}.
+     *
+     * @param since ultima posicion procesada (0 para empezar).
+     * @param franchiseId franquicia a filtrar (opcional).
+     * @param limit cambios por pagina.
+     * @return cambios y posicion siguiente.
+     */
+    @GetMapping
+    public ChangeFeedResponse list(
+            @RequestParam(defaultValue = "0") @Min(0) long since,
+            @RequestParam(required = false) Long franchiseId,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(ChangeLogService.MAX_LIMIT) int limit
+    ) {
+        return changeLogService.feed(since, franchiseId, limit);
+    }
+}
@@ -0,0 +1,56 @@
+package com.sebastianrodriguez.backend.controller;
+
+import com.sebastianrodriguez.backend.dto.Versioned;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Construye las respuestas de GET condicional a partir de la revision de un detalle.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * Responde 304 si el {@code If-None-Match} coincide con la revision actual, sin armar el
+     * detalle; si no, responde 200 con el detalle y el ETag de la revision con que se armo. Ambas
+     * respuestas llevan {@code Vary: Accept}.
+     *
+     * @param request solicitud, con sus encabezados condicionales.
+     * @param revision lectura barata de la revision actual.
+     * @param detail carga del detalle con su revision.
+     * @param <T> tipo del detalle.
+     * @return respuesta HTTP; null si ya se respondio 304.
+     */
+    static <T> ResponseEntity<T> of(WebRequest request, LongSupplier revision, Supplier<Versioned<T>> detail) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            // El cuerpo depende del Accept (JSON, CBOR, Smile, Avro): los caches intermedios deben
+            // guardar y revalidar cada codificacion por separado, tambien en la respuesta 304.
+            servletRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        if (request.checkNotModified(etag(revision.getAsLong()))) {
+            return null;
+        }
+        Versioned<T> versioned = detail.get();
+        return ResponseEntity.ok().eTag(etag(versioned.revision())).body(versioned.body());
+    }
+
+    /**
+     * Formatea una revision como ETag debil.
+     *
+     * <p>La misma revision se sirve en JSON, CBOR, Smile y Avro, cuyos bytes difieren: un ETag
+     * fuerte compartido afirmaria que son identicos (y habilitaria rangos o {@code If-Match}
+     * entre codificaciones). El debil solo declara que representan el mismo detalle.</p>
+     *
+     * @param revision revision del detalle.
+     * @return ETag {@code W/"revision"}.
+     */
+    static String etag(long revision) {
+        return "W/\"" + revision + "\"";
+    }
+}
@@ -0,0 +1,40 @@
+package com.sebastianrodriguez.backend.controller;
+
+import com.sebastianrodriguez.backend.dto.DeletionJobResponse;
+import com.sebastianrodriguez.backend.service.DeletionJobService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST para consultar borrados en segundo plano.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/deletion-jobs")
+public class DeletionJobController {
+
+    private final DeletionJobService deletionJobService;
+
+    /**
+     * Construye el controlador con su dependencia principal.
+     *
+     * @param deletionJobService servicio de borrados en segundo plano.
+     */
+    public DeletionJobController(DeletionJobService deletionJobService) {
+        this.deletionJobService = deletionJobService;
+    }
+
+    /**
+     * Obtiene el estado de un borrado en segundo plano.
+     *
+     * @param id identificador del trabajo.
+     * @return estado y avance del trabajo.
+     */
+    @GetMapping("/{id}")
+    public DeletionJobResponse get(@PathVariable Long id) {
+        return deletionJobService.get(id);
+    }
+}
@@ -0,0 +1,29 @@
+package com.sebastianrodriguez.backend.controller;
+
+import com.sebastianrodriguez.backend.dto.DeletionJobResponse;
+import java.net.URI;
+import java.util.Optional;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Construye la respuesta HTTP de un borrado que puede completarse en segundo plano.
+ */
+final class DeletionResponses {
+
+    private DeletionResponses() {
+    }
+
+    /**
+     * Responde 204 si el borrado termino o 202 con el trabajo y su ubicacion si sigue en curso.
+     *
+     * @param job trabajo en segundo plano, si se encolo.
+     * @return respuesta HTTP.
+     */
+    static ResponseEntity<?> of(Optional<DeletionJobResponse> job) {
+        return job.<ResponseEntity<?>>map(response -> ResponseEntity
+                        .accepted()
+                        .location(URI.create("/api/deletion-jobs/" + response.id()))
+                        .body(response))
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+}
@@ -3,15 +3,26 @@ package com.sebastianrodriguez.backend.controller;
 import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
 import com.sebastianrodriguez.backend.dto.BranchSummaryResponse;
 import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseAnalyticsResponse;
 import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
 import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
 import com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse;
 import com.sebastianrodriguez.backend.dto.FranchiseUpdateRequest;
+import com.sebastianrodriguez.backend.dto.ProductSearchHit;
 import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.Cursors;
+import com.sebastianrodriguez.backend.service.FranchiseDetailStreamer;
 import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.InventoryAnalyticsService;
+import com.sebastianrodriguez.backend.service.ProductSearchService;
+import com.sebastianrodriguez.backend.service.StockEventHub;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,27 +31,51 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controlador REST para operaciones de franquicias y sus sucursales.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/franchises")
 public class FranchiseController {
 
     private final FranchiseService franchiseService;
     private final BranchService branchService;
+    private final FranchiseDetailStreamer franchiseDetailStreamer;
+    private final InventoryAnalyticsService inventoryAnalyticsService;
+    private final ProductSearchService productSearchService;
+    private final StockEventHub stockEventHub;
 
     /**
      * Construye el controlador con sus dependencias.
      *
      * @param franchiseService servicio de franquicias.
      * @param branchService servicio de sucursales.
+     * @param franchiseDetailStreamer escritor del detalle en streaming.
+     * @param inventoryAnalyticsService servicio de estadisticas de inventario.
+     * @param productSearchService servicio de busqueda de productos.
+     * @param stockEventHub distribuidor de eventos de stock.
      */
-    public FranchiseController(FranchiseService franchiseService, BranchService branchService) {
+    public FranchiseController(
+            FranchiseService franchiseService,
+            BranchService branchService,
+            FranchiseDetailStreamer franchiseDetailStreamer,
+            InventoryAnalyticsService inventoryAnalyticsService,
+            ProductSearchService productSearchService,
+            StockEventHub stockEventHub
+    ) {
         this.franchiseService = franchiseService;
         this.branchService = branchService;
+        this.franchiseDetailStreamer = franchiseDetailStreamer;
+        this.inventoryAnalyticsService = inventoryAnalyticsService;
+        this.productSearchService = productSearchService;
+        this.stockEventHub = stockEventHub;
     }
 
     /**
@@ -56,24 +91,50 @@ public class FranchiseController {
     }
 
     /**
-     * Lista todas las franquicias activas.
+     * Lista las franquicias activas con paginacion por cursor.
      *
+     * @param after cursor de la pagina anterior (cabecera {@code X-Next-Cursor}).
+     * @param limit tamano de pagina.
      * @return listado resumido de franquicias.
      */
     @GetMapping
-    public List<FranchiseSummaryResponse> list() {
-        return franchiseService.list();
+    public ResponseEntity<List<FranchiseSummaryResponse>> list(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = Cursors.DEFAULT_LIMIT) @Min(1) @Max(Cursors.MAX_LIMIT) int limit
+    ) {
+        return PageResponses.of(franchiseService.list(after, limit));
     }
 
     /**
      * Obtiene el detalle de una franquicia con sus sucursales y productos.
      *
+     * <p>Publica la revision del subarbol como {@code ETag}; con un {@code If-None-Match} vigente
+     * responde 304 tras leer solo la revision.</p>
+     *
      * @param id identificador de la franquicia.
-     * @return detalle de la franquicia.
+     * @param request solicitud, con sus encabezados condicionales.
+     * @return detalle de la franquicia, o null si se respondio 304.
      */
     @GetMapping("/{id}")
-    public FranchiseDetailResponse get(@PathVariable Long id) {
-        return franchiseService.get(id);
+    public ResponseEntity<FranchiseDetailResponse> get(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.of(request, () -> franchiseService.revision(id),
+                () -> franchiseService.getVersioned(id));
+    }
+
+    /**
+     * Obtiene el detalle de una franquicia escribiendo el JSON de forma incremental.
+     *
+     * <p>Mismo documento que {@link #get(Long, WebRequest)}, con memoria constante sin importar la cantidad
+     * de productos. Se activa con {@code ?stream=true}.</p>
+     *
+     * @param id identificador de la franquicia.
+     * @return cuerpo que se escribe en streaming.
+     */
+    @GetMapping(value = "/{id}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> getStreaming(@PathVariable Long id) {
+        FranchiseSummaryResponse franchise = franchiseService.getSummary(id);
+        StreamingResponseBody body = out -> franchiseDetailStreamer.write(franchise, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
@@ -95,12 +156,11 @@ public class FranchiseController {
      * Elimina una franquicia con borrado logico y cascada sobre sucursales/productos.
      *
      * @param id identificador de la franquicia.
-     * @return respuesta sin contenido.
+     * @return 204 si termino o 202 con el trabajo en segundo plano que completa la cascada.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        franchiseService.delete(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<?> delete(@PathVariable Long id) {
+        return DeletionResponses.of(franchiseService.delete(id));
     }
 
     /**
@@ -120,24 +180,77 @@ public class FranchiseController {
     }
 
     /**
-     * Lista sucursales de una franquicia.
+     * Lista sucursales de una franquicia con paginacion por cursor.
      *
      * @param id identificador de la franquicia.
+     * @param after cursor de la pagina anterior (cabecera {@code X-Next-Cursor}).
+     * @param limit tamano de pagina.
      * @return listado de sucursales.
      */
     @GetMapping("/{id}/branches")
-    public List<BranchSummaryResponse> listBranches(@PathVariable Long id) {
-        return branchService.listByFranchise(id);
+    public ResponseEntity<List<BranchSummaryResponse>> listBranches(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = Cursors.DEFAULT_LIMIT) @Min(1) @Max(Cursors.MAX_LIMIT) int limit
+    ) {
+        return PageResponses.of(branchService.listByFranchise(id, after, limit));
+    }
+
+    /**
+     * Busca productos de la franquicia por nombre, ordenados por relevancia y paginados por cursor.
+     *
+     * @param id identificador de la franquicia.
+     * @param q terminos a buscar; cada uno debe ser prefijo de alguna palabra del nombre.
+     * @param after cursor de la pagina anterior (cabecera {@code X-Next-Cursor}).
+     * @param limit tamano de pagina.
+     * @return productos encontrados con su sucursal y puntaje.
+     */
+    @GetMapping("/{id}/products/search")
+    public ResponseEntity<List<ProductSearchHit>> searchProducts(
+            @PathVariable Long id,
+            @RequestParam String q,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = Cursors.DEFAULT_LIMIT) @Min(1) @Max(Cursors.MAX_LIMIT) int limit
+    ) {
+        return PageResponses.of(productSearchService.search(id, q, after, limit));
     }
 
     /**
-     * Retorna el producto con mayor stock por sucursal para una franquicia.
+     * Retorna los productos con mayor stock por sucursal para una franquicia.
      *
      * @param id identificador de la franquicia.
-     * @return lista con el top de stock por sucursal.
+     * @param k productos por sucursal (por defecto 1); a igual stock gana el de menor id.
+     * @return lista con el top de stock por sucursal, ordenada por sucursal y posicion.
      */
     @GetMapping("/{id}/top-stock-products")
-    public List<BranchTopStockProductResponse> topStockProducts(@PathVariable Long id) {
-        return franchiseService.topStockByBranch(id);
+    public List<BranchTopStockProductResponse> topStockProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "1") @Min(1) @Max(FranchiseService.MAX_TOP_K) int k
+    ) {
+        return franchiseService.topStockByBranch(id, k);
+    }
+
+    /**
+     * Abre un stream Server-Sent Events con las altas, cambios de stock y bajas de productos de una
+     * franquicia, confirmados desde la suscripcion.
+     *
+     * @param id identificador de la franquicia.
+     * @param branchId sucursal a la que se limitan los eventos de productos (opcional).
+     * @return stream de eventos.
+     */
+    @GetMapping(value = "/{id}/stock-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stockEvents(@PathVariable Long id, @RequestParam(required = false) Long branchId) {
+        return stockEventHub.subscribe(id, branchId);
+    }
+
+    /**
+     * Retorna las estadisticas de inventario de una franquicia y de cada sucursal.
+     *
+     * @param id identificador de la franquicia.
+     * @return totales, minimo/maximo/promedio, productos sin stock e histograma de stock.
+     */
+    @GetMapping("/{id}/analytics")
+    public FranchiseAnalyticsResponse analytics(@PathVariable Long id) {
+        return inventoryAnalyticsService.franchise(id);
     }
 }
@@ -0,0 +1,35 @@
+package com.sebastianrodriguez.backend.controller;
+
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Convierte paginas por cursor en respuestas HTTP: el cuerpo sigue siendo un arreglo JSON y el
+ * cursor siguiente viaja en la cabecera {@value #NEXT_CURSOR_HEADER}.
+ */
+final class PageResponses {
+
+    /**
+     * Cabecera con el cursor de la siguiente pagina; se omite en la ultima pagina.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private PageResponses() {
+    }
+
+    /**
+     * Construye la respuesta de una pagina.
+     *
+     * @param page pagina obtenida del servicio.
+     * @param <T> tipo de los elementos.
+     * @return respuesta 200 con los elementos y el cursor siguiente si existe.
+     */
+    static <T> ResponseEntity<List<T>> of(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return builder.body(page.items());
+    }
+}
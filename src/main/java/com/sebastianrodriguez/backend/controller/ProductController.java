@@ -1,22 +1,31 @@
 package com.sebastianrodriguez.backend.controller;
 
+import com.sebastianrodriguez.backend.dto.ProductLookupRequest;
+import com.sebastianrodriguez.backend.dto.ProductLookupResponse;
 import com.sebastianrodriguez.backend.dto.ProductResponse;
 import com.sebastianrodriguez.backend.dto.ProductUpdateRequest;
+import com.sebastianrodriguez.backend.dto.StockAdjustmentRequest;
 import com.sebastianrodriguez.backend.service.ProductService;
 import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
  * Controlador REST para operaciones CRUD de productos.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/products")
 public class ProductController {
 
@@ -31,6 +40,29 @@ public class ProductController {
         this.productService = productService;
     }
 
+    /**
+     * Obtiene varios productos por id con una sola consulta; los ids faltantes se informan sin
+     * fallar la solicitud.
+     *
+     * @param ids identificadores separados por coma, en el orden de la respuesta.
+     * @return productos encontrados e ids faltantes.
+     */
+    @GetMapping(params = "ids")
+    public ProductLookupResponse getAll(@RequestParam List<Long> ids) {
+        return productService.getAll(ids);
+    }
+
+    /**
+     * Variante de {@link #getAll(List)} con los ids en el cuerpo, para listas que no caben en la URL.
+     *
+     * @param request ids a consultar.
+     * @return productos encontrados e ids faltantes.
+     */
+    @PostMapping("/lookup")
+    public ProductLookupResponse lookup(@Valid @RequestBody ProductLookupRequest request) {
+        return productService.getAll(request.ids());
+    }
+
     /**
      * Obtiene el detalle de un producto.
      *
@@ -57,6 +89,22 @@ public class ProductController {
         return productService.update(id, request);
     }
 
+    /**
+     * Ajusta el stock de un producto sumando un delta con signo, sin lectura previa.
+     *
+     * @param id identificador del producto.
+     * @param request delta a aplicar, hasta {@link StockAdjustmentRequest#MAX_DELTA} en valor
+     *                absoluto (400 si no).
+     * @return producto con el stock resultante (409 si quedaria negativo o desbordado).
+     */
+    @PatchMapping("/{id}/stock")
+    public ProductResponse adjustStock(
+            @PathVariable Long id,
+            @Valid @RequestBody StockAdjustmentRequest request
+    ) {
+        return productService.adjustStock(id, request.delta());
+    }
+
     /**
      * Elimina un producto (borrado logico).
      *
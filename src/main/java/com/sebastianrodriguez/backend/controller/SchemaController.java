@@ -0,0 +1,46 @@
+package com.sebastianrodriguez.backend.controller;
+
+import com.sebastianrodriguez.backend.config.AvroHttpMessageConverter;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST que publica los esquemas de las respuestas en Avro.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/schemas")
+public class SchemaController {
+
+    private final AvroHttpMessageConverter avroConverter;
+
+    /**
+     * Construye el controlador con su dependencia principal.
+     *
+     * @param avroConverter convertidor Avro, dueno de los esquemas.
+     */
+    public SchemaController(AvroHttpMessageConverter avroConverter) {
+        this.avroConverter = avroConverter;
+    }
+
+    /**
+     * Obtiene el esquema Avro de un record; las listas usan un arreglo de ese record.
+     *
+     * @param name nombre simple del DTO, por ejemplo {@code BranchDetailResponse}.
+     * @return esquema en JSON.
+     */
+    @GetMapping(value = "/avro/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String avro(@PathVariable String name) {
+        return avroConverter.supportedTypes()
+                .stream()
+                .filter(type -> type.getSimpleName().equals(name))
+                .findFirst()
+                .map(type -> avroConverter.schemaFor(type).getAvroSchema().toString())
+                .orElseThrow(() -> new NotFoundException("Avro schema not found: " + name));
+    }
+}
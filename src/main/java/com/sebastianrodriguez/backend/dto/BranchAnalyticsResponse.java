@@ -0,0 +1,15 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * DTO con las estadisticas de inventario de una sucursal.
+ *
+ * @param branchId identificador de la sucursal.
+ * @param branchName nombre de la sucursal.
+ * @param stats estadisticas de sus productos.
+ */
+public record BranchAnalyticsResponse(
+        Long branchId,
+        String branchName,
+        InventoryStatsResponse stats
+) {
+}
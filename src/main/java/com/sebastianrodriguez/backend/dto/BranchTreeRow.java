@@ -0,0 +1,25 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * Fila plana del detalle de una sucursal (la sucursal con uno de sus productos), leida como
+ * proyeccion sin cargar entidades. Los campos de producto son null si la sucursal no tiene
+ * productos.
+ *
+ * @param franchiseId identificador de la franquicia de la sucursal.
+ * @param branchId identificador de la sucursal.
+ * @param branchName nombre de la sucursal.
+ * @param revision revision del subarbol de la sucursal.
+ * @param productId identificador del producto.
+ * @param productName nombre del producto.
+ * @param stock stock del producto.
+ */
+public record BranchTreeRow(
+        Long franchiseId,
+        Long branchId,
+        String branchName,
+        long revision,
+        Long productId,
+        String productName,
+        Integer stock
+) {
+}
@@ -0,0 +1,21 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * DTO con los contadores de un cache de respuestas.
+ *
+ * @param name nombre del cache.
+ * @param size cantidad aproximada de entradas.
+ * @param hits lecturas servidas desde el cache.
+ * @param misses lecturas que debieron cargarse.
+ * @param evictions entradas desalojadas por tamano o expiracion.
+ * @param hitRate proporcion de aciertos (0 a 1).
+ */
+public record CacheStatsResponse(
+        String name,
+        long size,
+        long hits,
+        long misses,
+        long evictions,
+        double hitRate
+) {
+}
@@ -0,0 +1,16 @@
+package com.sebastianrodriguez.backend.dto;
+
+import java.util.List;
+
+/**
+ * DTO de una pagina del registro de cambios.
+ *
+ * @param changes cambios posteriores a {@code since}, en orden de confirmacion.
+ * @param next valor de {@code since} para la siguiente consulta; igual al recibido si no hubo
+ *             cambios visibles.
+ */
+public record ChangeFeedResponse(
+        List<ChangeRecord> changes,
+        long next
+) {
+}
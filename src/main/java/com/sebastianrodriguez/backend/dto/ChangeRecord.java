@@ -0,0 +1,47 @@
+package com.sebastianrodriguez.backend.dto;
+
+import java.time.Instant;
+
+/**
+ * DTO de una fila del registro de cambios.
+ *
+ * <p>Sin {@code productId} (entidad {@code PRODUCT}) o sin {@code branchId} (entidad
+ * {@code BRANCH}) el cambio cubre todas las filas de esa entidad en la sucursal o franquicia, como
+ * en los borrados en cascada.</p>
+ *
+ * @param id posicion en el registro; se usa como {@code since} de la siguiente consulta.
+ * @param entity entidad modificada.
+ * @param operation operacion aplicada.
+ * @param franchiseId identificador de la franquicia.
+ * @param branchId identificador de la sucursal, o null.
+ * @param productId identificador del producto, o null.
+ * @param changedAt instante de la escritura.
+ */
+public record ChangeRecord(
+        long id,
+        Entity entity,
+        Operation operation,
+        Long franchiseId,
+        Long branchId,
+        Long productId,
+        Instant changedAt
+) {
+
+    /**
+     * Entidad modificada.
+     */
+    public enum Entity {
+        FRANCHISE,
+        BRANCH,
+        PRODUCT
+    }
+
+    /**
+     * Operacion aplicada.
+     */
+    public enum Operation {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+}
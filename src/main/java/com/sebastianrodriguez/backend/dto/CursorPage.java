@@ -0,0 +1,16 @@
+package com.sebastianrodriguez.backend.dto;
+
+import java.util.List;
+
+/**
+ * Pagina de resultados obtenida con paginacion por cursor (keyset).
+ *
+ * @param items elementos de la pagina, ordenados por id.
+ * @param nextCursor cursor opaco para pedir la siguiente pagina, o null si no hay mas.
+ * @param <T> tipo de los elementos.
+ */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
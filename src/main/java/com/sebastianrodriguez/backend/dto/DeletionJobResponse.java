@@ -0,0 +1,30 @@
+package com.sebastianrodriguez.backend.dto;
+
+import com.sebastianrodriguez.backend.entity.DeletionJob;
+import java.time.Instant;
+
+/**
+ * DTO con el estado de un borrado en segundo plano.
+ *
+ * @param id identificador del trabajo.
+ * @param targetType tipo de raiz eliminada.
+ * @param targetId id de la franquicia o sucursal eliminada.
+ * @param status estado del trabajo.
+ * @param phase etapa en curso.
+ * @param processed filas marcadas como eliminadas hasta ahora.
+ * @param createdAt instante de creacion.
+ * @param updatedAt instante del ultimo avance.
+ * @param finishedAt instante de finalizacion o null si no termino.
+ */
+public record DeletionJobResponse(
+        Long id,
+        DeletionJob.Target targetType,
+        Long targetId,
+        DeletionJob.Status status,
+        DeletionJob.Phase phase,
+        long processed,
+        Instant createdAt,
+        Instant updatedAt,
+        Instant finishedAt
+) {
+}
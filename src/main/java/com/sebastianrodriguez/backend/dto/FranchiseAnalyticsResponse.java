@@ -0,0 +1,19 @@
+package com.sebastianrodriguez.backend.dto;
+
+import java.util.List;
+
+/**
+ * DTO con las estadisticas de inventario de una franquicia y de cada sucursal.
+ *
+ * @param franchiseId identificador de la franquicia.
+ * @param franchiseName nombre de la franquicia.
+ * @param totals estadisticas de todos los productos de la franquicia.
+ * @param branches estadisticas por sucursal, ordenadas por id.
+ */
+public record FranchiseAnalyticsResponse(
+        Long franchiseId,
+        String franchiseName,
+        InventoryStatsResponse totals,
+        List<BranchAnalyticsResponse> branches
+) {
+}
@@ -0,0 +1,15 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * Proyeccion de los datos propios de una franquicia junto con la revision de su subarbol.
+ *
+ * @param id identificador de la franquicia.
+ * @param name nombre de la franquicia.
+ * @param revision revision del subarbol.
+ */
+public record FranchiseHeaderRow(
+        Long id,
+        String name,
+        long revision
+) {
+}
@@ -0,0 +1,20 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * Fila plana del arbol de una franquicia (sucursal con uno de sus productos) usada para
+ * recorrerlo en streaming. Los campos de producto son null si la sucursal no tiene productos.
+ *
+ * @param branchId identificador de la sucursal.
+ * @param branchName nombre de la sucursal.
+ * @param productId identificador del producto.
+ * @param productName nombre del producto.
+ * @param stock stock del producto.
+ */
+public record FranchiseTreeRow(
+        Long branchId,
+        String branchName,
+        Long productId,
+        String productName,
+        Integer stock
+) {
+}
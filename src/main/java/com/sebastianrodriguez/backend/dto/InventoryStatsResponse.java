@@ -0,0 +1,25 @@
+package com.sebastianrodriguez.backend.dto;
+
+import java.util.List;
+
+/**
+ * DTO con las estadisticas de inventario de una sucursal o franquicia.
+ *
+ * @param productCount cantidad de productos.
+ * @param totalStock suma del stock.
+ * @param minStock stock minimo o null si no hay productos.
+ * @param maxStock stock maximo o null si no hay productos.
+ * @param avgStock stock promedio o null si no hay productos.
+ * @param outOfStockCount productos con stock 0.
+ * @param histogram cantidad de productos por rango de stock.
+ */
+public record InventoryStatsResponse(
+        long productCount,
+        long totalStock,
+        Integer minStock,
+        Integer maxStock,
+        Double avgStock,
+        long outOfStockCount,
+        List<StockBucket> histogram
+) {
+}
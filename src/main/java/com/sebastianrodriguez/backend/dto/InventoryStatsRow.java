@@ -0,0 +1,35 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * Agregados de inventario de una sucursal calculados por la base en una sola pasada.
+ *
+ * <p>Los campos {@code stock*} cuentan productos por rango de stock: 0, 1-10, 11-100, 101-1000 y
+ * mas de 1000. Minimo y maximo son null si la sucursal no tiene productos; el promedio se deriva
+ * de {@code totalStock / productCount}.</p>
+ *
+ * @param branchId identificador de la sucursal.
+ * @param branchName nombre de la sucursal.
+ * @param productCount cantidad de productos.
+ * @param totalStock suma del stock.
+ * @param minStock stock minimo.
+ * @param maxStock stock maximo.
+ * @param stockZero productos sin stock.
+ * @param stockUpTo10 productos con stock entre 1 y 10.
+ * @param stockUpTo100 productos con stock entre 11 y 100.
+ * @param stockUpTo1000 productos con stock entre 101 y 1000.
+ * @param stockOver1000 productos con stock mayor a 1000.
+ */
+public record InventoryStatsRow(
+        Long branchId,
+        String branchName,
+        Long productCount,
+        Long totalStock,
+        Integer minStock,
+        Integer maxStock,
+        Long stockZero,
+        Long stockUpTo10,
+        Long stockUpTo100,
+        Long stockUpTo1000,
+        Long stockOver1000
+) {
+}
@@ -0,0 +1,20 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * Proyeccion de un producto con los ids de su sucursal y franquicia, usada para armar la entrada
+ * del cache sin cargar entidades.
+ *
+ * @param id identificador del producto.
+ * @param name nombre del producto.
+ * @param stock stock actual.
+ * @param branchId identificador de la sucursal.
+ * @param franchiseId identificador de la franquicia.
+ */
+public record ProductHierarchyRow(
+        Long id,
+        String name,
+        int stock,
+        Long branchId,
+        Long franchiseId
+) {
+}
@@ -0,0 +1,13 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * DTO con el detalle de una fila rechazada en una importacion masiva.
+ *
+ * @param line numero de linea en el cuerpo recibido (empieza en 1).
+ * @param message motivo del rechazo.
+ */
+public record ProductImportError(
+        long line,
+        String message
+) {
+}
@@ -0,0 +1,17 @@
+package com.sebastianrodriguez.backend.dto;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una importacion masiva de productos.
+ *
+ * @param accepted filas insertadas.
+ * @param rejected filas descartadas por errores de formato o validacion.
+ * @param errors detalle de las primeras filas rechazadas.
+ */
+public record ProductImportResponse(
+        int accepted,
+        int rejected,
+        List<ProductImportError> errors
+) {
+}
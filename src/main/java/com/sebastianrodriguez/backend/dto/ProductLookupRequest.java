@@ -0,0 +1,15 @@
+package com.sebastianrodriguez.backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * DTO para consultar varios productos por id en una sola solicitud.
+ *
+ * @param ids identificadores de los productos, en el orden en que se quieren recibir.
+ */
+public record ProductLookupRequest(
+        @NotEmpty List<@NotNull Long> ids
+) {
+}
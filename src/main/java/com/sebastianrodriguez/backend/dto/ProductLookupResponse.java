@@ -0,0 +1,15 @@
+package com.sebastianrodriguez.backend.dto;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una consulta de varios productos por id.
+ *
+ * @param products productos encontrados, en el orden pedido y sin repetidos.
+ * @param missing ids pedidos que no existen o fueron eliminados, en el orden pedido.
+ */
+public record ProductLookupResponse(
+        List<ProductResponse> products,
+        List<Long> missing
+) {
+}
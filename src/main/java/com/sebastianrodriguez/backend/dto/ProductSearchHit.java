@@ -0,0 +1,21 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * DTO de un producto encontrado por la busqueda por nombre.
+ *
+ * @param id identificador del producto.
+ * @param name nombre del producto.
+ * @param stock stock actual.
+ * @param branchId identificador de la sucursal.
+ * @param branchName nombre de la sucursal.
+ * @param score relevancia: 2 por termino que coincide con una palabra completa, 1 por prefijo.
+ */
+public record ProductSearchHit(
+        Long id,
+        String name,
+        int stock,
+        Long branchId,
+        String branchName,
+        int score
+) {
+}
@@ -0,0 +1,21 @@
+package com.sebastianrodriguez.backend.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * DTO para ajustar el stock de un producto de forma relativa.
+ *
+ * @param delta cantidad a sumar (positiva) o restar (negativa) al stock actual, entre
+ *              {@code -MAX_DELTA} y {@code MAX_DELTA}.
+ */
+public record StockAdjustmentRequest(
+        @NotNull @Min(-StockAdjustmentRequest.MAX_DELTA) @Max(StockAdjustmentRequest.MAX_DELTA) Integer delta
+) {
+
+    /**
+     * Maximo valor absoluto de un ajuste.
+     */
+    public static final int MAX_DELTA = 1_000_000;
+}
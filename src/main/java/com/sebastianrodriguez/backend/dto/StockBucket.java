@@ -0,0 +1,15 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * Rango del histograma de stock.
+ *
+ * @param min stock minimo del rango (inclusivo).
+ * @param max stock maximo del rango (inclusivo) o null si es abierto.
+ * @param count cantidad de productos en el rango.
+ */
+public record StockBucket(
+        int min,
+        Integer max,
+        long count
+) {
+}
@@ -0,0 +1,45 @@
+package com.sebastianrodriguez.backend.dto;
+
+import java.util.Locale;
+
+/**
+ * Evento de cambio de productos de una franquicia, enviado por {@code GET /api/franchises/{id}/stock-events}.
+ *
+ * @param type tipo de evento.
+ * @param branchId identificador de la sucursal afectada, o null si afecta a toda la franquicia.
+ * @param productId identificador del producto, o null en eventos de sucursal o franquicia.
+ * @param name nombre del producto, o null si no aplica.
+ * @param stock stock resultante del producto, o null si no aplica.
+ */
+public record StockEvent(
+        Type type,
+        Long branchId,
+        Long productId,
+        String name,
+        Integer stock
+) {
+
+    /**
+     * Tipo de evento; su nombre en minusculas con guiones es el campo {@code event} del stream.
+     */
+    public enum Type {
+        PRODUCT_CREATED,
+        STOCK_CHANGED,
+        PRODUCT_DELETED,
+        BRANCH_DELETED,
+        FRANCHISE_DELETED,
+        /**
+         * Se perdieron eventos (buffer lleno o carga masiva): volver a leer el estado.
+         */
+        RESYNC;
+
+        /**
+         * Nombre del evento en el stream, por ejemplo {@code stock-changed}.
+         *
+         * @return nombre del evento.
+         */
+        public String eventName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+}
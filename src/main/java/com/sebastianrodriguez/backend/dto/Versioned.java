@@ -0,0 +1,14 @@
+package com.sebastianrodriguez.backend.dto;
+
+/**
+ * Respuesta junto con la revision de los datos con que se armo, publicada como ETag.
+ *
+ * @param body respuesta.
+ * @param revision revision del subarbol leida en la misma transaccion que la respuesta.
+ * @param <T> tipo de la respuesta.
+ */
+public record Versioned<T>(
+        T body,
+        long revision
+) {
+}
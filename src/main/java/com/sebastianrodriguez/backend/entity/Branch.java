@@ -7,9 +7,11 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,7 +22,10 @@ import org.hibernate.annotations.SQLRestriction;
  * Entidad de sucursal con borrado logico y relacion a franquicia/productos.
  */
 @Entity
-@Table(name = "branches")
+@Table(
+        name = "branches",
+        indexes = @Index(name = "idx_branches_franchise_id", columnList = "franchise_id, deleted, id")
+)
 @SQLDelete(sql = "UPDATE branches SET deleted = true WHERE id = ?")
 @SQLRestriction("deleted = false")
 public class Branch {
@@ -35,11 +40,15 @@ public class Branch {
     @Column(nullable = false)
     private boolean deleted = false;
 
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long revision;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "franchise_id", nullable = false)
     private Franchise franchise;
 
     @OneToMany(mappedBy = "branch", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
     private List<Product> products = new ArrayList<>();
 
     /**
@@ -78,6 +87,18 @@ public class Branch {
         this.name = name;
     }
 
+    /**
+     * Obtiene la revision del subarbol de la sucursal.
+     *
+     * <p>Solo se modifica con actualizaciones masivas (nunca al guardar la entidad), para que un
+     * guardado posterior en la misma transaccion no pise el incremento.</p>
+     *
+     * @return revision actual.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
     /**
      * Indica si esta marcada como eliminada.
      *
@@ -0,0 +1,106 @@
+package com.sebastianrodriguez.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Lider de stock vigente por sucursal, mantenido incrementalmente por las escrituras de productos.
+ *
+ * <p>Desempate determinista: mayor stock y, a igual stock, menor id de producto. Una sucursal
+ * sin productos conserva su fila con {@code productId} nulo para poder bloquearla al actualizar.</p>
+ */
+@Entity
+@Table(
+        name = "branch_top_stock",
+        indexes = @Index(name = "idx_branch_top_stock_franchise", columnList = "franchise_id, branch_id")
+)
+public class BranchTopStock {
+
+    @Id
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Column(name = "franchise_id", nullable = false)
+    private Long franchiseId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private int stock;
+
+    /**
+     * Obtiene el identificador de la sucursal.
+     *
+     * @return id de la sucursal.
+     */
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    /**
+     * Asigna el identificador de la sucursal.
+     *
+     * @param branchId id de la sucursal.
+     */
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    /**
+     * Obtiene el identificador de la franquicia.
+     *
+     * @return id de la franquicia.
+     */
+    public Long getFranchiseId() {
+        return franchiseId;
+    }
+
+    /**
+     * Asigna el identificador de la franquicia.
+     *
+     * @param franchiseId id de la franquicia.
+     */
+    public void setFranchiseId(Long franchiseId) {
+        this.franchiseId = franchiseId;
+    }
+
+    /**
+     * Obtiene el producto lider.
+     *
+     * @return id del producto o null si la sucursal no tiene productos.
+     */
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * Asigna el producto lider.
+     *
+     * @param productId id del producto.
+     */
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    /**
+     * Obtiene el stock del producto lider.
+     *
+     * @return cantidad en stock.
+     */
+    public int getStock() {
+        return stock;
+    }
+
+    /**
+     * Asigna el stock del producto lider.
+     *
+     * @param stock cantidad en stock.
+     */
+    public void setStock(int stock) {
+        this.stock = stock;
+    }
+}
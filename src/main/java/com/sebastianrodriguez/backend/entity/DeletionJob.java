@@ -0,0 +1,287 @@
+package com.sebastianrodriguez.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Trabajo de borrado logico en segundo plano de una jerarquia grande (franquicia o sucursal).
+ *
+ * <p>Guarda el avance ({@code phase} y {@code cursor}, el ultimo id procesado) tras cada lote, de
+ * modo que otra instancia o un reinicio pueda retomarlo una vez vencida la concesion
+ * ({@code leaseUntil}) de quien lo estaba ejecutando.</p>
+ */
+@Entity
+@Table(
+        name = "deletion_jobs",
+        indexes = @Index(name = "idx_deletion_jobs_status", columnList = "status, lease_until")
+)
+public class DeletionJob {
+
+    /**
+     * Tipo de raiz a eliminar.
+     */
+    public enum Target {
+        FRANCHISE,
+        BRANCH
+    }
+
+    /**
+     * Estado del trabajo.
+     */
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE
+    }
+
+    /**
+     * Etapa del recorrido: primero productos y luego sucursales (solo para franquicias).
+     */
+    public enum Phase {
+        PRODUCTS,
+        BRANCHES
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false, length = 20)
+    private Target targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Phase phase = Phase.PRODUCTS;
+
+    @Column(name = "last_id", nullable = false)
+    private long cursor;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    /**
+     * Obtiene el identificador.
+     *
+     * @return id del trabajo.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Asigna el identificador.
+     *
+     * @param id id del trabajo.
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Obtiene el tipo de raiz a eliminar.
+     *
+     * @return tipo de raiz.
+     */
+    public Target getTargetType() {
+        return targetType;
+    }
+
+    /**
+     * Asigna el tipo de raiz a eliminar.
+     *
+     * @param targetType tipo de raiz.
+     */
+    public void setTargetType(Target targetType) {
+        this.targetType = targetType;
+    }
+
+    /**
+     * Obtiene el id de la raiz a eliminar.
+     *
+     * @return id de la franquicia o sucursal.
+     */
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    /**
+     * Asigna el id de la raiz a eliminar.
+     *
+     * @param targetId id de la franquicia o sucursal.
+     */
+    public void setTargetId(Long targetId) {
+        this.targetId = targetId;
+    }
+
+    /**
+     * Obtiene el estado.
+     *
+     * @return estado del trabajo.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Asigna el estado.
+     *
+     * @param status estado del trabajo.
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Obtiene la etapa en curso.
+     *
+     * @return etapa.
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Asigna la etapa en curso.
+     *
+     * @param phase etapa.
+     */
+    public void setPhase(Phase phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Obtiene el ultimo id procesado en la etapa en curso.
+     *
+     * @return id de avance.
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Asigna el ultimo id procesado en la etapa en curso.
+     *
+     * @param cursor id de avance.
+     */
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Obtiene la cantidad de filas marcadas como eliminadas.
+     *
+     * @return filas procesadas.
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Asigna la cantidad de filas marcadas como eliminadas.
+     *
+     * @param processed filas procesadas.
+     */
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    /**
+     * Obtiene el vencimiento de la concesion de ejecucion.
+     *
+     * @return instante de vencimiento o null si nadie lo ejecuta.
+     */
+    public Instant getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    /**
+     * Asigna el vencimiento de la concesion de ejecucion.
+     *
+     * @param leaseUntil instante de vencimiento.
+     */
+    public void setLeaseUntil(Instant leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    /**
+     * Obtiene la fecha de creacion.
+     *
+     * @return instante de creacion.
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Asigna la fecha de creacion.
+     *
+     * @param createdAt instante de creacion.
+     */
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Obtiene la fecha del ultimo avance.
+     *
+     * @return instante del ultimo avance.
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Asigna la fecha del ultimo avance.
+     *
+     * @param updatedAt instante del ultimo avance.
+     */
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Obtiene la fecha de finalizacion.
+     *
+     * @return instante de finalizacion o null si no termino.
+     */
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Asigna la fecha de finalizacion.
+     *
+     * @param finishedAt instante de finalizacion.
+     */
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -7,6 +7,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import java.util.ArrayList;
 import java.util.List;
@@ -32,7 +33,11 @@ public class Franchise {
     @Column(nullable = false)
     private boolean deleted = false;
 
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long revision;
+
     @OneToMany(mappedBy = "franchise", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
     private List<Branch> branches = new ArrayList<>();
 
     /**
@@ -71,6 +76,18 @@ public class Franchise {
         this.name = name;
     }
 
+    /**
+     * Obtiene la revision propia de la franquicia; la de su subarbol le suma las de sus sucursales.
+     *
+     * <p>Solo se modifica con actualizaciones masivas (nunca al guardar la entidad), para que un
+     * guardado posterior en la misma transaccion no pise el incremento.</p>
+     *
+     * @return revision actual.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
     /**
      * Indica si esta marcada como eliminada.
      *
@@ -6,6 +6,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -16,7 +17,13 @@ import org.hibernate.annotations.SQLRestriction;
  * Entidad de producto con borrado logico y relacion a sucursal.
  */
 @Entity
-@Table(name = "products")
+@Table(
+        name = "products",
+        indexes = {
+                @Index(name = "idx_products_branch_stock", columnList = "branch_id, deleted, stock desc, id"),
+                @Index(name = "idx_products_branch_id", columnList = "branch_id, deleted, id")
+        }
+)
 @SQLDelete(sql = "UPDATE products SET deleted = true WHERE id = ?")
 @SQLRestriction("deleted = false")
 public class Product {
@@ -0,0 +1,20 @@
+package com.sebastianrodriguez.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepcion de solicitud invalida con respuesta HTTP 400.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+
+    /**
+     * Construye la excepcion con un mensaje descriptivo.
+     *
+     * @param message detalle del error.
+     */
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
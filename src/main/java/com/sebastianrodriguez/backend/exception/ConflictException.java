@@ -0,0 +1,20 @@
+package com.sebastianrodriguez.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepcion de conflicto con el estado actual del recurso, con respuesta HTTP 409.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+
+    /**
+     * Construye la excepcion con un mensaje descriptivo.
+     *
+     * @param message detalle del error.
+     */
+    public ConflictException(String message) {
+        super(message);
+    }
+}
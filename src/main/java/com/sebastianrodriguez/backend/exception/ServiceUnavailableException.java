@@ -0,0 +1,20 @@
+package com.sebastianrodriguez.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepcion por sobrecarga temporal del servicio, con respuesta HTTP 503.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+
+    /**
+     * Construye la excepcion con un mensaje descriptivo.
+     *
+     * @param message detalle del error.
+     */
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,12 @@
 package com.sebastianrodriguez.backend.repository;
 
+import com.sebastianrodriguez.backend.dto.BranchSummaryResponse;
+import com.sebastianrodriguez.backend.dto.BranchTreeRow;
+import com.sebastianrodriguez.backend.dto.FranchiseTreeRow;
 import com.sebastianrodriguez.backend.entity.Branch;
 import java.util.List;
 import java.util.Optional;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -23,13 +26,162 @@ public interface BranchRepository extends JpaRepository<Branch, Long> {
     List<Branch> findByFranchiseId(Long franchiseId);
 
     /**
-     * Obtiene una sucursal con sus productos cargados.
+     * Lista sucursales de una franquicia por rango de id (paginacion por cursor, sin OFFSET),
+     * proyectando solo las columnas del resumen.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param afterId id a partir del cual listar (exclusivo).
+     * @param limit cantidad maxima de filas.
+     * @return sucursales ordenadas por id.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.BranchSummaryResponse(b.id, b.name)
+            from Branch b
+            where b.franchise.id = :franchiseId and b.id > :afterId
+            order by b.id
+            """)
+    List<BranchSummaryResponse> findSummariesByFranchiseId(
+            @Param("franchiseId") Long franchiseId,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    /**
+     * Busca una sucursal activa de una franquicia activa.
+     *
+     * <p>Una sucursal cuya franquicia fue eliminada sigue sin marcar hasta que el borrado en
+     * segundo plano la alcanza, pero ya no debe verse.</p>
      *
      * @param id identificador de la sucursal.
-     * @return sucursal con productos si existe.
+     * @return sucursal si existe y su franquicia no fue eliminada.
      */
-    @EntityGraph(attributePaths = "products")
-    Optional<Branch> findWithProductsById(Long id);
+    @Query("select b from Branch b where b.id = :id and b.franchise.deleted = false")
+    Optional<Branch> findActiveById(@Param("id") Long id);
+
+    /**
+     * Indica si existe una sucursal activa de una franquicia activa.
+     *
+     * @param id identificador de la sucursal.
+     * @return true si existe.
+     */
+    @Query("select count(b) > 0 from Branch b where b.id = :id and b.franchise.deleted = false")
+    boolean existsActiveById(@Param("id") Long id);
+
+    /**
+     * Lee solo la revision de una sucursal activa de una franquicia activa.
+     *
+     * @param id identificador de la sucursal.
+     * @return revision si la sucursal existe.
+     */
+    @Query("select b.revision from Branch b where b.id = :id and b.franchise.deleted = false")
+    Optional<Long> findRevisionById(@Param("id") Long id);
+
+    /**
+     * Incrementa la revision de una sucursal tras un cambio en su detalle.
+     *
+     * @param id identificador de la sucursal.
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
+    @Query("update Branch b set b.revision = b.revision + 1 where b.id = :id")
+    int incrementRevision(@Param("id") Long id);
+
+    /**
+     * Suma varios cambios a la revision de una sucursal de una sola vez.
+     *
+     * @param id identificador de la sucursal.
+     * @param changes cantidad de cambios a sumar.
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
+    @Query("update Branch b set b.revision = b.revision + :changes where b.id = :id")
+    int addToRevision(@Param("id") Long id, @Param("changes") long changes);
+
+    /**
+     * Lee el detalle de una sucursal activa como filas sucursal/producto, en una sola consulta y
+     * sin cargar entidades.
+     *
+     * @param id identificador de la sucursal.
+     * @return filas ordenadas por producto; vacia si la sucursal no existe o su franquicia fue
+     *         eliminada.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.BranchTreeRow(f.id, b.id, b.name, b.revision, p.id, p.name, p.stock)
+            from Branch b
+            join b.franchise f
+            left join b.products p
+            where b.id = :id
+            and f.deleted = false
+            order by p.id
+            """)
+    List<BranchTreeRow> findTreeById(@Param("id") Long id);
+
+    /**
+     * Lee el arbol sucursal/producto de una franquicia ordenado por sucursal y producto, como
+     * proyecciones.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @return filas sucursal/producto.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.FranchiseTreeRow(b.id, b.name, p.id, p.name, p.stock)
+            from Branch b
+            left join b.products p
+            where b.franchise.id = :franchiseId
+            order by b.id, p.id
+            """)
+    List<FranchiseTreeRow> findTreeByFranchiseId(@Param("franchiseId") Long franchiseId);
+
+    /**
+     * Marca como eliminada solo la sucursal, sin recorrer sus productos en cascada.
+     *
+     * @param id identificador de la sucursal.
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
+    @Query("update Branch b set b.deleted = true where b.id = :id")
+    int softDeleteById(@Param("id") Long id);
+
+    /**
+     * Obtiene la franquicia de una sucursal aunque ya este marcada como eliminada.
+     *
+     * <p>Consulta nativa para saltar el filtro de borrado logico de la entidad.</p>
+     *
+     * @param id identificador de la sucursal.
+     * @return id de la franquicia si la sucursal existe.
+     */
+    @Query(value = "select franchise_id from branches where id = :id", nativeQuery = true)
+    Optional<Long> findFranchiseIdIncludingDeleted(@Param("id") Long id);
+
+    /**
+     * Lista el siguiente lote de ids de sucursales activas de una franquicia.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param afterId id a partir del cual listar (exclusivo).
+     * @param limit tamano del lote.
+     * @return ids ordenados.
+     */
+    @Query("select b.id from Branch b where b.franchise.id = :franchiseId and b.id > :afterId order by b.id")
+    List<Long> findIdsByFranchiseId(@Param("franchiseId") Long franchiseId, @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Marca como eliminadas las sucursales de una franquicia dentro de un rango de ids.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param afterId inicio del rango (exclusivo).
+     * @param upToId fin del rango (inclusivo).
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
+    @Query("""
+            update Branch b set b.deleted = true
+            where b.franchise.id = :franchiseId and b.id > :afterId and b.id <= :upToId and b.deleted = false
+            """)
+    int softDeleteByFranchiseIdInRange(
+            @Param("franchiseId") Long franchiseId,
+            @Param("afterId") long afterId,
+            @Param("upToId") long upToId
+    );
 
     /**
      * Marca como eliminadas las sucursales de una franquicia (soft delete).
@@ -0,0 +1,81 @@
+package com.sebastianrodriguez.backend.repository;
+
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.entity.BranchTopStock;
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repositorio JPA para el lider de stock por sucursal.
+ */
+public interface BranchTopStockRepository extends JpaRepository<BranchTopStock, Long> {
+
+    /**
+     * Obtiene el lider de una sucursal bloqueando la fila para su actualizacion.
+     *
+     * @param branchId identificador de la sucursal.
+     * @return lider de la sucursal si existe.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from BranchTopStock t where t.branchId = :branchId")
+    Optional<BranchTopStock> findForUpdate(@Param("branchId") Long branchId);
+
+    /**
+     * Crea el lider vacio de una sucursal si no existe y, en ambos casos, bloquea su fila.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param franchiseId identificador de la franquicia de la sucursal.
+     * @return cantidad de filas afectadas segun el driver.
+     */
+    @Modifying
+    @Query(value = """
+            insert into branch_top_stock (branch_id, franchise_id, product_id, stock)
+            values (:branchId, :franchiseId, null, 0)
+            on duplicate key update branch_id = branch_id
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("branchId") Long branchId, @Param("franchiseId") Long franchiseId);
+
+    /**
+     * Obtiene el reporte de top stock de una franquicia con una lectura por rango del indice.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @return un registro por sucursal con productos, ordenado por sucursal.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse(
+                b.id, b.name, p.id, p.name, p.stock
+            )
+            from BranchTopStock t
+            join Branch b on b.id = t.branchId
+            join Product p on p.id = t.productId
+            where t.franchiseId = :franchiseId
+            order by t.branchId
+            """)
+    List<BranchTopStockProductResponse> findReportByFranchiseId(@Param("franchiseId") Long franchiseId);
+
+    /**
+     * Elimina el lider de una sucursal.
+     *
+     * @param branchId identificador de la sucursal.
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
+    @Query("delete from BranchTopStock t where t.branchId = :branchId")
+    int deleteByBranchId(@Param("branchId") Long branchId);
+
+    /**
+     * Elimina los lideres de todas las sucursales de una franquicia.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
+    @Query("delete from BranchTopStock t where t.franchiseId = :franchiseId")
+    int deleteByFranchiseId(@Param("franchiseId") Long franchiseId);
+}
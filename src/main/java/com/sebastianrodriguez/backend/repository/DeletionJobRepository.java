@@ -0,0 +1,75 @@
+package com.sebastianrodriguez.backend.repository;
+
+import com.sebastianrodriguez.backend.entity.DeletionJob;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repositorio JPA para trabajos de borrado en segundo plano.
+ */
+public interface DeletionJobRepository extends JpaRepository<DeletionJob, Long> {
+
+    /**
+     * Lista trabajos sin terminar cuya concesion esta libre o vencida.
+     *
+     * @param now instante actual.
+     * @param limit cantidad maxima de trabajos.
+     * @return ids de trabajos a ejecutar, del mas antiguo al mas nuevo.
+     */
+    @Query("""
+            select j.id from DeletionJob j
+            where j.status <> com.sebastianrodriguez.backend.entity.DeletionJob.Status.DONE
+            and (j.leaseUntil is null or j.leaseUntil < :now)
+            order by j.id
+            """)
+    List<Long> findClaimableIds(@Param("now") Instant now, Limit limit);
+
+    /**
+     * Toma la concesion de un trabajo si sigue libre o vencida; solo una instancia lo logra.
+     *
+     * @param id identificador del trabajo.
+     * @param now instante actual.
+     * @param leaseUntil vencimiento de la nueva concesion.
+     * @return 1 si se tomo la concesion; 0 si otra instancia la tiene.
+     */
+    @Modifying
+    @Query("""
+            update DeletionJob j
+            set j.status = com.sebastianrodriguez.backend.entity.DeletionJob.Status.RUNNING,
+                j.leaseUntil = :leaseUntil,
+                j.updatedAt = :now
+            where j.id = :id
+            and j.status <> com.sebastianrodriguez.backend.entity.DeletionJob.Status.DONE
+            and (j.leaseUntil is null or j.leaseUntil < :now)
+            """)
+    int claim(@Param("id") Long id, @Param("now") Instant now, @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Renueva la concesion de un trabajo solo si sigue siendo la que esta instancia tomo o renovo.
+     *
+     * <p>El vencimiento escrito identifica a quien tiene la concesion: si otra instancia la tomo al
+     * vencer, el valor ya es otro y no se actualiza nada. La fila queda bloqueada hasta el fin de la
+     * transaccion, asi que nadie la toma mientras se procesa el lote.</p>
+     *
+     * @param id identificador del trabajo.
+     * @param leaseUntil vencimiento de la concesion que esta instancia tiene.
+     * @param renewed vencimiento de la concesion renovada.
+     * @param now instante actual.
+     * @return 1 si se renovo; 0 si la concesion se perdio.
+     */
+    @Modifying
+    @Query("""
+            update DeletionJob j
+            set j.leaseUntil = :renewed,
+                j.updatedAt = :now
+            where j.id = :id
+            and j.leaseUntil = :leaseUntil
+            """)
+    int renew(@Param("id") Long id, @Param("leaseUntil") Instant leaseUntil, @Param("renewed") Instant renewed,
+            @Param("now") Instant now);
+}
@@ -1,9 +1,15 @@
 package com.sebastianrodriguez.backend.repository;
 
+import com.sebastianrodriguez.backend.dto.FranchiseHeaderRow;
+import com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse;
 import com.sebastianrodriguez.backend.entity.Franchise;
+import java.util.List;
 import java.util.Optional;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Repositorio JPA para franquicias.
@@ -11,11 +17,90 @@ import org.springframework.data.jpa.repository.JpaRepository;
 public interface FranchiseRepository extends JpaRepository<Franchise, Long> {
 
     /**
-     * Obtiene una franquicia con sus sucursales cargadas.
+     * Obtiene el resumen de una franquicia activa como proyeccion.
      *
      * @param id identificador de la franquicia.
-     * @return franquicia con sucursales si existe.
+     * @return resumen si existe.
      */
-    @EntityGraph(attributePaths = {"branches"})
-    Optional<Franchise> findWithBranchesById(Long id);
+    @Query("select new com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse(f.id, f.name) from Franchise f where f.id = :id")
+    Optional<FranchiseSummaryResponse> findSummaryById(@Param("id") Long id);
+
+    /**
+     * Obtiene los datos de una franquicia activa con la revision de su subarbol.
+     *
+     * @param id identificador de la franquicia.
+     * @return fila si existe.
+     * @see #findRevisionById(Long)
+     */
+    @Query(value = """
+            select f.id, f.name,
+                   cast(f.revision + coalesce((select sum(b.revision) from branches b where b.franchise_id = f.id), 0)
+                        as signed) as revision
+            from franchises f
+            where f.id = :id and f.deleted = false
+            """, nativeQuery = true)
+    Optional<FranchiseHeaderRow> findHeaderById(@Param("id") Long id);
+
+    /**
+     * Lee solo la revision del subarbol de una franquicia activa.
+     *
+     * <p>Es la revision propia de la franquicia (nombre, alta y baja de sucursales) mas la suma de
+     * las revisiones de todas sus sucursales, incluidas las eliminadas: asi las escrituras de
+     * productos solo incrementan la fila de su sucursal, y la suma nunca retrocede porque las
+     * sucursales se borran logicamente. {@code sum} devuelve un decimal; se convierte a entero.</p>
+     *
+     * @param id identificador de la franquicia.
+     * @return revision si la franquicia existe.
+     */
+    @Query(value = """
+            select cast(f.revision + coalesce((select sum(b.revision) from branches b where b.franchise_id = f.id), 0)
+                        as signed)
+            from franchises f
+            where f.id = :id and f.deleted = false
+            """, nativeQuery = true)
+    Optional<Long> findRevisionById(@Param("id") Long id);
+
+    /**
+     * Incrementa la revision propia de una franquicia tras un cambio que no pasa por una sucursal.
+     *
+     * @param id identificador de la franquicia.
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
+    @Query("update Franchise f set f.revision = f.revision + 1 where f.id = :id")
+    int incrementRevision(@Param("id") Long id);
+
+    /**
+     * Lista franquicias por rango de id (paginacion por cursor, sin OFFSET), proyectando solo las
+     * columnas del resumen.
+     *
+     * @param afterId id a partir del cual listar (exclusivo).
+     * @param limit cantidad maxima de filas.
+     * @return franquicias ordenadas por id.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse(f.id, f.name)
+            from Franchise f
+            where f.id > :afterId
+            order by f.id
+            """)
+    List<FranchiseSummaryResponse> findSummaries(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Lista los identificadores de las franquicias activas.
+     *
+     * @return ids ordenados ascendentemente.
+     */
+    @Query("select f.id from Franchise f order by f.id")
+    List<Long> findAllIds();
+
+    /**
+     * Marca como eliminada solo la franquicia, sin recorrer sus sucursales en cascada.
+     *
+     * @param id identificador de la franquicia.
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
+    @Query("update Franchise f set f.deleted = true where f.id = :id")
+    int softDeleteById(@Param("id") Long id);
 }
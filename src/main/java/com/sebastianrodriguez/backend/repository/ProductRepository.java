@@ -1,7 +1,14 @@
 package com.sebastianrodriguez.backend.repository;
 
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.InventoryStatsRow;
+import com.sebastianrodriguez.backend.dto.ProductHierarchyRow;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
 import com.sebastianrodriguez.backend.entity.Product;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -13,12 +20,166 @@ import org.springframework.data.repository.query.Param;
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     /**
-     * Lista productos por sucursal.
+     * Proyeccion comun de agregados de inventario por sucursal; los rangos del histograma deben
+     * coincidir con {@code InventoryAnalyticsService#BUCKETS}.
+     */
+    String INVENTORY_STATS_SELECT = """
+            select new com.sebastianrodriguez.backend.dto.InventoryStatsRow(
+                b.id,
+                b.name,
+                count(p.id),
+                coalesce(sum(p.stock), 0),
+                min(p.stock),
+                max(p.stock),
+                sum(case when p.stock = 0 then 1 else 0 end),
+                sum(case when p.stock between 1 and 10 then 1 else 0 end),
+                sum(case when p.stock between 11 and 100 then 1 else 0 end),
+                sum(case when p.stock between 101 and 1000 then 1 else 0 end),
+                sum(case when p.stock > 1000 then 1 else 0 end)
+            )
+            from Branch b
+            left join Product p on p.branch = b and p.deleted = false
+            """;
+
+    /**
+     * Busca un producto junto con su sucursal, para conocer su jerarquia sin consultas extra.
+     *
+     * <p>Excluye productos cuya sucursal o franquicia ya fue eliminada aunque el borrado en
+     * segundo plano aun no haya llegado a ellos.</p>
+     *
+     * @param id identificador del producto.
+     * @return producto con su sucursal cargada.
+     */
+    @Query("""
+            select p from Product p
+            join fetch p.branch b
+            where p.id = :id
+            and b.deleted = false
+            and b.franchise.deleted = false
+            """)
+    Optional<Product> findWithBranchById(@Param("id") Long id);
+
+    /**
+     * Busca varios productos activos con su sucursal y franquicia cargadas.
+     *
+     * @param ids identificadores de los productos.
+     * @return productos encontrados, sin orden definido.
+     */
+    @Query("""
+            select p from Product p
+            join fetch p.branch b
+            join fetch b.franchise
+            where p.id in :ids
+            and b.deleted = false
+            and b.franchise.deleted = false
+            """)
+    List<Product> findWithBranchByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Busca un producto activo con los ids de su jerarquia, como proyeccion.
+     *
+     * <p>Excluye productos cuya sucursal o franquicia ya fue eliminada aunque el borrado en
+     * segundo plano aun no haya llegado a ellos.</p>
+     *
+     * @param id identificador del producto.
+     * @return fila del producto si existe.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.ProductHierarchyRow(p.id, p.name, p.stock, b.id, b.franchise.id)
+            from Product p
+            join p.branch b
+            where p.id = :id
+            and b.deleted = false
+            and b.franchise.deleted = false
+            """)
+    Optional<ProductHierarchyRow> findHierarchyById(@Param("id") Long id);
+
+    /**
+     * Busca varios productos activos con los ids de su jerarquia en una sola consulta {@code IN}.
+     *
+     * <p>Mismo filtro que {@link #findHierarchyById(Long)}; los ids inexistentes o eliminados no
+     * aparecen en el resultado, que no tiene un orden definido.</p>
+     *
+     * @param ids identificadores de los productos.
+     * @return filas de los productos encontrados.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.ProductHierarchyRow(p.id, p.name, p.stock, b.id, b.franchise.id)
+            from Product p
+            join p.branch b
+            where p.id in :ids
+            and b.deleted = false
+            and b.franchise.deleted = false
+            """)
+    List<ProductHierarchyRow> findHierarchyByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lista productos de una sucursal por rango de id (paginacion por cursor, sin OFFSET),
+     * proyectando solo las columnas de la respuesta.
      *
      * @param branchId identificador de la sucursal.
-     * @return listado de productos.
+     * @param afterId id a partir del cual listar (exclusivo).
+     * @param limit cantidad maxima de filas.
+     * @return productos ordenados por id.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.ProductResponse(p.id, p.name, p.stock)
+            from Product p
+            where p.branch.id = :branchId and p.id > :afterId
+            order by p.id
+            """)
+    List<ProductResponse> findResponsesByBranchId(
+            @Param("branchId") Long branchId,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    /**
+     * Lista productos de varias sucursales ordenados por sucursal y producto, a partir de la
+     * posicion {@code (afterBranchId, afterId)} (exclusiva), para recorrer una franquicia por
+     * bloques.
+     *
+     * @param branchIds identificadores de las sucursales.
+     * @param afterBranchId sucursal del ultimo producto ya leido (0 para empezar).
+     * @param afterId ultimo producto ya leido de esa sucursal (0 para empezar).
+     * @param limit cantidad maxima de filas.
+     * @return productos ordenados por sucursal e id.
      */
-    List<Product> findByBranchId(Long branchId);
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.ProductHierarchyRow(p.id, p.name, p.stock, b.id, b.franchise.id)
+            from Product p
+            join p.branch b
+            where b.id in :branchIds
+            and b.id >= :afterBranchId
+            and (b.id > :afterBranchId or p.id > :afterId)
+            order by b.id, p.id
+            """)
+    List<ProductHierarchyRow> findHierarchyPageByBranchIdIn(
+            @Param("branchIds") Collection<Long> branchIds,
+            @Param("afterBranchId") long afterBranchId,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    /**
+     * Suma un delta al stock en una sola sentencia condicional, sin leer antes la fila.
+     *
+     * @param id identificador del producto.
+     * @param delta cantidad a sumar (puede ser negativa).
+     * @param ceiling stock maximo previo con el que la suma no desborda la columna
+     *                ({@code Integer.MAX_VALUE - delta} si el delta es positivo).
+     * @return 1 si se aplico; 0 si el producto no existe o el stock quedaria negativo o desbordado.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Product p
+            set p.stock = p.stock + :delta
+            where p.id = :id
+            and p.deleted = false
+            and p.stock + :delta >= 0
+            and p.stock <= :ceiling
+            """)
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta, @Param("ceiling") int ceiling);
 
     /**
      * Marca como eliminados los productos de una sucursal (soft delete).
@@ -41,21 +202,197 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     int softDeleteByFranchiseId(@Param("franchiseId") Long franchiseId);
 
     /**
-     * Obtiene el producto con mayor stock por sucursal para una franquicia.
+     * Cuenta los productos activos de una sucursal sin pasar del limite.
+     *
+     * <p>Recorre a lo sumo {@code limit} entradas del indice (branch_id, deleted, id), asi que
+     * decidir si un borrado pasa a segundo plano no cuesta mas que el umbral.</p>
+     *
+     * @param branchId identificador de la sucursal.
+     * @param limit maximo a contar.
+     * @return cantidad de productos, como mucho {@code limit}.
+     */
+    @Query(value = """
+            select count(*) from (
+                select 1 from products where branch_id = :branchId and deleted = false limit :limit
+            ) probe
+            """, nativeQuery = true)
+    long countByBranchIdUpTo(@Param("branchId") Long branchId, @Param("limit") long limit);
+
+    /**
+     * Cuenta los productos activos de una franquicia sin pasar del limite, como
+     * {@link #countByBranchIdUpTo(Long, long)}.
      *
      * @param franchiseId identificador de la franquicia.
-     * @return lista de productos con su sucursal asociada.
+     * @param limit maximo a contar.
+     * @return cantidad de productos, como mucho {@code limit}.
+     */
+    @Query(value = """
+            select count(*) from (
+                select 1 from products p
+                join branches b on b.id = p.branch_id
+                where b.franchise_id = :franchiseId and p.deleted = false
+                limit :limit
+            ) probe
+            """, nativeQuery = true)
+    long countByFranchiseIdUpTo(@Param("franchiseId") Long franchiseId, @Param("limit") long limit);
+
+    /**
+     * Lista el siguiente lote de ids de productos activos de una sucursal.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param afterId id a partir del cual listar (exclusivo).
+     * @param limit tamano del lote.
+     * @return ids ordenados.
      */
+    @Query("select p.id from Product p where p.branch.id = :branchId and p.id > :afterId order by p.id")
+    List<Long> findIdsByBranchId(@Param("branchId") Long branchId, @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Marca como eliminados los productos de una sucursal dentro de un rango de ids.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param afterId inicio del rango (exclusivo).
+     * @param upToId fin del rango (inclusivo).
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
     @Query("""
-            select p
-            from Product p
-            join fetch p.branch b
+            update Product p set p.deleted = true
+            where p.branch.id = :branchId and p.id > :afterId and p.id <= :upToId and p.deleted = false
+            """)
+    int softDeleteByBranchIdInRange(
+            @Param("branchId") Long branchId,
+            @Param("afterId") long afterId,
+            @Param("upToId") long upToId
+    );
+
+    /**
+     * Lista el siguiente lote de ids de productos activos de una franquicia.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param afterId id a partir del cual listar (exclusivo).
+     * @param limit tamano del lote.
+     * @return ids ordenados.
+     */
+    @Query("select p.id from Product p where p.branch.franchise.id = :franchiseId and p.id > :afterId order by p.id")
+    List<Long> findIdsByFranchiseId(@Param("franchiseId") Long franchiseId, @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Marca como eliminados los productos de una franquicia dentro de un rango de ids.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param afterId inicio del rango (exclusivo).
+     * @param upToId fin del rango (inclusivo).
+     * @return cantidad de filas afectadas.
+     */
+    @Modifying
+    @Query("""
+            update Product p set p.deleted = true
+            where p.branch.franchise.id = :franchiseId and p.id > :afterId and p.id <= :upToId and p.deleted = false
+            """)
+    int softDeleteByFranchiseIdInRange(
+            @Param("franchiseId") Long franchiseId,
+            @Param("afterId") long afterId,
+            @Param("upToId") long upToId
+    );
+
+    /**
+     * Calcula los agregados de inventario de cada sucursal activa de una franquicia.
+     *
+     * <p>Una sola consulta agrupada: la base recorre los productos una vez (indice por sucursal)
+     * y devuelve una fila por sucursal, sin cargar entidades. Las sucursales sin productos
+     * aparecen con conteos en cero.</p>
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @return una fila por sucursal, ordenada por id de sucursal.
+     */
+    @Query(INVENTORY_STATS_SELECT + """
             where b.franchise.id = :franchiseId
-            and p.stock = (
-                select max(p2.stock)
-                from Product p2
-                where p2.branch = b
+            group by b.id, b.name
+            order by b.id
+            """)
+    List<InventoryStatsRow> findInventoryStatsByFranchiseId(@Param("franchiseId") Long franchiseId);
+
+    /**
+     * Calcula los agregados de inventario de una sucursal activa de una franquicia activa.
+     *
+     * @param branchId identificador de la sucursal.
+     * @return fila de agregados si la sucursal existe.
+     */
+    @Query(INVENTORY_STATS_SELECT + """
+            where b.id = :branchId
+            and b.franchise.deleted = false
+            group by b.id, b.name
+            """)
+    Optional<InventoryStatsRow> findInventoryStatsByBranchId(@Param("branchId") Long branchId);
+
+    /**
+     * Obtiene el producto lider de una sucursal: mayor stock y, a igual stock, menor id.
+     *
+     * <p>El orden repite las columnas fijadas por igualdad para que coincida completo con el
+     * indice {@code idx_products_branch_stock} y el motor lea solo su primera entrada.</p>
+     *
+     * @param branchId identificador de la sucursal.
+     * @param limit debe ser {@code Limit.of(1)}.
+     * @return producto lider si la sucursal tiene productos.
+     */
+    @Query("""
+            select p from Product p
+            where p.branch.id = :branchId
+            order by p.branch.id, p.deleted, p.stock desc, p.id
+            """)
+    Optional<Product> findTopStockByBranchId(@Param("branchId") Long branchId, Limit limit);
+
+    /**
+     * Obtiene los productos con mayor stock de una sucursal, en el orden del reporte, con el mismo
+     * recorrido del indice {@code idx_products_branch_stock} que {@link #findTopStockByBranchId}.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param limit cantidad de productos.
+     * @return filas del reporte de la sucursal; vacio si no existe o no tiene productos.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse(
+                b.id, b.name, p.id, p.name, p.stock
+            )
+            from Product p
+            join p.branch b
+            where p.branch.id = :branchId
+            order by p.branch.id, p.deleted, p.stock desc, p.id
+            """)
+    List<BranchTopStockProductResponse> findTopStockRowsByBranchId(@Param("branchId") Long branchId, Limit limit);
+
+    /**
+     * Obtiene los {@code k} productos con mayor stock de cada sucursal de una franquicia con una
+     * sola lectura de sus productos.
+     *
+     * <p>{@code row_number()} numera los productos de cada sucursal por stock descendente y, a
+     * igual stock, por id ascendente, el mismo desempate que el lider de {@code branch_top_stock};
+     * el orden de la ventana coincide con {@code idx_products_branch_stock}, por lo que cada
+     * particion se lee ya ordenada. Las sucursales sin productos no aparecen.</p>
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param k productos por sucursal.
+     * @return hasta {@code k} filas por sucursal, ordenadas por sucursal y posicion.
+     */
+    @Query("""
+            select new com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse(
+                r.branchId, r.branchName, r.productId, r.productName, r.stock
             )
+            from (
+                select b.id as branchId, b.name as branchName, p.id as productId, p.name as productName,
+                       p.stock as stock,
+                       row_number() over (partition by b.id order by p.stock desc, p.id) as position
+                from Product p
+                join p.branch b
+                where b.franchise.id = :franchiseId
+                and b.deleted = false
+            ) r
+            where r.position <= :k
+            order by r.branchId, r.position
             """)
-    List<Product> findTopStockByFranchiseId(@Param("franchiseId") Long franchiseId);
+    List<BranchTopStockProductResponse> findTopStockByFranchiseId(
+            @Param("franchiseId") Long franchiseId,
+            @Param("k") int k
+    );
 }
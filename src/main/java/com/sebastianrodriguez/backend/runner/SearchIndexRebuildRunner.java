@@ -0,0 +1,68 @@
+package com.sebastianrodriguez.backend.runner;
+
+import com.sebastianrodriguez.backend.repository.FranchiseRepository;
+import com.sebastianrodriguez.backend.service.ProductSearchService;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Comando de arranque que reconstruye el indice de busqueda por nombre de productos.
+ *
+ * <p>Uso: {@code --rebuild-search-index} para todas las franquicias o
+ * {@code --rebuild-search-index=<franchiseId>} para una sola. Los productos anteriores al indice
+ * ya los indexa la migracion V11; este comando queda para corregir desalineaciones. Cada
+ * franquicia se reconstruye en su propia transaccion.</p>
+ */
+@Component
+public class SearchIndexRebuildRunner implements ApplicationRunner {
+
+    private static final String OPTION = "rebuild-search-index";
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexRebuildRunner.class);
+
+    private final ProductSearchService productSearchService;
+    private final FranchiseRepository franchiseRepository;
+    private final int batchSize;
+
+    /**
+     * Construye el comando con sus dependencias.
+     *
+     * @param productSearchService servicio de busqueda de productos.
+     * @param franchiseRepository repositorio de franquicias.
+     * @param batchSize productos por lote de inserts.
+     */
+    public SearchIndexRebuildRunner(
+            ProductSearchService productSearchService,
+            FranchiseRepository franchiseRepository,
+            @Value("${app.product-import.batch-size:500}") int batchSize
+    ) {
+        this.productSearchService = productSearchService;
+        this.franchiseRepository = franchiseRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Ejecuta la reconstruccion si se paso la opcion correspondiente.
+     *
+     * @param args argumentos de la aplicacion.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        List<String> values = args.getOptionValues(OPTION);
+        List<Long> franchiseIds = values.isEmpty()
+                ? franchiseRepository.findAllIds()
+                : values.stream().map(Long::valueOf).toList();
+        for (Long franchiseId : franchiseIds) {
+            int products = productSearchService.rebuild(franchiseId, batchSize);
+            log.info("Rebuilt search index for franchise {} ({} products)", franchiseId, products);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sebastianrodriguez.backend.runner;
+
+import com.sebastianrodriguez.backend.repository.FranchiseRepository;
+import com.sebastianrodriguez.backend.service.TopStockService;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Comando de arranque que reconstruye la tabla de lideres de stock para corregir desviaciones.
+ *
+ * <p>Uso: {@code --rebuild-top-stock} para todas las franquicias o
+ * {@code --rebuild-top-stock=<franchiseId>} para una sola. Cada franquicia se reconstruye en su
+ * propia transaccion.</p>
+ */
+@Component
+public class TopStockRebuildRunner implements ApplicationRunner {
+
+    private static final String OPTION = "rebuild-top-stock";
+
+    private static final Logger log = LoggerFactory.getLogger(TopStockRebuildRunner.class);
+
+    private final TopStockService topStockService;
+    private final FranchiseRepository franchiseRepository;
+
+    /**
+     * Construye el comando con sus dependencias.
+     *
+     * @param topStockService servicio de lideres de stock.
+     * @param franchiseRepository repositorio de franquicias.
+     */
+    public TopStockRebuildRunner(TopStockService topStockService, FranchiseRepository franchiseRepository) {
+        this.topStockService = topStockService;
+        this.franchiseRepository = franchiseRepository;
+    }
+
+    /**
+     * Ejecuta la reconstruccion si se paso la opcion correspondiente.
+     *
+     * @param args argumentos de la aplicacion.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        List<String> values = args.getOptionValues(OPTION);
+        List<Long> franchiseIds = values.isEmpty()
+                ? franchiseRepository.findAllIds()
+                : values.stream().map(Long::valueOf).toList();
+        for (Long franchiseId : franchiseIds) {
+            int branches = topStockService.rebuild(franchiseId);
+            log.info("Rebuilt top stock for franchise {} ({} branches)", franchiseId, branches);
+        }
+    }
+}
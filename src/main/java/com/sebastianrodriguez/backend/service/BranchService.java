@@ -1,30 +1,52 @@
 package com.sebastianrodriguez.backend.service;
 
+import com.sebastianrodriguez.backend.cache.ResponseCache;
 import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
 import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
 import com.sebastianrodriguez.backend.dto.BranchSummaryResponse;
+import com.sebastianrodriguez.backend.dto.BranchTreeRow;
 import com.sebastianrodriguez.backend.dto.BranchUpdateRequest;
-import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.dto.ChangeRecord;
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import com.sebastianrodriguez.backend.dto.DeletionJobResponse;
+import com.sebastianrodriguez.backend.dto.Versioned;
 import com.sebastianrodriguez.backend.entity.Branch;
+import com.sebastianrodriguez.backend.entity.DeletionJob;
 import com.sebastianrodriguez.backend.entity.Franchise;
-import com.sebastianrodriguez.backend.entity.Product;
 import com.sebastianrodriguez.backend.exception.NotFoundException;
 import com.sebastianrodriguez.backend.repository.BranchRepository;
 import com.sebastianrodriguez.backend.repository.FranchiseRepository;
 import com.sebastianrodriguez.backend.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Logica de negocio para sucursales.
  */
 @Service
+@Timed(value = "app.service", histogram = true)
 public class BranchService {
 
     private final BranchRepository branchRepository;
     private final FranchiseRepository franchiseRepository;
     private final ProductRepository productRepository;
+    private final TopStockService topStockService;
+    private final ProductSearchService productSearchService;
+    private final DeletionJobService deletionJobService;
+    private final ResponseCache responseCache;
+    private final RevisionService revisionService;
+    private final ChangeLogService changeLogService;
+    private final StockEventHub stockEventHub;
+    private final StockWriteBehind stockWriteBehind;
+    private final TransactionTemplate primaryTransaction;
+    private final long asyncDeleteThreshold;
 
     /**
      * Construye el servicio con sus repositorios.
@@ -32,15 +54,45 @@ public class BranchService {
      * @param branchRepository repositorio de sucursales.
      * @param franchiseRepository repositorio de franquicias.
      * @param productRepository repositorio de productos.
+     * @param topStockService servicio de lideres de stock por sucursal.
+     * @param productSearchService indice de busqueda por nombre.
+     * @param deletionJobService servicio de borrados en segundo plano.
+     * @param responseCache cache de respuestas de lectura.
+     * @param revisionService servicio de revisiones de los detalles.
+     * @param changeLogService registro de cambios.
+     * @param stockEventHub distribuidor de eventos de stock.
+     * @param stockWriteBehind escritura diferida de los ajustes de stock.
+     * @param transactionManager gestor de transacciones para las cargas del cache, en el primario.
+     * @param asyncDeleteThreshold productos a partir de los cuales el borrado pasa a segundo plano.
      */
     public BranchService(
             BranchRepository branchRepository,
             FranchiseRepository franchiseRepository,
-            ProductRepository productRepository
+            ProductRepository productRepository,
+            TopStockService topStockService,
+            ProductSearchService productSearchService,
+            DeletionJobService deletionJobService,
+            ResponseCache responseCache,
+            RevisionService revisionService,
+            ChangeLogService changeLogService,
+            StockEventHub stockEventHub,
+            StockWriteBehind stockWriteBehind,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.deletion.async-threshold:5000}") long asyncDeleteThreshold
     ) {
         this.branchRepository = branchRepository;
         this.franchiseRepository = franchiseRepository;
         this.productRepository = productRepository;
+        this.topStockService = topStockService;
+        this.productSearchService = productSearchService;
+        this.deletionJobService = deletionJobService;
+        this.responseCache = responseCache;
+        this.revisionService = revisionService;
+        this.changeLogService = changeLogService;
+        this.stockEventHub = stockEventHub;
+        this.stockWriteBehind = stockWriteBehind;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.asyncDeleteThreshold = asyncDeleteThreshold;
     }
 
     /**
@@ -58,24 +110,29 @@ public class BranchService {
         branch.setName(request.name());
         branch.setFranchise(franchise);
         Branch saved = branchRepository.save(branch);
-        return toSummary(saved);
+        topStockService.onBranchCreated(saved);
+        revisionService.franchiseChanged(franchiseId);
+        changeLogService.branch(ChangeRecord.Operation.CREATE, franchiseId, saved.getId());
+        responseCache.evictBranch(saved.getId(), franchiseId);
+        return ResponseMapper.toSummary(saved);
     }
 
     /**
-     * Lista sucursales de una franquicia.
+     * Lista sucursales de una franquicia con paginacion por cursor.
      *
      * @param franchiseId identificador de la franquicia.
-     * @return listado de sucursales.
+     * @param after cursor de la pagina anterior o null para empezar.
+     * @param limit tamano de pagina.
+     * @return pagina de sucursales ordenadas por id.
      */
     @Transactional(readOnly = true)
-    public List<BranchSummaryResponse> listByFranchise(Long franchiseId) {
+    public CursorPage<BranchSummaryResponse> listByFranchise(Long franchiseId, String after, int limit) {
         if (!franchiseRepository.existsById(franchiseId)) {
             throw new NotFoundException("Franchise not found: " + franchiseId);
         }
-        return branchRepository.findByFranchiseId(franchiseId)
-                .stream()
-                .map(this::toSummary)
-                .toList();
+        List<BranchSummaryResponse> rows = branchRepository
+                .findSummariesByFranchiseId(franchiseId, Cursors.decode(after), Limit.of(limit + 1));
+        return Cursors.page(rows, limit, BranchSummaryResponse::id);
     }
 
     /**
@@ -84,72 +141,99 @@ public class BranchService {
      * @param id identificador de la sucursal.
      * @return detalle de la sucursal.
      */
-    @Transactional(readOnly = true)
     public BranchDetailResponse get(Long id) {
-        Branch branch = branchRepository.findWithProductsById(id)
-                .orElseThrow(() -> new NotFoundException("Branch not found: " + id));
-        return toDetail(branch);
+        return getVersioned(id).body();
     }
 
     /**
-     * Actualiza el nombre de una sucursal.
+     * Obtiene el detalle de una sucursal junto con la revision con que se armo, desde el cache o
+     * leyendo sus filas proyectadas (una sola consulta) del primario, como en
+     * {@link FranchiseService#getVersioned(Long)}, con los ajustes de stock aun no escritos.
      *
      * @param id identificador de la sucursal.
-     * @param request datos a actualizar.
-     * @return resumen actualizado.
+     * @return detalle de la sucursal y su revision.
      */
-    @Transactional
-    public BranchSummaryResponse update(Long id, BranchUpdateRequest request) {
-        Branch branch = branchRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Branch not found: " + id));
-        branch.setName(request.name());
-        return toSummary(branchRepository.save(branch));
+    public Versioned<BranchDetailResponse> getVersioned(Long id) {
+        return stockWriteBehind.read(() -> {
+            ResponseCache.BranchEntry entry = responseCache.branch(id, key -> primaryTransaction.execute(status -> {
+                List<BranchTreeRow> rows = branchRepository.findTreeById(key);
+                if (rows.isEmpty()) {
+                    throw new NotFoundException("Branch not found: " + key);
+                }
+                BranchTreeRow first = rows.getFirst();
+                return new ResponseCache.BranchEntry(ResponseMapper.toDetail(rows), first.franchiseId(), first.revision());
+            }));
+            return new Versioned<>(stockWriteBehind.withPending(entry.response()),
+                    stockWriteBehind.branchRevision(id, entry.revision()));
+        });
     }
 
     /**
-     * Elimina una sucursal con borrado logico y cascada sobre productos.
+     * Obtiene la revision actual del detalle de una sucursal con una sola consulta, sin armarlo.
+     * Se lee del primario para no responder {@code 304} con una revision atrasada, y suma los
+     * ajustes de stock aun no escritos como {@link #getVersioned(Long)}.
      *
      * @param id identificador de la sucursal.
+     * @return revision actual.
      */
-    @Transactional
-    public void delete(Long id) {
-        Branch branch = branchRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Branch not found: " + id));
-        productRepository.softDeleteByBranchId(id);
-        branchRepository.delete(branch);
+    public long revision(Long id) {
+        return stockWriteBehind.read(() -> stockWriteBehind.branchRevision(id,
+                primaryTransaction.execute(status -> branchRepository.findRevisionById(id))
+                        .orElseThrow(() -> new NotFoundException("Branch not found: " + id))));
     }
 
     /**
-     * Mapea una sucursal a su respuesta resumida.
+     * Actualiza el nombre de una sucursal.
      *
-     * @param branch entidad de sucursal.
-     * @return DTO resumen.
+     * @param id identificador de la sucursal.
+     * @param request datos a actualizar.
+     * @return resumen actualizado.
      */
-    private BranchSummaryResponse toSummary(Branch branch) {
-        return new BranchSummaryResponse(branch.getId(), branch.getName());
+    @Transactional
+    public BranchSummaryResponse update(Long id, BranchUpdateRequest request) {
+        Branch branch = branchRepository.findActiveById(id)
+                .orElseThrow(() -> new NotFoundException("Branch not found: " + id));
+        branch.setName(request.name());
+        Branch saved = branchRepository.save(branch);
+        revisionService.branchChanged(id);
+        changeLogService.branch(ChangeRecord.Operation.UPDATE, branch.getFranchise().getId(), id);
+        responseCache.evictBranch(id, branch.getFranchise().getId());
+        return ResponseMapper.toSummary(saved);
     }
 
     /**
-     * Mapea una sucursal a su detalle con productos.
+     * Elimina una sucursal con borrado logico y cascada sobre productos.
      *
-     * @param branch entidad de sucursal.
-     * @return DTO de detalle.
-     */
-    private BranchDetailResponse toDetail(Branch branch) {
-        List<ProductResponse> products = branch.getProducts()
-                .stream()
-                .map(this::toResponse)
-                .toList();
-        return new BranchDetailResponse(branch.getId(), branch.getName(), products);
-    }
-
-    /**
-     * Mapea un producto a su respuesta.
+     * <p>Si la sucursal tiene al menos {@code app.deletion.async-threshold} productos, solo se
+     * marca la sucursal (deja de verse de inmediato) y la cascada, incluido su lider de stock, se
+     * encola como trabajo en segundo plano.</p>
      *
-     * @param product entidad de producto.
-     * @return DTO de producto.
+     * @param id identificador de la sucursal.
+     * @return trabajo encolado, o vacio si el borrado se completo en la solicitud.
      */
-    private ProductResponse toResponse(Product product) {
-        return new ProductResponse(product.getId(), product.getName(), product.getStock());
+    @Transactional
+    public Optional<DeletionJobResponse> delete(Long id) {
+        Branch branch = branchRepository.findActiveById(id)
+                .orElseThrow(() -> new NotFoundException("Branch not found: " + id));
+        Long franchiseId = branch.getFranchise().getId();
+        boolean background = productRepository.countByBranchIdUpTo(id, asyncDeleteThreshold) >= asyncDeleteThreshold;
+        if (!background) {
+            // Productos, lider y recien despues la franquicia: el mismo orden de locks que las
+            // escrituras de productos.
+            productRepository.softDeleteByBranchId(id);
+            productSearchService.removeBranch(id);
+            topStockService.onBranchDeleted(id);
+        }
+        revisionService.franchiseChanged(franchiseId);
+        changeLogService.branch(ChangeRecord.Operation.DELETE, franchiseId, id);
+        responseCache.evictBranchSubtree(id, franchiseId);
+        stockEventHub.branchDeleted(franchiseId, id);
+        if (background) {
+            branchRepository.softDeleteById(id);
+            return Optional.of(deletionJobService.enqueue(DeletionJob.Target.BRANCH, id));
+        }
+        changeLogService.product(ChangeRecord.Operation.DELETE, franchiseId, id, null);
+        branchRepository.delete(branch);
+        return Optional.empty();
     }
 }
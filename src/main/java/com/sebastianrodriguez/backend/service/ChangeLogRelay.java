@@ -0,0 +1,103 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.cache.ResponseCache;
+import com.sebastianrodriguez.backend.dto.ChangeFeedResponse;
+import com.sebastianrodriguez.backend.dto.ChangeRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Lee el registro de cambios por lotes e invalida el cache local con los cambios de todas las
+ * instancias.
+ *
+ * <p>Cada instancia ya invalida su cache al escribir; el relay cubre las escrituras de las demas
+ * instancias y los borrados en segundo plano. Empieza en la ultima posicion asignada al arrancar, porque
+ * el cache nace vacio.</p>
+ */
+@Service
+public class ChangeLogRelay {
+
+    private final ChangeLogService changeLogService;
+    private final ResponseCache responseCache;
+    private final int batchSize;
+    private long position = -1;
+
+    /**
+     * Construye el relay.
+     *
+     * @param changeLogService registro de cambios.
+     * @param responseCache cache de respuestas de lectura.
+     * @param batchSize cambios leidos por consulta.
+     */
+    public ChangeLogRelay(
+            ChangeLogService changeLogService,
+            ResponseCache responseCache,
+            @Value("${app.change-log.batch-size:500}") int batchSize
+    ) {
+        this.changeLogService = changeLogService;
+        this.responseCache = responseCache;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Procesa los cambios nuevos hasta alcanzar el final visible del registro.
+     *
+     * @return cambios procesados.
+     */
+    @Scheduled(fixedDelayString = "${app.change-log.relay-interval:1s}")
+    public synchronized int relay() {
+        if (position < 0) {
+            position = changeLogService.lastId();
+            return 0;
+        }
+        int relayed = 0;
+        ChangeFeedResponse page;
+        do {
+            page = changeLogService.feed(position, null, batchSize);
+            for (ChangeRecord change : page.changes()) {
+                evict(change);
+            }
+            relayed += page.changes().size();
+            position = page.next();
+        } while (page.changes().size() == batchSize);
+        return relayed;
+    }
+
+    /**
+     * Invalida las entradas del cache afectadas por un cambio.
+     *
+     * @param change cambio registrado.
+     */
+    private void evict(ChangeRecord change) {
+        Long franchiseId = change.franchiseId();
+        Long branchId = change.branchId();
+        switch (change.entity()) {
+            case PRODUCT -> {
+                if (change.productId() != null) {
+                    responseCache.evictProduct(change.productId(), branchId, franchiseId);
+                } else if (branchId != null) {
+                    responseCache.evictBranchSubtree(branchId, franchiseId);
+                } else {
+                    responseCache.evictFranchiseSubtree(franchiseId);
+                }
+            }
+            case BRANCH -> {
+                if (branchId == null) {
+                    responseCache.evictFranchiseSubtree(franchiseId);
+                } else if (change.operation() == ChangeRecord.Operation.DELETE) {
+                    responseCache.evictBranchSubtree(branchId, franchiseId);
+                } else {
+                    responseCache.evictBranch(branchId, franchiseId);
+                }
+            }
+            case FRANCHISE -> {
+                switch (change.operation()) {
+                    case CREATE -> responseCache.evictFranchisePages();
+                    case UPDATE -> responseCache.evictFranchise(franchiseId);
+                    case DELETE -> responseCache.evictFranchiseSubtree(franchiseId);
+                }
+            }
+        }
+    }
+}
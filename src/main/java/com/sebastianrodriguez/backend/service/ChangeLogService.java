@@ -0,0 +1,265 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.dto.ChangeFeedResponse;
+import com.sebastianrodriguez.backend.dto.ChangeRecord;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Registro de cambios (outbox) de productos, sucursales y franquicias, y su lectura incremental.
+ *
+ * <p>Cada escritura agrega su fila en la misma transaccion, por lo que el registro nunca muestra un
+ * cambio revertido ni pierde uno confirmado. Los ids se asignan al insertar pero se ven al
+ * confirmar, asi que una transaccion lenta puede confirmar un id menor que otro ya leido. Por eso el
+ * feed no lee por id sino por {@code commit_seq}, que {@link #sequence()} asigna en orden solo a las
+ * filas ya confirmadas: una transaccion larga aparece detras de las que confirmaron antes que ella,
+ * sin importar cuanto tarde, y una revertida no deja huecos.</p>
+ */
+@Service
+public class ChangeLogService {
+
+    /**
+     * Maximo de cambios por pagina del feed.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String INSERT_SQL = """
+            insert into change_log (entity, operation, franchise_id, branch_id, product_id, changed_at)
+            values (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String SELECT = """
+            select commit_seq, entity, operation, franchise_id, branch_id, product_id, changed_at
+            from change_log
+            """;
+
+    private static final int PURGE_BATCH = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final int sequenceBatch;
+    private final Duration retention;
+
+    /**
+     * Construye el servicio.
+     *
+     * @param jdbcTemplate acceso JDBC al registro.
+     * @param transactionManager gestor de transacciones para secuenciar por lotes.
+     * @param sequenceBatch filas confirmadas que recibe su posicion por transaccion.
+     * @param retention antiguedad a partir de la cual las filas se purgan.
+     */
+    public ChangeLogService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.change-log.sequence-batch:1000}") int sequenceBatch,
+            @Value("${app.change-log.retention:7d}") Duration retention
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.sequenceBatch = sequenceBatch;
+        this.retention = retention;
+    }
+
+    /**
+     * Registra el cambio de una franquicia.
+     *
+     * @param operation operacion aplicada.
+     * @param franchiseId identificador de la franquicia.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void franchise(ChangeRecord.Operation operation, Long franchiseId) {
+        append(ChangeRecord.Entity.FRANCHISE, operation, franchiseId, null, null);
+    }
+
+    /**
+     * Registra el cambio de una sucursal, o de todas las de la franquicia si {@code branchId} es
+     * null.
+     *
+     * @param operation operacion aplicada.
+     * @param franchiseId identificador de la franquicia.
+     * @param branchId identificador de la sucursal o null.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void branch(ChangeRecord.Operation operation, Long franchiseId, Long branchId) {
+        append(ChangeRecord.Entity.BRANCH, operation, franchiseId, branchId, null);
+    }
+
+    /**
+     * Registra el cambio de un producto, o de todos los de la sucursal (o de la franquicia si
+     * {@code branchId} tambien es null) si {@code productId} es null.
+     *
+     * @param operation operacion aplicada.
+     * @param franchiseId identificador de la franquicia.
+     * @param branchId identificador de la sucursal o null.
+     * @param productId identificador del producto o null.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void product(ChangeRecord.Operation operation, Long franchiseId, Long branchId, Long productId) {
+        append(ChangeRecord.Entity.PRODUCT, operation, franchiseId, branchId, productId);
+    }
+
+    /**
+     * Registra el mismo cambio para varios productos de una sucursal con un lote JDBC.
+     *
+     * @param operation operacion aplicada.
+     * @param franchiseId identificador de la franquicia.
+     * @param branchId identificador de la sucursal.
+     * @param productIds identificadores de los productos.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void products(ChangeRecord.Operation operation, Long franchiseId, Long branchId, Collection<Long> productIds) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            rows.add(new Object[] {ChangeRecord.Entity.PRODUCT.name(), operation.name(), franchiseId, branchId, productId, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Lee los cambios posteriores a {@code since}, opcionalmente de una sola franquicia.
+     *
+     * <p>Solo devuelve cambios ya secuenciados, cuyas posiciones nunca quedan detras de otra ya
+     * leida. Con filtro, la posicion siguiente avanza hasta la ultima asignada aunque la pagina venga
+     * incompleta, para no volver a recorrer cambios de otras franquicias.</p>
+     *
+     * @param since ultima posicion ya procesada (0 para empezar).
+     * @param franchiseId identificador de la franquicia o null para todas.
+     * @param limit cambios por pagina.
+     * @return cambios y posicion siguiente.
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeedResponse feed(long since, Long franchiseId, int limit) {
+        if (franchiseId == null) {
+            List<ChangeRecord> changes = jdbcTemplate.query(
+                    SELECT + "where commit_seq > ? order by commit_seq limit ?", ChangeLogService::map, since, limit);
+            return new ChangeFeedResponse(changes, changes.isEmpty() ? since : changes.getLast().id());
+        }
+        long bound = Math.max(since, lastId());
+        List<ChangeRecord> changes = jdbcTemplate.query(
+                SELECT + "where franchise_id = ? and commit_seq > ? and commit_seq <= ? order by commit_seq limit ?",
+                ChangeLogService::map, franchiseId, since, bound, limit);
+        long next = changes.size() == limit ? changes.getLast().id() : bound;
+        return new ChangeFeedResponse(changes, next);
+    }
+
+    /**
+     * Ultima posicion asignada del registro, para empezar a leer desde el presente.
+     *
+     * @return posicion maxima o 0 si esta vacio.
+     */
+    @Transactional(readOnly = true)
+    public long lastId() {
+        Long last = jdbcTemplate.queryForObject("select max(commit_seq) from change_log", Long.class);
+        return last != null ? last : 0;
+    }
+
+    /**
+     * Asigna posiciones consecutivas a las filas confirmadas que aun no tienen, en orden de id.
+     *
+     * <p>Cada lote bloquea la fila de {@code change_log_sequence}, asi que los secuenciadores de
+     * todas las instancias se turnan y las posiciones de un lote se ven juntas al confirmar. La
+     * consulta de pendientes es una lectura consistente: no ve (ni espera) las filas de
+     * transacciones abiertas, que reciben su posicion en una pasada posterior a su confirmacion.</p>
+     *
+     * @return filas secuenciadas.
+     */
+    @Scheduled(fixedDelayString = "${app.change-log.sequence-interval:200ms}")
+    public int sequence() {
+        int sequenced = 0;
+        int batch;
+        do {
+            batch = transaction.execute(status -> {
+                long last = jdbcTemplate.queryForObject(
+                        "select last_seq from change_log_sequence where id = 1 for update", Long.class);
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "select id from change_log where commit_seq is null order by id limit ?",
+                        Long.class, sequenceBatch);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                List<Object[]> positions = new ArrayList<>(ids.size());
+                for (Long id : ids) {
+                    positions.add(new Object[] {++last, id});
+                }
+                jdbcTemplate.batchUpdate("update change_log set commit_seq = ? where id = ?", positions);
+                jdbcTemplate.update("update change_log_sequence set last_seq = ? where id = 1", last);
+                return ids.size();
+            });
+            sequenced += batch;
+        } while (batch == sequenceBatch);
+        return sequenced;
+    }
+
+    /**
+     * Borra por lotes las filas mas antiguas que {@code app.change-log.retention}.
+     *
+     * @return filas borradas.
+     */
+    @Scheduled(fixedDelayString = "${app.change-log.purge-interval:1h}")
+    public int purge() {
+        Timestamp before = Timestamp.from(Instant.now().minus(retention));
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("delete from change_log where changed_at < ? limit " + PURGE_BATCH, before);
+            purged += deleted;
+        } while (deleted == PURGE_BATCH);
+        if (purged > 0) {
+            log.info("Purged {} change log rows older than {}", purged, retention);
+        }
+        return purged;
+    }
+
+    /**
+     * Inserta una fila del registro.
+     *
+     * @param entity entidad modificada.
+     * @param operation operacion aplicada.
+     * @param franchiseId identificador de la franquicia.
+     * @param branchId identificador de la sucursal o null.
+     * @param productId identificador del producto o null.
+     */
+    private void append(ChangeRecord.Entity entity, ChangeRecord.Operation operation, Long franchiseId,
+            Long branchId, Long productId) {
+        jdbcTemplate.update(INSERT_SQL, entity.name(), operation.name(), franchiseId, branchId, productId,
+                Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Mapea una fila del registro.
+     *
+     * @param rs resultado posicionado en la fila.
+     * @param rowNum numero de fila.
+     * @return cambio.
+     * @throws SQLException si falla la lectura.
+     */
+    private static ChangeRecord map(ResultSet rs, int rowNum) throws SQLException {
+        return new ChangeRecord(
+                rs.getLong("commit_seq"),
+                ChangeRecord.Entity.valueOf(rs.getString("entity")),
+                ChangeRecord.Operation.valueOf(rs.getString("operation")),
+                rs.getLong("franchise_id"),
+                rs.getObject("branch_id", Long.class),
+                rs.getObject("product_id", Long.class),
+                rs.getTimestamp("changed_at").toInstant());
+    }
+}
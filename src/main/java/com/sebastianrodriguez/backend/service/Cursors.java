@@ -0,0 +1,145 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import com.sebastianrodriguez.backend.exception.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Utilidades de paginacion por cursor: codifica el ultimo id entregado (o el par puntaje e id en
+ * los listados ordenados por relevancia) en un token opaco.
+ */
+public final class Cursors {
+
+    /**
+     * Tamano de pagina por defecto (como texto para usarlo en {@code @RequestParam}).
+     */
+    public static final String DEFAULT_LIMIT = "50";
+
+    /**
+     * Tamano de pagina maximo permitido.
+     */
+    public static final int MAX_LIMIT = 500;
+
+    private static final String PREFIX = "id:";
+
+    private static final String RANKED_PREFIX = "rank:";
+
+    private Cursors() {
+    }
+
+    /**
+     * Codifica el ultimo id de una pagina como cursor opaco.
+     *
+     * @param lastId ultimo id entregado.
+     * @return cursor en Base64 URL-safe.
+     */
+    public static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decodifica un cursor; un cursor ausente equivale al inicio del listado.
+     *
+     * @param cursor cursor recibido o null.
+     * @return id a partir del cual continuar (exclusivo).
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Codifica la posicion de la ultima fila de un listado ordenado por puntaje descendente e id.
+     *
+     * @param last puntaje e id de la ultima fila entregada.
+     * @return cursor en Base64 URL-safe.
+     */
+    public static String encode(Ranked last) {
+        byte[] raw = (RANKED_PREFIX + last.rank() + ":" + last.id()).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decodifica un cursor de listado por puntaje; un cursor ausente equivale al inicio.
+     *
+     * @param cursor cursor recibido o null.
+     * @return posicion a partir de la cual continuar (exclusiva).
+     */
+    public static Ranked decodeRanked(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Ranked.START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.startsWith(RANKED_PREFIX) ? raw.substring(RANKED_PREFIX.length()).split(":") : null;
+            if (parts == null || parts.length != 2) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            return new Ranked(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Arma una pagina a partir de filas consultadas con {@code limit + 1} para detectar si hay mas.
+     *
+     * @param rows filas ordenadas por id, hasta {@code limit + 1}.
+     * @param limit tamano de pagina solicitado.
+     * @param idOf funcion que obtiene el id de una fila.
+     * @param <T> tipo de las filas.
+     * @return pagina con el cursor siguiente si corresponde.
+     */
+    public static <T> CursorPage<T> page(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, encode(idOf.apply(items.get(limit - 1))));
+    }
+
+    /**
+     * Variante de {@link #page(List, int, Function)} para listados ordenados por puntaje.
+     *
+     * @param rows filas ordenadas por puntaje descendente e id, hasta {@code limit + 1}.
+     * @param limit tamano de pagina solicitado.
+     * @param positionOf funcion que obtiene el puntaje e id de una fila.
+     * @param <T> tipo de las filas.
+     * @return pagina con el cursor siguiente si corresponde.
+     */
+    public static <T> CursorPage<T> rankedPage(List<T> rows, int limit, Function<T, Ranked> positionOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, encode(positionOf.apply(items.get(limit - 1))));
+    }
+
+    /**
+     * Posicion en un listado ordenado por puntaje descendente y, a igual puntaje, por id.
+     *
+     * @param rank puntaje de la fila.
+     * @param id identificador de la fila.
+     */
+    public record Ranked(int rank, long id) {
+
+        /**
+         * Posicion anterior a la primera fila.
+         */
+        public static final Ranked START = new Ranked(Integer.MAX_VALUE, 0L);
+    }
+}
@@ -0,0 +1,305 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.dto.ChangeRecord;
+import com.sebastianrodriguez.backend.dto.DeletionJobResponse;
+import com.sebastianrodriguez.backend.entity.DeletionJob;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import com.sebastianrodriguez.backend.repository.BranchRepository;
+import com.sebastianrodriguez.backend.repository.DeletionJobRepository;
+import com.sebastianrodriguez.backend.repository.ProductRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Borrado logico en segundo plano de jerarquias grandes.
+ *
+ * <p>La raiz (franquicia o sucursal) se marca como eliminada en la solicitud, por lo que deja de
+ * verse de inmediato; este servicio marca luego sus descendientes por rangos de id, cada lote en
+ * una transaccion corta. El avance se guarda tras cada lote y el trabajo se toma con una concesion
+ * con vencimiento, de modo que un reinicio u otra instancia lo retoma donde quedo. Cada lote
+ * renueva primero la concesion condicionada a que siga siendo la propia; si otra instancia la tomo
+ * (por ejemplo, tras una pausa larga de esta), se deja de procesar.</p>
+ */
+@Service
+public class DeletionJobService {
+
+    private static final int CLAIM_BATCH = 10;
+
+    private static final Logger log = LoggerFactory.getLogger(DeletionJobService.class);
+
+    private final DeletionJobRepository deletionJobRepository;
+    private final ProductRepository productRepository;
+    private final BranchRepository branchRepository;
+    private final ChangeLogService changeLogService;
+    private final TopStockService topStockService;
+    private final ProductSearchService productSearchService;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+    private final Duration lease;
+
+    /**
+     * Construye el servicio con sus repositorios y limites.
+     *
+     * @param deletionJobRepository repositorio de trabajos de borrado.
+     * @param productRepository repositorio de productos.
+     * @param branchRepository repositorio de sucursales.
+     * @param changeLogService registro de cambios.
+     * @param topStockService servicio de lideres de stock por sucursal.
+     * @param productSearchService indice de busqueda por nombre.
+     * @param transactionManager gestor de transacciones para cada lote.
+     * @param chunkSize filas marcadas por lote.
+     * @param lease duracion de la concesion; se renueva tras cada lote.
+     */
+    public DeletionJobService(
+            DeletionJobRepository deletionJobRepository,
+            ProductRepository productRepository,
+            BranchRepository branchRepository,
+            ChangeLogService changeLogService,
+            TopStockService topStockService,
+            ProductSearchService productSearchService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.deletion.chunk-size:1000}") int chunkSize,
+            @Value("${app.deletion.lease:30s}") Duration lease
+    ) {
+        this.deletionJobRepository = deletionJobRepository;
+        this.productRepository = productRepository;
+        this.branchRepository = branchRepository;
+        this.changeLogService = changeLogService;
+        this.topStockService = topStockService;
+        this.productSearchService = productSearchService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+    }
+
+    /**
+     * Registra el borrado de los descendientes de una raiz ya marcada como eliminada.
+     *
+     * @param target tipo de raiz.
+     * @param targetId id de la franquicia o sucursal.
+     * @return trabajo creado.
+     */
+    @Transactional
+    public DeletionJobResponse enqueue(DeletionJob.Target target, Long targetId) {
+        Instant now = Instant.now();
+        DeletionJob job = new DeletionJob();
+        job.setTargetType(target);
+        job.setTargetId(targetId);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return toResponse(deletionJobRepository.save(job));
+    }
+
+    /**
+     * Obtiene el estado de un trabajo.
+     *
+     * @param id identificador del trabajo.
+     * @return estado y avance.
+     */
+    @Transactional(readOnly = true)
+    public DeletionJobResponse get(Long id) {
+        return deletionJobRepository.findById(id)
+                .map(DeletionJobService::toResponse)
+                .orElseThrow(() -> new NotFoundException("Deletion job not found: " + id));
+    }
+
+    /**
+     * Toma y ejecuta hasta completar los trabajos pendientes o abandonados.
+     *
+     * <p>Un trabajo que falla conserva su avance y se reintenta cuando vence su concesion.</p>
+     */
+    @Scheduled(fixedDelayString = "${app.deletion.poll-interval:1s}")
+    public void runPending() {
+        for (Long id : deletionJobRepository.findClaimableIds(Instant.now(), Limit.of(CLAIM_BATCH))) {
+            try {
+                Instant leaseUntil = claim(id);
+                if (leaseUntil != null) {
+                    run(id, leaseUntil);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Deletion job {} failed; it will be retried after its lease expires", id, ex);
+            }
+        }
+    }
+
+    /**
+     * Intenta tomar la concesion de un trabajo.
+     *
+     * @param id identificador del trabajo.
+     * @return vencimiento de la concesion tomada, o null si otra instancia lo ejecuta.
+     */
+    private Instant claim(Long id) {
+        Instant now = now();
+        Instant leaseUntil = now.plus(lease);
+        Integer claimed = transaction.execute(status -> deletionJobRepository.claim(id, now, leaseUntil));
+        return claimed != null && claimed == 1 ? leaseUntil : null;
+    }
+
+    /**
+     * Ejecuta los lotes de un trabajo, cada uno en su propia transaccion, hasta terminarlo o perder
+     * la concesion.
+     *
+     * @param id identificador del trabajo.
+     * @param leaseUntil vencimiento de la concesion tomada.
+     */
+    private void run(Long id, Instant leaseUntil) {
+        Instant held = leaseUntil;
+        while (true) {
+            Instant current = held;
+            Instant now = now();
+            Step step = transaction.execute(status -> step(id, current, now));
+            if (step == Step.DONE) {
+                log.info("Deletion job {} finished", id);
+                return;
+            }
+            if (step == Step.LEASE_LOST) {
+                log.warn("Deletion job {} lost its lease to another instance, stopping", id);
+                return;
+            }
+            held = now.plus(lease);
+        }
+    }
+
+    /**
+     * Renueva la concesion, marca el siguiente lote de descendientes y guarda el avance.
+     *
+     * @param id identificador del trabajo.
+     * @param leaseUntil vencimiento de la concesion que esta instancia tiene.
+     * @param now instante actual; la concesion renovada vence {@code app.deletion.lease} despues.
+     * @return resultado del lote.
+     */
+    private Step step(Long id, Instant leaseUntil, Instant now) {
+        if (deletionJobRepository.renew(id, leaseUntil, now.plus(lease), now) == 0) {
+            return Step.LEASE_LOST;
+        }
+        DeletionJob job = deletionJobRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Deletion job not found: " + id));
+        List<Long> ids = nextIds(job);
+        if (!ids.isEmpty()) {
+            long upToId = ids.getLast();
+            job.setProcessed(job.getProcessed() + softDelete(job, ids));
+            job.setCursor(upToId);
+        } else if (job.getTargetType() == DeletionJob.Target.FRANCHISE && job.getPhase() == DeletionJob.Phase.PRODUCTS) {
+            job.setPhase(DeletionJob.Phase.BRANCHES);
+            job.setCursor(0);
+        } else {
+            deleteLeaders(job);
+            job.setStatus(DeletionJob.Status.DONE);
+            job.setLeaseUntil(null);
+            job.setFinishedAt(now);
+        }
+        job.setUpdatedAt(now);
+        return job.getStatus() == DeletionJob.Status.DONE ? Step.DONE : Step.CONTINUE;
+    }
+
+    /**
+     * Lista los ids del siguiente lote segun la raiz y la etapa del trabajo.
+     *
+     * @param job trabajo en curso.
+     * @return ids ordenados posteriores al cursor.
+     */
+    private List<Long> nextIds(DeletionJob job) {
+        Limit limit = Limit.of(chunkSize);
+        if (job.getTargetType() == DeletionJob.Target.BRANCH) {
+            return productRepository.findIdsByBranchId(job.getTargetId(), job.getCursor(), limit);
+        }
+        return job.getPhase() == DeletionJob.Phase.PRODUCTS
+                ? productRepository.findIdsByFranchiseId(job.getTargetId(), job.getCursor(), limit)
+                : branchRepository.findIdsByFranchiseId(job.getTargetId(), job.getCursor(), limit);
+    }
+
+    /**
+     * Marca como eliminadas las filas del rango entre el cursor y el ultimo id del lote, quita los
+     * productos del indice de busqueda y registra el cambio del alcance completo (sucursal o
+     * franquicia).
+     *
+     * @param job trabajo en curso.
+     * @param ids ids del lote, ordenados.
+     * @return cantidad de filas marcadas.
+     */
+    private int softDelete(DeletionJob job, List<Long> ids) {
+        Long targetId = job.getTargetId();
+        long upToId = ids.getLast();
+        if (job.getTargetType() == DeletionJob.Target.BRANCH) {
+            int deleted = productRepository.softDeleteByBranchIdInRange(targetId, job.getCursor(), upToId);
+            productSearchService.remove(ids);
+            branchRepository.findFranchiseIdIncludingDeleted(targetId).ifPresent(franchiseId ->
+                    changeLogService.product(ChangeRecord.Operation.DELETE, franchiseId, targetId, null));
+            return deleted;
+        }
+        if (job.getPhase() == DeletionJob.Phase.PRODUCTS) {
+            int deleted = productRepository.softDeleteByFranchiseIdInRange(targetId, job.getCursor(), upToId);
+            productSearchService.remove(ids);
+            changeLogService.product(ChangeRecord.Operation.DELETE, targetId, null, null);
+            return deleted;
+        }
+        int deleted = branchRepository.softDeleteByFranchiseIdInRange(targetId, job.getCursor(), upToId);
+        changeLogService.branch(ChangeRecord.Operation.DELETE, targetId, null);
+        return deleted;
+    }
+
+    /**
+     * Elimina los lideres de stock de la raiz una vez marcados todos sus productos, en una
+     * transaccion que ya no bloquea filas de productos: el mismo orden (productos y luego lider)
+     * que siguen las escrituras de productos.
+     *
+     * @param job trabajo que termina.
+     */
+    private void deleteLeaders(DeletionJob job) {
+        if (job.getTargetType() == DeletionJob.Target.BRANCH) {
+            topStockService.onBranchDeleted(job.getTargetId());
+        } else {
+            topStockService.onFranchiseDeleted(job.getTargetId());
+        }
+    }
+
+    /**
+     * Instante actual con la precision de las columnas de fecha, para que la concesion escrita se
+     * pueda comparar por igualdad con la que guarda esta instancia.
+     *
+     * @return instante actual truncado a microsegundos.
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Mapea un trabajo a su DTO.
+     *
+     * @param job trabajo.
+     * @return DTO del trabajo.
+     */
+    private static DeletionJobResponse toResponse(DeletionJob job) {
+        return new DeletionJobResponse(
+                job.getId(),
+                job.getTargetType(),
+                job.getTargetId(),
+                job.getStatus(),
+                job.getPhase(),
+                job.getProcessed(),
+                job.getCreatedAt(),
+                job.getUpdatedAt(),
+                job.getFinishedAt()
+        );
+    }
+
+    /**
+     * Resultado de un lote.
+     */
+    private enum Step {
+        CONTINUE,
+        DONE,
+        LEASE_LOST
+    }
+}
@@ -0,0 +1,185 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sebastianrodriguez.backend.dto.BranchSummaryResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse;
+import com.sebastianrodriguez.backend.dto.ProductHierarchyRow;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.repository.BranchRepository;
+import com.sebastianrodriguez.backend.repository.ProductRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Escribe el detalle de una franquicia en JSON de forma incremental, con memoria constante.
+ *
+ * <p>Produce el mismo documento que {@code FranchiseDetailResponse}, pero lo recorre por bloques de
+ * {@code app.franchise-stream.chunk-size} filas con paginacion por cursor: cada bloque se lee en
+ * una transaccion corta y se escribe a la salida recien despues de confirmarla, de modo que un
+ * cliente lento no retiene una conexion ni una vista de lectura abierta. Cada bloque es
+ * consistente, pero el documento completo no es una foto de un unico instante. Con la escritura
+ * diferida activa se lee del primario y cada bloque se corrige con los ajustes pendientes, como
+ * {@link ProductService#listByBranch(Long, String, int)}.</p>
+ */
+@Service
+public class FranchiseDetailStreamer {
+
+    private final BranchRepository branchRepository;
+    private final ProductRepository productRepository;
+    private final StockWriteBehind stockWriteBehind;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate reads;
+    private final int chunkSize;
+
+    /**
+     * Construye el servicio con sus dependencias.
+     *
+     * @param branchRepository repositorio de sucursales.
+     * @param productRepository repositorio de productos.
+     * @param stockWriteBehind buffer de ajustes de stock aun no escritos.
+     * @param objectMapper mapper JSON de la aplicacion.
+     * @param transactionManager gestor de transacciones de cada bloque.
+     * @param chunkSize sucursales o productos leidos por bloque.
+     */
+    public FranchiseDetailStreamer(
+            BranchRepository branchRepository,
+            ProductRepository productRepository,
+            StockWriteBehind stockWriteBehind,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.franchise-stream.chunk-size:500}") int chunkSize
+    ) {
+        this.branchRepository = branchRepository;
+        this.productRepository = productRepository;
+        this.stockWriteBehind = stockWriteBehind;
+        this.objectMapper = objectMapper;
+        this.reads = new TransactionTemplate(transactionManager);
+        this.reads.setReadOnly(!stockWriteBehind.enabled());
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Escribe el detalle de la franquicia en la salida indicada.
+     *
+     * @param franchise franquicia ya validada.
+     * @param out salida de la respuesta; no se cierra.
+     * @throws IOException si falla la escritura.
+     */
+    public void write(FranchiseSummaryResponse franchise, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeNumberField("id", franchise.id());
+            generator.writeStringField("name", franchise.name());
+            generator.writeArrayFieldStart("branches");
+            long afterBranchId = 0;
+            List<BranchSummaryResponse> branches;
+            do {
+                long after = afterBranchId;
+                branches = reads.execute(status ->
+                        branchRepository.findSummariesByFranchiseId(franchise.id(), after, Limit.of(chunkSize)));
+                writeBranches(generator, branches);
+                if (!branches.isEmpty()) {
+                    afterBranchId = branches.getLast().id();
+                }
+            } while (branches.size() == chunkSize);
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Escribe un bloque de sucursales con sus productos, leidos por bloques.
+     *
+     * @param generator generador JSON.
+     * @param branches sucursales ordenadas por id.
+     * @throws IOException si falla la escritura.
+     */
+    private void writeBranches(JsonGenerator generator, List<BranchSummaryResponse> branches) throws IOException {
+        if (branches.isEmpty()) {
+            return;
+        }
+        List<Long> branchIds = branches.stream().map(BranchSummaryResponse::id).toList();
+        int opened = 0;
+        long afterBranchId = 0;
+        long afterId = 0;
+        List<ProductHierarchyRow> products;
+        do {
+            products = readProducts(branchIds, afterBranchId, afterId);
+            for (ProductHierarchyRow product : products) {
+                while (opened == 0 || !branches.get(opened - 1).id().equals(product.branchId())) {
+                    if (opened > 0) {
+                        endBranch(generator);
+                    }
+                    startBranch(generator, branches.get(opened++));
+                }
+                generator.writeObject(new ProductResponse(product.id(), product.name(), product.stock()));
+            }
+            generator.flush();
+            if (!products.isEmpty()) {
+                afterBranchId = products.getLast().branchId();
+                afterId = products.getLast().id();
+            }
+        } while (products.size() == chunkSize);
+        if (opened > 0) {
+            endBranch(generator);
+        }
+        while (opened < branches.size()) {
+            startBranch(generator, branches.get(opened++));
+            endBranch(generator);
+        }
+    }
+
+    /**
+     * Lee un bloque de productos en su propia transaccion, con el stock de los ajustes pendientes.
+     *
+     * @param branchIds sucursales del bloque.
+     * @param afterBranchId sucursal del ultimo producto escrito.
+     * @param afterId ultimo producto escrito.
+     * @return productos ordenados por sucursal e id.
+     */
+    private List<ProductHierarchyRow> readProducts(List<Long> branchIds, long afterBranchId, long afterId) {
+        return stockWriteBehind.read(() -> reads.execute(status -> productRepository
+                .findHierarchyPageByBranchIdIn(branchIds, afterBranchId, afterId, Limit.of(chunkSize))
+                .stream()
+                .map(row -> {
+                    ProductResponse visible = stockWriteBehind.withPending(
+                            new ProductResponse(row.id(), row.name(), row.stock()));
+                    return new ProductHierarchyRow(row.id(), row.name(), visible.stock(), row.branchId(),
+                            row.franchiseId());
+                })
+                .toList()));
+    }
+
+    /**
+     * Abre el objeto de una sucursal y su arreglo de productos.
+     *
+     * @param generator generador JSON.
+     * @param branch sucursal.
+     * @throws IOException si falla la escritura.
+     */
+    private void startBranch(JsonGenerator generator, BranchSummaryResponse branch) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", branch.id());
+        generator.writeStringField("name", branch.name());
+        generator.writeArrayFieldStart("products");
+    }
+
+    /**
+     * Cierra el arreglo de productos y el objeto de la sucursal.
+     *
+     * @param generator generador JSON.
+     * @throws IOException si falla la escritura.
+     */
+    private void endBranch(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+}
@@ -1,32 +1,61 @@
 package com.sebastianrodriguez.backend.service;
 
-import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.cache.ResponseCache;
 import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.ChangeRecord;
+import com.sebastianrodriguez.backend.dto.DeletionJobResponse;
+import com.sebastianrodriguez.backend.dto.CursorPage;
 import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
 import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseHeaderRow;
 import com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse;
 import com.sebastianrodriguez.backend.dto.FranchiseUpdateRequest;
-import com.sebastianrodriguez.backend.dto.ProductResponse;
-import com.sebastianrodriguez.backend.entity.Branch;
+import com.sebastianrodriguez.backend.dto.Versioned;
+import com.sebastianrodriguez.backend.entity.DeletionJob;
 import com.sebastianrodriguez.backend.entity.Franchise;
-import com.sebastianrodriguez.backend.entity.Product;
+import com.sebastianrodriguez.backend.exception.BadRequestException;
 import com.sebastianrodriguez.backend.exception.NotFoundException;
 import com.sebastianrodriguez.backend.repository.BranchRepository;
+import com.sebastianrodriguez.backend.repository.BranchTopStockRepository;
 import com.sebastianrodriguez.backend.repository.FranchiseRepository;
 import com.sebastianrodriguez.backend.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Logica de negocio para franquicias y reportes asociados.
  */
 @Service
+@Timed(value = "app.service", histogram = true)
 public class FranchiseService {
 
+    /**
+     * Maximo de productos por sucursal en el reporte de mayor stock.
+     */
+    public static final int MAX_TOP_K = 100;
+
     private final FranchiseRepository franchiseRepository;
     private final BranchRepository branchRepository;
     private final ProductRepository productRepository;
+    private final BranchTopStockRepository topStockRepository;
+    private final TopStockService topStockService;
+    private final ProductSearchService productSearchService;
+    private final DeletionJobService deletionJobService;
+    private final ResponseCache responseCache;
+    private final RevisionService revisionService;
+    private final ChangeLogService changeLogService;
+    private final StockEventHub stockEventHub;
+    private final StockWriteBehind stockWriteBehind;
+    private final TransactionTemplate primaryTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long asyncDeleteThreshold;
 
     /**
      * Construye el servicio con sus repositorios.
@@ -34,15 +63,50 @@ public class FranchiseService {
      * @param franchiseRepository repositorio de franquicias.
      * @param branchRepository repositorio de sucursales.
      * @param productRepository repositorio de productos.
+     * @param topStockRepository repositorio de lideres de stock por sucursal.
+     * @param topStockService servicio de lideres de stock por sucursal.
+     * @param productSearchService indice de busqueda por nombre.
+     * @param deletionJobService servicio de borrados en segundo plano.
+     * @param responseCache cache de respuestas de lectura.
+     * @param revisionService servicio de revisiones de los detalles.
+     * @param changeLogService registro de cambios.
+     * @param stockEventHub distribuidor de eventos de stock.
+     * @param stockWriteBehind escritura diferida de los ajustes de stock.
+     * @param transactionManager gestor de transacciones.
+     * @param asyncDeleteThreshold productos a partir de los cuales el borrado pasa a segundo plano.
      */
     public FranchiseService(
             FranchiseRepository franchiseRepository,
             BranchRepository branchRepository,
-            ProductRepository productRepository
+            ProductRepository productRepository,
+            BranchTopStockRepository topStockRepository,
+            TopStockService topStockService,
+            ProductSearchService productSearchService,
+            DeletionJobService deletionJobService,
+            ResponseCache responseCache,
+            RevisionService revisionService,
+            ChangeLogService changeLogService,
+            StockEventHub stockEventHub,
+            StockWriteBehind stockWriteBehind,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.deletion.async-threshold:5000}") long asyncDeleteThreshold
     ) {
         this.franchiseRepository = franchiseRepository;
         this.branchRepository = branchRepository;
         this.productRepository = productRepository;
+        this.topStockRepository = topStockRepository;
+        this.topStockService = topStockService;
+        this.productSearchService = productSearchService;
+        this.deletionJobService = deletionJobService;
+        this.responseCache = responseCache;
+        this.revisionService = revisionService;
+        this.changeLogService = changeLogService;
+        this.stockEventHub = stockEventHub;
+        this.stockWriteBehind = stockWriteBehind;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.asyncDeleteThreshold = asyncDeleteThreshold;
     }
 
     /**
@@ -56,20 +120,25 @@ public class FranchiseService {
         Franchise franchise = new Franchise();
         franchise.setName(request.name());
         Franchise saved = franchiseRepository.save(franchise);
-        return toSummary(saved);
+        changeLogService.franchise(ChangeRecord.Operation.CREATE, saved.getId());
+        responseCache.evictFranchisePages();
+        return ResponseMapper.toSummary(saved);
     }
 
     /**
-     * Lista todas las franquicias activas.
+     * Lista las franquicias activas con paginacion por cursor, desde el cache o cargando la
+     * pagina del primario.
      *
-     * @return listado de franquicias.
+     * @param after cursor de la pagina anterior o null para empezar.
+     * @param limit tamano de pagina.
+     * @return pagina de franquicias ordenadas por id.
      */
-    @Transactional(readOnly = true)
-    public List<FranchiseSummaryResponse> list() {
-        return franchiseRepository.findAll()
-                .stream()
-                .map(this::toSummary)
-                .toList();
+    public CursorPage<FranchiseSummaryResponse> list(String after, int limit) {
+        Long afterId = Cursors.decode(after);
+        return responseCache.franchisePage(after, limit, key -> primaryTransaction.execute(status -> {
+            List<FranchiseSummaryResponse> rows = franchiseRepository.findSummaries(afterId, Limit.of(limit + 1));
+            return Cursors.page(rows, limit, FranchiseSummaryResponse::id);
+        }));
     }
 
     /**
@@ -78,121 +147,143 @@ public class FranchiseService {
      * @param id identificador de la franquicia.
      * @return detalle de la franquicia.
      */
-    @Transactional(readOnly = true)
     public FranchiseDetailResponse get(Long id) {
-        Franchise franchise = franchiseRepository.findWithBranchesById(id)
-                .orElseThrow(() -> new NotFoundException("Franchise not found: " + id));
-        return toDetail(franchise);
+        return getVersioned(id).body();
     }
 
     /**
-     * Obtiene el producto con mayor stock por sucursal para una franquicia.
+     * Obtiene el detalle de una franquicia junto con la revision con que se armo.
      *
-     * @param franchiseId identificador de la franquicia.
-     * @return lista con el top de stock por sucursal.
+     * <p>Se sirve desde el cache; en un fallo usa dos consultas de proyeccion sin importar la
+     * cantidad de sucursales: la franquicia con su revision y luego las filas sucursal/producto,
+     * agrupadas en memoria sin cargar entidades. La carga lee del primario y no de una replica: lo
+     * cargado queda en cache hasta la siguiente invalidacion o el TTL, y una replica atrasada
+     * devolveria el estado previo a la escritura que acaba de invalidarlo. Los ajustes de stock
+     * aun no escritos ({@link StockWriteBehind}) se aplican al cuerpo y se suman a la revision.</p>
+     *
+     * @param id identificador de la franquicia.
+     * @return detalle de la franquicia y su revision.
      */
-    @Transactional(readOnly = true)
-    public List<BranchTopStockProductResponse> topStockByBranch(Long franchiseId) {
-        if (!franchiseRepository.existsById(franchiseId)) {
-            throw new NotFoundException("Franchise not found: " + franchiseId);
-        }
-        return productRepository.findTopStockByFranchiseId(franchiseId)
-                .stream()
-                .map(this::toTopStock)
-                .toList();
+    public Versioned<FranchiseDetailResponse> getVersioned(Long id) {
+        return stockWriteBehind.read(() -> {
+            ResponseCache.FranchiseEntry entry = responseCache.franchise(id, key -> primaryTransaction.execute(status -> {
+                FranchiseHeaderRow franchise = franchiseRepository.findHeaderById(key)
+                        .orElseThrow(() -> new NotFoundException("Franchise not found: " + key));
+                FranchiseDetailResponse detail =
+                        ResponseMapper.toDetail(franchise, branchRepository.findTreeByFranchiseId(key));
+                return new ResponseCache.FranchiseEntry(detail, franchise.revision());
+            }));
+            return new Versioned<>(stockWriteBehind.withPending(entry.response()),
+                    stockWriteBehind.franchiseRevision(id, entry.revision()));
+        });
     }
 
     /**
-     * Actualiza el nombre de una franquicia.
+     * Obtiene la revision actual del subarbol de una franquicia con una sola consulta, sin armar
+     * el detalle. Se lee del primario para no responder {@code 304} con una revision atrasada, y
+     * suma los ajustes de stock aun no escritos como {@link #getVersioned(Long)}.
      *
      * @param id identificador de la franquicia.
-     * @param request datos a actualizar.
-     * @return resumen actualizado.
+     * @return revision actual.
      */
-    @Transactional
-    public FranchiseSummaryResponse update(Long id, FranchiseUpdateRequest request) {
-        Franchise franchise = franchiseRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Franchise not found: " + id));
-        franchise.setName(request.name());
-        return toSummary(franchiseRepository.save(franchise));
+    public long revision(Long id) {
+        return stockWriteBehind.read(() -> stockWriteBehind.franchiseRevision(id,
+                primaryTransaction.execute(status -> franchiseRepository.findRevisionById(id))
+                        .orElseThrow(() -> new NotFoundException("Franchise not found: " + id))));
     }
 
     /**
-     * Elimina una franquicia con borrado logico y cascada sobre sucursales/productos.
+     * Obtiene los datos basicos de una franquicia.
      *
      * @param id identificador de la franquicia.
+     * @return resumen de la franquicia.
      */
-    @Transactional
-    public void delete(Long id) {
-        Franchise franchise = franchiseRepository.findById(id)
+    @Transactional(readOnly = true)
+    public FranchiseSummaryResponse getSummary(Long id) {
+        return franchiseRepository.findSummaryById(id)
                 .orElseThrow(() -> new NotFoundException("Franchise not found: " + id));
-        productRepository.softDeleteByFranchiseId(id);
-        branchRepository.softDeleteByFranchiseId(id);
-        franchiseRepository.delete(franchise);
     }
 
     /**
-     * Mapea una entidad a su respuesta resumida.
+     * Obtiene los {@code k} productos con mayor stock por sucursal para una franquicia.
      *
-     * @param franchise entidad de franquicia.
-     * @return DTO resumen.
-     */
-    private FranchiseSummaryResponse toSummary(Franchise franchise) {
-        return new FranchiseSummaryResponse(franchise.getId(), franchise.getName());
-    }
-
-    /**
-     * Mapea una franquicia a su detalle con sucursales y productos.
+     * <p>Con {@code k = 1} lee la tabla de lideres mantenida por {@link TopStockService}; con mas,
+     * una consulta de ventana sobre los productos. En ambos casos a igual stock gana el producto
+     * de menor id. Con la escritura diferida activa se lee del primario (como
+     * {@link ProductService#listByBranch(Long, String, int)}) y se corrige con los ajustes
+     * pendientes.</p>
      *
-     * @param franchise entidad de franquicia.
-     * @return DTO de detalle.
+     * @param franchiseId identificador de la franquicia.
+     * @param k productos por sucursal, entre 1 y {@link #MAX_TOP_K}.
+     * @return hasta {@code k} productos por sucursal, ordenados por sucursal y posicion.
      */
-    private FranchiseDetailResponse toDetail(Franchise franchise) {
-        List<BranchDetailResponse> branches = franchise.getBranches()
-                .stream()
-                .map(this::toDetail)
-                .toList();
-        return new FranchiseDetailResponse(franchise.getId(), franchise.getName(), branches);
+    public List<BranchTopStockProductResponse> topStockByBranch(Long franchiseId, int k) {
+        if (k < 1 || k > MAX_TOP_K) {
+            throw new BadRequestException("k must be between 1 and " + MAX_TOP_K);
+        }
+        TransactionTemplate reads = stockWriteBehind.enabled() ? primaryTransaction : readOnlyTransaction;
+        return stockWriteBehind.read(() -> reads.execute(status -> {
+            if (!franchiseRepository.existsById(franchiseId)) {
+                throw new NotFoundException("Franchise not found: " + franchiseId);
+            }
+            List<BranchTopStockProductResponse> report = k == 1
+                    ? topStockRepository.findReportByFranchiseId(franchiseId)
+                    : productRepository.findTopStockByFranchiseId(franchiseId, k);
+            return stockWriteBehind.withPending(franchiseId, k, report);
+        }));
     }
 
     /**
-     * Mapea una sucursal a su detalle con productos.
+     * Actualiza el nombre de una franquicia.
      *
-     * @param branch entidad de sucursal.
-     * @return DTO de detalle.
+     * @param id identificador de la franquicia.
+     * @param request datos a actualizar.
+     * @return resumen actualizado.
      */
-    private BranchDetailResponse toDetail(Branch branch) {
-        List<ProductResponse> products = branch.getProducts()
-                .stream()
-                .map(this::toResponse)
-                .toList();
-        return new BranchDetailResponse(branch.getId(), branch.getName(), products);
+    @Transactional
+    public FranchiseSummaryResponse update(Long id, FranchiseUpdateRequest request) {
+        Franchise franchise = franchiseRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Franchise not found: " + id));
+        franchise.setName(request.name());
+        Franchise saved = franchiseRepository.save(franchise);
+        revisionService.franchiseChanged(id);
+        changeLogService.franchise(ChangeRecord.Operation.UPDATE, id);
+        responseCache.evictFranchise(id);
+        return ResponseMapper.toSummary(saved);
     }
 
     /**
-     * Mapea una entidad producto a su respuesta.
+     * Elimina una franquicia con borrado logico y cascada sobre sucursales/productos.
      *
-     * @param product entidad de producto.
-     * @return DTO de producto.
-     */
-    private ProductResponse toResponse(Product product) {
-        return new ProductResponse(product.getId(), product.getName(), product.getStock());
-    }
-
-    /**
-     * Mapea un producto al reporte de top stock por sucursal.
+     * <p>Si la franquicia tiene al menos {@code app.deletion.async-threshold} productos, solo se
+     * marca la franquicia (deja de verse de inmediato) y la cascada, incluidos sus lideres de
+     * stock, se encola como trabajo en segundo plano.</p>
      *
-     * @param product producto con su sucursal cargada.
-     * @return DTO de top stock.
+     * @param id identificador de la franquicia.
+     * @return trabajo encolado, o vacio si el borrado se completo en la solicitud.
      */
-    private BranchTopStockProductResponse toTopStock(Product product) {
-        Branch branch = product.getBranch();
-        return new BranchTopStockProductResponse(
-                branch.getId(),
-                branch.getName(),
-                product.getId(),
-                product.getName(),
-                product.getStock()
-        );
+    @Transactional
+    public Optional<DeletionJobResponse> delete(Long id) {
+        Franchise franchise = franchiseRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Franchise not found: " + id));
+        boolean background = productRepository.countByFranchiseIdUpTo(id, asyncDeleteThreshold) >= asyncDeleteThreshold;
+        if (!background) {
+            // Productos antes que los lideres: el mismo orden de locks que las escrituras de productos.
+            productRepository.softDeleteByFranchiseId(id);
+            productSearchService.removeFranchise(id);
+            topStockService.onFranchiseDeleted(id);
+        }
+        changeLogService.franchise(ChangeRecord.Operation.DELETE, id);
+        responseCache.evictFranchiseSubtree(id);
+        stockEventHub.franchiseDeleted(id);
+        if (background) {
+            franchiseRepository.softDeleteById(id);
+            return Optional.of(deletionJobService.enqueue(DeletionJob.Target.FRANCHISE, id));
+        }
+        changeLogService.product(ChangeRecord.Operation.DELETE, id, null, null);
+        branchRepository.softDeleteByFranchiseId(id);
+        changeLogService.branch(ChangeRecord.Operation.DELETE, id, null);
+        franchiseRepository.delete(franchise);
+        return Optional.empty();
     }
 }
@@ -0,0 +1,148 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.dto.BranchAnalyticsResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseAnalyticsResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse;
+import com.sebastianrodriguez.backend.dto.InventoryStatsResponse;
+import com.sebastianrodriguez.backend.dto.InventoryStatsRow;
+import com.sebastianrodriguez.backend.dto.StockBucket;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import com.sebastianrodriguez.backend.repository.FranchiseRepository;
+import com.sebastianrodriguez.backend.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Estadisticas de inventario por franquicia y sucursal calculadas en la base de datos.
+ *
+ * <p>Cada sucursal se resume con una consulta agrupada de una sola pasada; los totales de la
+ * franquicia se combinan a partir de esas filas, sin volver a leer productos.</p>
+ */
+@Service
+@Timed(value = "app.service", histogram = true)
+public class InventoryAnalyticsService {
+
+    /**
+     * Rangos del histograma de stock, en el mismo orden que las columnas de
+     * {@link InventoryStatsRow}.
+     */
+    private static final int[][] BUCKETS = {{0, 0}, {1, 10}, {11, 100}, {101, 1000}, {1001, -1}};
+
+    private final FranchiseRepository franchiseRepository;
+    private final ProductRepository productRepository;
+
+    /**
+     * Construye el servicio con sus repositorios.
+     *
+     * @param franchiseRepository repositorio de franquicias.
+     * @param productRepository repositorio de productos.
+     */
+    public InventoryAnalyticsService(FranchiseRepository franchiseRepository, ProductRepository productRepository) {
+        this.franchiseRepository = franchiseRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Obtiene las estadisticas de inventario de una franquicia y de cada una de sus sucursales.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @return totales de la franquicia y estadisticas por sucursal.
+     */
+    @Transactional(readOnly = true)
+    public FranchiseAnalyticsResponse franchise(Long franchiseId) {
+        FranchiseSummaryResponse franchise = franchiseRepository.findSummaryById(franchiseId)
+                .orElseThrow(() -> new NotFoundException("Franchise not found: " + franchiseId));
+        List<InventoryStatsRow> rows = productRepository.findInventoryStatsByFranchiseId(franchiseId);
+        List<BranchAnalyticsResponse> branches = rows.stream()
+                .map(InventoryAnalyticsService::toBranch)
+                .toList();
+        return new FranchiseAnalyticsResponse(franchise.id(), franchise.name(), combine(rows), branches);
+    }
+
+    /**
+     * Obtiene las estadisticas de inventario de una sucursal.
+     *
+     * @param branchId identificador de la sucursal.
+     * @return estadisticas de la sucursal.
+     */
+    @Transactional(readOnly = true)
+    public BranchAnalyticsResponse branch(Long branchId) {
+        return productRepository.findInventoryStatsByBranchId(branchId)
+                .map(InventoryAnalyticsService::toBranch)
+                .orElseThrow(() -> new NotFoundException("Branch not found: " + branchId));
+    }
+
+    /**
+     * Mapea la fila agregada de una sucursal a su DTO.
+     *
+     * @param row agregados de la sucursal.
+     * @return estadisticas de la sucursal.
+     */
+    private static BranchAnalyticsResponse toBranch(InventoryStatsRow row) {
+        long[] counts = {
+                row.stockZero(), row.stockUpTo10(), row.stockUpTo100(), row.stockUpTo1000(), row.stockOver1000()
+        };
+        InventoryStatsResponse stats = toStats(row.productCount(), row.totalStock(), row.minStock(),
+                row.maxStock(), counts);
+        return new BranchAnalyticsResponse(row.branchId(), row.branchName(), stats);
+    }
+
+    /**
+     * Combina las filas de las sucursales en los totales de la franquicia.
+     *
+     * @param rows agregados por sucursal.
+     * @return estadisticas de la franquicia.
+     */
+    private static InventoryStatsResponse combine(List<InventoryStatsRow> rows) {
+        long productCount = 0;
+        long totalStock = 0;
+        Integer minStock = null;
+        Integer maxStock = null;
+        long[] counts = new long[BUCKETS.length];
+        for (InventoryStatsRow row : rows) {
+            productCount += row.productCount();
+            totalStock += row.totalStock();
+            if (row.minStock() != null) {
+                minStock = minStock == null ? row.minStock() : Math.min(minStock, row.minStock());
+                maxStock = maxStock == null ? row.maxStock() : Math.max(maxStock, row.maxStock());
+            }
+            counts[0] += row.stockZero();
+            counts[1] += row.stockUpTo10();
+            counts[2] += row.stockUpTo100();
+            counts[3] += row.stockUpTo1000();
+            counts[4] += row.stockOver1000();
+        }
+        return toStats(productCount, totalStock, minStock, maxStock, counts);
+    }
+
+    /**
+     * Construye el DTO de estadisticas; el promedio se deriva del total para que los totales
+     * combinados queden ponderados por cantidad de productos.
+     *
+     * @param productCount cantidad de productos.
+     * @param totalStock suma del stock.
+     * @param minStock stock minimo o null.
+     * @param maxStock stock maximo o null.
+     * @param counts cantidad de productos por rango de {@link #BUCKETS}.
+     * @return estadisticas.
+     */
+    private static InventoryStatsResponse toStats(
+            long productCount,
+            long totalStock,
+            Integer minStock,
+            Integer maxStock,
+            long[] counts
+    ) {
+        List<StockBucket> histogram = new ArrayList<>(BUCKETS.length);
+        for (int i = 0; i < BUCKETS.length; i++) {
+            Integer max = BUCKETS[i][1] < 0 ? null : BUCKETS[i][1];
+            histogram.add(new StockBucket(BUCKETS[i][0], max, counts[i]));
+        }
+        Double avgStock = productCount == 0 ? null : (double) totalStock / productCount;
+        return new InventoryStatsResponse(productCount, totalStock, minStock, maxStock, avgStock, counts[0],
+                histogram);
+    }
+}
@@ -0,0 +1,311 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sebastianrodriguez.backend.cache.ResponseCache;
+import com.sebastianrodriguez.backend.dto.ChangeRecord;
+import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductImportError;
+import com.sebastianrodriguez.backend.dto.ProductImportResponse;
+import com.sebastianrodriguez.backend.entity.Branch;
+import com.sebastianrodriguez.backend.exception.BadRequestException;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import com.sebastianrodriguez.backend.repository.BranchRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Importacion masiva de productos de una sucursal desde CSV o NDJSON.
+ *
+ * <p>El cuerpo se lee linea a linea y las filas validas se insertan en lotes JDBC de tamano
+ * configurable ({@code app.product-import.batch-size}), por lo que la memoria usada depende del
+ * tamano del lote y no del archivo. Se insertan por JDBC y no por {@code save} porque Hibernate no
+ * agrupa inserts de entidades con id {@code IDENTITY}; los ids generados de cada lote se usan para
+ * indexar los nombres en la busqueda.</p>
+ */
+@Service
+public class ProductImportService {
+
+    /**
+     * Tipo de contenido CSV ({@code name,stock} por linea, cabecera opcional).
+     */
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+
+    private static final String INSERT_SQL =
+            "insert into products (name, stock, deleted, branch_id) values (?, ?, false, ?)";
+    private static final int MAX_NAME_LENGTH = 200;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final BranchRepository branchRepository;
+    private final TopStockService topStockService;
+    private final ProductSearchService productSearchService;
+    private final ResponseCache responseCache;
+    private final RevisionService revisionService;
+    private final ChangeLogService changeLogService;
+    private final StockEventHub stockEventHub;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+
+    /**
+     * Construye el servicio con sus dependencias.
+     *
+     * @param branchRepository repositorio de sucursales.
+     * @param topStockService servicio de lideres de stock por sucursal.
+     * @param productSearchService indice de busqueda por nombre.
+     * @param responseCache cache de respuestas de lectura.
+     * @param revisionService servicio de revisiones de los detalles.
+     * @param changeLogService registro de cambios.
+     * @param stockEventHub distribuidor de eventos de stock.
+     * @param jdbcTemplate acceso JDBC para los inserts por lotes.
+     * @param objectMapper mapper JSON para las lineas NDJSON.
+     * @param validator validador de las filas.
+     * @param batchSize cantidad de filas por lote JDBC.
+     */
+    public ProductImportService(
+            BranchRepository branchRepository,
+            TopStockService topStockService,
+            ProductSearchService productSearchService,
+            ResponseCache responseCache,
+            RevisionService revisionService,
+            ChangeLogService changeLogService,
+            StockEventHub stockEventHub,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Value("${app.product-import.batch-size:500}") int batchSize
+    ) {
+        this.branchRepository = branchRepository;
+        this.topStockService = topStockService;
+        this.productSearchService = productSearchService;
+        this.responseCache = responseCache;
+        this.revisionService = revisionService;
+        this.changeLogService = changeLogService;
+        this.stockEventHub = stockEventHub;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Importa los productos del cuerpo recibido en una sucursal existente.
+     *
+     * <p>Las filas invalidas se descartan y se informan; no cancelan la importacion. Un error de
+     * lectura del cuerpo revierte todas las filas insertadas.</p>
+     *
+     * @param branchId identificador de la sucursal.
+     * @param contentType tipo del cuerpo: {@code text/csv} o {@code application/x-ndjson}.
+     * @param body cuerpo de la solicitud.
+     * @return cantidades aceptadas/rechazadas y detalle de errores.
+     * @throws IOException si falla la lectura del cuerpo.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ProductImportResponse importProducts(Long branchId, MediaType contentType, InputStream body)
+            throws IOException {
+        Branch branch = branchRepository.findActiveById(branchId)
+                .orElseThrow(() -> new NotFoundException("Branch not found: " + branchId));
+        boolean csv = TEXT_CSV.isCompatibleWith(contentType);
+        if (!csv && !MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            throw new BadRequestException("Unsupported content type: " + contentType);
+        }
+
+        List<ProductCreateRequest> batch = new ArrayList<>(batchSize);
+        List<ProductImportError> errors = new ArrayList<>();
+        List<Long> insertedIds = new ArrayList<>();
+        int accepted = 0;
+        int rejected = 0;
+        long lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (csv && lineNumber == 1 && isCsvHeader(line))) {
+                    continue;
+                }
+                try {
+                    batch.add(validate(csv ? parseCsv(line) : parseJson(line)));
+                } catch (IllegalArgumentException ex) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new ProductImportError(lineNumber, ex.getMessage()));
+                    }
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    accepted += insert(batch, branch, insertedIds);
+                }
+            }
+        }
+        accepted += insert(batch, branch, insertedIds);
+        if (accepted > 0) {
+            topStockService.refreshBranch(branch);
+            revisionService.branchChanged(branchId);
+            // Al final de la transaccion, para que sus ids queden cerca del commit.
+            changeLogService.products(ChangeRecord.Operation.CREATE, branch.getFranchise().getId(), branchId, insertedIds);
+            responseCache.evictBranch(branchId, branch.getFranchise().getId());
+            stockEventHub.resync(branch.getFranchise().getId(), branchId);
+        }
+        return new ProductImportResponse(accepted, rejected, errors);
+    }
+
+    /**
+     * Inserta un lote pendiente, indexa los nombres con los ids generados y lo vacia.
+     *
+     * @param batch filas validas pendientes.
+     * @param branch sucursal destino.
+     * @param insertedIds ids generados de las importaciones anteriores, al que se agregan los del lote.
+     * @return cantidad de filas insertadas.
+     */
+    private int insert(List<ProductCreateRequest> batch, Branch branch, List<Long> insertedIds) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        statement.setString(1, batch.get(i).name());
+                        statement.setInt(2, batch.get(i).stock());
+                        statement.setLong(3, branch.getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keys);
+        Map<Long, String> names = new HashMap<>(batch.size() * 2);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < generated.size(); i++) {
+            long id = ((Number) generated.get(i).values().iterator().next()).longValue();
+            names.put(id, batch.get(i).name());
+            insertedIds.add(id);
+        }
+        productSearchService.index(branch.getFranchise().getId(), names);
+        int inserted = batch.size();
+        batch.clear();
+        return inserted;
+    }
+
+    /**
+     * Valida una fila con las mismas reglas que el alta individual.
+     *
+     * @param row fila parseada.
+     * @return la misma fila si es valida.
+     */
+    private ProductCreateRequest validate(ProductCreateRequest row) {
+        Set<ConstraintViolation<ProductCreateRequest>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<ProductCreateRequest> violation = violations.iterator().next();
+            throw new IllegalArgumentException(violation.getPropertyPath() + " " + violation.getMessage());
+        }
+        if (row.name().length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("name exceeds " + MAX_NAME_LENGTH + " characters");
+        }
+        return row;
+    }
+
+    /**
+     * Parsea una linea NDJSON.
+     *
+     * @param line objeto JSON con {@code name} y {@code stock}.
+     * @return fila parseada.
+     */
+    private ProductCreateRequest parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, ProductCreateRequest.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("invalid JSON: " + ex.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Parsea una linea CSV con columnas {@code name,stock}; admite comillas dobles.
+     *
+     * @param line linea CSV.
+     * @return fila parseada.
+     */
+    private ProductCreateRequest parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != 2) {
+            throw new IllegalArgumentException("expected 2 columns (name,stock) but found " + fields.size());
+        }
+        try {
+            return new ProductCreateRequest(fields.get(0).trim(), Integer.parseInt(fields.get(1).trim()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("stock is not an integer: " + fields.get(1));
+        }
+    }
+
+    /**
+     * Indica si la linea es la cabecera CSV.
+     *
+     * @param line primera linea del cuerpo.
+     * @return true si es {@code name,stock}.
+     */
+    private boolean isCsvHeader(String line) {
+        return line.replace(" ", "").equalsIgnoreCase("name,stock");
+    }
+
+    /**
+     * Separa una linea CSV respetando campos entre comillas dobles.
+     *
+     * @param line linea CSV.
+     * @return campos de la linea.
+     */
+    private List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
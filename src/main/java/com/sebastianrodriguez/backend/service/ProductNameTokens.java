@@ -0,0 +1,45 @@
+package com.sebastianrodriguez.backend.service;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizacion de nombres de producto en tokens para el indice de busqueda: minusculas, sin
+ * acentos y separados por cualquier caracter que no sea letra o digito.
+ */
+public final class ProductNameTokens {
+
+    /**
+     * Largo maximo de un token (columna {@code product_name_tokens.token}).
+     */
+    public static final int MAX_LENGTH = 64;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private ProductNameTokens() {
+    }
+
+    /**
+     * Obtiene los tokens distintos de un texto, en orden de aparicion.
+     *
+     * @param text nombre de producto o consulta.
+     * @return tokens normalizados, recortados a {@link #MAX_LENGTH}.
+     */
+    public static Set<String> of(String text) {
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token.length() > MAX_LENGTH ? token.substring(0, MAX_LENGTH) : token);
+            }
+        }
+        return tokens;
+    }
+}
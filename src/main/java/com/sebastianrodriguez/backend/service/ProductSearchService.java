@@ -0,0 +1,275 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import com.sebastianrodriguez.backend.dto.ProductSearchHit;
+import com.sebastianrodriguez.backend.exception.BadRequestException;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import com.sebastianrodriguez.backend.repository.FranchiseRepository;
+import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Busqueda de productos por nombre dentro de una franquicia sobre el indice invertido
+ * {@code product_name_tokens}.
+ *
+ * <p>Cada termino de la consulta debe coincidir con el comienzo de algun token del nombre. El
+ * puntaje suma 2 por termino que coincide con un token completo y 1 por termino que solo es
+ * prefijo; a igual puntaje se ordena por id. El termino mas largo (en general el mas selectivo) se
+ * resuelve con un rango del indice {@code (franchise_id, token, product_id)} y los demas se
+ * comprueban por clave primaria, por lo que el costo depende de los productos que coinciden y no
+ * del tamano de la franquicia.</p>
+ *
+ * <p>El indice se mantiene en la misma transaccion de las escrituras de productos y de los borrados
+ * de sucursales y franquicias (o de cada lote de su trabajo en segundo plano). Mientras un borrado
+ * en segundo plano avanza, la busqueda descarta los tokens que aun quedan al unir con las
+ * tablas.</p>
+ */
+@Service
+@Timed(value = "app.service", histogram = true)
+public class ProductSearchService {
+
+    /**
+     * Largo minimo de un termino de busqueda; los mas cortos se ignoran.
+     */
+    public static final int MIN_TERM_LENGTH = 2;
+
+    /**
+     * Maximo de terminos de busqueda considerados.
+     */
+    public static final int MAX_TERMS = 8;
+
+    private static final String DELETE_PRODUCTS = "delete from product_name_tokens where product_id in (:ids)";
+
+    private static final String DELETE_BRANCH = """
+            delete from product_name_tokens
+            where product_id in (select p.id from products p where p.branch_id = :branchId)
+            """;
+
+    private static final String DELETE_FRANCHISE = "delete from product_name_tokens where franchise_id = :franchiseId";
+
+    private static final String INSERT = """
+            insert into product_name_tokens (product_id, token, franchise_id)
+            values (:productId, :token, :franchiseId)
+            """;
+
+    private static final String FRANCHISE_PRODUCTS = """
+            select p.id, p.name from products p
+            join branches b on b.id = p.branch_id
+            where b.franchise_id = :franchiseId
+            and b.deleted = false
+            and p.deleted = false
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final FranchiseRepository franchiseRepository;
+
+    /**
+     * Construye el servicio con sus dependencias.
+     *
+     * @param jdbcTemplate acceso JDBC al indice.
+     * @param franchiseRepository repositorio de franquicias.
+     */
+    public ProductSearchService(NamedParameterJdbcTemplate jdbcTemplate, FranchiseRepository franchiseRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.franchiseRepository = franchiseRepository;
+    }
+
+    /**
+     * Indexa (o reindexa) el nombre de un producto.
+     *
+     * @param productId identificador del producto.
+     * @param franchiseId identificador de su franquicia.
+     * @param name nombre actual.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void index(long productId, long franchiseId, String name) {
+        index(franchiseId, Map.of(productId, name));
+    }
+
+    /**
+     * Indexa (o reindexa) los nombres de varios productos de una franquicia con inserts por lotes.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param namesById nombres actuales por id de producto.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void index(long franchiseId, Map<Long, String> namesById) {
+        if (namesById.isEmpty()) {
+            return;
+        }
+        remove(namesById.keySet());
+        insert(franchiseId, namesById);
+    }
+
+    /**
+     * Quita productos del indice.
+     *
+     * @param productIds identificadores de los productos.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Collection<Long> productIds) {
+        jdbcTemplate.update(DELETE_PRODUCTS, Map.of("ids", productIds));
+    }
+
+    /**
+     * Quita del indice los productos de una sucursal.
+     *
+     * @param branchId identificador de la sucursal.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeBranch(long branchId) {
+        jdbcTemplate.update(DELETE_BRANCH, Map.of("branchId", branchId));
+    }
+
+    /**
+     * Quita del indice los productos de una franquicia.
+     *
+     * @param franchiseId identificador de la franquicia.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeFranchise(long franchiseId) {
+        jdbcTemplate.update(DELETE_FRANCHISE, Map.of("franchiseId", franchiseId));
+    }
+
+    /**
+     * Reconstruye el indice de una franquicia desde sus productos activos.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param batchSize productos por lote de inserts.
+     * @return productos indexados.
+     */
+    @Transactional
+    public int rebuild(long franchiseId, int batchSize) {
+        jdbcTemplate.update(DELETE_FRANCHISE, Map.of("franchiseId", franchiseId));
+        Map<Long, String> batch = new LinkedHashMap<>();
+        int[] indexed = {0};
+        jdbcTemplate.query(FRANCHISE_PRODUCTS, Map.of("franchiseId", franchiseId), row -> {
+            batch.put(row.getLong(1), row.getString(2));
+            if (batch.size() == batchSize) {
+                indexed[0] += flush(franchiseId, batch);
+            }
+        });
+        return indexed[0] + flush(franchiseId, batch);
+    }
+
+    /**
+     * Busca productos de una franquicia por nombre, ordenados por relevancia.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param query terminos a buscar; cada uno debe ser prefijo de alguna palabra del nombre.
+     * @param after cursor de la pagina anterior o null para empezar.
+     * @param limit tamano de pagina.
+     * @return pagina de productos por puntaje descendente e id.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductSearchHit> search(Long franchiseId, String query, String after, int limit) {
+        List<String> terms = ProductNameTokens.of(query)
+                .stream()
+                .filter(term -> term.length() >= MIN_TERM_LENGTH)
+                .limit(MAX_TERMS)
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toList();
+        if (terms.isEmpty()) {
+            throw new BadRequestException("Search query needs a term of at least " + MIN_TERM_LENGTH + " characters");
+        }
+        Cursors.Ranked position = Cursors.decodeRanked(after);
+        if (!franchiseRepository.existsById(franchiseId)) {
+            throw new NotFoundException("Franchise not found: " + franchiseId);
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("franchiseId", franchiseId)
+                .addValue("afterScore", position.rank())
+                .addValue("afterId", position.id())
+                .addValue("limit", limit + 1);
+        for (int i = 0; i < terms.size(); i++) {
+            params.addValue("t" + i, terms.get(i)).addValue("p" + i, terms.get(i) + "%");
+        }
+        List<ProductSearchHit> rows = jdbcTemplate.query(searchSql(terms.size()), params, (row, n) ->
+                new ProductSearchHit(row.getLong(1), row.getString(2), row.getInt(3), row.getLong(4),
+                        row.getString(5), row.getInt(6)));
+        return Cursors.rankedPage(rows, limit, hit -> new Cursors.Ranked(hit.score(), hit.id()));
+    }
+
+    /**
+     * Arma la consulta para la cantidad de terminos dada.
+     *
+     * <p>El primer termino recorre el rango de su prefijo en el indice
+     * {@code (franchise_id, token, product_id)}; cada termino siguiente se une por la clave
+     * {@code (product_id, token)}, por lo que solo quedan los productos que coinciden con todos.
+     * Un termino que es prefijo de varios tokens del mismo nombre repite filas, que se agrupan por
+     * producto al calcular el puntaje.</p>
+     *
+     * @param terms cantidad de terminos.
+     * @return SQL con parametros {@code :t<i>} (termino) y {@code :p<i>} (termino con {@code %}).
+     */
+    private static String searchSql(int terms) {
+        List<String> score = new ArrayList<>(terms);
+        StringBuilder joins = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            score.add("max(case when t" + i + ".token = :t" + i + " then 2 else 1 end)");
+            if (i > 0) {
+                joins.append("join product_name_tokens t").append(i)
+                        .append(" on t").append(i).append(".product_id = t0.product_id and t")
+                        .append(i).append(".token like :p").append(i).append('\n');
+            }
+        }
+        return """
+                select p.id, p.name, p.stock, b.id, b.name, %s as score
+                from product_name_tokens t0
+                %sjoin products p on p.id = t0.product_id
+                join branches b on b.id = p.branch_id
+                where t0.franchise_id = :franchiseId
+                and t0.token like :p0
+                and p.deleted = false
+                and b.deleted = false
+                group by p.id, p.name, p.stock, b.id, b.name
+                having score < :afterScore or (score = :afterScore and p.id > :afterId)
+                order by score desc, p.id
+                limit :limit
+                """.formatted(String.join(" + ", score), joins);
+    }
+
+    /**
+     * Inserta los tokens de varios productos con un lote JDBC.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param namesById nombres por id de producto, aun sin tokens en el indice.
+     */
+    private void insert(long franchiseId, Map<Long, String> namesById) {
+        List<SqlParameterSource> rows = new ArrayList<>();
+        namesById.forEach((productId, name) -> {
+            for (String token : ProductNameTokens.of(name)) {
+                rows.add(new MapSqlParameterSource()
+                        .addValue("productId", productId)
+                        .addValue("token", token)
+                        .addValue("franchiseId", franchiseId));
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT, rows.toArray(SqlParameterSource[]::new));
+    }
+
+    /**
+     * Indexa un lote pendiente de la reconstruccion y lo vacia.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param batch nombres pendientes por id.
+     * @return productos indexados.
+     */
+    private int flush(long franchiseId, Map<Long, String> batch) {
+        int size = batch.size();
+        insert(franchiseId, batch);
+        batch.clear();
+        return size;
+    }
+}
@@ -1,35 +1,101 @@
 package com.sebastianrodriguez.backend.service;
 
+import com.sebastianrodriguez.backend.cache.ResponseCache;
+import com.sebastianrodriguez.backend.dto.ChangeRecord;
+import com.sebastianrodriguez.backend.dto.CursorPage;
 import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductHierarchyRow;
+import com.sebastianrodriguez.backend.dto.ProductLookupResponse;
 import com.sebastianrodriguez.backend.dto.ProductResponse;
 import com.sebastianrodriguez.backend.dto.ProductUpdateRequest;
+import com.sebastianrodriguez.backend.dto.StockEvent;
 import com.sebastianrodriguez.backend.entity.Branch;
 import com.sebastianrodriguez.backend.entity.Product;
+import com.sebastianrodriguez.backend.exception.BadRequestException;
+import com.sebastianrodriguez.backend.exception.ConflictException;
 import com.sebastianrodriguez.backend.exception.NotFoundException;
 import com.sebastianrodriguez.backend.repository.BranchRepository;
 import com.sebastianrodriguez.backend.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Logica de negocio para productos.
  */
 @Service
+@Timed(value = "app.service", histogram = true)
 public class ProductService {
 
     private final ProductRepository productRepository;
     private final BranchRepository branchRepository;
+    private final TopStockService topStockService;
+    private final ProductSearchService productSearchService;
+    private final StockWriteBehind stockWriteBehind;
+    private final StockEventHub stockEventHub;
+    private final ResponseCache responseCache;
+    private final RevisionService revisionService;
+    private final ChangeLogService changeLogService;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxLookupIds;
+    private final int lookupChunkSize;
 
     /**
      * Construye el servicio con sus repositorios.
      *
      * @param productRepository repositorio de productos.
      * @param branchRepository repositorio de sucursales.
+     * @param topStockService servicio de lideres de stock por sucursal.
+     * @param productSearchService indice de busqueda por nombre.
+     * @param stockWriteBehind escritura diferida de los ajustes de stock.
+     * @param stockEventHub distribuidor de eventos de stock.
+     * @param responseCache cache de respuestas de lectura.
+     * @param revisionService servicio de revisiones de los detalles.
+     * @param changeLogService registro de cambios.
+     * @param transactionManager gestor de transacciones para las cargas del cache (en el primario),
+     *                           los listados y los ajustes.
+     * @param maxLookupIds ids distintos permitidos por consulta de varios productos.
+     * @param lookupChunkSize ids por consulta {@code IN} al leer varios productos.
      */
-    public ProductService(ProductRepository productRepository, BranchRepository branchRepository) {
+    public ProductService(
+            ProductRepository productRepository,
+            BranchRepository branchRepository,
+            TopStockService topStockService,
+            ProductSearchService productSearchService,
+            StockWriteBehind stockWriteBehind,
+            StockEventHub stockEventHub,
+            ResponseCache responseCache,
+            RevisionService revisionService,
+            ChangeLogService changeLogService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.product-lookup.max-ids:1000}") int maxLookupIds,
+            @Value("${app.product-lookup.chunk-size:500}") int lookupChunkSize
+    ) {
         this.productRepository = productRepository;
         this.branchRepository = branchRepository;
+        this.topStockService = topStockService;
+        this.productSearchService = productSearchService;
+        this.stockWriteBehind = stockWriteBehind;
+        this.stockEventHub = stockEventHub;
+        this.responseCache = responseCache;
+        this.revisionService = revisionService;
+        this.changeLogService = changeLogService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxLookupIds = maxLookupIds;
+        this.lookupChunkSize = lookupChunkSize;
     }
 
     /**
@@ -41,43 +107,118 @@ public class ProductService {
      */
     @Transactional
     public ProductResponse create(Long branchId, ProductCreateRequest request) {
-        Branch branch = branchRepository.findById(branchId)
+        Branch branch = branchRepository.findActiveById(branchId)
                 .orElseThrow(() -> new NotFoundException("Branch not found: " + branchId));
         Product product = new Product();
         product.setName(request.name());
         product.setStock(request.stock());
         product.setBranch(branch);
-        return toResponse(productRepository.save(product));
+        Product saved = productRepository.save(product);
+        topStockService.onProductChanged(saved);
+        productSearchService.index(saved.getId(), branch.getFranchise().getId(), saved.getName());
+        revisionService.branchChanged(branchId);
+        changeLogService.product(ChangeRecord.Operation.CREATE, branch.getFranchise().getId(), branchId, saved.getId());
+        responseCache.evictBranch(branchId, branch.getFranchise().getId());
+        ProductResponse response = ResponseMapper.toResponse(saved);
+        stockEventHub.product(StockEvent.Type.PRODUCT_CREATED, branch.getFranchise().getId(), branchId, response);
+        return response;
     }
 
     /**
-     * Lista productos de una sucursal.
+     * Lista productos de una sucursal con paginacion por cursor.
+     *
+     * <p>El lock de lectura de {@link StockWriteBehind} se toma antes de abrir la transaccion, igual
+     * que en {@link #get(Long)}: asi ningun lector retiene una conexion del pool mientras espera a
+     * una descarga que necesita la suya. Con la escritura diferida activa la pagina se lee del
+     * primario: una replica atrasada respecto de la ultima descarga mostraria el stock anterior, ya
+     * sin los deltas pendientes que lo compensaban.</p>
      *
      * @param branchId identificador de la sucursal.
-     * @return listado de productos.
+     * @param after cursor de la pagina anterior o null para empezar.
+     * @param limit tamano de pagina.
+     * @return pagina de productos ordenados por id.
      */
-    @Transactional(readOnly = true)
-    public List<ProductResponse> listByBranch(Long branchId) {
-        if (!branchRepository.existsById(branchId)) {
-            throw new NotFoundException("Branch not found: " + branchId);
-        }
-        return productRepository.findByBranchId(branchId)
-                .stream()
-                .map(this::toResponse)
-                .toList();
+    public CursorPage<ProductResponse> listByBranch(Long branchId, String after, int limit) {
+        Long afterId = Cursors.decode(after);
+        TransactionTemplate reads = stockWriteBehind.enabled() ? transaction : readOnlyTransaction;
+        List<ProductResponse> rows = stockWriteBehind.read(() -> reads.execute(status -> {
+            if (!branchRepository.existsActiveById(branchId)) {
+                throw new NotFoundException("Branch not found: " + branchId);
+            }
+            return productRepository.findResponsesByBranchId(branchId, afterId, Limit.of(limit + 1))
+                    .stream()
+                    .map(stockWriteBehind::withPending)
+                    .toList();
+        }));
+        return Cursors.page(rows, limit, ProductResponse::id);
     }
 
     /**
-     * Obtiene el detalle de un producto.
+     * Obtiene el detalle de un producto, desde el cache o leyendo su proyeccion en el primario, con
+     * los ajustes de stock aun no escritos.
+     *
+     * <p>La carga no usa una transaccion de solo lectura para no ir a una replica: una fila atrasada
+     * cargada justo despues de la invalidacion de una escritura quedaria en cache todo el TTL.</p>
      *
      * @param id identificador del producto.
      * @return producto encontrado.
      */
-    @Transactional(readOnly = true)
     public ProductResponse get(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Product not found: " + id));
-        return toResponse(product);
+        return stockWriteBehind.read(() -> stockWriteBehind.withPending(
+                responseCache.product(id, key -> transaction.execute(status -> {
+                    ProductHierarchyRow row = productRepository.findHierarchyById(key)
+                            .orElseThrow(() -> new NotFoundException("Product not found: " + key));
+                    return new ResponseCache.ProductEntry(new ProductResponse(row.id(), row.name(), row.stock()),
+                            row.branchId(), row.franchiseId());
+                }))));
+    }
+
+    /**
+     * Obtiene varios productos por id: los que estan en cache salen de ahi y el resto se lee con
+     * consultas {@code IN} de hasta {@code app.product-lookup.chunk-size} ids, en una sola
+     * transaccion en el primario (como en {@link #get(Long)}).
+     *
+     * <p>Los ids repetidos se responden una vez, en la posicion de su primera aparicion. Los ids
+     * inexistentes o eliminados no hacen fallar la consulta: se informan en {@code missing}.</p>
+     *
+     * @param ids identificadores pedidos, en el orden de la respuesta.
+     * @return productos encontrados e ids faltantes.
+     */
+    public ProductLookupResponse getAll(List<Long> ids) {
+        if (ids.isEmpty() || ids.contains(null)) {
+            throw new BadRequestException("Product ids must be a non-empty list without nulls");
+        }
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.size() > maxLookupIds) {
+            throw new BadRequestException("At most " + maxLookupIds + " distinct product ids per request");
+        }
+        return stockWriteBehind.read(() -> {
+            Map<Long, ProductResponse> found = responseCache.products(requested, missing ->
+                    transaction.execute(status -> {
+                        List<Long> pending = List.copyOf(missing);
+                        Map<Long, ResponseCache.ProductEntry> loaded = new HashMap<>();
+                        for (int from = 0; from < pending.size(); from += lookupChunkSize) {
+                            List<Long> chunk = pending.subList(from, Math.min(from + lookupChunkSize, pending.size()));
+                            for (ProductHierarchyRow row : productRepository.findHierarchyByIdIn(chunk)) {
+                                loaded.put(row.id(), new ResponseCache.ProductEntry(
+                                        new ProductResponse(row.id(), row.name(), row.stock()),
+                                        row.branchId(), row.franchiseId()));
+                            }
+                        }
+                        return loaded;
+                    }));
+            List<ProductResponse> products = new ArrayList<>(found.size());
+            List<Long> missing = new ArrayList<>(requested.size() - found.size());
+            for (Long id : requested) {
+                ProductResponse product = found.get(id);
+                if (product != null) {
+                    products.add(stockWriteBehind.withPending(product));
+                } else {
+                    missing.add(id);
+                }
+            }
+            return new ProductLookupResponse(products, missing);
+        });
     }
 
     /**
@@ -89,11 +230,51 @@ public class ProductService {
      */
     @Transactional
     public ProductResponse update(Long id, ProductUpdateRequest request) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Product not found: " + id));
+        Product product = findWithBranch(id);
+        stockWriteBehind.beforeOverwrite(hierarchy(product, request.name(), request.stock()));
+        boolean renamed = !product.getName().equals(request.name());
         product.setName(request.name());
         product.setStock(request.stock());
-        return toResponse(productRepository.save(product));
+        Product saved = productRepository.saveAndFlush(product);
+        topStockService.onProductChanged(saved);
+        if (renamed) {
+            productSearchService.index(saved.getId(), saved.getBranch().getFranchise().getId(), saved.getName());
+        }
+        evict(saved, ChangeRecord.Operation.UPDATE);
+        return publish(StockEvent.Type.STOCK_CHANGED, saved);
+    }
+
+    /**
+     * Ajusta el stock de un producto sumando un delta de forma atomica.
+     *
+     * <p>El cambio se aplica con un unico {@code UPDATE} condicional, por lo que ajustes
+     * concurrentes no se pisan y el stock nunca queda negativo ni desborda la columna. Con la escritura diferida activa
+     * ({@link StockWriteBehind}) el ajuste se acumula en memoria y se escribe en la siguiente
+     * descarga, sin abrir una transaccion.</p>
+     *
+     * @param id identificador del producto.
+     * @param delta cantidad a sumar (positiva) o restar (negativa).
+     * @return producto con el stock resultante.
+     */
+    public ProductResponse adjustStock(Long id, int delta) {
+        if (stockWriteBehind.enabled()) {
+            return stockWriteBehind.adjust(id, delta);
+        }
+        return transaction.execute(status -> {
+            if (productRepository.adjustStock(id, delta, Integer.MAX_VALUE - Math.max(delta, 0)) == 0) {
+                if (!productRepository.existsById(id)) {
+                    throw new NotFoundException("Product not found: " + id);
+                }
+                if (delta > 0) {
+                    throw new ConflictException("Stock for product " + id + " would overflow applying delta " + delta);
+                }
+                throw new ConflictException("Insufficient stock for product " + id + " to apply delta " + delta);
+            }
+            Product product = findWithBranch(id);
+            topStockService.onProductChanged(product);
+            evict(product, ChangeRecord.Operation.UPDATE);
+            return publish(StockEvent.Type.STOCK_CHANGED, product);
+        });
     }
 
     /**
@@ -103,18 +284,65 @@ public class ProductService {
      */
     @Transactional
     public void delete(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Product not found: " + id));
+        Product product = findWithBranch(id);
+        stockWriteBehind.beforeDelete(hierarchy(product, product.getName(), product.getStock()));
         productRepository.delete(product);
+        productRepository.flush();
+        topStockService.onProductDeleted(product);
+        productSearchService.remove(List.of(product.getId()));
+        evict(product, ChangeRecord.Operation.DELETE);
+        publish(StockEvent.Type.PRODUCT_DELETED, product);
+    }
+
+    /**
+     * Busca un producto activo con su sucursal cargada.
+     *
+     * @param id identificador del producto.
+     * @return producto encontrado.
+     */
+    private Product findWithBranch(Long id) {
+        return productRepository.findWithBranchById(id)
+                .orElseThrow(() -> new NotFoundException("Product not found: " + id));
+    }
+
+    /**
+     * Arma la fila de jerarquia de un producto con el nombre y stock indicados.
+     *
+     * @param product producto con su sucursal cargada.
+     * @param name nombre del producto.
+     * @param stock stock del producto.
+     * @return fila con producto, sucursal y franquicia.
+     */
+    private static ProductHierarchyRow hierarchy(Product product, String name, int stock) {
+        Branch branch = product.getBranch();
+        return new ProductHierarchyRow(product.getId(), name, stock, branch.getId(), branch.getFranchise().getId());
+    }
+
+    /**
+     * Incrementa la revision de los detalles que contienen al producto, registra el cambio y los
+     * invalida en el cache.
+     *
+     * @param product producto modificado con su sucursal cargada.
+     * @param operation operacion aplicada.
+     */
+    private void evict(Product product, ChangeRecord.Operation operation) {
+        Branch branch = product.getBranch();
+        revisionService.branchChanged(branch.getId());
+        changeLogService.product(operation, branch.getFranchise().getId(), branch.getId(), product.getId());
+        responseCache.evictProduct(product.getId(), branch.getId(), branch.getFranchise().getId());
     }
 
     /**
-     * Mapea un producto a su respuesta.
+     * Publica el evento del producto para los streams de su franquicia, tras el commit.
      *
-     * @param product entidad de producto.
-     * @return DTO de producto.
+     * @param type tipo de evento.
+     * @param product producto con su sucursal cargada.
+     * @return respuesta del producto.
      */
-    private ProductResponse toResponse(Product product) {
-        return new ProductResponse(product.getId(), product.getName(), product.getStock());
+    private ProductResponse publish(StockEvent.Type type, Product product) {
+        Branch branch = product.getBranch();
+        ProductResponse response = ResponseMapper.toResponse(product);
+        stockEventHub.product(type, branch.getFranchise().getId(), branch.getId(), response);
+        return response;
     }
 }
@@ -0,0 +1,152 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.BranchSummaryResponse;
+import com.sebastianrodriguez.backend.dto.BranchTreeRow;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseHeaderRow;
+import com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseTreeRow;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.entity.Branch;
+import com.sebastianrodriguez.backend.entity.Franchise;
+import com.sebastianrodriguez.backend.entity.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Mapeo de entidades y de filas proyectadas a DTOs de respuesta, compartido por los servicios y
+ * los benchmarks.
+ */
+public final class ResponseMapper {
+
+    private ResponseMapper() {
+    }
+
+    /**
+     * Mapea un producto a su respuesta.
+     *
+     * @param product entidad de producto.
+     * @return DTO de producto.
+     */
+    public static ProductResponse toResponse(Product product) {
+        return new ProductResponse(product.getId(), product.getName(), product.getStock());
+    }
+
+    /**
+     * Mapea una sucursal a su respuesta resumida.
+     *
+     * @param branch entidad de sucursal.
+     * @return DTO resumen.
+     */
+    public static BranchSummaryResponse toSummary(Branch branch) {
+        return new BranchSummaryResponse(branch.getId(), branch.getName());
+    }
+
+    /**
+     * Mapea una franquicia a su respuesta resumida.
+     *
+     * @param franchise entidad de franquicia.
+     * @return DTO resumen.
+     */
+    public static FranchiseSummaryResponse toSummary(Franchise franchise) {
+        return new FranchiseSummaryResponse(franchise.getId(), franchise.getName());
+    }
+
+    /**
+     * Mapea una sucursal con sus productos cargados a su detalle.
+     *
+     * @param branch entidad de sucursal con sus productos.
+     * @return DTO de detalle.
+     */
+    public static BranchDetailResponse toDetail(Branch branch) {
+        List<ProductResponse> products = branch.getProducts()
+                .stream()
+                .map(ResponseMapper::toResponse)
+                .toList();
+        return toDetail(branch, products);
+    }
+
+    /**
+     * Mapea una sucursal a su detalle con productos ya mapeados.
+     *
+     * @param branch entidad de sucursal.
+     * @param products productos de la sucursal.
+     * @return DTO de detalle.
+     */
+    public static BranchDetailResponse toDetail(Branch branch, List<ProductResponse> products) {
+        return new BranchDetailResponse(branch.getId(), branch.getName(), products);
+    }
+
+    /**
+     * Mapea una franquicia a su detalle con sucursales y productos.
+     *
+     * @param franchise entidad de franquicia con sus sucursales cargadas.
+     * @param productsByBranch productos ya mapeados, agrupados por id de sucursal.
+     * @return DTO de detalle.
+     */
+    public static FranchiseDetailResponse toDetail(Franchise franchise, Map<Long, List<ProductResponse>> productsByBranch) {
+        List<BranchDetailResponse> branches = franchise.getBranches()
+                .stream()
+                .map(branch -> toDetail(branch, productsByBranch.getOrDefault(branch.getId(), List.of())))
+                .toList();
+        return new FranchiseDetailResponse(franchise.getId(), franchise.getName(), branches);
+    }
+
+    /**
+     * Mapea productos y los agrupa por id de sucursal, conservando su orden.
+     *
+     * @param products productos con su sucursal asociada.
+     * @return productos mapeados por id de sucursal.
+     */
+    public static Map<Long, List<ProductResponse>> groupByBranch(List<Product> products) {
+        return products.stream()
+                .collect(Collectors.groupingBy(
+                        product -> product.getBranch().getId(),
+                        Collectors.mapping(ResponseMapper::toResponse, Collectors.toList())
+                ));
+    }
+
+    /**
+     * Arma el detalle de una sucursal a partir de sus filas proyectadas.
+     *
+     * @param rows filas de la sucursal ordenadas por producto; no vacia.
+     * @return DTO de detalle.
+     */
+    public static BranchDetailResponse toDetail(List<BranchTreeRow> rows) {
+        BranchTreeRow first = rows.getFirst();
+        List<ProductResponse> products = new ArrayList<>(rows.size());
+        for (BranchTreeRow row : rows) {
+            if (row.productId() != null) {
+                products.add(new ProductResponse(row.productId(), row.productName(), row.stock()));
+            }
+        }
+        return new BranchDetailResponse(first.branchId(), first.branchName(), products);
+    }
+
+    /**
+     * Arma el detalle de una franquicia a partir de las filas de su arbol.
+     *
+     * @param franchise datos propios de la franquicia.
+     * @param rows filas sucursal/producto ordenadas por sucursal y producto.
+     * @return DTO de detalle.
+     */
+    public static FranchiseDetailResponse toDetail(FranchiseHeaderRow franchise, List<FranchiseTreeRow> rows) {
+        List<BranchDetailResponse> branches = new ArrayList<>();
+        List<ProductResponse> products = null;
+        Long currentBranchId = null;
+        for (FranchiseTreeRow row : rows) {
+            if (!row.branchId().equals(currentBranchId)) {
+                products = new ArrayList<>();
+                branches.add(new BranchDetailResponse(row.branchId(), row.branchName(), products));
+                currentBranchId = row.branchId();
+            }
+            if (row.productId() != null) {
+                products.add(new ProductResponse(row.productId(), row.productName(), row.stock()));
+            }
+        }
+        return new FranchiseDetailResponse(franchise.id(), franchise.name(), branches);
+    }
+}
@@ -0,0 +1,67 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.repository.BranchRepository;
+import com.sebastianrodriguez.backend.repository.FranchiseRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Revisiones de los subarboles de franquicia y sucursal, publicadas como ETag de sus detalles.
+ *
+ * <p>Cada escritura que cambia un detalle incrementa la revision dentro de su propia transaccion,
+ * de modo que la revision nueva se ve junto con el cambio. Las escrituras de productos solo
+ * incrementan su sucursal: la revision de la franquicia se calcula al leer sumando la de sus
+ * sucursales ({@link FranchiseRepository#findRevisionById(Long)}), asi la fila de la franquicia no
+ * serializa todas las escrituras de su subarbol.</p>
+ */
+@Service
+public class RevisionService {
+
+    private final BranchRepository branchRepository;
+    private final FranchiseRepository franchiseRepository;
+
+    /**
+     * Construye el servicio con sus repositorios.
+     *
+     * @param branchRepository repositorio de sucursales.
+     * @param franchiseRepository repositorio de franquicias.
+     */
+    public RevisionService(BranchRepository branchRepository, FranchiseRepository franchiseRepository) {
+        this.branchRepository = branchRepository;
+        this.franchiseRepository = franchiseRepository;
+    }
+
+    /**
+     * Registra un cambio en el detalle de una sucursal, que tambien cambia el de su franquicia.
+     *
+     * @param branchId identificador de la sucursal.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void branchChanged(Long branchId) {
+        branchRepository.incrementRevision(branchId);
+    }
+
+    /**
+     * Registra de una vez varios cambios en el detalle de una sucursal (ajustes de stock acumulados
+     * por la escritura diferida), que tambien cambian el de su franquicia.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param changes cantidad de cambios.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void branchChanged(Long branchId, long changes) {
+        branchRepository.addToRevision(branchId, changes);
+    }
+
+    /**
+     * Registra un cambio en el detalle de una franquicia que no afecta a ninguna sucursal existente
+     * (nombre, alta o baja de sucursales).
+     *
+     * @param franchiseId identificador de la franquicia.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void franchiseChanged(Long franchiseId) {
+        franchiseRepository.incrementRevision(franchiseId);
+    }
+}
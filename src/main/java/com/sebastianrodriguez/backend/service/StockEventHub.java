@@ -0,0 +1,447 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.dto.StockEvent;
+import com.sebastianrodriguez.backend.exception.BadRequestException;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import com.sebastianrodriguez.backend.repository.BranchRepository;
+import com.sebastianrodriguez.backend.repository.FranchiseRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Distribuye por Server-Sent Events los cambios de productos de cada franquicia
+ * ({@code GET /api/franchises/{id}/stock-events}).
+ *
+ * <p>Los eventos publicados dentro de una transaccion se entregan solo si confirma, todos juntos
+ * tras el commit; fuera de una transaccion se entregan de inmediato. Publicar nunca bloquea: cada
+ * suscriptor tiene una cola acotada ({@code app.stock-events.buffer-size}) que se vacia en un hilo
+ * virtual, asi que un cliente lento solo demora su propio stream. Si la cola se llena se descarta
+ * lo pendiente y, hasta enviar un evento {@code resync}, todo lo que llegue: el cliente debe volver
+ * a leer el estado (detalle o reporte) al recibirlo.</p>
+ *
+ * <p>Las suscripciones son respuestas asincronas: no retienen un hilo de Tomcat mientras esperan.
+ * Solo se ven los cambios hechos en esta instancia.</p>
+ */
+@Service
+public class StockEventHub implements SmartLifecycle, MeterBinder {
+
+    private final FranchiseRepository franchiseRepository;
+    private final BranchRepository branchRepository;
+    private final Duration timeout;
+    private final int bufferSize;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder resyncs = new LongAdder();
+    private volatile ExecutorService senders;
+
+    /**
+     * Construye el distribuidor con sus dependencias.
+     *
+     * @param franchiseRepository repositorio de franquicias.
+     * @param branchRepository repositorio de sucursales.
+     * @param timeout duracion maxima de una suscripcion; el cliente se reconecta al vencer.
+     * @param bufferSize eventos pendientes por suscriptor antes de descartar y pedir resync.
+     */
+    public StockEventHub(
+            FranchiseRepository franchiseRepository,
+            BranchRepository branchRepository,
+            @Value("${app.stock-events.timeout:30m}") Duration timeout,
+            @Value("${app.stock-events.buffer-size:256}") int bufferSize
+    ) {
+        this.franchiseRepository = franchiseRepository;
+        this.branchRepository = branchRepository;
+        this.timeout = timeout;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Abre un stream de eventos de una franquicia, opcionalmente filtrado por sucursal.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param branchId identificador de la sucursal, o null para toda la franquicia.
+     * @return emisor asincrono del stream.
+     */
+    public SseEmitter subscribe(Long franchiseId, Long branchId) {
+        if (franchiseRepository.findSummaryById(franchiseId).isEmpty()) {
+            throw new NotFoundException("Franchise not found: " + franchiseId);
+        }
+        if (branchId != null) {
+            Long owner = branchRepository.findActiveById(branchId)
+                    .orElseThrow(() -> new NotFoundException("Branch not found: " + branchId))
+                    .getFranchise().getId();
+            if (!owner.equals(franchiseId)) {
+                throw new BadRequestException("Branch " + branchId + " does not belong to franchise " + franchiseId);
+            }
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(franchiseId, branchId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> remove(subscriber));
+        subscribers.compute(franchiseId, (key, set) -> {
+            Set<Subscriber> current = set != null ? set : ConcurrentHashMap.newKeySet();
+            current.add(subscriber);
+            return current;
+        });
+        return emitter;
+    }
+
+    /**
+     * Publica el alta, cambio de stock o baja de un producto.
+     *
+     * @param type tipo de evento.
+     * @param franchiseId identificador de la franquicia.
+     * @param branchId identificador de la sucursal.
+     * @param product producto con su stock resultante.
+     */
+    public void product(StockEvent.Type type, Long franchiseId, Long branchId, ProductResponse product) {
+        publish(franchiseId, new StockEvent(type, branchId, product.id(), product.name(), product.stock()));
+    }
+
+    /**
+     * Publica la baja de una sucursal con todos sus productos.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param branchId identificador de la sucursal.
+     */
+    public void branchDeleted(Long franchiseId, Long branchId) {
+        publish(franchiseId, new StockEvent(StockEvent.Type.BRANCH_DELETED, branchId, null, null, null));
+    }
+
+    /**
+     * Publica la baja de una franquicia; sus streams se cierran tras entregar el evento.
+     *
+     * @param franchiseId identificador de la franquicia.
+     */
+    public void franchiseDeleted(Long franchiseId) {
+        publish(franchiseId, new StockEvent(StockEvent.Type.FRANCHISE_DELETED, null, null, null, null));
+    }
+
+    /**
+     * Pide a los suscriptores de una sucursal que vuelvan a leer su estado, por ejemplo tras una
+     * importacion masiva.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param branchId identificador de la sucursal.
+     */
+    public void resync(Long franchiseId, Long branchId) {
+        publish(franchiseId, new StockEvent(StockEvent.Type.RESYNC, branchId, null, null, null));
+    }
+
+    /**
+     * Envia un comentario a los streams sin eventos pendientes, para que proxies y clientes no los
+     * den por muertos y para detectar conexiones cerradas.
+     */
+    @Scheduled(fixedDelayString = "${app.stock-events.heartbeat:15s}")
+    public void heartbeat() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                if (subscriber.queue.isEmpty() && subscriber.queue.offer(Message.HEARTBEAT)) {
+                    subscriber.schedule();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cantidad de streams abiertos.
+     *
+     * @return suscriptores activos.
+     */
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Publica la cantidad de streams abiertos y de resyncs por buffer lleno.
+     *
+     * @param registry registro de metricas.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.stock-events.subscribers", this, StockEventHub::subscriberCount)
+                .description("Open stock event streams")
+                .register(registry);
+        FunctionCounter.builder("app.stock-events.resyncs", resyncs, LongAdder::sum)
+                .description("Stock event streams that overflowed their buffer and were asked to resync")
+                .register(registry);
+    }
+
+    /**
+     * Crea el ejecutor de envios.
+     */
+    @Override
+    public void start() {
+        if (senders == null) {
+            senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("stock-events-", 0).factory());
+        }
+    }
+
+    /**
+     * Cierra todos los streams antes de detener el servidor web, para que el apagado ordenado no
+     * los espere.
+     */
+    @Override
+    public void stop() {
+        ExecutorService current = senders;
+        if (current == null) {
+            return;
+        }
+        senders = null;
+        current.shutdownNow();
+        for (Set<Subscriber> set : subscribers.values()) {
+            set.forEach(subscriber -> subscriber.emitter.complete());
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * Indica si el ejecutor de envios esta activo.
+     *
+     * @return true si esta activo.
+     */
+    @Override
+    public boolean isRunning() {
+        return senders != null;
+    }
+
+    /**
+     * Encola el evento tras el commit de la transaccion actual, o de inmediato si no hay una.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param event evento a publicar.
+     */
+    private void publish(Long franchiseId, StockEvent event) {
+        Published published = new Published(franchiseId, event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deliver(List.of(published));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Published> batch = (List<Published>) TransactionSynchronizationManager.getResource(this);
+        if (batch == null) {
+            List<Published> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(StockEventHub.this);
+                }
+            });
+            batch = created;
+        }
+        batch.add(published);
+    }
+
+    /**
+     * Encola los eventos en los suscriptores que corresponden y programa sus envios.
+     *
+     * @param events eventos en orden de publicacion.
+     */
+    private void deliver(List<Published> events) {
+        Set<Subscriber> touched = new LinkedHashSet<>();
+        for (Published published : events) {
+            Set<Subscriber> set = subscribers.get(published.franchiseId());
+            if (set == null) {
+                continue;
+            }
+            Message message = new Message(sequence.incrementAndGet(), published.event());
+            boolean closing = published.event().type() == StockEvent.Type.FRANCHISE_DELETED;
+            for (Subscriber subscriber : set) {
+                if (subscriber.accepts(published.event())) {
+                    subscriber.offer(message);
+                    if (closing) {
+                        subscriber.closing = true;
+                    }
+                    touched.add(subscriber);
+                }
+            }
+        }
+        touched.forEach(Subscriber::schedule);
+    }
+
+    /**
+     * Quita un suscriptor de su franquicia.
+     *
+     * @param subscriber suscriptor cerrado.
+     */
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.franchiseId, (key, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Evento publicado a la espera del commit.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param event evento.
+     */
+    private record Published(Long franchiseId, StockEvent event) {
+    }
+
+    /**
+     * Evento numerado en cola; sin evento es un comentario de latido.
+     *
+     * @param id numero de secuencia, enviado como {@code id} del evento.
+     * @param event evento o null.
+     */
+    private record Message(long id, StockEvent event) {
+
+        private static final Message HEARTBEAT = new Message(0, null);
+    }
+
+    /**
+     * Stream abierto con su cola acotada.
+     */
+    private final class Subscriber {
+
+        private final Long franchiseId;
+        private final Long branchId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Message> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closing;
+
+        /**
+         * Crea el suscriptor.
+         *
+         * @param franchiseId identificador de la franquicia.
+         * @param branchId sucursal filtrada o null.
+         * @param emitter emisor del stream.
+         */
+        Subscriber(Long franchiseId, Long branchId, SseEmitter emitter) {
+            this.franchiseId = franchiseId;
+            this.branchId = branchId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Indica si el evento corresponde al filtro de sucursal.
+         *
+         * @param event evento publicado.
+         * @return true si se debe enviar.
+         */
+        boolean accepts(StockEvent event) {
+            return branchId == null || event.branchId() == null || branchId.equals(event.branchId());
+        }
+
+        /**
+         * Encola sin bloquear; si no hay lugar descarta lo pendiente y marca el resync.
+         *
+         * @param message evento numerado.
+         */
+        void offer(Message message) {
+            if (overflowed.get()) {
+                return;
+            }
+            if (!queue.offer(message) && overflowed.compareAndSet(false, true)) {
+                queue.clear();
+                resyncs.increment();
+            }
+        }
+
+        /**
+         * Programa el vaciado de la cola si no hay uno en curso.
+         */
+        void schedule() {
+            ExecutorService executor = senders;
+            if (executor == null || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                scheduled.set(false);
+            }
+        }
+
+        /**
+         * Envia lo encolado; tras un desborde envia primero el resync. Cierra el stream si la
+         * franquicia fue eliminada o si el cliente se desconecto.
+         */
+        private void drain() {
+            try {
+                while (true) {
+                    if (overflowed.get()) {
+                        // Se baja la marca antes de enviar: un desborde durante el envio pide otro resync.
+                        queue.clear();
+                        overflowed.set(false);
+                        send(new Message(sequence.incrementAndGet(),
+                                new StockEvent(StockEvent.Type.RESYNC, branchId, null, null, null)));
+                        continue;
+                    }
+                    Message message = queue.poll();
+                    if (message == null) {
+                        break;
+                    }
+                    send(message);
+                }
+                if (closing) {
+                    remove(this);
+                    emitter.complete();
+                    return;
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // El cliente cerro la conexion o el emisor ya termino.
+                remove(this);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty() || overflowed.get()) {
+                schedule();
+            }
+        }
+
+        /**
+         * Escribe un evento o un comentario de latido.
+         *
+         * @param message mensaje a enviar.
+         * @throws IOException si falla la escritura.
+         */
+        private void send(Message message) throws IOException {
+            if (message.event() == null) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(message.id()))
+                    .name(message.event().type().eventName())
+                    .data(message.event(), MediaType.APPLICATION_JSON));
+        }
+    }
+}
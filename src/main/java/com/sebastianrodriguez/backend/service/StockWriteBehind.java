@@ -0,0 +1,1008 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.cache.ResponseCache;
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.ChangeRecord;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.dto.ProductHierarchyRow;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.dto.StockEvent;
+import com.sebastianrodriguez.backend.entity.Branch;
+import com.sebastianrodriguez.backend.entity.Product;
+import com.sebastianrodriguez.backend.exception.ConflictException;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import com.sebastianrodriguez.backend.exception.ServiceUnavailableException;
+import com.sebastianrodriguez.backend.repository.ProductRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Escritura diferida de los ajustes de stock ({@code app.stock-write-behind.enabled}).
+ *
+ * <p>Cada ajuste se acumula en memoria por producto y responde sin escribir en la base; cada
+ * {@code app.stock-write-behind.flush-interval}, o antes si hay
+ * {@code app.stock-write-behind.max-pending} productos pendientes, los deltas netos se aplican con un
+ * lote de {@code UPDATE} en una sola transaccion. Las sumas van a un {@link LongAdder} (sin
+ * contencion entre hilos); las restas reservan contra un contador con CAS que compara con el stock
+ * leido de la base mas lo sumado, por lo que el stock nunca queda negativo dentro de esta
+ * instancia. Como otra instancia puede haber restado del mismo producto, el {@code UPDATE} vuelve a
+ * comprobar que el stock no quede negativo; un delta que no pasa se descarta con una advertencia y
+ * el stock visible vuelve al de la base. Con {@code app.stock-write-behind.max-buffered} productos
+ * pendientes los ajustes de productos nuevos descargan antes de acumular y, si no alcanza,
+ * responden 503.</p>
+ *
+ * <p>Los ajustes y las lecturas toman el lock de lectura. La descarga toma el de escritura solo
+ * para separar los acumuladores a escribir (que siguen visibles, sin aceptar ajustes) y para
+ * confirmar su transaccion y dejar de mostrarlos; el lote, los lideres, las revisiones y el registro
+ * de cambios corren sin el lock, asi que las lecturas solo esperan el commit. Un ajuste de un
+ * producto que se esta escribiendo abre un acumulador nuevo a partir del stock visible del que se
+ * escribe. Mientras hay acumulador el stock visible de un producto es siempre el de su acumulador,
+ * aunque la fila leida de la base o del cache sea otra. {@code PUT} y {@code DELETE} bloquean solo su producto (un lock
+ * por franja de ids) hasta terminar su transaccion, para que la descarga lo saltee, y al confirmar
+ * reemplazan el acumulador por uno con el stock nuevo o por una lapida; un ajuste que se cruzo con el
+ * reemplazo se repite sobre el acumulador nuevo.</p>
+ *
+ * <p>Cada ajuste cuenta como un cambio de su sucursal: las revisiones publicadas como ETag suman los
+ * cambios pendientes y la descarga los traslada a la base, asi que el ETag cambia con cada ajuste y
+ * nunca retrocede. Si el lote falla se reintenta producto por producto; un producto que falla
+ * {@value #MAX_FLUSH_ATTEMPTS} descargas seguidas se descarta con un error en el log, sin frenar al
+ * resto. Al detener la aplicacion se descarga lo pendiente despues de cerrar el servidor web y antes
+ * de cerrar el pool de conexiones.</p>
+ */
+@Service
+public class StockWriteBehind implements SmartLifecycle {
+
+    private static final String UPDATE_SQL = """
+            update products set stock = stock + ?
+            where id = ? and deleted = false and stock + ? >= 0
+            """;
+
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private static final int OVERWRITE_STRIPES = 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(StockWriteBehind.class);
+
+    private final ProductRepository productRepository;
+    private final TopStockService topStockService;
+    private final RevisionService revisionService;
+    private final ChangeLogService changeLogService;
+    private final ResponseCache responseCache;
+    private final StockEventHub stockEventHub;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int maxPending;
+    private final int maxBuffered;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] overwriteLocks = new ReentrantLock[OVERWRITE_STRIPES];
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<Long, BranchChanges> changes = new ConcurrentHashMap<>();
+    private final Map<Long, Pending> flushing = new ConcurrentHashMap<>();
+    private final Map<Long, BranchChanges> flushingChanges = new ConcurrentHashMap<>();
+    private final ReentrantLock flushes = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile ScheduledExecutorService flusher;
+
+    /**
+     * Construye el buffer con sus dependencias.
+     *
+     * @param productRepository repositorio de productos.
+     * @param topStockService servicio de lideres de stock por sucursal.
+     * @param revisionService servicio de revisiones de los detalles.
+     * @param changeLogService registro de cambios.
+     * @param responseCache cache de respuestas de lectura.
+     * @param stockEventHub distribuidor de eventos de stock.
+     * @param jdbcTemplate acceso JDBC para el lote de {@code UPDATE}.
+     * @param transactionManager gestor de transacciones.
+     * @param enabled si los ajustes de stock se difieren.
+     * @param webApplicationType pila web; la reactiva no escribe y nunca inicia descargas.
+     * @param flushInterval intervalo entre descargas.
+     * @param maxPending productos pendientes que adelantan la descarga.
+     * @param maxBuffered productos pendientes a partir de los cuales no se acumulan productos nuevos.
+     */
+    public StockWriteBehind(
+            ProductRepository productRepository,
+            TopStockService topStockService,
+            RevisionService revisionService,
+            ChangeLogService changeLogService,
+            ResponseCache responseCache,
+            StockEventHub stockEventHub,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.stock-write-behind.enabled:false}") boolean enabled,
+            @Value("${spring.main.web-application-type:servlet}") WebApplicationType webApplicationType,
+            @Value("${app.stock-write-behind.flush-interval:100ms}") Duration flushInterval,
+            @Value("${app.stock-write-behind.max-pending:500}") int maxPending,
+            @Value("${app.stock-write-behind.max-buffered:5000}") int maxBuffered
+    ) {
+        this.productRepository = productRepository;
+        this.topStockService = topStockService;
+        this.revisionService = revisionService;
+        this.changeLogService = changeLogService;
+        this.responseCache = responseCache;
+        this.stockEventHub = stockEventHub;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled && webApplicationType == WebApplicationType.SERVLET;
+        this.flushInterval = flushInterval;
+        this.maxPending = maxPending;
+        this.maxBuffered = maxBuffered;
+        for (int i = 0; i < OVERWRITE_STRIPES; i++) {
+            overwriteLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Indica si los ajustes de stock se difieren.
+     *
+     * @return true si la escritura diferida esta activa.
+     */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Acumula un ajuste de stock sin escribir en la base.
+     *
+     * <p>La primera vez en cada intervalo se lee el producto del primario; los siguientes ajustes del
+     * mismo producto solo tocan memoria.</p>
+     *
+     * @param id identificador del producto.
+     * @param delta cantidad a sumar (positiva) o restar (negativa).
+     * @return producto con el stock resultante, incluidos los deltas pendientes.
+     */
+    public ProductResponse adjust(Long id, int delta) {
+        if (pending.size() >= maxBuffered && !pending.containsKey(id)) {
+            flush();
+            if (pending.size() >= maxBuffered) {
+                throw new ServiceUnavailableException("Stock write-behind buffer is full, retry later");
+            }
+        }
+        ProductResponse response;
+        ProductHierarchyRow row;
+        lock.readLock().lock();
+        try {
+            while (true) {
+                Pending entry = pending.get(id);
+                if (entry == null) {
+                    // Con el lock de lectura tomado ninguna descarga confirma: dos cargas concurrentes
+                    // leen lo mismo y gana la primera. Si el producto se esta escribiendo, el
+                    // acumulador nuevo parte del stock visible del que se escribe.
+                    Pending inFlight = flushing.get(id);
+                    Pending loaded = inFlight == null ? load(id) : inFlight.successor();
+                    entry = pending.putIfAbsent(id, loaded);
+                    if (entry == null) {
+                        entry = loaded;
+                    }
+                }
+                if (entry.deleted) {
+                    throw new NotFoundException("Product not found: " + id);
+                }
+                long stock = entry.apply(id, delta);
+                if (pending.get(id) == entry) {
+                    row = entry.row;
+                    response = new ProductResponse(id, row.name(), Math.toIntExact(stock));
+                    Long franchiseId = row.franchiseId();
+                    changes.computeIfAbsent(row.branchId(), key -> new BranchChanges(franchiseId)).count.increment();
+                    break;
+                }
+                // Un PUT o DELETE confirmado reemplazo el acumulador: el ajuste se repite sobre el nuevo.
+                entry.undo(delta);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        stockEventHub.product(StockEvent.Type.STOCK_CHANGED, row.franchiseId(), row.branchId(), response);
+        if (pending.size() >= maxPending && flusher != null && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+        return response;
+    }
+
+    /**
+     * Ejecuta una lectura con el lock de lectura, para que no se cruce con el commit de una
+     * descarga.
+     *
+     * @param read lectura a ejecutar.
+     * @param <T> tipo del resultado.
+     * @return resultado de la lectura.
+     */
+    public <T> T read(Supplier<T> read) {
+        if (!enabled) {
+            return read.get();
+        }
+        lock.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza el stock leido de la base o del cache por el del acumulador del producto, si lo
+     * tiene.
+     *
+     * @param product producto segun la base.
+     * @return producto con el stock visible para los clientes.
+     */
+    public ProductResponse withPending(ProductResponse product) {
+        Pending entry = visible(product.id());
+        return entry == null ? product : entry.response();
+    }
+
+    /**
+     * Acumulador cuyo stock ven los clientes: el pendiente o, si no hay, el que se esta escribiendo.
+     *
+     * @param id identificador del producto.
+     * @return acumulador visible, o null si el producto no tiene.
+     */
+    private Pending visible(Long id) {
+        Pending entry = pending.get(id);
+        return entry != null ? entry : flushing.get(id);
+    }
+
+    /**
+     * Aplica los ajustes pendientes a los productos del detalle de una sucursal.
+     *
+     * @param detail detalle segun la base o el cache.
+     * @return detalle con el stock visible para los clientes; el mismo si la sucursal no tiene
+     *         productos pendientes.
+     */
+    public BranchDetailResponse withPending(BranchDetailResponse detail) {
+        for (Map<Long, Pending> buffer : List.of(pending, flushing)) {
+            for (Pending entry : buffer.values()) {
+                if (entry.row.branchId().equals(detail.id())) {
+                    return applyPending(detail);
+                }
+            }
+        }
+        return detail;
+    }
+
+    /**
+     * Aplica los ajustes pendientes a los productos del detalle de una franquicia.
+     *
+     * <p>Solo se rearman las sucursales con productos pendientes; si la franquicia no tiene ninguno
+     * se devuelve el mismo detalle, tal como vino del cache.</p>
+     *
+     * @param detail detalle segun la base o el cache.
+     * @return detalle con el stock visible para los clientes.
+     */
+    public FranchiseDetailResponse withPending(FranchiseDetailResponse detail) {
+        Set<Long> branchIds = new HashSet<>();
+        for (Map<Long, Pending> buffer : List.of(pending, flushing)) {
+            for (Pending entry : buffer.values()) {
+                if (entry.row.franchiseId().equals(detail.id())) {
+                    branchIds.add(entry.row.branchId());
+                }
+            }
+        }
+        if (branchIds.isEmpty()) {
+            return detail;
+        }
+        return new FranchiseDetailResponse(detail.id(), detail.name(), detail.branches().stream()
+                .map(branch -> branchIds.contains(branch.id()) ? applyPending(branch) : branch)
+                .toList());
+    }
+
+    /**
+     * Suma a la revision de una sucursal sus ajustes aun no descargados.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param revision revision segun la base o el cache.
+     * @return revision publicada como ETag.
+     */
+    public long branchRevision(Long branchId, long revision) {
+        long total = revision;
+        for (Map<Long, BranchChanges> buffer : List.of(changes, flushingChanges)) {
+            BranchChanges pendingChanges = buffer.get(branchId);
+            if (pendingChanges != null) {
+                total += pendingChanges.count.sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Suma a la revision de una franquicia los ajustes aun no descargados de sus sucursales.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param revision revision segun la base o el cache.
+     * @return revision publicada como ETag.
+     */
+    public long franchiseRevision(Long franchiseId, long revision) {
+        long total = revision;
+        for (Map<Long, BranchChanges> buffer : List.of(changes, flushingChanges)) {
+            for (BranchChanges pendingChanges : buffer.values()) {
+                if (pendingChanges.franchiseId.equals(franchiseId)) {
+                    total += pendingChanges.count.sum();
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Corrige el reporte de mayor stock de una franquicia con los ajustes pendientes.
+     *
+     * <p>Solo se recalculan las sucursales con productos pendientes: con {@code m} de ellos, los
+     * {@code k} primeros estan entre los {@code k + m} primeros de la base (con su stock visible) y
+     * los pendientes, porque a lo sumo {@code m} de esos {@code k + m} cambiaron. Se llama dentro de
+     * {@link #read(Supplier)} y de la transaccion del reporte.</p>
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param k productos por sucursal.
+     * @param report reporte segun la base, ordenado por sucursal y posicion.
+     * @return reporte con el stock visible, en el mismo orden.
+     */
+    public List<BranchTopStockProductResponse> withPending(Long franchiseId, int k,
+            List<BranchTopStockProductResponse> report) {
+        Map<Long, List<ProductResponse>> pendingByBranch = pendingByBranch(franchiseId);
+        if (pendingByBranch.isEmpty()) {
+            return report;
+        }
+        Map<Long, List<BranchTopStockProductResponse>> byBranch = new TreeMap<>();
+        for (BranchTopStockProductResponse row : report) {
+            byBranch.computeIfAbsent(row.branchId(), key -> new ArrayList<>()).add(row);
+        }
+        pendingByBranch.forEach((branchId, products) -> {
+            List<BranchTopStockProductResponse> rows =
+                    productRepository.findTopStockRowsByBranchId(branchId, Limit.of(k + products.size()));
+            if (rows.isEmpty()) {
+                byBranch.remove(branchId);
+                return;
+            }
+            String branchName = rows.getFirst().branchName();
+            Map<Long, ProductResponse> candidates = new HashMap<>();
+            for (BranchTopStockProductResponse row : rows) {
+                candidates.put(row.productId(),
+                        withPending(new ProductResponse(row.productId(), row.productName(), row.stock())));
+            }
+            products.forEach(product -> candidates.put(product.id(), product));
+            byBranch.put(branchId, candidates.values().stream()
+                    .sorted(Comparator.comparingInt(ProductResponse::stock).reversed()
+                            .thenComparing(ProductResponse::id))
+                    .limit(k)
+                    .map(product -> new BranchTopStockProductResponse(branchId, branchName, product.id(),
+                            product.name(), product.stock()))
+                    .toList());
+        });
+        return byBranch.values().stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Reemplaza el stock de cada producto del detalle por el de su acumulador.
+     *
+     * @param detail detalle de una sucursal con productos pendientes.
+     * @return detalle nuevo con el stock visible.
+     */
+    private BranchDetailResponse applyPending(BranchDetailResponse detail) {
+        return new BranchDetailResponse(detail.id(), detail.name(),
+                detail.products().stream().map(this::withPending).toList());
+    }
+
+    /**
+     * Agrupa por sucursal los productos de una franquicia con ajustes pendientes.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @return productos con su stock visible, por id de sucursal.
+     */
+    private Map<Long, List<ProductResponse>> pendingByBranch(Long franchiseId) {
+        Map<Long, List<ProductResponse>> byBranch = new HashMap<>();
+        for (Pending entry : pending.values()) {
+            if (!entry.deleted && entry.row.franchiseId().equals(franchiseId)) {
+                byBranch.computeIfAbsent(entry.row.branchId(), key -> new ArrayList<>()).add(entry.response());
+            }
+        }
+        for (Pending entry : flushing.values()) {
+            if (entry.row.franchiseId().equals(franchiseId) && !pending.containsKey(entry.row.id())) {
+                byBranch.computeIfAbsent(entry.row.branchId(), key -> new ArrayList<>()).add(entry.response());
+            }
+        }
+        return byBranch;
+    }
+
+    /**
+     * Prepara el reemplazo del nombre y stock de un producto en la transaccion actual.
+     *
+     * <p>Se llama antes de bloquear filas en la base. Bloquea el producto hasta que la transaccion
+     * termine, para que la descarga no le aplique deltas que el stock nuevo reemplaza. Si confirma,
+     * el acumulador pasa a ser uno sin deltas con el estado nuevo; si se revierte, los deltas siguen
+     * pendientes.</p>
+     *
+     * @param replacement producto con el nombre y stock que quedaran al confirmar.
+     */
+    public void beforeOverwrite(ProductHierarchyRow replacement) {
+        guardOverwrite(replacement.id(), previous -> new Pending(replacement, false));
+    }
+
+    /**
+     * Prepara el borrado de un producto en la transaccion actual, como
+     * {@link #beforeOverwrite(ProductHierarchyRow)}: al confirmar, el acumulador pasa a ser una
+     * lapida con el ultimo stock visible, que rechaza nuevos ajustes hasta la siguiente descarga.
+     *
+     * @param current producto segun la base, antes del borrado.
+     */
+    public void beforeDelete(ProductHierarchyRow current) {
+        guardOverwrite(current.id(), previous -> {
+            ProductResponse last = previous == null ? new ProductResponse(current.id(), current.name(), current.stock())
+                    : previous.response();
+            return new Pending(new ProductHierarchyRow(last.id(), last.name(), last.stock(),
+                    current.branchId(), current.franchiseId()), true);
+        });
+    }
+
+    /**
+     * Aplica los deltas pendientes con un lote de {@code UPDATE} y actualiza lideres de stock,
+     * revisiones, registro de cambios y cache en la misma transaccion.
+     *
+     * <p>Con el lock de escritura solo se separan los acumuladores y contadores a escribir; la
+     * transaccion corre sin el lock y lo vuelve a tomar para confirmar, de modo que las lecturas
+     * pasan de ver los acumuladores a ver la base ya escrita sin un instante intermedio. Se saltean
+     * los productos con un {@code PUT} o {@code DELETE} en curso. Si el lote falla se reintenta cada
+     * producto en su propia transaccion; los que vuelven a fallar siguen pendientes hasta
+     * {@value #MAX_FLUSH_ATTEMPTS} descargas y luego se descartan.</p>
+     *
+     * @return productos escritos en la base.
+     */
+    public int flush() {
+        flushRequested.set(false);
+        flushes.lock();
+        List<ReentrantLock> guarded = new ArrayList<>();
+        Set<Pending> discarded = new HashSet<>();
+        try {
+            List<Pending> batch = new ArrayList<>();
+            Map<Long, BranchChanges> flushedChanges = new HashMap<>();
+            lock.writeLock().lock();
+            try {
+                Set<Long> skippedBranches = new HashSet<>();
+                for (Pending entry : pending.values()) {
+                    if (entry.deleted || entry.net() == 0) {
+                        pending.remove(entry.row.id(), entry);
+                        continue;
+                    }
+                    ReentrantLock overwrite = overwriteLock(entry.row.id());
+                    if (overwrite.tryLock()) {
+                        guarded.add(overwrite);
+                        batch.add(entry);
+                    } else {
+                        skippedBranches.add(entry.row.branchId());
+                    }
+                }
+                for (Pending entry : batch) {
+                    pending.remove(entry.row.id(), entry);
+                    flushing.put(entry.row.id(), entry);
+                }
+                // Los cambios de una sucursal con un reemplazo en curso quedan en memoria: la
+                // transaccion del reemplazo tiene bloqueada su revision.
+                changes.forEach((branchId, pendingChanges) -> {
+                    if (!skippedBranches.contains(branchId)) {
+                        flushedChanges.put(branchId, pendingChanges);
+                    }
+                });
+                flushedChanges.forEach((branchId, pendingChanges) -> {
+                    changes.remove(branchId, pendingChanges);
+                    flushingChanges.put(branchId, pendingChanges);
+                });
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (batch.isEmpty() && flushedChanges.isEmpty()) {
+                return 0;
+            }
+            try {
+                return transaction.execute(status -> {
+                    Map<Long, Integer> rejected = write(batch);
+                    transferChanges(flushedChanges, Set.of());
+                    publishOnCommit(batch, rejected, flushedChanges);
+                    return batch.size() - rejected.size();
+                });
+            } catch (RuntimeException ex) {
+                log.warn("Stock write-behind batch of {} products failed, retrying one by one", batch.size(), ex);
+            }
+            return flushOneByOne(batch, flushedChanges, discarded);
+        } finally {
+            settle(discarded);
+            guarded.forEach(ReentrantLock::unlock);
+            flushes.unlock();
+        }
+    }
+
+    /**
+     * Inicia las descargas periodicas si la escritura diferida esta activa.
+     */
+    @Override
+    public void start() {
+        if (!enabled || flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("stock-write-behind").factory());
+        long millis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene las descargas periodicas y descarga lo pendiente.
+     */
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = flusher;
+        if (current == null) {
+            return;
+        }
+        flusher = null;
+        current.shutdown();
+        try {
+            current.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        int flushed = flush();
+        log.info("Stock write-behind stopped, flushed {} products", flushed);
+    }
+
+    /**
+     * Indica si las descargas periodicas estan activas.
+     *
+     * @return true si estan activas.
+     */
+    @Override
+    public boolean isRunning() {
+        return flusher != null;
+    }
+
+    /**
+     * Fase de arranque y parada: se detiene despues del servidor web (sin ajustes en curso) y antes
+     * de destruir el pool de conexiones.
+     *
+     * @return fase del ciclo de vida.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Lee del primario el producto que empieza a acumular ajustes.
+     *
+     * @param id identificador del producto.
+     * @return acumulador con el stock de la base.
+     */
+    private Pending load(Long id) {
+        ProductHierarchyRow row = transaction.execute(status -> productRepository.findHierarchyById(id))
+                .orElseThrow(() -> new NotFoundException("Product not found: " + id));
+        return new Pending(row, false);
+    }
+
+    /**
+     * Reintenta una descarga fallida producto por producto, para que una fila que no se puede
+     * escribir no retenga al resto, y traslada los cambios pendientes a las revisiones.
+     *
+     * @param batch productos del lote fallido.
+     * @param flushedChanges cambios pendientes por sucursal al empezar la descarga.
+     * @param discarded recibe los acumuladores descartados tras {@value #MAX_FLUSH_ATTEMPTS} fallos.
+     * @return productos escritos en la base.
+     */
+    private int flushOneByOne(List<Pending> batch, Map<Long, BranchChanges> flushedChanges, Set<Pending> discarded) {
+        int written = 0;
+        Set<Long> dropped = new HashSet<>();
+        for (Pending entry : batch) {
+            try {
+                written += transaction.execute(status -> {
+                    Map<Long, Integer> rejected = write(List.of(entry));
+                    publishOnCommit(List.of(entry), rejected, Map.of());
+                    return 1 - rejected.size();
+                });
+            } catch (RuntimeException ex) {
+                entry.failedFlushes++;
+                if (entry.failedFlushes < MAX_FLUSH_ATTEMPTS) {
+                    log.warn("Stock write-behind flush of product {} failed ({} of {} attempts)",
+                            entry.row.id(), entry.failedFlushes, MAX_FLUSH_ATTEMPTS, ex);
+                    continue;
+                }
+                log.error("Discarding pending stock delta {} of product {} after {} failed flushes",
+                        entry.net(), entry.row.id(), entry.failedFlushes, ex);
+                discarded.add(entry);
+                // El stock visible vuelve al de la base: la revision tiene que cambiar.
+                dropped.add(entry.row.branchId());
+            }
+        }
+        try {
+            transaction.executeWithoutResult(status -> {
+                transferChanges(flushedChanges, dropped);
+                Map<Long, Integer> bases = new HashMap<>();
+                discarded.forEach(entry -> bases.put(entry.row.id(), entry.row.stock()));
+                publishOnCommit(List.copyOf(discarded), bases, flushedChanges);
+            });
+        } catch (RuntimeException ex) {
+            log.error("Stock write-behind could not record pending revisions, keeping them in memory", ex);
+        }
+        return written;
+    }
+
+    /**
+     * Escribe los deltas netos de los productos y actualiza lideres, revisiones, registro de cambios
+     * y cache, en la transaccion actual.
+     *
+     * <p>Un delta que dejaria el stock negativo (otra instancia resto del mismo producto) o cuyo
+     * producto ya no existe no se escribe: se descarta y se cambia la revision de su sucursal; al
+     * confirmar, el stock visible vuelve al de la base.</p>
+     *
+     * @param entries acumuladores a escribir.
+     * @return stock en la base de los productos rechazados, por id; null si el producto ya no existe.
+     */
+    private Map<Long, Integer> write(List<Pending> entries) {
+        Map<Long, Integer> rejected = new HashMap<>();
+        if (entries.isEmpty()) {
+            return rejected;
+        }
+        List<Object[]> updates = entries.stream()
+                .map(entry -> new Object[] {entry.net(), entry.row.id(), entry.net()})
+                .toList();
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                Pending entry = entries.get(i);
+                log.warn("Discarding pending stock delta {} of product {}: the product is gone or its stock "
+                        + "would become negative", entry.net(), entry.row.id());
+                rejected.put(entry.row.id(), null);
+                revisionService.branchChanged(entry.row.branchId());
+            }
+        }
+        List<Long> ids = entries.stream().map(entry -> entry.row.id()).toList();
+        for (Product product : productRepository.findWithBranchByIdIn(ids)) {
+            Branch branch = product.getBranch();
+            responseCache.evictProduct(product.getId(), branch.getId(), branch.getFranchise().getId());
+            if (rejected.containsKey(product.getId())) {
+                rejected.put(product.getId(), product.getStock());
+                continue;
+            }
+            topStockService.onProductChanged(product);
+            revisionService.branchChanged(branch.getId());
+            changeLogService.product(ChangeRecord.Operation.UPDATE, branch.getFranchise().getId(),
+                    branch.getId(), product.getId());
+        }
+        return rejected;
+    }
+
+    /**
+     * Registra en la transaccion actual el paso de los acumuladores y contadores escritos a la base.
+     *
+     * <p>Antes del commit toma el lock de escritura, para que ninguna lectura quede entre la base
+     * confirmada y los acumuladores aun visibles. Si confirma deja de mostrarlos y, para los
+     * productos rechazados o descartados, rebasa el acumulador siguiente sobre el stock de la base y
+     * publica el stock visible. Si se revierte no cambia nada: {@link #settle(Set)} los devuelve a
+     * pendientes.</p>
+     *
+     * @param entries acumuladores escritos o descartados.
+     * @param rebased stock de la base de los productos que no se escribieron, por id.
+     * @param flushedChanges cambios por sucursal trasladados a las revisiones.
+     */
+    private void publishOnCommit(List<Pending> entries, Map<Long, Integer> rebased,
+            Map<Long, BranchChanges> flushedChanges) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                lock.writeLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!locked) {
+                    return;
+                }
+                try {
+                    if (status != STATUS_COMMITTED) {
+                        return;
+                    }
+                    for (Pending entry : entries) {
+                        flushing.remove(entry.row.id(), entry);
+                        if (rebased.containsKey(entry.row.id())) {
+                            ProductResponse visible = rebase(entry, rebased.get(entry.row.id()));
+                            if (visible != null) {
+                                stockEventHub.product(StockEvent.Type.STOCK_CHANGED, entry.row.franchiseId(),
+                                        entry.row.branchId(), visible);
+                            }
+                        }
+                    }
+                    flushedChanges.forEach(flushingChanges::remove);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Vuelve a pendientes lo que una descarga no llego a confirmar, con el lock de escritura.
+     *
+     * <p>Un acumulador no escrito absorbe los ajustes que recibio mientras tanto el que lo siguio;
+     * uno descartado deja al siguiente sobre el stock de la base. Los cambios por sucursal no
+     * trasladados se suman a los pendientes.</p>
+     *
+     * @param discarded acumuladores descartados.
+     */
+    private void settle(Set<Pending> discarded) {
+        lock.writeLock().lock();
+        try {
+            for (Pending entry : flushing.values()) {
+                Long id = entry.row.id();
+                flushing.remove(id, entry);
+                if (discarded.contains(entry)) {
+                    rebase(entry, entry.row.stock());
+                    continue;
+                }
+                Pending successor = pending.get(id);
+                if (successor != null) {
+                    entry.absorb(successor);
+                }
+                pending.put(id, entry);
+            }
+            flushingChanges.forEach((branchId, pendingChanges) -> {
+                flushingChanges.remove(branchId, pendingChanges);
+                changes.computeIfAbsent(branchId, key -> new BranchChanges(pendingChanges.franchiseId))
+                        .count.add(pendingChanges.count.sum());
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lleva el acumulador que siguio a uno no escrito al stock de la base, con el lock de escritura.
+     *
+     * <p>Si con sus deltas el stock quedaria negativo, los descarta.</p>
+     *
+     * @param entry acumulador no escrito.
+     * @param stock stock del producto en la base, o null si ya no existe.
+     * @return producto con el stock visible, o null si ya no existe.
+     */
+    private ProductResponse rebase(Pending entry, Integer stock) {
+        Long id = entry.row.id();
+        Pending successor = pending.get(id);
+        if (stock == null) {
+            if (successor != null) {
+                pending.remove(id, successor);
+            }
+            return null;
+        }
+        if (successor == null) {
+            return new ProductResponse(id, entry.row.name(), stock);
+        }
+        Pending rebased = successor.rebased(stock);
+        if (stock + rebased.net() < 0) {
+            log.warn("Discarding pending stock delta {} of product {}: its stock would become negative",
+                    rebased.net(), id);
+            rebased = new Pending(rebased.row, false);
+        }
+        pending.put(id, rebased);
+        return rebased.response();
+    }
+
+    /**
+     * Suma a las revisiones en la base los ajustes contados en memoria, en la transaccion actual,
+     * para que la revision publicada no retroceda al vaciar los contadores.
+     *
+     * @param flushedChanges cambios pendientes por sucursal.
+     * @param dropped sucursales con acumuladores descartados.
+     */
+    private void transferChanges(Map<Long, BranchChanges> flushedChanges, Set<Long> dropped) {
+        flushedChanges.forEach((branchId, pendingChanges) ->
+                revisionService.branchChanged(branchId, pendingChanges.count.sum()));
+        dropped.forEach(revisionService::branchChanged);
+    }
+
+    /**
+     * Bloquea el producto hasta que termine la transaccion actual y, si confirma, reemplaza su
+     * acumulador.
+     *
+     * @param id identificador del producto.
+     * @param replacement acumulador nuevo a partir del anterior (null si no habia).
+     */
+    private void guardOverwrite(Long id, UnaryOperator<Pending> replacement) {
+        if (!enabled) {
+            return;
+        }
+        ReentrantLock overwrite = overwriteLock(id);
+        overwrite.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        pending.compute(id, (key, previous) -> replacement.apply(previous));
+                    }
+                } finally {
+                    overwrite.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Lock de reemplazo de la franja del producto.
+     *
+     * @param id identificador del producto.
+     * @return lock compartido por los productos de la franja.
+     */
+    private ReentrantLock overwriteLock(Long id) {
+        return overwriteLocks[Math.floorMod(id.hashCode(), OVERWRITE_STRIPES)];
+    }
+
+    /**
+     * Deltas pendientes de un producto desde la ultima descarga.
+     */
+    private static final class Pending {
+
+        private final ProductHierarchyRow row;
+        private final boolean deleted;
+        private final LongAdder added = new LongAdder();
+        private final AtomicLong withdrawn = new AtomicLong();
+        private int failedFlushes;
+
+        /**
+         * Crea el acumulador.
+         *
+         * @param row producto con el stock de la base.
+         * @param deleted si es la lapida de un producto borrado.
+         */
+        Pending(ProductHierarchyRow row, boolean deleted) {
+            this.row = row;
+            this.deleted = deleted;
+        }
+
+        /**
+         * Suma el delta si el stock no desborda la columna o, si es negativo, lo reserva solo si
+         * alcanza el stock.
+         *
+         * <p>La suma leida de {@code added} puede no incluir sumas concurrentes pero nunca incluye
+         * de mas, asi que la comprobacion es conservadora.</p>
+         *
+         * @param id identificador del producto, para el mensaje de error.
+         * @param delta cantidad a sumar o restar.
+         * @return stock resultante.
+         */
+        long apply(Long id, int delta) {
+            if (delta >= 0) {
+                added.add(delta);
+                long stock = row.stock() + added.sum() - withdrawn.get();
+                if (stock > Integer.MAX_VALUE) {
+                    added.add(-delta);
+                    throw new ConflictException("Stock for product " + id + " would overflow applying delta " + delta);
+                }
+                return stock;
+            }
+            while (true) {
+                long taken = withdrawn.get();
+                long available = row.stock() + added.sum() - taken;
+                if (available + delta < 0) {
+                    throw new ConflictException("Insufficient stock for product " + id + " to apply delta " + delta);
+                }
+                if (withdrawn.compareAndSet(taken, taken - delta)) {
+                    return available + delta;
+                }
+            }
+        }
+
+        /**
+         * Deshace un delta aplicado a un acumulador que ya fue reemplazado.
+         *
+         * @param delta cantidad aplicada.
+         */
+        void undo(int delta) {
+            if (delta >= 0) {
+                added.add(-delta);
+            } else {
+                withdrawn.addAndGet(delta);
+            }
+        }
+
+        /**
+         * Delta neto pendiente.
+         *
+         * @return sumas menos restas.
+         */
+        long net() {
+            return added.sum() - withdrawn.get();
+        }
+
+        /**
+         * Acumulador sin deltas que parte del stock visible de este, para los ajustes que llegan
+         * mientras este se escribe.
+         *
+         * @return acumulador siguiente.
+         */
+        Pending successor() {
+            return new Pending(new ProductHierarchyRow(row.id(), row.name(), response().stock(), row.branchId(),
+                    row.franchiseId()), false);
+        }
+
+        /**
+         * Copia de este acumulador, con sus deltas y fallos, sobre otro stock de la base.
+         *
+         * @param stock stock de la base.
+         * @return acumulador nuevo.
+         */
+        Pending rebased(int stock) {
+            Pending rebased = new Pending(new ProductHierarchyRow(row.id(), row.name(), stock, row.branchId(),
+                    row.franchiseId()), false);
+            rebased.absorb(this);
+            rebased.failedFlushes = failedFlushes;
+            return rebased;
+        }
+
+        /**
+         * Suma los deltas de otro acumulador del mismo producto.
+         *
+         * @param other acumulador cuyos deltas se suman.
+         */
+        void absorb(Pending other) {
+            added.add(other.added.sum());
+            withdrawn.addAndGet(other.withdrawn.get());
+        }
+
+        /**
+         * Producto con el stock visible: el de la base al crear el acumulador mas el delta neto.
+         *
+         * @return producto visible para los clientes.
+         */
+        ProductResponse response() {
+            return new ProductResponse(row.id(), row.name(), Math.toIntExact(row.stock() + net()));
+        }
+    }
+
+    /**
+     * Ajustes aun no descargados de una sucursal, que se suman a su revision.
+     */
+    private static final class BranchChanges {
+
+        private final Long franchiseId;
+        private final LongAdder count = new LongAdder();
+
+        /**
+         * Crea el contador.
+         *
+         * @param franchiseId franquicia de la sucursal.
+         */
+        BranchChanges(Long franchiseId) {
+            this.franchiseId = franchiseId;
+        }
+    }
+}
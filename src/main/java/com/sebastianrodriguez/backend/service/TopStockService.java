@@ -0,0 +1,187 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.entity.Branch;
+import com.sebastianrodriguez.backend.entity.BranchTopStock;
+import com.sebastianrodriguez.backend.entity.Product;
+import com.sebastianrodriguez.backend.repository.BranchRepository;
+import com.sebastianrodriguez.backend.repository.BranchTopStockRepository;
+import com.sebastianrodriguez.backend.repository.ProductRepository;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Mantiene incrementalmente el lider de stock por sucursal ({@link BranchTopStock}).
+ *
+ * <p>Cada metodo se ejecuta en la transaccion de la escritura que lo origina y bloquea la fila
+ * de la sucursal, de modo que escrituras concurrentes sobre la misma sucursal se serializan. Las
+ * transacciones bloquean siempre primero las filas de productos y despues la del lider (tambien
+ * los borrados de sucursales y franquicias), para que no se crucen en un deadlock.</p>
+ */
+@Service
+public class TopStockService {
+
+    private final BranchTopStockRepository topStockRepository;
+    private final ProductRepository productRepository;
+    private final BranchRepository branchRepository;
+
+    /**
+     * Construye el servicio con sus repositorios.
+     *
+     * @param topStockRepository repositorio de lideres por sucursal.
+     * @param productRepository repositorio de productos.
+     * @param branchRepository repositorio de sucursales.
+     */
+    public TopStockService(
+            BranchTopStockRepository topStockRepository,
+            ProductRepository productRepository,
+            BranchRepository branchRepository
+    ) {
+        this.topStockRepository = topStockRepository;
+        this.productRepository = productRepository;
+        this.branchRepository = branchRepository;
+    }
+
+    /**
+     * Registra una sucursal recien creada, aun sin lider.
+     *
+     * @param branch sucursal persistida.
+     */
+    @Transactional
+    public void onBranchCreated(Branch branch) {
+        BranchTopStock leader = new BranchTopStock();
+        leader.setBranchId(branch.getId());
+        leader.setFranchiseId(branch.getFranchise().getId());
+        topStockRepository.save(leader);
+    }
+
+    /**
+     * Actualiza el lider tras crear un producto o cambiar su stock.
+     *
+     * @param product producto persistido con su sucursal asociada.
+     */
+    @Transactional
+    public void onProductChanged(Product product) {
+        BranchTopStock leader = lockLeader(product.getBranch());
+        if (product.getId().equals(leader.getProductId())) {
+            if (product.getStock() >= leader.getStock()) {
+                leader.setStock(product.getStock());
+            } else {
+                recompute(leader);
+            }
+        } else if (outranks(product, leader)) {
+            leader.setProductId(product.getId());
+            leader.setStock(product.getStock());
+        }
+    }
+
+    /**
+     * Actualiza el lider tras el borrado logico de un producto.
+     *
+     * @param product producto eliminado.
+     */
+    @Transactional
+    public void onProductDeleted(Product product) {
+        BranchTopStock leader = lockLeader(product.getBranch());
+        if (product.getId().equals(leader.getProductId())) {
+            recompute(leader);
+        }
+    }
+
+    /**
+     * Recalcula el lider de una sucursal desde la tabla de productos.
+     *
+     * @param branch sucursal a recalcular.
+     */
+    @Transactional
+    public void refreshBranch(Branch branch) {
+        recompute(lockLeader(branch));
+    }
+
+    /**
+     * Elimina el lider de una sucursal borrada.
+     *
+     * @param branchId identificador de la sucursal.
+     */
+    @Transactional
+    public void onBranchDeleted(Long branchId) {
+        topStockRepository.deleteByBranchId(branchId);
+    }
+
+    /**
+     * Elimina los lideres de las sucursales de una franquicia borrada.
+     *
+     * @param franchiseId identificador de la franquicia.
+     */
+    @Transactional
+    public void onFranchiseDeleted(Long franchiseId) {
+        topStockRepository.deleteByFranchiseId(franchiseId);
+    }
+
+    /**
+     * Reconstruye desde cero los lideres de una franquicia para corregir desviaciones.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @return cantidad de sucursales reconstruidas.
+     */
+    @Transactional
+    public int rebuild(Long franchiseId) {
+        topStockRepository.deleteByFranchiseId(franchiseId);
+        int rebuilt = 0;
+        for (Branch branch : branchRepository.findByFranchiseId(franchiseId)) {
+            BranchTopStock leader = new BranchTopStock();
+            leader.setBranchId(branch.getId());
+            leader.setFranchiseId(franchiseId);
+            recompute(leader);
+            topStockRepository.save(leader);
+            rebuilt++;
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Obtiene y bloquea el lider de la sucursal, creandolo si aun no existe.
+     *
+     * <p>La fila se crea con un unico {@code insert ... on duplicate key update} que ademas la
+     * bloquea: un {@code select ... for update} sobre una fila inexistente solo toma un bloqueo de
+     * hueco, y dos primeras escrituras concurrentes terminarian en deadlock o clave duplicada. Un
+     * lider sin producto (fila recien creada o sucursal vacia) se recalcula desde los productos.</p>
+     *
+     * @param branch sucursal del producto.
+     * @return lider bloqueado para actualizar.
+     */
+    private BranchTopStock lockLeader(Branch branch) {
+        topStockRepository.insertIfAbsent(branch.getId(), branch.getFranchise().getId());
+        BranchTopStock leader = topStockRepository.findForUpdate(branch.getId()).orElseThrow();
+        if (leader.getProductId() == null) {
+            recompute(leader);
+        }
+        return leader;
+    }
+
+    /**
+     * Asigna como lider al producto con mayor stock de la sucursal.
+     *
+     * @param leader lider a recalcular.
+     */
+    private void recompute(BranchTopStock leader) {
+        Optional<Product> top = productRepository.findTopStockByBranchId(leader.getBranchId(), Limit.of(1));
+        leader.setProductId(top.map(Product::getId).orElse(null));
+        leader.setStock(top.map(Product::getStock).orElse(0));
+    }
+
+    /**
+     * Indica si un producto supera al lider actual segun el desempate determinista.
+     *
+     * @param product producto candidato.
+     * @param leader lider actual.
+     * @return true si el producto debe ser el nuevo lider.
+     */
+    private boolean outranks(Product product, BranchTopStock leader) {
+        if (leader.getProductId() == null || product.getStock() > leader.getStock()) {
+            return true;
+        }
+        return product.getStock() == leader.getStock() && product.getId() < leader.getProductId();
+    }
+}
@@ -0,0 +1,73 @@
+package db.migration;
+
+import com.sebastianrodriguez.backend.service.ProductNameTokens;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Indexa en {@code product_name_tokens} los productos activos que existian antes de V6 y aun no
+ * tienen tokens.
+ *
+ * <p>Es una migracion Java porque los tokens se normalizan con {@link ProductNameTokens} (sin
+ * acentos), lo que no se puede expresar en SQL portable. Recorre los productos por lotes de id, de
+ * modo que la memoria no depende del tamano de la tabla, y omite los que ya estan indexados, asi
+ * que no pisa lo que las escrituras mantuvieron desde V6.</p>
+ */
+public class V11__backfill_product_name_tokens extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String UNINDEXED = """
+            select p.id, p.name, b.franchise_id from products p
+            join branches b on b.id = p.branch_id
+            where p.id > ?
+            and p.deleted = false
+            and b.deleted = false
+            and not exists (select 1 from product_name_tokens t where t.product_id = p.id)
+            order by p.id
+            limit ?
+            """;
+
+    private static final String INSERT = """
+            insert into product_name_tokens (product_id, token, franchise_id)
+            values (?, ?, ?)
+            """;
+
+    /**
+     * Inserta los tokens de los productos sin indexar, un lote por vez.
+     *
+     * @param context contexto de Flyway con la conexion de la migracion.
+     * @throws SQLException si falla la lectura o la insercion.
+     */
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (PreparedStatement select = connection.prepareStatement(UNINDEXED);
+                PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            long afterId = 0;
+            int read;
+            do {
+                select.setLong(1, afterId);
+                select.setInt(2, BATCH_SIZE);
+                read = 0;
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        read++;
+                        afterId = rows.getLong(1);
+                        for (String token : ProductNameTokens.of(rows.getString(2))) {
+                            insert.setLong(1, afterId);
+                            insert.setString(2, token);
+                            insert.setLong(3, rows.getLong(3));
+                            insert.addBatch();
+                        }
+                    }
+                }
+                insert.executeBatch();
+            } while (read == BATCH_SIZE);
+        }
+    }
+}
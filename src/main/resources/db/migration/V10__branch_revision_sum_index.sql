@@ -0,0 +1,3 @@
+-- La revision del subarbol de una franquicia suma al leer las de todas sus sucursales:
+-- select sum(revision) from branches where franchise_id = ?, resuelta solo con el indice.
+create index idx_branches_franchise_revision on branches (franchise_id, revision);
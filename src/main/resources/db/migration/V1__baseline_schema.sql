@@ -0,0 +1,28 @@
+-- Esquema original de franquicias, sucursales y productos (antes generado por ddl-auto=update).
+-- En bases existentes se omite: baseline-on-migrate las registra directamente en la version 1.
+
+create table franchises (
+    id bigint not null auto_increment,
+    name varchar(200) not null,
+    deleted boolean not null default false,
+    primary key (id)
+) engine = InnoDB;
+
+create table branches (
+    id bigint not null auto_increment,
+    name varchar(200) not null,
+    deleted boolean not null default false,
+    franchise_id bigint not null,
+    primary key (id),
+    constraint fk_branches_franchise foreign key (franchise_id) references franchises (id)
+) engine = InnoDB;
+
+create table products (
+    id bigint not null auto_increment,
+    name varchar(200) not null,
+    stock integer not null,
+    deleted boolean not null default false,
+    branch_id bigint not null,
+    primary key (id),
+    constraint fk_products_branch foreign key (branch_id) references branches (id)
+) engine = InnoDB;
@@ -0,0 +1,27 @@
+-- Tablas auxiliares: lider de stock por sucursal y trabajos de borrado en segundo plano.
+-- "if not exists" porque bases creadas con ddl-auto=update pueden tenerlas ya.
+
+create table if not exists branch_top_stock (
+    branch_id bigint not null,
+    franchise_id bigint not null,
+    product_id bigint,
+    stock integer not null,
+    primary key (branch_id),
+    index idx_branch_top_stock_franchise (franchise_id, branch_id)
+) engine = InnoDB;
+
+create table if not exists deletion_jobs (
+    id bigint not null auto_increment,
+    target_type varchar(20) not null,
+    target_id bigint not null,
+    status varchar(20) not null,
+    phase varchar(20) not null,
+    last_id bigint not null,
+    processed bigint not null,
+    lease_until datetime(6),
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    finished_at datetime(6),
+    primary key (id),
+    index idx_deletion_jobs_status (status, lease_until)
+) engine = InnoDB;
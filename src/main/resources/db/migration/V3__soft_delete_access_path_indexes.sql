@@ -0,0 +1,12 @@
+-- Indices compuestos para los caminos de acceso reales, todos filtrados por deleted = false.
+-- El id de la fila va implicito al final de cada indice secundario de InnoDB.
+
+-- Lider de stock: where branch_id = ? and deleted = false order by stock desc, id limit 1.
+-- Declarar stock desc, id en el orden de la consulta permite leer solo la primera entrada, sin filesort.
+create index idx_products_branch_stock on products (branch_id, deleted, stock desc, id);
+
+-- Listado de productos por cursor y borrado por lotes: where branch_id = ? and deleted = false and id > ? order by id.
+create index idx_products_branch_id on products (branch_id, deleted, id);
+
+-- Listado de sucursales por cursor y borrado por lotes: where franchise_id = ? and deleted = false and id > ? order by id.
+create index idx_branches_franchise_id on branches (franchise_id, deleted, id);
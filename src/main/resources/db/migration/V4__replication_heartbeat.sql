@@ -0,0 +1,10 @@
+-- Latido de replicacion: el primario actualiza beat_at periodicamente y cada replica se considera
+-- atrasada segun la antiguedad del valor que ya recibio.
+
+create table replication_heartbeat (
+    id integer not null,
+    beat_at timestamp(6) not null,
+    primary key (id)
+) engine = InnoDB;
+
+insert into replication_heartbeat (id, beat_at) values (1, current_timestamp(6));
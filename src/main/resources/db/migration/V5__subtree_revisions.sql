@@ -0,0 +1,6 @@
+-- Revision del subarbol de cada franquicia y sucursal: se incrementa en la misma transaccion que
+-- cualquier escritura que cambie su detalle y se publica como ETag.
+
+alter table franchises add column revision bigint not null default 0;
+
+alter table branches add column revision bigint not null default 0;
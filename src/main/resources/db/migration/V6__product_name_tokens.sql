@@ -0,0 +1,14 @@
+-- Indice invertido de nombres de producto para la busqueda por franquicia: una fila por token
+-- normalizado (minusculas, sin acentos) de cada producto. Se mantiene en las escrituras de
+-- productos; los productos existentes se indexan con --rebuild-search-index.
+
+create table product_name_tokens (
+    product_id bigint not null,
+    token varchar(64) not null,
+    franchise_id bigint not null,
+    primary key (product_id, token)
+) engine = InnoDB;
+
+-- Busqueda: where franchise_id = ? and token like 'pre%'. El rango del prefijo se lee en orden
+-- de token y cada entrada ya trae el producto, sin visitar la tabla.
+create index idx_product_name_tokens_search on product_name_tokens (franchise_id, token, product_id);
@@ -0,0 +1,20 @@
+-- Registro de cambios (outbox): una fila por escritura de productos, sucursales o franquicias,
+-- agregada en la misma transaccion. Sin product_id (productos) o sin branch_id (sucursales) la fila
+-- cubre todo su alcance, como en los borrados en cascada por lotes.
+
+create table change_log (
+    id bigint not null auto_increment,
+    entity varchar(16) not null,
+    operation varchar(16) not null,
+    franchise_id bigint not null,
+    branch_id bigint,
+    product_id bigint,
+    changed_at datetime(6) not null,
+    primary key (id)
+) engine = InnoDB;
+
+-- Feed filtrado: where franchise_id = ? and id > ? order by id.
+create index idx_change_log_franchise on change_log (franchise_id, id);
+
+-- Purga por antiguedad.
+create index idx_change_log_changed_at on change_log (changed_at);
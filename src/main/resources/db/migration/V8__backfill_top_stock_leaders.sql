@@ -0,0 +1,15 @@
+-- Crea el lider de stock de las sucursales anteriores a V2, que no tenian fila en
+-- branch_top_stock: el producto activo de mayor stock (a igual stock, el de menor id) o un
+-- lider vacio si la sucursal no tiene productos. Las sucursales que ya tienen lider no se tocan.
+
+insert into branch_top_stock (branch_id, franchise_id, product_id, stock)
+select b.id, b.franchise_id, ranked.id, coalesce(ranked.stock, 0)
+from branches b
+left join (
+    select p.id, p.branch_id, p.stock,
+           row_number() over (partition by p.branch_id order by p.stock desc, p.id) as position
+    from products p
+    where p.deleted = false
+) ranked on ranked.branch_id = b.id and ranked.position = 1
+where b.deleted = false
+  and not exists (select 1 from branch_top_stock t where t.branch_id = b.id);
@@ -0,0 +1,25 @@
+-- Orden de confirmacion del registro de cambios: el id se asigna al insertar pero la fila se ve al
+-- confirmar, asi que el feed lee por commit_seq, que un secuenciador asigna solo a filas ya
+-- confirmadas. Una transaccion larga queda detras de las que confirmaron antes, sin huecos.
+
+alter table change_log add column commit_seq bigint;
+
+-- Ultima posicion asignada; su fila serializa a los secuenciadores de todas las instancias.
+create table change_log_sequence (
+    id int not null,
+    last_seq bigint not null,
+    primary key (id)
+) engine = InnoDB;
+
+update change_log set commit_seq = id;
+
+insert into change_log_sequence (id, last_seq)
+select 1, coalesce(max(id), 0) from change_log;
+
+-- Feed completo (where commit_seq > ? order by commit_seq) y filas pendientes (commit_seq is null).
+create unique index idx_change_log_commit_seq on change_log (commit_seq);
+
+-- Feed filtrado: where franchise_id = ? and commit_seq > ? order by commit_seq.
+create index idx_change_log_franchise_seq on change_log (franchise_id, commit_seq);
+
+alter table change_log drop index idx_change_log_franchise;
@@ -0,0 +1,182 @@
+package com.sebastianrodriguez.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sebastianrodriguez.backend.config.SchedulingConfig;
+import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductUpdateRequest;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import com.sebastianrodriguez.backend.service.StockWriteBehind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica la pila reactiva ({@code WEB_STACK=reactive}) sobre Netty y R2DBC: mismo JSON, cursores
+ * y ETag que la pila servlet (serializando con el mismo {@link ObjectMapper} las respuestas de los
+ * servicios JPA), GET condicional, errores, ausencia de los endpoints de escritura y de las tareas
+ * en segundo plano. Solo se compila con el perfil Maven {@code reactive}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.main.web-application-type=reactive", "app.stock-write-behind.enabled=true"})
+@ActiveProfiles("test")
+class ReactiveReadStackTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockWriteBehind stockWriteBehind;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private long franchiseId;
+
+    private long branchId;
+
+    private long otherBranchId;
+
+    private long productId;
+
+    /**
+     * Siembra una franquicia con dos sucursales, una con varios productos y otra vacia.
+     */
+    @BeforeEach
+    void seed() {
+        franchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Reactiva")).id();
+        branchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Reactiva")).id();
+        otherBranchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Vacia")).id();
+        productId = productService.create(branchId, new ProductCreateRequest("Producto \"Reactivo\" ñ", 7)).id();
+        productService.create(branchId, new ProductCreateRequest("Producto Mayor", 30));
+        productService.create(branchId, new ProductCreateRequest("Producto Empatado", 30));
+    }
+
+    /**
+     * Listados, detalles y reporte responden el mismo JSON y los mismos cursores que la pila
+     * servlet.
+     */
+    @Test
+    void readEndpointsMatchServletResponses() throws Exception {
+        expectJson("/api/franchises/" + franchiseId, franchiseService.get(franchiseId))
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"" + franchiseService.revision(franchiseId) + "\"");
+        expectJson("/api/branches/" + branchId, branchService.get(branchId))
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"" + branchService.revision(branchId) + "\"");
+        expectJson("/api/branches/" + otherBranchId, branchService.get(otherBranchId));
+        expectJson("/api/products/" + productId, productService.get(productId));
+        expectJson("/api/franchises/" + franchiseId + "/top-stock-products",
+                franchiseService.topStockByBranch(franchiseId, 1));
+        expectJson("/api/franchises/" + franchiseId + "/top-stock-products?k=2",
+                franchiseService.topStockByBranch(franchiseId, 2));
+
+        expectPage("/api/franchises?limit=2&after=", franchiseService.list(null, 2));
+        CursorPage<?> branches = branchService.listByFranchise(franchiseId, null, 1);
+        expectPage("/api/franchises/" + franchiseId + "/branches?limit=1&after=", branches);
+        expectPage("/api/franchises/" + franchiseId + "/branches?limit=1&after=" + branches.nextCursor(),
+                branchService.listByFranchise(franchiseId, branches.nextCursor(), 1));
+        CursorPage<?> products = productService.listByBranch(branchId, null, 2);
+        expectPage("/api/branches/" + branchId + "/products?limit=2&after=", products);
+        expectPage("/api/branches/" + branchId + "/products?limit=2&after=" + products.nextCursor(),
+                productService.listByBranch(branchId, products.nextCursor(), 2));
+    }
+
+    /**
+     * Un {@code If-None-Match} vigente responde 304 hasta que cambia el subarbol; ids inexistentes,
+     * parametros invalidos y escrituras no se atienden.
+     */
+    @Test
+    void conditionalGetErrorsAndWrites() {
+        String etag = webTestClient.get().uri("/api/branches/{id}", branchId).exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        webTestClient.get().uri("/api/branches/{id}", branchId).header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        productService.update(productId, new ProductUpdateRequest("Producto Cambiado", 8));
+        webTestClient.get().uri("/api/branches/{id}", branchId).header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.products[0].name").isEqualTo("Producto Cambiado");
+
+        webTestClient.get().uri("/api/franchises/{id}", -1).exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/api/franchises/{id}/branches", -1).exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/api/franchises/{id}/top-stock-products", -1).exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/api/franchises/{id}/top-stock-products?k=0", franchiseId).exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri("/api/branches/{id}/products?limit=0", branchId).exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/api/franchises?after=invalido").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/api/products/abc").exchange().expectStatus().isBadRequest();
+
+        branchService.delete(otherBranchId);
+        webTestClient.get().uri("/api/branches/{id}", otherBranchId).exchange().expectStatus().isNotFound();
+        productService.delete(productId);
+        webTestClient.get().uri("/api/products/{id}", productId).exchange().expectStatus().isNotFound();
+
+        webTestClient.post().uri("/api/franchises").bodyValue("{\"name\":\"Escritura\"}")
+                .header(HttpHeaders.CONTENT_TYPE, "application/json").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    /**
+     * Las tareas programadas y la escritura diferida quedan a cargo de las instancias servlet.
+     */
+    @Test
+    void backgroundWorkStaysOnTheServletStack() {
+        assertTrue(applicationContext.getBeansOfType(SchedulingConfig.class).isEmpty());
+        assertFalse(stockWriteBehind.enabled());
+        assertFalse(stockWriteBehind.isRunning());
+    }
+
+    /**
+     * Comprueba que la ruta responda 200 con exactamente el JSON de la respuesta servlet.
+     *
+     * @param path ruta a consultar.
+     * @param expected respuesta del servicio JPA.
+     * @return respuesta para verificar cabeceras.
+     * @throws Exception si falla la serializacion.
+     */
+    private WebTestClient.ResponseSpec expectJson(String path, Object expected) throws Exception {
+        WebTestClient.ResponseSpec response = webTestClient.get().uri(path).exchange().expectStatus().isOk();
+        response.expectBody(String.class).isEqualTo(objectMapper.writeValueAsString(expected));
+        return response;
+    }
+
+    /**
+     * Comprueba el cuerpo y la cabecera {@code X-Next-Cursor} de una pagina.
+     *
+     * @param path ruta a consultar.
+     * @param expected pagina del servicio JPA.
+     * @throws Exception si falla la serializacion.
+     */
+    private void expectPage(String path, CursorPage<?> expected) throws Exception {
+        WebTestClient.ResponseSpec response = expectJson(path, expected.items());
+        if (expected.nextCursor() == null) {
+            response.expectHeader().doesNotExist("X-Next-Cursor");
+        } else {
+            response.expectHeader().valueEquals("X-Next-Cursor", expected.nextCursor());
+        }
+    }
+}
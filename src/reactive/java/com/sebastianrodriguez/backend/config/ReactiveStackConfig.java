@@ -0,0 +1,105 @@
+package com.sebastianrodriguez.backend.config;
+
+import com.sebastianrodriguez.backend.controller.ReactiveReadHandler;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Configuracion de la pila reactiva de lectura ({@code WEB_STACK=reactive}, es decir
+ * {@code spring.main.web-application-type=reactive}).
+ *
+ * <p>Netty atiende las solicitudes en unos pocos hilos de event loop y las lecturas van por R2DBC
+ * con un pool propio ({@code spring.r2dbc.*}). La autoconfiguracion de R2DBC de Spring Boot esta
+ * excluida para que la pila servlet no cree ese pool ni un segundo gestor de transacciones. JPA y
+ * Flyway siguen activos en ambos modos; las tareas programadas y la escritura diferida de stock solo
+ * en la servlet. Esta clase y sus dependencias solo se compilan con el perfil Maven
+ * {@code reactive}.</p>
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveStackConfig {
+
+    private ConnectionPool connectionPool;
+
+    /**
+     * Servidor Netty; sin este bean Spring Boot elegiria Tomcat, que tambien esta en el classpath.
+     *
+     * @return fabrica del servidor reactivo.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Cliente SQL reactivo sobre un pool R2DBC armado a partir de {@code spring.r2dbc.url},
+     * usuario, clave y {@code spring.r2dbc.pool.*}.
+     *
+     * <p>El pool no se publica como bean {@link ConnectionFactory}: su sola presencia desactiva la
+     * autoconfiguracion del {@code DataSource} JDBC que siguen usando JPA, Flyway y las escrituras.</p>
+     *
+     * @param properties propiedades R2DBC.
+     * @return cliente con parametros con nombre.
+     */
+    @Bean
+    public DatabaseClient databaseClient(R2dbcProperties properties) {
+        if (!StringUtils.hasText(properties.getUrl())) {
+            throw new IllegalStateException("spring.r2dbc.url is required when WEB_STACK=reactive");
+        }
+        ConnectionFactoryBuilder builder = ConnectionFactoryBuilder.withUrl(properties.getUrl());
+        if (StringUtils.hasText(properties.getUsername())) {
+            builder.username(properties.getUsername());
+        }
+        if (StringUtils.hasText(properties.getPassword())) {
+            builder.password(properties.getPassword());
+        }
+        ConnectionFactory connectionFactory = builder.build();
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration.builder(connectionFactory);
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getInitialSize()).to(configuration::initialSize);
+        map.from(pool.getMaxSize()).to(configuration::maxSize);
+        map.from(pool.getMaxIdleTime()).to(configuration::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(configuration::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(configuration::maxAcquireTime);
+        map.from(pool.getValidationQuery()).whenHasText().to(configuration::validationQuery);
+        connectionPool = new ConnectionPool(configuration.build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    /**
+     * Cierra el pool R2DBC al detener el contexto.
+     */
+    @PreDestroy
+    public void disposeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    /**
+     * Rutas de lectura reactivas.
+     *
+     * @param handler funciones de los endpoints.
+     * @return funcion de ruteo.
+     */
+    @Bean
+    public RouterFunction<ServerResponse> reactiveReadRoutes(ReactiveReadHandler handler) {
+        return handler.routes();
+    }
+}
@@ -0,0 +1,242 @@
+package com.sebastianrodriguez.backend.controller;
+
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import com.sebastianrodriguez.backend.dto.Versioned;
+import com.sebastianrodriguez.backend.exception.BadRequestException;
+import com.sebastianrodriguez.backend.service.Cursors;
+import com.sebastianrodriguez.backend.service.ReactiveReadService;
+import java.util.function.Supplier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Endpoints de lectura de la pila reactiva ({@code WEB_STACK=reactive}) como funciones WebFlux.
+ *
+ * <p>Mismas rutas, parametros, cuerpos JSON, cabecera {@value PageResponses#NEXT_CURSOR_HEADER} y
+ * ETag que los controladores servlet; las escrituras y el resto de los endpoints solo los atiende la
+ * pila servlet.</p>
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReadHandler {
+
+    private static final int DEFAULT_LIMIT = Integer.parseInt(Cursors.DEFAULT_LIMIT);
+
+    private final ReactiveReadService reactiveReadService;
+
+    /**
+     * Construye el handler con su dependencia principal.
+     *
+     * @param reactiveReadService lecturas reactivas.
+     */
+    public ReactiveReadHandler(ReactiveReadService reactiveReadService) {
+        this.reactiveReadService = reactiveReadService;
+    }
+
+    /**
+     * Rutas atendidas por la pila reactiva.
+     *
+     * @return funcion de ruteo.
+     */
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/franchises", this::listFranchises)
+                .GET("/api/franchises/{id}", this::getFranchise)
+                .GET("/api/franchises/{id}/branches", this::listBranches)
+                .GET("/api/franchises/{id}/top-stock-products", this::topStockProducts)
+                .GET("/api/branches/{id}", this::getBranch)
+                .GET("/api/branches/{id}/products", this::listProducts)
+                .GET("/api/products/{id}", this::getProduct)
+                .build();
+    }
+
+    /**
+     * {@code GET /api/franchises}: franquicias activas paginadas por cursor.
+     *
+     * @param request solicitud con {@code after} y {@code limit} opcionales.
+     * @return pagina de franquicias.
+     */
+    public Mono<ServerResponse> listFranchises(ServerRequest request) {
+        return Mono.defer(() -> page(reactiveReadService.listFranchises(after(request), limit(request))));
+    }
+
+    /**
+     * {@code GET /api/franchises/{id}}: detalle de la franquicia con ETag de su revision.
+     *
+     * @param request solicitud con el id y encabezados condicionales.
+     * @return detalle o 304.
+     */
+    public Mono<ServerResponse> getFranchise(ServerRequest request) {
+        return Mono.defer(() -> {
+            Long id = id(request);
+            return conditional(request, reactiveReadService.franchiseRevision(id), () -> reactiveReadService.getFranchise(id));
+        });
+    }
+
+    /**
+     * {@code GET /api/franchises/{id}/branches}: sucursales de la franquicia paginadas por cursor.
+     *
+     * @param request solicitud con el id, {@code after} y {@code limit}.
+     * @return pagina de sucursales.
+     */
+    public Mono<ServerResponse> listBranches(ServerRequest request) {
+        return Mono.defer(() -> page(reactiveReadService.listBranches(id(request), after(request), limit(request))));
+    }
+
+    /**
+     * {@code GET /api/franchises/{id}/top-stock-products}: top de stock por sucursal.
+     *
+     * @param request solicitud con el id y {@code k} opcional (por defecto 1).
+     * @return lista ordenada por sucursal y posicion.
+     */
+    public Mono<ServerResponse> topStockProducts(ServerRequest request) {
+        return Mono.defer(() -> reactiveReadService.topStockByBranch(id(request), intParam(request, "k", 1))
+                .flatMap(rows -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(rows)));
+    }
+
+    /**
+     * {@code GET /api/branches/{id}}: detalle de la sucursal con ETag de su revision.
+     *
+     * @param request solicitud con el id y encabezados condicionales.
+     * @return detalle o 304.
+     */
+    public Mono<ServerResponse> getBranch(ServerRequest request) {
+        return Mono.defer(() -> {
+            Long id = id(request);
+            return conditional(request, reactiveReadService.branchRevision(id), () -> reactiveReadService.getBranch(id));
+        });
+    }
+
+    /**
+     * {@code GET /api/branches/{id}/products}: productos de la sucursal paginados por cursor.
+     *
+     * @param request solicitud con el id, {@code after} y {@code limit}.
+     * @return pagina de productos.
+     */
+    public Mono<ServerResponse> listProducts(ServerRequest request) {
+        return Mono.defer(() -> page(reactiveReadService.listProducts(id(request), after(request), limit(request))));
+    }
+
+    /**
+     * {@code GET /api/products/{id}}: producto activo.
+     *
+     * @param request solicitud con el id.
+     * @return producto.
+     */
+    public Mono<ServerResponse> getProduct(ServerRequest request) {
+        return Mono.defer(() -> reactiveReadService.getProduct(id(request))
+                .flatMap(product -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(product)));
+    }
+
+    /**
+     * Responde una pagina como arreglo JSON con el cursor siguiente en la cabecera.
+     *
+     * @param page pagina a responder.
+     * @param <T> tipo de los elementos.
+     * @return respuesta 200.
+     */
+    private static <T> Mono<ServerResponse> page(Mono<CursorPage<T>> page) {
+        return page.flatMap(result -> {
+            ServerResponse.BodyBuilder builder = ServerResponse.ok().contentType(MediaType.APPLICATION_JSON);
+            if (result.nextCursor() != null) {
+                builder.header(PageResponses.NEXT_CURSOR_HEADER, result.nextCursor());
+            }
+            return builder.bodyValue(result.items());
+        });
+    }
+
+    /**
+     * Responde 304 si el {@code If-None-Match} coincide con la revision actual, sin leer el
+     * detalle; si no, 200 con el detalle y el ETag de la revision con que se armo.
+     *
+     * @param request solicitud con sus encabezados condicionales.
+     * @param revision lectura barata de la revision actual.
+     * @param detail carga del detalle con su revision.
+     * @param <T> tipo del detalle.
+     * @return respuesta HTTP.
+     */
+    private static <T> Mono<ServerResponse> conditional(ServerRequest request, Mono<Long> revision,
+            Supplier<Mono<Versioned<T>>> detail) {
+        return revision.flatMap(current -> {
+            String etag = ConditionalResponses.etag(current);
+            if (request.exchange().checkNotModified(etag)) {
+                return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                        .build();
+            }
+            return detail.get().flatMap(versioned -> ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(ConditionalResponses.etag(versioned.revision()))
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .bodyValue(versioned.body()));
+        });
+    }
+
+    /**
+     * Lee el id de la ruta.
+     *
+     * @param request solicitud.
+     * @return id numerico.
+     */
+    private static Long id(ServerRequest request) {
+        String value = request.pathVariable("id");
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid id: " + value);
+        }
+    }
+
+    /**
+     * Lee el cursor de la pagina anterior.
+     *
+     * @param request solicitud.
+     * @return cursor o null.
+     */
+    private static String after(ServerRequest request) {
+        return request.queryParam("after").orElse(null);
+    }
+
+    /**
+     * Lee y valida el tamano de pagina.
+     *
+     * @param request solicitud.
+     * @return tamano entre 1 y {@link Cursors#MAX_LIMIT}.
+     */
+    private static int limit(ServerRequest request) {
+        int limit = intParam(request, "limit", DEFAULT_LIMIT);
+        if (limit < 1 || limit > Cursors.MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + Cursors.MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    /**
+     * Lee un parametro entero opcional.
+     *
+     * @param request solicitud.
+     * @param name nombre del parametro.
+     * @param defaultValue valor si no viene.
+     * @return valor leido.
+     */
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        String value = request.queryParam(name).orElse(null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid " + name + ": " + value);
+        }
+    }
+}
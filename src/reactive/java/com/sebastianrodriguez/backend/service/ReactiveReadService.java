@@ -0,0 +1,341 @@
+package com.sebastianrodriguez.backend.service;
+
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.BranchSummaryResponse;
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.BranchTreeRow;
+import com.sebastianrodriguez.backend.dto.CursorPage;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseHeaderRow;
+import com.sebastianrodriguez.backend.dto.FranchiseSummaryResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseTreeRow;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.dto.Versioned;
+import com.sebastianrodriguez.backend.exception.BadRequestException;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import io.r2dbc.spi.Row;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Lecturas de la pila reactiva ({@code WEB_STACK=reactive}): listados, detalles y reporte de mayor
+ * stock con R2DBC, sin bloquear hilos mientras espera a la base.
+ *
+ * <p>Repite en SQL los filtros de borrado logico de las consultas JPA y arma las respuestas con
+ * {@link ResponseMapper} y {@link Cursors}, por lo que el JSON y los cursores son los mismos de la
+ * pila servlet. No usa el cache de lecturas ni ve los ajustes de stock aun no escritos por
+ * {@link StockWriteBehind}. En los detalles la revision se lee antes que el arbol: sin transaccion,
+ * el ETag puede quedar atrasado respecto del cuerpo pero nunca adelantado.</p>
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReadService {
+
+    private static final String FRANCHISE_PAGE = """
+            select id, name from franchises
+            where deleted = false and id > :afterId
+            order by id
+            limit :limit
+            """;
+
+    private static final String FRANCHISE_EXISTS = "select id from franchises where id = :id and deleted = false";
+
+    private static final String FRANCHISE_HEADER = """
+            select f.id, f.name,
+                   f.revision + coalesce((select sum(b.revision) from branches b where b.franchise_id = f.id), 0) as revision
+            from franchises f
+            where f.id = :id and f.deleted = false
+            """;
+
+    private static final String FRANCHISE_TREE = """
+            select b.id as branch_id, b.name as branch_name, p.id as product_id, p.name as product_name, p.stock
+            from branches b
+            left join products p on p.branch_id = b.id and p.deleted = false
+            where b.franchise_id = :franchiseId and b.deleted = false
+            order by b.id, p.id
+            """;
+
+    private static final String BRANCH_PAGE = """
+            select id, name from branches
+            where franchise_id = :franchiseId and deleted = false and id > :afterId
+            order by id
+            limit :limit
+            """;
+
+    private static final String BRANCH_REVISION = """
+            select b.revision from branches b
+            join franchises f on f.id = b.franchise_id
+            where b.id = :id and b.deleted = false and f.deleted = false
+            """;
+
+    private static final String BRANCH_TREE = """
+            select f.id as franchise_id, b.id as branch_id, b.name as branch_name, b.revision,
+                   p.id as product_id, p.name as product_name, p.stock
+            from branches b
+            join franchises f on f.id = b.franchise_id
+            left join products p on p.branch_id = b.id and p.deleted = false
+            where b.id = :id and b.deleted = false and f.deleted = false
+            order by p.id
+            """;
+
+    private static final String PRODUCT_PAGE = """
+            select id, name, stock from products
+            where branch_id = :branchId and deleted = false and id > :afterId
+            order by id
+            limit :limit
+            """;
+
+    private static final String PRODUCT = """
+            select p.id, p.name, p.stock
+            from products p
+            join branches b on b.id = p.branch_id
+            join franchises f on f.id = b.franchise_id
+            where p.id = :id and p.deleted = false and b.deleted = false and f.deleted = false
+            """;
+
+    private static final String TOP_STOCK_LEADERS = """
+            select b.id as branch_id, b.name as branch_name, p.id as product_id, p.name as product_name, p.stock
+            from branch_top_stock t
+            join branches b on b.id = t.branch_id and b.deleted = false
+            join products p on p.id = t.product_id and p.deleted = false
+            where t.franchise_id = :franchiseId
+            order by t.branch_id
+            """;
+
+    private static final String TOP_STOCK_WINDOW = """
+            select branch_id, branch_name, product_id, product_name, stock
+            from (
+                select b.id as branch_id, b.name as branch_name, p.id as product_id, p.name as product_name,
+                       p.stock,
+                       row_number() over (partition by b.id order by p.stock desc, p.id) as position
+                from products p
+                join branches b on b.id = p.branch_id
+                where b.franchise_id = :franchiseId and b.deleted = false and p.deleted = false
+            ) r
+            where r.position <= :k
+            order by r.branch_id, r.position
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Construye el servicio.
+     *
+     * @param databaseClient cliente R2DBC de la pila reactiva.
+     */
+    public ReactiveReadService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Lista las franquicias activas con paginacion por cursor.
+     *
+     * @param after cursor de la pagina anterior o null para empezar.
+     * @param limit tamano de pagina.
+     * @return pagina de franquicias ordenadas por id.
+     */
+    public Mono<CursorPage<FranchiseSummaryResponse>> listFranchises(String after, int limit) {
+        long afterId = Cursors.decode(after);
+        return databaseClient.sql(FRANCHISE_PAGE)
+                .bind("afterId", afterId)
+                .bind("limit", limit + 1)
+                .map((row, meta) -> new FranchiseSummaryResponse(row.get("id", Long.class), row.get("name", String.class)))
+                .all()
+                .collectList()
+                .map(rows -> Cursors.page(rows, limit, FranchiseSummaryResponse::id));
+    }
+
+    /**
+     * Obtiene la revision actual del subarbol de una franquicia.
+     *
+     * @param id identificador de la franquicia.
+     * @return revision actual.
+     */
+    public Mono<Long> franchiseRevision(Long id) {
+        return franchiseHeader(id).map(FranchiseHeaderRow::revision);
+    }
+
+    /**
+     * Obtiene el detalle de una franquicia con sus sucursales y productos junto con su revision.
+     *
+     * @param id identificador de la franquicia.
+     * @return detalle de la franquicia y su revision.
+     */
+    public Mono<Versioned<FranchiseDetailResponse>> getFranchise(Long id) {
+        return franchiseHeader(id).flatMap(header -> databaseClient.sql(FRANCHISE_TREE)
+                .bind("franchiseId", id)
+                .map((row, meta) -> new FranchiseTreeRow(
+                        row.get("branch_id", Long.class),
+                        row.get("branch_name", String.class),
+                        row.get("product_id", Long.class),
+                        row.get("product_name", String.class),
+                        row.get("stock", Integer.class)))
+                .all()
+                .collectList()
+                .map(rows -> new Versioned<>(ResponseMapper.toDetail(header, rows), header.revision())));
+    }
+
+    /**
+     * Lista sucursales activas de una franquicia con paginacion por cursor.
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param after cursor de la pagina anterior o null para empezar.
+     * @param limit tamano de pagina.
+     * @return pagina de sucursales ordenadas por id.
+     */
+    public Mono<CursorPage<BranchSummaryResponse>> listBranches(Long franchiseId, String after, int limit) {
+        long afterId = Cursors.decode(after);
+        return requireFranchise(franchiseId).then(databaseClient.sql(BRANCH_PAGE)
+                .bind("franchiseId", franchiseId)
+                .bind("afterId", afterId)
+                .bind("limit", limit + 1)
+                .map((row, meta) -> new BranchSummaryResponse(row.get("id", Long.class), row.get("name", String.class)))
+                .all()
+                .collectList()
+                .map(rows -> Cursors.page(rows, limit, BranchSummaryResponse::id)));
+    }
+
+    /**
+     * Obtiene los {@code k} productos con mayor stock por sucursal para una franquicia.
+     *
+     * <p>Con {@code k = 1} lee la tabla de lideres; con mas, la consulta de ventana. A igual stock
+     * gana el producto de menor id.</p>
+     *
+     * @param franchiseId identificador de la franquicia.
+     * @param k productos por sucursal, entre 1 y {@link FranchiseService#MAX_TOP_K}.
+     * @return hasta {@code k} productos por sucursal, ordenados por sucursal y posicion.
+     */
+    public Mono<List<BranchTopStockProductResponse>> topStockByBranch(Long franchiseId, int k) {
+        if (k < 1 || k > FranchiseService.MAX_TOP_K) {
+            return Mono.error(new BadRequestException("k must be between 1 and " + FranchiseService.MAX_TOP_K));
+        }
+        DatabaseClient.GenericExecuteSpec query = k == 1
+                ? databaseClient.sql(TOP_STOCK_LEADERS).bind("franchiseId", franchiseId)
+                : databaseClient.sql(TOP_STOCK_WINDOW).bind("franchiseId", franchiseId).bind("k", k);
+        return requireFranchise(franchiseId).then(query
+                .map((row, meta) -> new BranchTopStockProductResponse(
+                        row.get("branch_id", Long.class),
+                        row.get("branch_name", String.class),
+                        row.get("product_id", Long.class),
+                        row.get("product_name", String.class),
+                        row.get("stock", Integer.class)))
+                .all()
+                .collectList());
+    }
+
+    /**
+     * Obtiene la revision actual del detalle de una sucursal.
+     *
+     * @param id identificador de la sucursal.
+     * @return revision actual.
+     */
+    public Mono<Long> branchRevision(Long id) {
+        return databaseClient.sql(BRANCH_REVISION)
+                .bind("id", id)
+                .map((row, meta) -> row.get("revision", Long.class))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Branch not found: " + id)));
+    }
+
+    /**
+     * Obtiene el detalle de una sucursal con sus productos junto con su revision, en una sola
+     * consulta.
+     *
+     * @param id identificador de la sucursal.
+     * @return detalle de la sucursal y su revision.
+     */
+    public Mono<Versioned<BranchDetailResponse>> getBranch(Long id) {
+        return databaseClient.sql(BRANCH_TREE)
+                .bind("id", id)
+                .map((row, meta) -> new BranchTreeRow(
+                        row.get("franchise_id", Long.class),
+                        row.get("branch_id", Long.class),
+                        row.get("branch_name", String.class),
+                        row.get("revision", Long.class),
+                        row.get("product_id", Long.class),
+                        row.get("product_name", String.class),
+                        row.get("stock", Integer.class)))
+                .all()
+                .collectList()
+                .flatMap(rows -> rows.isEmpty()
+                        ? Mono.error(new NotFoundException("Branch not found: " + id))
+                        : Mono.just(new Versioned<>(ResponseMapper.toDetail(rows), rows.getFirst().revision())));
+    }
+
+    /**
+     * Lista productos activos de una sucursal con paginacion por cursor.
+     *
+     * @param branchId identificador de la sucursal.
+     * @param after cursor de la pagina anterior o null para empezar.
+     * @param limit tamano de pagina.
+     * @return pagina de productos ordenados por id.
+     */
+    public Mono<CursorPage<ProductResponse>> listProducts(Long branchId, String after, int limit) {
+        long afterId = Cursors.decode(after);
+        return branchRevision(branchId).then(databaseClient.sql(PRODUCT_PAGE)
+                .bind("branchId", branchId)
+                .bind("afterId", afterId)
+                .bind("limit", limit + 1)
+                .map((row, meta) -> toProduct(row))
+                .all()
+                .collectList()
+                .map(rows -> Cursors.page(rows, limit, ProductResponse::id)));
+    }
+
+    /**
+     * Obtiene un producto activo de una sucursal y franquicia activas.
+     *
+     * @param id identificador del producto.
+     * @return producto encontrado.
+     */
+    public Mono<ProductResponse> getProduct(Long id) {
+        return databaseClient.sql(PRODUCT)
+                .bind("id", id)
+                .map((row, meta) -> toProduct(row))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Product not found: " + id)));
+    }
+
+    /**
+     * Lee los datos propios de una franquicia activa.
+     *
+     * @param id identificador de la franquicia.
+     * @return id, nombre y revision.
+     */
+    private Mono<FranchiseHeaderRow> franchiseHeader(Long id) {
+        return databaseClient.sql(FRANCHISE_HEADER)
+                .bind("id", id)
+                .map((row, meta) -> new FranchiseHeaderRow(
+                        row.get("id", Long.class), row.get("name", String.class), row.get("revision", Number.class).longValue()))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Franchise not found: " + id)));
+    }
+
+    /**
+     * Comprueba que la franquicia exista y no este eliminada.
+     *
+     * @param id identificador de la franquicia.
+     * @return vacio si existe; error 404 si no.
+     */
+    private Mono<Void> requireFranchise(Long id) {
+        return databaseClient.sql(FRANCHISE_EXISTS)
+                .bind("id", id)
+                .map((row, meta) -> row.get("id", Long.class))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Franchise not found: " + id)))
+                .then();
+    }
+
+    /**
+     * Mapea una fila {@code id, name, stock} de productos.
+     *
+     * @param row fila leida.
+     * @return producto.
+     */
+    private static ProductResponse toProduct(Row row) {
+        return new ProductResponse(row.get("id", Long.class), row.get("name", String.class), row.get("stock", Integer.class));
+    }
+}
@@ -0,0 +1,234 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.dto.ChangeFeedResponse;
+import com.sebastianrodriguez.backend.dto.ChangeRecord;
+import com.sebastianrodriguez.backend.dto.ProductUpdateRequest;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.ChangeLogRelay;
+import com.sebastianrodriguez.backend.service.ChangeLogService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el registro de cambios: una fila por escritura confirmada (y por cada borrado masivo),
+ * orden de confirmacion, paginacion del feed, purga y el relay que invalida el cache.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ChangeLogTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ChangeLogRelay changeLogRelay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long since;
+
+    private TestHierarchy hierarchy;
+
+    /**
+     * Secuencia los cambios previos y toma la posicion actual.
+     */
+    @BeforeEach
+    void settle() {
+        hierarchy = new TestHierarchy(franchiseService, branchService, productService);
+        changeLogService.sequence();
+        since = changeLogService.lastId();
+    }
+
+    /**
+     * Elimina las franquicias creadas por la prueba.
+     */
+    @AfterEach
+    void cleanUp() {
+        hierarchy.deleteAll();
+    }
+
+    /**
+     * Cada escritura confirmada agrega su fila en orden de confirmacion, la revertida no aparece, y
+     * una transaccion larga que confirma despues de cambios ya leidos se entrega igual.
+     */
+    @Test
+    void mutationsAppendRecordsInCommitOrderWithoutSkippingLongTransactions() throws Exception {
+        long franchiseId = hierarchy.franchise("Franquicia Registro");
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Long> slow = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            long id = hierarchy.franchise("Franquicia Lenta");
+            written.countDown();
+            await(release);
+            return id;
+        }));
+        try {
+            assertTrue(written.await(10, TimeUnit.SECONDS));
+            long branchId = hierarchy.branch(franchiseId, "Sucursal Registro");
+            long productId = hierarchy.product(branchId, "Producto Registro", 5);
+            productService.update(productId, new ProductUpdateRequest("Producto Registro", 7));
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                hierarchy.product(branchId, "Producto Revertido", 1);
+                status.setRollbackOnly();
+            });
+            productService.adjustStock(productId, 1);
+            branchService.delete(branchId);
+            franchiseService.delete(franchiseId);
+            changeLogService.sequence();
+
+            ChangeFeedResponse first = changeLogService.feed(since, null, ChangeLogService.MAX_LIMIT);
+            List<String> expected = List.of("FRANCHISE CREATE " + franchiseId + " null null",
+                    "BRANCH CREATE " + franchiseId + " " + branchId + " null",
+                    "PRODUCT CREATE " + franchiseId + " " + branchId + " " + productId,
+                    "PRODUCT UPDATE " + franchiseId + " " + branchId + " " + productId,
+                    "PRODUCT UPDATE " + franchiseId + " " + branchId + " " + productId,
+                    "BRANCH DELETE " + franchiseId + " " + branchId + " null",
+                    "PRODUCT DELETE " + franchiseId + " " + branchId + " null",
+                    "FRANCHISE DELETE " + franchiseId + " null null",
+                    "PRODUCT DELETE " + franchiseId + " null null",
+                    "BRANCH DELETE " + franchiseId + " null null");
+            assertEquals(expected, describe(first));
+            assertEquals(first.changes().getLast().id(), first.next());
+            assertEquals(expected, describe(changeLogService.feed(since, franchiseId, ChangeLogService.MAX_LIMIT)));
+
+            long third = first.changes().get(2).id();
+            mockMvc.perform(get("/api/changes?since={since}&franchiseId={id}&limit=3", since, franchiseId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes.length()").value(3))
+                    .andExpect(jsonPath("$.changes[0].entity").value("FRANCHISE"))
+                    .andExpect(jsonPath("$.next").value(third));
+            mockMvc.perform(get("/api/changes?since={since}&franchiseId={id}", third, franchiseId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes.length()").value(7))
+                    .andExpect(jsonPath("$.next").value(first.next()));
+            mockMvc.perform(get("/api/changes?limit=" + (ChangeLogService.MAX_LIMIT + 1)))
+                    .andExpect(status().isBadRequest());
+
+            release.countDown();
+            long slowId = slow.get(10, TimeUnit.SECONDS);
+            changeLogService.sequence();
+            ChangeFeedResponse late = changeLogService.feed(first.next(), null, ChangeLogService.MAX_LIMIT);
+            assertEquals(List.of("FRANCHISE CREATE " + slowId + " null null"), describe(late));
+            assertTrue(late.next() > first.next());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Un cambio escrito por otra instancia llega al cache local a traves del relay.
+     */
+    @Test
+    void relayEvictsEntriesChangedElsewhere() {
+        long franchiseId = hierarchy.franchise("Franquicia Relay");
+        long branchId = hierarchy.branch(franchiseId, "Sucursal Relay");
+        long productId = hierarchy.product(branchId, "Producto Relay", 5);
+        changeLogRelay.relay();
+        changeLogRelay.relay();
+        assertEquals("Producto Relay", productService.get(productId).name());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("update products set name = 'Producto Externo' where id = ?", productId);
+            jdbcTemplate.update("""
+                    insert into change_log (entity, operation, franchise_id, branch_id, product_id, changed_at)
+                    values ('PRODUCT', 'UPDATE', ?, ?, ?, ?)
+                    """, franchiseId, branchId, productId, Timestamp.from(Instant.now()));
+        });
+        assertEquals("Producto Relay", productService.get(productId).name());
+        changeLogService.sequence();
+
+        assertTrue(changeLogRelay.relay() >= 1);
+        assertEquals("Producto Externo", productService.get(productId).name());
+    }
+
+    /**
+     * La purga borra las filas mas antiguas que la retencion y conserva las recientes.
+     */
+    @Test
+    void purgeRemovesExpiredRows() {
+        hierarchy.franchise("Franquicia Vencida");
+        changeLogService.sequence();
+        long expired = changeLogService.lastId();
+        jdbcTemplate.update("update change_log set changed_at = ? where commit_seq <= ?",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(8))), expired);
+        long franchiseId = hierarchy.franchise("Franquicia Reciente");
+        changeLogService.sequence();
+
+        assertTrue(changeLogService.purge() > 0);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from change_log where commit_seq <= ?", Integer.class, expired));
+        assertEquals(1, changeLogService.feed(expired, franchiseId, ChangeLogService.MAX_LIMIT).changes().size());
+    }
+
+    /**
+     * Espera la senal del hilo principal.
+     *
+     * @param latch senal a esperar.
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Resume los cambios de una pagina como {@code ENTIDAD OPERACION franquicia sucursal producto}.
+     *
+     * @param feed pagina del feed.
+     * @return descripciones en orden.
+     */
+    private static List<String> describe(ChangeFeedResponse feed) {
+        return feed.changes().stream()
+                .map(change -> change.entity() + " " + change.operation() + " " + change.franchiseId() + " "
+                        + change.branchId() + " " + change.productId())
+                .toList();
+    }
+}
@@ -0,0 +1,181 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica los ETag por revision: 304 con una sola consulta barata y un ETag nuevo tras cada
+ * escritura del subarbol.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long franchiseId;
+
+    private long branchId;
+
+    private long productId;
+
+    private TestHierarchy hierarchy;
+
+    /**
+     * Siembra una franquicia con dos sucursales y un producto.
+     */
+    @BeforeEach
+    void seed() {
+        hierarchy = new TestHierarchy(franchiseService, branchService, productService);
+        franchiseId = hierarchy.franchise("Franquicia ETag");
+        branchId = hierarchy.branch(franchiseId, "Sucursal ETag");
+        hierarchy.branch(franchiseId, "Sucursal Extra");
+        productId = hierarchy.product(branchId, "Producto ETag", 10);
+    }
+
+    /**
+     * Elimina las franquicias creadas por la prueba.
+     */
+    @AfterEach
+    void cleanUp() {
+        hierarchy.deleteAll();
+    }
+
+    /**
+     * Un {@code If-None-Match} vigente responde 304 leyendo solo la revision, sin cargar entidades.
+     */
+    @Test
+    void notModifiedUsesSingleRevisionLookup() throws Exception {
+        for (String path : new String[] {"/api/franchises/{id}", "/api/branches/{id}"}) {
+            long id = path.startsWith("/api/franchises") ? franchiseId : branchId;
+            String etag = etag(path, id);
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            mockMvc.perform(get(path, id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(content().string(""));
+
+            assertEquals(1, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+        }
+    }
+
+    /**
+     * Un cambio de stock cambia el ETag de la sucursal y de la franquicia, y el cuerpo nuevo llega
+     * con el ETag nuevo, sin escribir la fila de la franquicia.
+     */
+    @Test
+    void stockChangeBumpsBranchAndFranchise() throws Exception {
+        String franchiseEtag = etag("/api/franchises/{id}", franchiseId);
+        String branchEtag = etag("/api/branches/{id}", branchId);
+        long franchiseRow = franchiseRowRevision();
+
+        mockMvc.perform(patch("/api/products/{id}/stock", productId)
+                        .contentType("application/json")
+                        .content("{\"delta\": 5}"))
+                .andExpect(status().isOk());
+
+        String newBranchEtag = mockMvc.perform(get("/api/branches/{id}", branchId)
+                        .header(HttpHeaders.IF_NONE_MATCH, branchEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].stock").value(15))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(branchEtag, newBranchEtag);
+        mockMvc.perform(get("/api/franchises/{id}", franchiseId).header(HttpHeaders.IF_NONE_MATCH, franchiseEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.branches[0].products[0].stock").value(15));
+        mockMvc.perform(get("/api/branches/{id}", branchId).header(HttpHeaders.IF_NONE_MATCH, newBranchEtag))
+                .andExpect(status().isNotModified());
+        assertEquals(franchiseRow, franchiseRowRevision());
+    }
+
+    /**
+     * Renombrar o eliminar una sucursal cambia el ETag de la franquicia.
+     */
+    @Test
+    void branchWritesBumpFranchise() throws Exception {
+        String before = etag("/api/franchises/{id}", franchiseId);
+        mockMvc.perform(put("/api/branches/{id}", branchId)
+                        .contentType("application/json")
+                        .content("{\"name\": \"Sucursal Renombrada\"}"))
+                .andExpect(status().isOk());
+        String renamed = etag("/api/franchises/{id}", franchiseId);
+        assertNotEquals(before, renamed);
+
+        mockMvc.perform(delete("/api/branches/{id}", branchId)).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/franchises/{id}", franchiseId).header(HttpHeaders.IF_NONE_MATCH, renamed))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.branches.length()").value(1));
+        mockMvc.perform(get("/api/branches/{id}", branchId).header(HttpHeaders.IF_NONE_MATCH, renamed))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Lee la revision propia de la franquicia, sin las de sus sucursales.
+     *
+     * @return columna {@code revision} de la fila.
+     */
+    private long franchiseRowRevision() {
+        return jdbcTemplate.queryForObject("select revision from franchises where id = ?", Long.class, franchiseId);
+    }
+
+    /**
+     * Obtiene el ETag actual de un detalle.
+     *
+     * @param path ruta del detalle.
+     * @param id identificador.
+     * @return ETag publicado.
+     * @throws Exception si falla la solicitud.
+     */
+    private String etag(String path, long id) throws Exception {
+        return mockMvc.perform(get(path, id))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,212 @@
+package com.sebastianrodriguez.backend;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica la negociacion de codificaciones: JSON por defecto, CBOR y Smile con el mismo
+ * documento, y Avro con el esquema publicado para los DTO que lo soportan.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ContentNegotiationTest {
+
+    private static final MediaType AVRO = MediaType.valueOf("application/avro");
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    private long franchiseId;
+
+    private long branchId;
+
+    private long productId;
+
+    private TestHierarchy hierarchy;
+
+    /**
+     * Siembra una franquicia con una sucursal y dos productos.
+     */
+    @BeforeEach
+    void seed() {
+        hierarchy = new TestHierarchy(franchiseService, branchService, productService);
+        franchiseId = hierarchy.franchise("Franquicia Binaria");
+        branchId = hierarchy.branch(franchiseId, "Sucursal Binaria");
+        productId = hierarchy.product(branchId, "Producto Binario", 7);
+        hierarchy.product(branchId, "Producto Mayor", 40);
+    }
+
+    /**
+     * Elimina las franquicias creadas por la prueba.
+     */
+    @AfterEach
+    void cleanUp() {
+        hierarchy.deleteAll();
+    }
+
+    /**
+     * Sin {@code Accept} o con {@code *}{@code /*} se responde JSON.
+     */
+    @Test
+    void jsonRemainsTheDefault() throws Exception {
+        mockMvc.perform(get("/api/products/{id}", productId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/branches/{id}", branchId).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    /**
+     * CBOR y Smile decodifican al mismo DTO que JSON, incluso para el detalle de franquicia.
+     */
+    @Test
+    void cborAndSmileCarryTheJsonDocument() throws Exception {
+        FranchiseDetailResponse json = objectMapper.readValue(
+                body("/api/franchises/{id}", franchiseId, MediaType.APPLICATION_JSON), FranchiseDetailResponse.class);
+
+        FranchiseDetailResponse cbor = new CBORMapper().readValue(
+                body("/api/franchises/{id}", franchiseId, MediaType.APPLICATION_CBOR), FranchiseDetailResponse.class);
+        FranchiseDetailResponse smile = new SmileMapper().readValue(
+                body("/api/franchises/{id}", franchiseId, SMILE), FranchiseDetailResponse.class);
+
+        assertEquals(json, cbor);
+        assertEquals(json, smile);
+    }
+
+    /**
+     * Avro se decodifica con el esquema publicado y es mas compacto que JSON.
+     */
+    @Test
+    void avroUsesThePublishedSchema() throws Exception {
+        AvroMapper avro = new AvroMapper();
+
+        byte[] productJson = body("/api/products/{id}", productId, MediaType.APPLICATION_JSON);
+        byte[] productAvro = body("/api/products/{id}", productId, AVRO);
+        assertEquals(objectMapper.readValue(productJson, ProductResponse.class),
+                avro.readerFor(ProductResponse.class).with(schema("ProductResponse")).readValue(productAvro));
+        assertTrue(productAvro.length < productJson.length / 2);
+
+        BranchDetailResponse branch = avro.readerFor(BranchDetailResponse.class)
+                .with(schema("BranchDetailResponse"))
+                .readValue(body("/api/branches/{id}", branchId, AVRO));
+        assertEquals(branchService.get(branchId), branch);
+
+        AvroSchema topStock = new AvroSchema(Schema.createArray(schema("BranchTopStockProductResponse").getAvroSchema()));
+        List<BranchTopStockProductResponse> top = avro.readerFor(new TypeReference<List<BranchTopStockProductResponse>>() { })
+                .with(topStock)
+                .readValue(body("/api/franchises/{id}/top-stock-products", franchiseId, AVRO));
+        assertEquals(1, top.size());
+        assertEquals("Producto Mayor", top.get(0).productName());
+        assertEquals(40, top.get(0).stock());
+    }
+
+    /**
+     * Avro solo se ofrece para los DTO con esquema.
+     */
+    @Test
+    void avroIsNotAcceptableForOtherResponses() throws Exception {
+        mockMvc.perform(get("/api/franchises/{id}", franchiseId).accept(AVRO))
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/api/schemas/avro/{name}", "FranchiseDetailResponse"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Cada codificacion del mismo detalle publica el mismo ETag debil, que revalida en cualquiera de
+     * ellas.
+     */
+    @Test
+    void encodingsShareAWeakEtag() throws Exception {
+        String etag = mockMvc.perform(get("/api/branches/{id}", branchId).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("W/\"" + branchService.revision(branchId) + "\"", etag);
+
+        for (MediaType accept : List.of(MediaType.APPLICATION_CBOR, SMILE, AVRO)) {
+            mockMvc.perform(get("/api/branches/{id}", branchId).accept(accept))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(accept))
+                    .andExpect(header().string(HttpHeaders.ETAG, etag));
+            mockMvc.perform(get("/api/branches/{id}", branchId).accept(accept).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        }
+    }
+
+    /**
+     * Obtiene un cuerpo en la codificacion pedida.
+     *
+     * @param path ruta.
+     * @param id identificador.
+     * @param accept tipo pedido.
+     * @return bytes del cuerpo.
+     * @throws Exception si falla la solicitud.
+     */
+    private byte[] body(String path, long id, MediaType accept) throws Exception {
+        return mockMvc.perform(get(path, id).accept(accept))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(accept))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    /**
+     * Descarga el esquema Avro publicado de un DTO.
+     *
+     * @param name nombre simple del DTO.
+     * @return esquema.
+     * @throws Exception si falla la solicitud.
+     */
+    private AvroSchema schema(String name) throws Exception {
+        String json = mockMvc.perform(get("/api/schemas/avro/{name}", name))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return new AvroSchema(new Schema.Parser().parse(json));
+    }
+}
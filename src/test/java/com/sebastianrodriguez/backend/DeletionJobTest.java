@@ -0,0 +1,268 @@
+package com.sebastianrodriguez.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
+import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.entity.DeletionJob;
+import com.sebastianrodriguez.backend.repository.DeletionJobRepository;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el borrado en segundo plano: la raiz desaparece de inmediato, los descendientes se
+ * marcan por lotes junto con sus tokens de busqueda, los lideres de stock se eliminan al terminar y
+ * un trabajo abandonado se retoma desde su avance.
+ */
+@SpringBootTest(properties = {
+        "app.scheduling.enabled=true",
+        "app.deletion.async-threshold=3",
+        "app.deletion.chunk-size=2",
+        "app.deletion.poll-interval=100ms",
+        "app.deletion.lease=1s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DeletionJobTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private DeletionJobRepository deletionJobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Una franquicia grande responde 202, deja de verse al instante y el trabajo marca todo.
+     */
+    @Test
+    void largeFranchiseIsDeletedInBackground() throws Exception {
+        long franchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Grande")).id();
+        List<Long> branchIds = new ArrayList<>();
+        List<Long> productIds = new ArrayList<>();
+        for (int b = 0; b < 2; b++) {
+            long branchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal " + b)).id();
+            branchIds.add(branchId);
+            for (int p = 0; p < 3; p++) {
+                productIds.add(productService.create(branchId, new ProductCreateRequest("Producto " + p, p)).id());
+            }
+        }
+
+        MvcResult result = mockMvc.perform(delete("/api/franchises/{id}", franchiseId))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.targetType").value("FRANCHISE"))
+                .andExpect(jsonPath("$.targetId").value(franchiseId))
+                .andReturn();
+        long jobId = objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+        assertEquals("/api/deletion-jobs/" + jobId, result.getResponse().getHeader("Location"));
+
+        mockMvc.perform(get("/api/franchises/{id}", franchiseId)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/branches/{id}", branchIds.getFirst())).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/branches/{id}/products", branchIds.getFirst())).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/products/{id}", productIds.getFirst())).andExpect(status().isNotFound());
+
+        JsonNode job = awaitDone(jobId);
+        assertEquals(productIds.size() + branchIds.size(), job.get("processed").asInt());
+        assertEquals(0, countActive("products", productIds));
+        assertEquals(0, countActive("branches", branchIds));
+        assertEquals(0, countLeaders(branchIds));
+        assertEquals(0, countTokens(productIds));
+    }
+
+    /**
+     * Una sucursal por debajo del umbral se elimina en la misma solicitud.
+     */
+    @Test
+    void smallBranchIsDeletedInline() throws Exception {
+        long franchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Chica")).id();
+        long branchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Chica")).id();
+        long productId = productService.create(branchId, new ProductCreateRequest("Producto Chico", 1)).id();
+
+        mockMvc.perform(delete("/api/branches/{id}", branchId))
+                .andExpect(status().isNoContent())
+                .andExpect(header().doesNotExist("Location"));
+
+        assertEquals(0, countActive("products", List.of(productId)));
+        assertEquals(0, countLeaders(List.of(branchId)));
+        assertEquals(0, countTokens(List.of(productId)));
+    }
+
+    /**
+     * Un trabajo con la concesion vencida a mitad de camino se retoma desde su cursor.
+     */
+    @Test
+    void abandonedJobResumesFromCursor() throws Exception {
+        long franchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Retomada")).id();
+        long branchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Retomada")).id();
+        List<Long> productIds = new ArrayList<>();
+        for (int p = 0; p < 5; p++) {
+            productIds.add(productService.create(branchId, new ProductCreateRequest("Producto " + p, p)).id());
+        }
+        // Estado que deja una instancia caida tras marcar el primer lote.
+        jdbcTemplate.update("update branches set deleted = true where id = ?", branchId);
+        jdbcTemplate.update("update products set deleted = true where id in (?, ?)", productIds.get(0), productIds.get(1));
+        Instant now = Instant.now();
+        DeletionJob abandoned = new DeletionJob();
+        abandoned.setTargetType(DeletionJob.Target.BRANCH);
+        abandoned.setTargetId(branchId);
+        abandoned.setStatus(DeletionJob.Status.RUNNING);
+        abandoned.setCursor(productIds.get(1));
+        abandoned.setProcessed(2);
+        abandoned.setLeaseUntil(now.minusSeconds(1));
+        abandoned.setCreatedAt(now);
+        abandoned.setUpdatedAt(now);
+        long jobId = deletionJobRepository.save(abandoned).getId();
+
+        JsonNode job = awaitDone(jobId);
+        assertEquals(productIds.size(), job.get("processed").asInt());
+        assertEquals(0, countActive("products", productIds));
+        assertEquals(0, countLeaders(List.of(branchId)));
+        assertEquals(0, countTokens(productIds.subList(2, productIds.size())));
+    }
+
+    /**
+     * Una instancia que pierde la concesion a mitad de un trabajo deja de procesar lotes en vez de
+     * pisar el avance de la instancia que lo tomo.
+     */
+    @Test
+    void jobStopsWhenItsLeaseIsTaken() throws Exception {
+        long franchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Disputada")).id();
+        long branchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Disputada")).id();
+        List<Object[]> products = new ArrayList<>();
+        for (int p = 0; p < 4000; p++) {
+            products.add(new Object[] {"Producto " + p, branchId});
+        }
+        jdbcTemplate.batchUpdate("insert into products (name, stock, deleted, branch_id) values (?, 1, false, ?)", products);
+
+        MvcResult result = mockMvc.perform(delete("/api/branches/{id}", branchId))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        long jobId = objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (processed(jobId) == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        // Otra instancia toma la concesion, como si esta hubiera quedado en pausa hasta vencerla.
+        jdbcTemplate.update("update deletion_jobs set lease_until = ? where id = ?",
+                Timestamp.from(Instant.now().plus(Duration.ofHours(1))), jobId);
+        Thread.sleep(300);
+        long stopped = processed(jobId);
+        Thread.sleep(500);
+
+        assertTrue(stopped > 0 && stopped < products.size(), () -> "Unexpected progress " + stopped);
+        assertEquals(stopped, processed(jobId));
+        assertEquals(DeletionJob.Status.RUNNING, deletionJobRepository.findById(jobId).orElseThrow().getStatus());
+    }
+
+    /**
+     * Lee el avance guardado de un trabajo.
+     *
+     * @param jobId identificador del trabajo.
+     * @return filas marcadas.
+     */
+    private long processed(long jobId) {
+        return jdbcTemplate.queryForObject("select processed from deletion_jobs where id = ?", Long.class, jobId);
+    }
+
+    /**
+     * Consulta el estado del trabajo hasta que termina.
+     *
+     * @param jobId identificador del trabajo.
+     * @return estado final.
+     * @throws Exception si falla la consulta o se agota el tiempo.
+     */
+    private JsonNode awaitDone(long jobId) throws Exception {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            MvcResult result = mockMvc.perform(get("/api/deletion-jobs/{id}", jobId))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode job = objectMapper.readTree(result.getResponse().getContentAsString());
+            if ("DONE".equals(job.get("status").asText())) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Deletion job " + jobId + " did not finish within " + TIMEOUT);
+    }
+
+    /**
+     * Cuenta las filas sin marcar como eliminadas entre los ids indicados.
+     *
+     * @param table tabla a consultar.
+     * @param ids ids a revisar.
+     * @return filas activas.
+     */
+    private int countActive(String table, List<Long> ids) {
+        return ids.stream()
+                .mapToInt(id -> jdbcTemplate.queryForObject(
+                        "select count(*) from " + table + " where id = ? and deleted = false", Integer.class, id))
+                .sum();
+    }
+
+    /**
+     * Cuenta los lideres de stock que quedan para las sucursales indicadas.
+     *
+     * @param branchIds sucursales a revisar.
+     * @return lideres restantes.
+     */
+    private int countLeaders(List<Long> branchIds) {
+        return branchIds.stream()
+                .mapToInt(id -> jdbcTemplate.queryForObject(
+                        "select count(*) from branch_top_stock where branch_id = ?", Integer.class, id))
+                .sum();
+    }
+
+    /**
+     * Cuenta los tokens de busqueda que quedan para los productos indicados.
+     *
+     * @param productIds productos a revisar.
+     * @return tokens restantes.
+     */
+    private int countTokens(List<Long> productIds) {
+        return productIds.stream()
+                .mapToInt(id -> jdbcTemplate.queryForObject(
+                        "select count(*) from product_name_tokens where product_id = ?", Integer.class, id))
+                .sum();
+    }
+}
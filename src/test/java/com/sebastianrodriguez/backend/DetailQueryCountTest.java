@@ -0,0 +1,120 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseDetailResponse;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica que el detalle de franquicia y sucursal usa un numero fijo de consultas (sin N+1) y
+ * que las lecturas se resuelven con proyecciones, sin cargar entidades.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DetailQueryCountTest {
+
+    private static final int BRANCHES = 40;
+    private static final int PRODUCTS_PER_BRANCH = 3;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TestHierarchy hierarchy;
+
+    private Statistics statistics;
+
+    private long franchiseId;
+
+    private long branchId;
+
+    /**
+     * Siembra una franquicia con muchas sucursales y productos.
+     */
+    @BeforeEach
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        hierarchy = new TestHierarchy(franchiseService, branchService, productService);
+        franchiseId = hierarchy.franchise("Franquicia Grande");
+        for (int b = 0; b < BRANCHES; b++) {
+            branchId = hierarchy.branch(franchiseId, "Sucursal " + b);
+            for (int p = 0; p < PRODUCTS_PER_BRANCH; p++) {
+                hierarchy.product(branchId, "Producto " + b + "-" + p, p);
+            }
+        }
+    }
+
+    /**
+     * Elimina las franquicias creadas por la prueba.
+     */
+    @AfterEach
+    void cleanUp() {
+        hierarchy.deleteAll();
+    }
+
+    /**
+     * El detalle de franquicia usa exactamente dos sentencias SQL.
+     */
+    @Test
+    void franchiseDetailUsesTwoStatements() {
+        statistics.clear();
+
+        FranchiseDetailResponse detail = franchiseService.get(franchiseId);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(BRANCHES, detail.branches().size());
+        detail.branches().forEach(branch -> assertEquals(PRODUCTS_PER_BRANCH, branch.products().size()));
+    }
+
+    /**
+     * El detalle de sucursal usa exactamente una sentencia SQL.
+     */
+    @Test
+    void branchDetailUsesOneStatement() {
+        statistics.clear();
+
+        BranchDetailResponse detail = branchService.get(branchId);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(PRODUCTS_PER_BRANCH, detail.products().size());
+    }
+
+    /**
+     * Los listados y el detalle de producto se leen como proyecciones, sin cargar entidades.
+     */
+    @Test
+    void readPathsLoadNoEntities() {
+        long productId = productService.listByBranch(branchId, null, 1).items().getFirst().id();
+        statistics.clear();
+
+        assertEquals(PRODUCTS_PER_BRANCH, productService.listByBranch(branchId, null, 50).items().size());
+        assertEquals(BRANCHES, branchService.listByFranchise(franchiseId, null, 50).items().size());
+        assertEquals(franchiseId, franchiseService.getSummary(franchiseId).id());
+        assertEquals(1, franchiseService.list(null, 1).items().size());
+        assertEquals(productId, productService.get(productId).id());
+
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
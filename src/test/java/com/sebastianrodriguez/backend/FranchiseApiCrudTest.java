@@ -2,20 +2,37 @@ package com.sebastianrodriguez.backend;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -32,6 +49,12 @@ class FranchiseApiCrudTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
     /**
      * Ejecuta un flujo completo: crear, actualizar, reportar, borrar y validar cascade.
      */
@@ -92,6 +115,293 @@ class FranchiseApiCrudTest {
                 .andExpect(status().isNotFound());
     }
 
+    /**
+     * Verifica que el reporte de top stock sigue las escrituras y desempata por menor id.
+     */
+    @Test
+    void topStockReportFollowsWritesWithDeterministicTies() throws Exception {
+        long franchiseId = createFranchise("Franquicia Top");
+        long branchId = createBranch(franchiseId, "Sucursal Centro");
+        createBranch(franchiseId, "Sucursal Vacia");
+        long first = createProduct(branchId, "Producto 1", 10);
+        long second = createProduct(branchId, "Producto 2", 10);
+
+        expectTopStock(franchiseId, branchId, first, 10);
+
+        updateProduct(first, "Producto 1", 5);
+        expectTopStock(franchiseId, branchId, second, 10);
+
+        updateProduct(second, "Producto 2", 3);
+        expectTopStock(franchiseId, branchId, first, 5);
+
+        createProduct(branchId, "Producto 3", 5);
+        expectTopStock(franchiseId, branchId, first, 5);
+
+        mockMvc.perform(delete("/api/products/{id}", first))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/franchises/{id}/top-stock-products", franchiseId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].productName").value("Producto 3"))
+                .andExpect(jsonPath("$[0].stock").value(5));
+    }
+
+    /**
+     * Verifica que las sucursales sin fila de lider (anteriores a V2) la recuperan con la
+     * migracion de relleno y que dos primeras escrituras concurrentes la crean sin conflicto.
+     */
+    @Test
+    void legacyBranchesWithoutLeaderAreBackfilledAndCreatedConcurrently() throws Exception {
+        long franchiseId = createFranchise("Franquicia Legada");
+        long branchId = createBranch(franchiseId, "Sucursal Legada");
+        createProduct(branchId, "Producto Bajo", 4);
+        long top = createProduct(branchId, "Producto Alto", 9);
+
+        jdbcTemplate.update("delete from branch_top_stock where branch_id = ?", branchId);
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V8__backfill_top_stock_leaders.sql"))
+                .execute(dataSource);
+        expectTopStock(franchiseId, branchId, top, 9);
+
+        jdbcTemplate.update("delete from branch_top_stock where branch_id = ?", branchId);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Long>> created = new ArrayList<>();
+            for (int stock : new int[] {20, 30}) {
+                created.add(executor.submit(() -> createProduct(branchId, "Producto " + stock, stock)));
+            }
+            created.get(0).get(30, TimeUnit.SECONDS);
+            long highest = created.get(1).get(30, TimeUnit.SECONDS);
+            expectTopStock(franchiseId, branchId, highest, 30);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifica el top K por sucursal: orden por stock y menor id a igual stock, sin productos
+     * eliminados, sucursales con menos de K productos completas y K fuera de rango rechazado.
+     */
+    @Test
+    void topKStockReportRanksEachBranchDeterministically() throws Exception {
+        long franchiseId = createFranchise("Franquicia Top K");
+        long centro = createBranch(franchiseId, "Sucursal Centro");
+        long norte = createBranch(franchiseId, "Sucursal Norte");
+        createBranch(franchiseId, "Sucursal Vacia");
+        long a = createProduct(centro, "Producto A", 10);
+        long b = createProduct(centro, "Producto B", 30);
+        long c = createProduct(centro, "Producto C", 10);
+        long d = createProduct(centro, "Producto D", 50);
+        createProduct(centro, "Producto E", 1);
+        long n = createProduct(norte, "Producto N", 4);
+        mockMvc.perform(delete("/api/products/{id}", d)).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/franchises/{id}/top-stock-products", franchiseId).param("k", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[*].productId").value(contains(
+                        (int) b, (int) a, (int) c, (int) n)))
+                .andExpect(jsonPath("$[*].branchId").value(contains(
+                        (int) centro, (int) centro, (int) centro, (int) norte)))
+                .andExpect(jsonPath("$[0].stock").value(30));
+
+        mockMvc.perform(get("/api/franchises/{id}/top-stock-products", franchiseId).param("k", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].productId").value(contains((int) b, (int) n)));
+        mockMvc.perform(get("/api/franchises/{id}/top-stock-products", franchiseId).param("k", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/franchises/{id}/top-stock-products", franchiseId).param("k", "101"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Recorre el listado de sucursales con paginacion por cursor hasta agotarlo.
+     */
+    @Test
+    void branchListingIsPaginatedByCursor() throws Exception {
+        long franchiseId = createFranchise("Franquicia Paginada");
+        List<Long> branchIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            branchIds.add(createBranch(franchiseId, "Sucursal " + i));
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletResponse response = mockMvc.perform(get("/api/franchises/{id}/branches", franchiseId)
+                            .param("limit", "2")
+                            .param("after", cursor == null ? "" : cursor))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse();
+            for (JsonNode node : objectMapper.readTree(response.getContentAsString())) {
+                seen.add(node.get("id").asLong());
+            }
+            cursor = response.getHeader("X-Next-Cursor");
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(branchIds, seen);
+        assertEquals(3, pages);
+
+        mockMvc.perform(get("/api/franchises/{id}/branches", franchiseId).param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/franchises/{id}/branches", franchiseId).param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Verifica que el detalle en streaming produce el mismo documento que el detalle normal.
+     */
+    @Test
+    void streamedFranchiseDetailMatchesRegularDetail() throws Exception {
+        long franchiseId = createFranchise("Franquicia Stream");
+        long branchId = createBranch(franchiseId, "Sucursal Llena");
+        createProduct(branchId, "Producto X", 3);
+        long removed = createProduct(branchId, "Producto Y", 4);
+        createProduct(branchId, "Producto Z", 5);
+        long emptyBranchId = createBranch(franchiseId, "Sucursal Vacia");
+        mockMvc.perform(delete("/api/products/{id}", removed))
+                .andExpect(status().isNoContent());
+
+        MvcResult async = mockMvc.perform(get("/api/franchises/{id}", franchiseId).param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String streamed = mockMvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String regular = mockMvc.perform(get("/api/franchises/{id}", franchiseId))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        JsonNode tree = objectMapper.readTree(streamed);
+        assertEquals(objectMapper.readTree(regular), tree);
+        assertEquals(2, tree.get("branches").get(0).get("products").size());
+        assertEquals(emptyBranchId, tree.get("branches").get(1).get("id").asLong());
+        assertEquals(0, tree.get("branches").get(1).get("products").size());
+
+        mockMvc.perform(get("/api/franchises/{id}", Long.MAX_VALUE).param("stream", "true"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Ajusta stock por delta y rechaza dejarlo negativo, desbordarlo o un delta fuera de rango.
+     */
+    @Test
+    void stockPatchAppliesSignedDelta() throws Exception {
+        long franchiseId = createFranchise("Franquicia Delta");
+        long branchId = createBranch(franchiseId, "Sucursal Delta");
+        long productId = createProduct(branchId, "Producto Delta", 4);
+
+        mockMvc.perform(patch("/api/products/{id}/stock", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":6}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(10));
+        mockMvc.perform(patch("/api/products/{id}/stock", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":-11}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/api/products/{id}/stock", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":-10}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(0));
+        mockMvc.perform(patch("/api/products/{id}/stock", Long.MAX_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":1}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/api/products/{id}/stock", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":1000001}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/products/{id}/stock", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":-1000001}"))
+                .andExpect(status().isBadRequest());
+
+        long fullProductId = createProduct(branchId, "Producto Lleno", Integer.MAX_VALUE - 5);
+        mockMvc.perform(patch("/api/products/{id}/stock", fullProductId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":6}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/api/products/{id}/stock", fullProductId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Importa productos desde CSV y NDJSON informando filas aceptadas y rechazadas.
+     */
+    @Test
+    void bulkImportAcceptsValidRowsAndReportsRejected() throws Exception {
+        long franchiseId = createFranchise("Franquicia Import");
+        long branchId = createBranch(franchiseId, "Sucursal Import");
+
+        String csv = "name,stock\n\"Producto, con coma\",7\nProducto B,40\n,3\nProducto C,-1\nProducto D,abc\n";
+        mockMvc.perform(post("/api/branches/{id}/products/import", branchId)
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[*].line").value(contains(4, 5, 6)));
+
+        String ndjson = "{\"name\":\"Producto E\",\"stock\":50}\n{\"name\":\"\",\"stock\":1}\nno-json\n";
+        mockMvc.perform(post("/api/branches/{id}/products/import", branchId)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(2));
+
+        String products = mockMvc.perform(get("/api/branches/{id}/products", branchId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name").value(contains("Producto, con coma", "Producto B", "Producto E")))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        long topProductId = objectMapper.readTree(products).get(2).get("id").asLong();
+        expectTopStock(franchiseId, branchId, topProductId, 50);
+    }
+
+    /**
+     * Valida que el reporte tenga una sola sucursal con el producto lider esperado.
+     *
+     * @param franchiseId id de la franquicia.
+     * @param branchId id de la sucursal esperada.
+     * @param productId id del producto lider esperado.
+     * @param stock stock esperado.
+     */
+    private void expectTopStock(long franchiseId, long branchId, long productId, int stock) throws Exception {
+        mockMvc.perform(get("/api/franchises/{id}/top-stock-products", franchiseId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].branchId").value(branchId))
+                .andExpect(jsonPath("$[0].productId").value(productId))
+                .andExpect(jsonPath("$[0].stock").value(stock));
+    }
+
+    /**
+     * Actualiza un producto via API.
+     *
+     * @param productId id del producto.
+     * @param name nombre del producto.
+     * @param stock nuevo stock.
+     */
+    private void updateProduct(long productId, String name, int stock) throws Exception {
+        mockMvc.perform(put("/api/products/{id}", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"stock\":" + stock + "}"))
+                .andExpect(status().isOk());
+    }
+
     /**
      * Crea una franquicia via API y retorna su id.
      *
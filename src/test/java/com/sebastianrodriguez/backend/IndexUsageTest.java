@@ -0,0 +1,258 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.repository.BranchRepository;
+import com.sebastianrodriguez.backend.repository.ProductRepository;
+import com.sebastianrodriguez.backend.service.ProductSearchService;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica con {@code EXPLAIN} de H2 que las consultas de los caminos de acceso con borrado logico
+ * usan los indices compuestos creados por las migraciones.
+ *
+ * <p>Se explica el SQL que la aplicacion realmente envia (el que genera Hibernate para los
+ * repositorios y el que arma la busqueda por nombre), capturado junto con sus parametros en las
+ * sentencias preparadas. Usa una base propia con datos y estadisticas conocidos, para que el plan
+ * no dependa de lo que otras pruebas dejaron en la base compartida.</p>
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:index-usage;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndexUsageTest {
+
+    private static final int BRANCHES = 20;
+
+    private static final int PRODUCTS_PER_BRANCH = 50;
+
+    private static final List<RecordedStatement> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    /**
+     * Siembra sucursales, productos (algunos eliminados) y sus tokens de nombre, y actualiza las
+     * estadisticas del planificador.
+     */
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("insert into franchises (id, name) values (1, 'Franquicia')");
+        List<Object[]> branches = new ArrayList<>();
+        List<Object[]> products = new ArrayList<>();
+        for (long b = 1; b <= BRANCHES; b++) {
+            branches.add(new Object[] {b, "Sucursal " + b, b % 10 == 0});
+            for (int p = 0; p < PRODUCTS_PER_BRANCH; p++) {
+                products.add(new Object[] {"Producto " + p, p * 7 % 100, p % 9 == 0, b});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into branches (id, name, deleted, franchise_id) values (?, ?, ?, 1)", branches);
+        jdbcTemplate.batchUpdate("insert into products (name, stock, deleted, branch_id) values (?, ?, ?, ?)", products);
+        jdbcTemplate.update("""
+                insert into product_name_tokens (product_id, token, franchise_id)
+                select id, 'producto', 1 from products
+                union all
+                select id, substring(name, 10), 1 from products
+                """);
+        jdbcTemplate.execute("analyze");
+    }
+
+    /**
+     * El lider de stock de una sucursal se lee de la primera entrada del indice
+     * (branch_id, deleted, stock desc, id), sin ordenar.
+     */
+    @Test
+    void topStockUsesBranchStockIndex() {
+        String plan = assertUsesIndex("idx_products_branch_stock",
+                () -> productRepository.findTopStockByBranchId(1L, Limit.of(1)));
+        assertTrue(plan.contains("/* index sorted */"), () -> "Expected an index-sorted plan:\n" + plan);
+    }
+
+    /**
+     * La pagina de productos de una sucursal se resuelve con el indice (branch_id, deleted, id).
+     */
+    @Test
+    void productListingUsesBranchIdIndex() {
+        assertUsesIndex("idx_products_branch_id",
+                () -> productRepository.findResponsesByBranchId(1L, 0L, Limit.of(21)));
+    }
+
+    /**
+     * La pagina de sucursales de una franquicia se resuelve con el indice (franchise_id, deleted, id).
+     */
+    @Test
+    void branchListingUsesFranchiseIdIndex() {
+        assertUsesIndex("idx_branches_franchise_id",
+                () -> branchRepository.findSummariesByFranchiseId(1L, 0L, Limit.of(21)));
+    }
+
+    /**
+     * El termino de la busqueda por nombre se resuelve con un rango del indice
+     * (franchise_id, token, product_id).
+     */
+    @Test
+    void nameSearchUsesTokenIndex() {
+        assertUsesIndex("idx_product_name_tokens_search",
+                () -> productSearchService.search(1L, "pr", null, 20));
+    }
+
+    /**
+     * Ejecuta una lectura y comprueba que el plan de la ultima sentencia que envio recorre el
+     * indice indicado.
+     *
+     * @param index nombre del indice esperado.
+     * @param read lectura de la aplicacion.
+     * @return plan obtenido.
+     */
+    private String assertUsesIndex(String index, Runnable read) {
+        STATEMENTS.clear();
+        read.run();
+        assertFalse(STATEMENTS.isEmpty(), "Expected the read to prepare a statement");
+        RecordedStatement statement = STATEMENTS.getLast();
+        String plan = jdbcTemplate.queryForObject("explain " + statement.sql(), String.class,
+                statement.parameters().values().toArray());
+        assertTrue(plan.contains("public." + index + ":"),
+                () -> "Expected " + index + " in plan of:\n" + statement.sql() + "\n" + plan);
+        return plan;
+    }
+
+    /**
+     * Sentencia preparada por la aplicacion, con los parametros asignados por posicion.
+     *
+     * @param sql SQL enviado al driver.
+     * @param parameters valores por posicion.
+     */
+    private record RecordedStatement(String sql, Map<Integer, Object> parameters) {
+    }
+
+    /**
+     * Envuelve el {@link DataSource} para registrar cada sentencia preparada y sus parametros.
+     */
+    @TestConfiguration
+    static class StatementRecording {
+
+        /**
+         * Registra las sentencias de las conexiones del {@link DataSource} de la aplicacion.
+         *
+         * @return post procesador que envuelve el {@link DataSource}.
+         */
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? recording(dataSource) : bean;
+                }
+            };
+        }
+
+        /**
+         * Envuelve un {@link DataSource} cuyas conexiones registran las sentencias preparadas.
+         *
+         * @param dataSource origen real.
+         * @return origen que registra.
+         */
+        private static DataSource recording(DataSource dataSource) {
+            return wrap(DataSource.class, dataSource, (method, args, result) ->
+                    result instanceof Connection connection ? recording(connection) : result);
+        }
+
+        /**
+         * Envuelve una conexion para registrar las sentencias que prepara.
+         *
+         * @param connection conexion real.
+         * @return conexion que registra.
+         */
+        private static Connection recording(Connection connection) {
+            return wrap(Connection.class, connection, (method, args, result) ->
+                    result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")
+                            ? recording(statement, (String) args[0])
+                            : result);
+        }
+
+        /**
+         * Registra una sentencia preparada y los parametros que se le asignan.
+         *
+         * @param statement sentencia real.
+         * @param sql SQL preparado.
+         * @return sentencia que registra sus parametros.
+         */
+        private static PreparedStatement recording(PreparedStatement statement, String sql) {
+            Map<Integer, Object> parameters = Collections.synchronizedMap(new TreeMap<>());
+            STATEMENTS.add(new RecordedStatement(sql, parameters));
+            return wrap(PreparedStatement.class, statement, (method, args, result) -> {
+                if (method.getName().startsWith("set") && args != null && args.length >= 2
+                        && args[0] instanceof Integer position) {
+                    parameters.put(position, method.getName().equals("setNull") ? null : args[1]);
+                }
+                return result;
+            });
+        }
+
+        /**
+         * Crea un proxy que delega en el objeto real y deja transformar el resultado.
+         *
+         * @param type interfaz a exponer.
+         * @param target objeto real.
+         * @param after transformacion del resultado de cada llamada.
+         * @param <T> tipo de la interfaz.
+         * @return proxy.
+         */
+        private static <T> T wrap(Class<T> type, T target, AfterCall after) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+                try {
+                    return after.apply(method, args, method.invoke(target, args));
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            }));
+        }
+
+        /**
+         * Transformacion del resultado de una llamada delegada.
+         */
+        @FunctionalInterface
+        private interface AfterCall {
+
+            /**
+             * Transforma el resultado.
+             *
+             * @param method metodo invocado.
+             * @param args argumentos, o null si no tiene.
+             * @param result resultado del objeto real.
+             * @return resultado a devolver.
+             */
+            Object apply(Method method, Object[] args, Object result);
+        }
+    }
+}
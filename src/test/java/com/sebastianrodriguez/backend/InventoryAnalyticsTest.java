@@ -0,0 +1,126 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica las estadisticas de inventario y que se calculan con agregados SQL sin cargar productos.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class InventoryAnalyticsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private long franchiseId;
+
+    private long fullBranchId;
+
+    private long emptyBranchId;
+
+    private TestHierarchy hierarchy;
+
+    /**
+     * Siembra una sucursal con un producto por rango de stock (mas uno eliminado) y otra vacia.
+     */
+    @BeforeEach
+    void seed() {
+        hierarchy = new TestHierarchy(franchiseService, branchService, productService);
+        franchiseId = hierarchy.franchise("Franquicia Analitica");
+        fullBranchId = hierarchy.branch(franchiseId, "Sucursal Llena");
+        emptyBranchId = hierarchy.branch(franchiseId, "Sucursal Vacia");
+        for (int stock : new int[] {0, 5, 50, 500, 5000}) {
+            hierarchy.product(fullBranchId, "Producto " + stock, stock);
+        }
+        long deleted = hierarchy.product(fullBranchId, "Eliminado", 7);
+        productService.delete(deleted);
+    }
+
+    /**
+     * Elimina las franquicias creadas por la prueba.
+     */
+    @AfterEach
+    void cleanUp() {
+        hierarchy.deleteAll();
+    }
+
+    /**
+     * La franquicia combina las filas por sucursal y no materializa entidades.
+     */
+    @Test
+    void franchiseAnalyticsAggregatesInDatabase() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/franchises/{id}/analytics", franchiseId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.franchiseName").value("Franquicia Analitica"))
+                .andExpect(jsonPath("$.totals.productCount").value(5))
+                .andExpect(jsonPath("$.totals.totalStock").value(5555))
+                .andExpect(jsonPath("$.totals.minStock").value(0))
+                .andExpect(jsonPath("$.totals.maxStock").value(5000))
+                .andExpect(jsonPath("$.totals.avgStock").value(1111.0))
+                .andExpect(jsonPath("$.totals.outOfStockCount").value(1))
+                .andExpect(jsonPath("$.totals.histogram[*].count").value(contains(1, 1, 1, 1, 1)))
+                .andExpect(jsonPath("$.totals.histogram[4].min").value(1001))
+                .andExpect(jsonPath("$.totals.histogram[4].max").doesNotExist())
+                .andExpect(jsonPath("$.branches.length()").value(2))
+                .andExpect(jsonPath("$.branches[0].branchId").value(fullBranchId))
+                .andExpect(jsonPath("$.branches[1].branchId").value(emptyBranchId))
+                .andExpect(jsonPath("$.branches[1].stats.productCount").value(0))
+                .andExpect(jsonPath("$.branches[1].stats.minStock").doesNotExist())
+                .andExpect(jsonPath("$.branches[1].stats.avgStock").doesNotExist());
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * La sucursal se resume con una sola fila y responde 404 si no existe.
+     */
+    @Test
+    void branchAnalytics() throws Exception {
+        mockMvc.perform(get("/api/branches/{id}/analytics", fullBranchId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.branchName").value("Sucursal Llena"))
+                .andExpect(jsonPath("$.stats.productCount").value(5))
+                .andExpect(jsonPath("$.stats.outOfStockCount").value(1))
+                .andExpect(jsonPath("$.stats.histogram[1].min").value(1))
+                .andExpect(jsonPath("$.stats.histogram[1].max").value(10));
+
+        mockMvc.perform(get("/api/branches/{id}/analytics", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,64 @@
+package com.sebastianrodriguez.backend;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que las metricas se exponen en formato Prometheus en el puerto de gestion.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "management.server.port=0"
+)
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    /**
+     * Tras una solicitud a la API se publican histogramas HTTP y de servicio, pool y JVM.
+     */
+    @Test
+    void prometheusScrapeIncludesEndpointServicePoolAndJvmMetrics() {
+        restTemplate.postForEntity("/api/franchises", new FranchiseName("Franquicia Metricas"), String.class);
+        restTemplate.getForEntity("/api/franchises", String.class);
+
+        ResponseEntity<String> scrape = restTemplate.getForEntity(
+                "http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+
+        assertEquals(HttpStatus.OK, scrape.getStatusCode());
+        String body = scrape.getBody();
+        assertTrue(body.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(body.contains("uri=\"/api/franchises\""));
+        assertTrue(body.contains("app_service_seconds_bucket{"));
+        assertTrue(body.contains("class=\"com.sebastianrodriguez.backend.service.FranchiseService\""));
+        assertTrue(body.contains("hikaricp_connections_active"));
+        assertTrue(body.contains("hikaricp_connections_acquire_seconds"));
+        assertTrue(body.contains("jvm_memory_used_bytes"));
+        assertTrue(body.contains("jvm_gc_"));
+        assertTrue(body.contains("cache_gets_total{"));
+    }
+
+    /**
+     * Cuerpo minimo para crear una franquicia.
+     *
+     * @param name nombre de la franquicia.
+     */
+    private record FranchiseName(String name) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica la consulta de varios productos por id: orden pedido, ids faltantes, consultas
+ * {@code IN} por bloques y uso del cache.
+ *
+ * <p>Usa bloques de 2 ids y un maximo de 5 ids para ejercitar el particionado con pocos datos.</p>
+ */
+@SpringBootTest(properties = {
+        "app.product-lookup.max-ids=5",
+        "app.product-lookup.chunk-size=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductLookupTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private long[] productIds;
+
+    private TestHierarchy hierarchy;
+
+    /**
+     * Siembra tres productos en una sucursal.
+     */
+    @BeforeEach
+    void seed() {
+        hierarchy = new TestHierarchy(franchiseService, branchService, productService);
+        long franchiseId = hierarchy.franchise("Franquicia Lote");
+        long branchId = hierarchy.branch(franchiseId, "Sucursal Lote");
+        productIds = LongStream.rangeClosed(1, 3)
+                .map(i -> hierarchy.product(branchId, "Producto " + i, (int) i))
+                .toArray();
+    }
+
+    /**
+     * Elimina las franquicias creadas por la prueba.
+     */
+    @AfterEach
+    void cleanUp() {
+        hierarchy.deleteAll();
+    }
+
+    /**
+     * Responde en el orden pedido, sin repetidos, e informa los ids inexistentes y eliminados.
+     */
+    @Test
+    void returnsRequestOrderAndReportsMissing() throws Exception {
+        productService.delete(productIds[1]);
+        String ids = join(productIds[2], -1L, productIds[0], productIds[1], productIds[2]);
+
+        mockMvc.perform(get("/api/products").param("ids", ids))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.products[0].id").value(productIds[2]))
+                .andExpect(jsonPath("$.products[0].name").value("Producto 3"))
+                .andExpect(jsonPath("$.products[1].id").value(productIds[0]))
+                .andExpect(jsonPath("$.missing.length()").value(2))
+                .andExpect(jsonPath("$.missing[0]").value(-1))
+                .andExpect(jsonPath("$.missing[1]").value(productIds[1]));
+    }
+
+    /**
+     * Los ids no cacheados se leen en bloques {@code IN}; una segunda consulta sale del cache.
+     */
+    @Test
+    void loadsMissesInChunksThenHitsCache() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String ids = join(productIds[0], productIds[1], productIds[2]);
+
+        statistics.clear();
+        mockMvc.perform(get("/api/products").param("ids", ids)).andExpect(status().isOk());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        statistics.clear();
+        mockMvc.perform(post("/api/products/lookup")
+                        .contentType("application/json")
+                        .content("{\"ids\": [" + ids + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(3))
+                .andExpect(jsonPath("$.missing.length()").value(0));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Listas vacias o con mas ids distintos que el maximo se rechazan con 400.
+     */
+    @Test
+    void rejectsEmptyAndOversizedLists() throws Exception {
+        mockMvc.perform(post("/api/products/lookup").contentType("application/json").content("{\"ids\": []}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products").param("ids", join(1L, 2L, 3L, 4L, 5L, 6L)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products").param("ids", join(-7L, -7L, -7L, -7L, -7L, -7L)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.missing.length()").value(1));
+    }
+
+    /**
+     * Une ids con coma.
+     *
+     * @param ids identificadores.
+     * @return lista separada por coma.
+     */
+    private static String join(long... ids) {
+        return LongStream.of(ids).mapToObj(String::valueOf).collect(Collectors.joining(","));
+    }
+}
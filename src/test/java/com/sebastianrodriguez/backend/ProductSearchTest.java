@@ -0,0 +1,260 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductSearchService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import com.jayway.jsonpath.JsonPath;
+import db.migration.V11__backfill_product_name_tokens;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica la busqueda de productos por nombre: coincidencia por prefijo y palabra completa,
+ * normalizacion, orden por puntaje, paginacion, mantenimiento del indice en las escrituras y
+ * borrados, y la migracion que indexa los productos anteriores al indice.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductSearchTest {
+
+    private static final String SEARCH = "/api/franchises/{id}/products/search";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private long franchiseId;
+
+    private long branchId;
+
+    private long cocaCola;
+
+    private long colaDeRaton;
+
+    private long colador;
+
+    private TestHierarchy hierarchy;
+
+    /**
+     * Siembra una franquicia con productos de nombres parecidos y otra franquicia con un nombre
+     * que no debe aparecer.
+     */
+    @BeforeEach
+    void seed() {
+        hierarchy = new TestHierarchy(franchiseService, branchService, productService);
+        franchiseId = hierarchy.franchise("Franquicia Busqueda");
+        branchId = hierarchy.branch(franchiseId, "Sucursal Busqueda");
+        cocaCola = create(branchId, "Coca-Cola Light");
+        colaDeRaton = create(branchId, "Cola de Ratón");
+        colador = create(branchId, "Colador grande");
+        create(branchId, "Chocolate");
+        create(branchId, "Cañería PVC");
+
+        long other = hierarchy.franchise("Otra Franquicia");
+        create(hierarchy.branch(other, "Otra Sucursal"), "Cola ajena");
+    }
+
+    /**
+     * Elimina las franquicias creadas por la prueba.
+     */
+    @AfterEach
+    void cleanUp() {
+        hierarchy.deleteAll();
+    }
+
+    /**
+     * Las palabras completas puntuan mas que los prefijos y, a igual puntaje, gana el menor id;
+     * todos los terminos deben coincidir y se ignoran mayusculas y acentos.
+     */
+    @Test
+    void ranksWholeWordsOverPrefixes() throws Exception {
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "cola"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains((int) cocaCola, (int) colaDeRaton, (int) colador)))
+                .andExpect(jsonPath("$[*].score").value(contains(2, 2, 1)))
+                .andExpect(jsonPath("$[0].branchId").value(branchId))
+                .andExpect(jsonPath("$[0].branchName").value("Sucursal Busqueda"));
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "COLA li"))
+                .andExpect(jsonPath("$[*].id").value(contains((int) cocaCola)));
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "raton cola"))
+                .andExpect(jsonPath("$[*].id").value(contains((int) colaDeRaton)))
+                .andExpect(jsonPath("$[0].score").value(4));
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "caneria"))
+                .andExpect(jsonPath("$[0].name").value("Cañería PVC"));
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "ola"))
+                .andExpect(jsonPath("$", empty()));
+    }
+
+    /**
+     * Recorre los resultados de a uno con el cursor de la cabecera {@code X-Next-Cursor}.
+     */
+    @Test
+    void paginatesByScoreAndId() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get(SEARCH, franchiseId).param("q", "cola").param("limit", "1");
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            ids.add(JsonPath.read(result.getResponse().getContentAsString(), "$[0].id"));
+            cursor = result.getResponse().getHeader("X-Next-Cursor");
+        } while (cursor != null && ids.size() < 10);
+
+        assertEquals(List.of((int) cocaCola, (int) colaDeRaton, (int) colador), ids);
+    }
+
+    /**
+     * Renombrar, eliminar e importar productos actualiza el indice; la reconstruccion lo deja igual.
+     */
+    @Test
+    void writesKeepTheIndexInSync() throws Exception {
+        mockMvc.perform(put("/api/products/{id}", colador)
+                        .contentType("application/json")
+                        .content("{\"name\": \"Embudo grande\", \"stock\": 3}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/products/{id}", cocaCola)).andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/branches/{id}/products/import", branchId)
+                        .contentType("text/csv")
+                        .content("name,stock\nCola Zero,4\nAgua,9\n"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "cola"))
+                .andExpect(jsonPath("$[*].name").value(contains("Cola de Ratón", "Cola Zero")));
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "embudo"))
+                .andExpect(jsonPath("$[*].id").value(contains((int) colador)));
+
+        transactionTemplate.executeWithoutResult(status -> productSearchService.rebuild(franchiseId, 2));
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "cola"))
+                .andExpect(jsonPath("$[*].name").value(contains("Cola de Ratón", "Cola Zero")));
+    }
+
+    /**
+     * Eliminar una sucursal o una franquicia en la solicitud quita los tokens de sus productos.
+     */
+    @Test
+    void deletingBranchesAndFranchisesRemovesTokens() throws Exception {
+        long otherBranch = hierarchy.branch(franchiseId, "Sucursal Borrada");
+        long removed = create(otherBranch, "Cola borrada");
+
+        mockMvc.perform(delete("/api/branches/{id}", otherBranch)).andExpect(status().isNoContent());
+        assertEquals(0, countTokens(removed));
+        assertEquals(3, countTokens(cocaCola));
+
+        mockMvc.perform(delete("/api/franchises/{id}", franchiseId)).andExpect(status().isNoContent());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from product_name_tokens where franchise_id = ?", Integer.class, franchiseId));
+    }
+
+    /**
+     * La migracion de respaldo indexa los productos sin tokens y no duplica los que ya los tienen.
+     */
+    @Test
+    void backfillMigrationIndexesUnindexedProducts() throws Exception {
+        jdbcTemplate.update("delete from product_name_tokens where product_id = ?", colador);
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "colador"))
+                .andExpect(jsonPath("$", empty()));
+
+        try (Connection connection = dataSource.getConnection()) {
+            new V11__backfill_product_name_tokens().migrate(new Context() {
+                @Override
+                public Configuration getConfiguration() {
+                    return null;
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return connection;
+                }
+            });
+        }
+
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "colador"))
+                .andExpect(jsonPath("$[*].id").value(contains((int) colador)));
+        assertEquals(2, countTokens(colador));
+        assertEquals(3, countTokens(cocaCola));
+    }
+
+    /**
+     * Consultas sin terminos de al menos dos caracteres se rechazan; una franquicia inexistente es 404.
+     */
+    @Test
+    void rejectsShortQueriesAndUnknownFranchise() throws Exception {
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "a -"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(SEARCH, franchiseId).param("q", "cola").param("after", "no-es-un-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(SEARCH, -1L).param("q", "cola"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Cuenta los tokens indexados de un producto.
+     *
+     * @param productId producto.
+     * @return filas en el indice.
+     */
+    private int countTokens(long productId) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from product_name_tokens where product_id = ?", Integer.class, productId);
+    }
+
+    /**
+     * Crea un producto con stock 1.
+     *
+     * @param branch sucursal.
+     * @param name nombre.
+     * @return id creado.
+     */
+    private long create(long branch, String name) {
+        return hierarchy.product(branch, name, 1);
+    }
+}
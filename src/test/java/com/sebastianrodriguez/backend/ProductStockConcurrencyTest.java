@@ -0,0 +1,150 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.exception.ConflictException;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de estres del ajuste atomico de stock bajo contencion.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductStockConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 100;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    private long branchId;
+
+    private TestHierarchy hierarchy;
+
+    /**
+     * Crea la franquicia y sucursal donde viven los productos de la prueba.
+     */
+    @BeforeEach
+    void seed() {
+        hierarchy = new TestHierarchy(franchiseService, branchService, productService);
+        long franchiseId = hierarchy.franchise("Franquicia POS");
+        branchId = hierarchy.branch(franchiseId, "Sucursal POS");
+    }
+
+    /**
+     * Elimina las franquicias creadas por la prueba.
+     */
+    @AfterEach
+    void cleanUp() {
+        hierarchy.deleteAll();
+    }
+
+    /**
+     * Muchos hilos suman y restan sobre el mismo producto sin perder actualizaciones.
+     */
+    @Test
+    void concurrentAdjustmentsAreNotLost() throws Exception {
+        long productId = hierarchy.product(branchId, "Producto POS", 1_000);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                productService.adjustStock(productId, i % 2 == 0 ? 3 : -1);
+            }
+        });
+
+        int expected = 1_000 + THREADS * (OPERATIONS_PER_THREAD / 2) * (3 - 1);
+        assertEquals(expected, productService.get(productId).stock());
+    }
+
+    /**
+     * Bajo contencion, el stock nunca queda negativo y cada unidad se entrega una sola vez.
+     */
+    @Test
+    void concurrentDecrementsNeverOversell() throws Exception {
+        int initialStock = 500;
+        long productId = hierarchy.product(branchId, "Producto Escaso", initialStock);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                try {
+                    productService.adjustStock(productId, -1);
+                    sold.incrementAndGet();
+                } catch (ConflictException ex) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(initialStock, sold.get());
+        assertEquals(THREADS * OPERATIONS_PER_THREAD - initialStock, rejected.get());
+        assertEquals(0, productService.get(productId).stock());
+    }
+
+    /**
+     * Ejecuta la tarea en {@link #THREADS} hilos que arrancan a la vez y espera a que terminen.
+     *
+     * @param task tarea a ejecutar; recibe el indice del hilo.
+     */
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Tarea ejecutada por cada hilo de la prueba.
+     */
+    @FunctionalInterface
+    private interface ThreadTask {
+
+        /**
+         * Ejecuta la tarea.
+         *
+         * @param thread indice del hilo.
+         */
+        void run(int thread);
+    }
+}
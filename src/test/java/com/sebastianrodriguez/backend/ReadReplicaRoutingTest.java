@@ -0,0 +1,214 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.config.ReplicaRoutingDataSource;
+import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
+import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
+import com.sebastianrodriguez.backend.dto.FranchiseUpdateRequest;
+import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica el enrutamiento de lecturas con dos bases H2 como replicas del H2 de pruebas: reparto
+ * entre replicas, escrituras al primario, cargas del cache y revisiones desde el primario y
+ * respaldo cuando una replica se atrasa o cae.
+ *
+ * <p>No hay replicacion real: cada prueba copia a mano la fila leida, con un nombre distinto por
+ * base para saber de donde salio la lectura, y fija el latido de cada replica.</p>
+ */
+@SpringBootTest(properties = {
+        "app.replica.urls=" + ReadReplicaRoutingTest.REPLICA_A + "," + ReadReplicaRoutingTest.REPLICA_B,
+        "app.replica.max-lag=10s",
+        "app.replica.connection-timeout=250ms"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    static final String REPLICA_A = "jdbc:h2:mem:replica-a;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+
+    static final String REPLICA_B = "jdbc:h2:mem:replica-b;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+
+    private static final int READS = 6;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final JdbcTemplate replicaA = replica(REPLICA_A);
+
+    private final JdbcTemplate replicaB = replica(REPLICA_B);
+
+    private long franchiseId;
+
+    /**
+     * Crea la franquicia en el primario, la copia a cada replica con otro nombre y deja ambas al dia.
+     */
+    @BeforeEach
+    void replicate() {
+        franchiseId = franchiseService.create(new FranchiseCreateRequest("Primaria")).id();
+        for (JdbcTemplate replica : new JdbcTemplate[] {replicaA, replicaB}) {
+            String name = replica == replicaA ? "Replica A" : "Replica B";
+            replica.update("insert into franchises (id, name, deleted) values (?, ?, false)", franchiseId, name);
+            setHeartbeat(replica, Instant.now());
+        }
+        replicaDataSource.refresh();
+    }
+
+    /**
+     * Las lecturas se reparten entre las replicas y las escrituras van al primario.
+     */
+    @Test
+    void readsAreBalancedAcrossReplicasAndWritesGoToPrimary() {
+        assertEquals(Set.of("Replica A", "Replica B"), readNames());
+
+        franchiseService.update(franchiseId, new FranchiseUpdateRequest("Primaria Editada"));
+
+        assertEquals("Primaria Editada", nameIn(jdbcTemplate));
+        assertEquals("Replica A", nameIn(replicaA));
+        assertEquals("Replica B", nameIn(replicaB));
+    }
+
+    /**
+     * Una replica atrasada queda fuera; si ninguna esta al dia se lee del primario.
+     */
+    @Test
+    void laggingReplicasFallBackToPrimary() {
+        setHeartbeat(replicaB, Instant.now().minus(Duration.ofMinutes(5)));
+        replicaDataSource.refresh();
+        assertEquals(Set.of("Replica A"), readNames());
+
+        setHeartbeat(replicaA, Instant.now().minus(Duration.ofMinutes(5)));
+        replicaDataSource.refresh();
+        assertEquals(0, replicaDataSource.availableCount());
+        assertEquals(Set.of("Primaria"), readNames());
+    }
+
+    /**
+     * Una replica que deja de responder queda fuera tras la siguiente verificacion.
+     */
+    @Test
+    void unreachableReplicaIsSkipped() {
+        replicaB.execute("shutdown");
+        replicaDataSource.refresh();
+
+        assertEquals(1, replicaDataSource.availableCount());
+        assertEquals(Set.of("Replica A"), readNames());
+    }
+
+    /**
+     * Tras una escritura, los detalles cacheados, sus revisiones y la pagina de franquicias se
+     * recargan del primario aunque las replicas (al dia segun el latido) todavia no la recibieron.
+     */
+    @Test
+    void cacheLoadsAndRevisionsReadTheirWritesFromPrimary() {
+        assertEquals("Primaria", franchiseService.get(franchiseId).name());
+
+        franchiseService.update(franchiseId, new FranchiseUpdateRequest("Primaria Editada"));
+        long branchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal")).id();
+        long productId = productService.create(branchId, new ProductCreateRequest("Producto", 5)).id();
+        productService.adjustStock(productId, 2);
+
+        assertEquals(Set.of("Replica A", "Replica B"), readNames());
+        assertEquals("Primaria Editada", franchiseService.get(franchiseId).name());
+        assertEquals(revisionIn(jdbcTemplate), franchiseService.revision(franchiseId));
+        assertNotEquals(revisionIn(replicaA), franchiseService.revision(franchiseId));
+        assertTrue(franchiseService.list(null, 100).items().stream()
+                .anyMatch(franchise -> franchise.name().equals("Primaria Editada")));
+        assertEquals(7, branchService.get(branchId).products().getFirst().stock());
+        assertEquals(branchService.getVersioned(branchId).revision(), branchService.revision(branchId));
+        assertEquals(7, productService.get(productId).stock());
+        assertEquals(List.of(), productService.getAll(Arrays.asList(productId)).missing());
+    }
+
+    /**
+     * Lee varias veces el resumen (transaccion de solo lectura) y junta los nombres obtenidos.
+     *
+     * @return nombres leidos.
+     */
+    private Set<String> readNames() {
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < READS; i++) {
+            names.add(franchiseService.getSummary(franchiseId).name());
+        }
+        return names;
+    }
+
+    /**
+     * Lee el nombre de la franquicia directamente en una base.
+     *
+     * @param jdbc acceso a la base.
+     * @return nombre guardado.
+     */
+    private String nameIn(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("select name from franchises where id = ?", String.class, franchiseId);
+    }
+
+    /**
+     * Lee la revision de la franquicia directamente en una base: la propia mas la de sus
+     * sucursales.
+     *
+     * @param jdbc acceso a la base.
+     * @return revision derivada.
+     */
+    private long revisionIn(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("""
+                select f.revision + coalesce((select sum(b.revision) from branches b where b.franchise_id = f.id), 0)
+                from franchises f
+                where f.id = ?
+                """, Long.class, franchiseId);
+    }
+
+    /**
+     * Fija el latido que la replica "recibio" del primario.
+     *
+     * @param replica acceso a la replica.
+     * @param beat momento del latido.
+     */
+    private static void setHeartbeat(JdbcTemplate replica, Instant beat) {
+        replica.update("update replication_heartbeat set beat_at = ? where id = 1", Timestamp.from(beat));
+    }
+
+    /**
+     * Abre una replica y la migra con Flyway; tras un {@code shutdown} la base se recrea vacia.
+     *
+     * @param url URL de la replica.
+     * @return acceso a la replica.
+     */
+    private static JdbcTemplate replica(String url) {
+        DataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        return new JdbcTemplate(dataSource);
+    }
+}
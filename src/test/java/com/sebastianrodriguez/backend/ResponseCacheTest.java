@@ -0,0 +1,164 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.cache.ResponseCache;
+import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
+import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
+import com.sebastianrodriguez.backend.dto.FranchiseUpdateRequest;
+import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.dto.ProductUpdateRequest;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.Cursors;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que las lecturas repetidas se sirven del cache y que las escrituras lo invalidan.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ResponseCacheTest {
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private long franchiseId;
+
+    private long branchId;
+
+    private long productId;
+
+    /**
+     * Siembra una franquicia con una sucursal y un producto.
+     */
+    @BeforeEach
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        franchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Cache")).id();
+        branchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Cache")).id();
+        productId = productService.create(branchId, new ProductCreateRequest("Producto Cache", 5)).id();
+    }
+
+    /**
+     * Una segunda lectura no ejecuta SQL y cuenta como acierto.
+     */
+    @Test
+    void repeatedReadsAreServedFromCache() {
+        productService.get(productId);
+        branchService.get(branchId);
+        franchiseService.get(franchiseId);
+        long hits = responseCache.caches().get("products").stats().hitCount();
+        statistics.clear();
+
+        productService.get(productId);
+        branchService.get(branchId);
+        franchiseService.get(franchiseId);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(hits + 1, responseCache.caches().get("products").stats().hitCount());
+    }
+
+    /**
+     * Cambiar un producto invalida el producto y los detalles de su sucursal y franquicia.
+     */
+    @Test
+    void productWriteEvictsAncestors() {
+        franchiseService.get(franchiseId);
+        branchService.get(branchId);
+        productService.get(productId);
+
+        productService.update(productId, new ProductUpdateRequest("Producto Cache", 9));
+        productService.adjustStock(productId, 1);
+
+        assertEquals(10, productService.get(productId).stock());
+        assertEquals(10, branchService.get(branchId).products().get(0).stock());
+        assertEquals(10, franchiseService.get(franchiseId).branches().get(0).products().get(0).stock());
+    }
+
+    /**
+     * Un producto invalidado mientras se carga en lote no queda en el cache con el valor leido antes
+     * de la invalidacion.
+     */
+    @Test
+    void bulkLoadDoesNotCacheProductsInvalidatedDuringTheLoad() {
+        ProductResponse stale = new ProductResponse(productId, "Producto Cache", 5);
+        ProductResponse fresh = new ProductResponse(productId, "Producto Cache", 7);
+
+        Map<Long, ProductResponse> loaded = responseCache.products(Set.of(productId), ids -> {
+            responseCache.evictProduct(productId, branchId, franchiseId);
+            return Map.of(productId, new ResponseCache.ProductEntry(stale, branchId, franchiseId));
+        });
+
+        assertEquals(stale, loaded.get(productId));
+        assertEquals(fresh, responseCache.products(Set.of(productId),
+                ids -> Map.of(productId, new ResponseCache.ProductEntry(fresh, branchId, franchiseId))).get(productId));
+        assertEquals(fresh, responseCache.products(Set.of(productId), ids -> Map.of()).get(productId));
+    }
+
+    /**
+     * Borrar una sucursal invalida todo su subarbol, incluidos los productos cacheados.
+     */
+    @Test
+    void branchDeleteEvictsSubtree() {
+        productService.get(productId);
+        franchiseService.get(franchiseId);
+
+        branchService.delete(branchId);
+
+        assertThrows(NotFoundException.class, () -> productService.get(productId));
+        assertThrows(NotFoundException.class, () -> branchService.get(branchId));
+        assertTrue(franchiseService.get(franchiseId).branches().isEmpty());
+    }
+
+    /**
+     * Crear, renombrar o borrar una franquicia invalida las paginas del listado y su detalle.
+     */
+    @Test
+    void franchiseWritesEvictListPages() {
+        String cursor = Cursors.encode(franchiseId);
+        franchiseService.list(cursor, 1);
+        long created = franchiseService.create(new FranchiseCreateRequest("Franquicia Nueva")).id();
+
+        assertEquals(created, franchiseService.list(cursor, 1).items().get(0).id());
+
+        franchiseService.get(created);
+        franchiseService.update(created, new FranchiseUpdateRequest("Franquicia Renombrada"));
+
+        assertEquals("Franquicia Renombrada", franchiseService.list(cursor, 1).items().get(0).name());
+        assertEquals("Franquicia Renombrada", franchiseService.get(created).name());
+
+        franchiseService.delete(created);
+
+        assertTrue(franchiseService.list(cursor, 1).items().stream().noneMatch(f -> f.id() == created));
+        assertThrows(NotFoundException.class, () -> franchiseService.get(created));
+    }
+}
@@ -0,0 +1,186 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
+import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el stream de eventos de stock por franquicia: eventos tras el commit, filtro por
+ * sucursal, resync al desbordar el buffer y cierre al eliminar la franquicia.
+ */
+@SpringBootTest(properties = "app.stock-events.buffer-size=4")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StockEventStreamTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long franchiseId;
+
+    private long branchId;
+
+    /**
+     * Crea la franquicia y la sucursal de la prueba.
+     */
+    @BeforeEach
+    void seed() {
+        franchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Eventos")).id();
+        branchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Eventos")).id();
+    }
+
+    /**
+     * Alta, ajuste y baja llegan en orden; una transaccion revertida no emite nada y la baja de la
+     * franquicia cierra el stream.
+     */
+    @Test
+    void streamsCommittedProductChanges() throws Exception {
+        MvcResult stream = subscribe("/api/franchises/{id}/stock-events", franchiseId);
+
+        long productId = productService.create(branchId, new ProductCreateRequest("Producto Evento", 5)).id();
+        productService.adjustStock(productId, 3);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.create(branchId, new ProductCreateRequest("Producto Revertido", 1));
+            status.setRollbackOnly();
+        });
+        productService.delete(productId);
+        franchiseService.delete(franchiseId);
+
+        String body = awaitCompletion(stream);
+        assertOrdered(body,
+                "event:product-created",
+                "\"productId\":" + productId + ",\"name\":\"Producto Evento\",\"stock\":5",
+                "event:stock-changed",
+                "\"stock\":8",
+                "event:product-deleted",
+                "event:franchise-deleted");
+        assertFalse(body.contains("Producto Revertido"), body);
+    }
+
+    /**
+     * Con {@code branchId} solo llegan los eventos de esa sucursal; ids desconocidos o de otra
+     * franquicia se rechazan.
+     */
+    @Test
+    void filtersByBranchAndValidatesIds() throws Exception {
+        long otherBranchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Ajena")).id();
+        long otherFranchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Ajena")).id();
+        mockMvc.perform(get("/api/franchises/{id}/stock-events", -1L)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/franchises/{id}/stock-events?branchId=-1", franchiseId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/franchises/{id}/stock-events?branchId=" + branchId, otherFranchiseId))
+                .andExpect(status().isBadRequest());
+
+        MvcResult stream = subscribe("/api/franchises/{id}/stock-events?branchId=" + branchId, franchiseId);
+        productService.create(otherBranchId, new ProductCreateRequest("Producto Ajeno", 1));
+        productService.create(branchId, new ProductCreateRequest("Producto Propio", 1));
+        branchService.delete(otherBranchId);
+        franchiseService.delete(franchiseId);
+
+        String body = awaitCompletion(stream);
+        assertTrue(body.contains("Producto Propio"), body);
+        assertFalse(body.contains("Producto Ajeno"), body);
+        assertFalse(body.contains("event:branch-deleted"), body);
+        assertTrue(body.contains("event:franchise-deleted"), body);
+    }
+
+    /**
+     * Un commit con mas eventos que el buffer descarta lo pendiente y envia un unico resync; los
+     * eventos siguientes vuelven a llegar.
+     */
+    @Test
+    void overflowSendsSingleResync() throws Exception {
+        MvcResult stream = subscribe("/api/franchises/{id}/stock-events", franchiseId);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 10; i++) {
+                productService.create(branchId, new ProductCreateRequest("Producto Lote " + i, i));
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!stream.getResponse().getContentAsString().contains("event:resync") && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        productService.create(branchId, new ProductCreateRequest("Producto Posterior", 1));
+        franchiseService.delete(franchiseId);
+
+        String body = awaitCompletion(stream);
+        assertEquals(1, body.split("event:resync", -1).length - 1, body);
+        assertFalse(body.contains("Producto Lote"), body);
+        assertOrdered(body, "event:resync", "Producto Posterior", "event:franchise-deleted");
+    }
+
+    /**
+     * Abre un stream y comprueba que la respuesta quedo asincrona.
+     *
+     * @param path ruta del stream.
+     * @param franchiseId id de la franquicia.
+     * @return resultado con la respuesta en curso.
+     * @throws Exception si falla la solicitud.
+     */
+    private MvcResult subscribe(String path, long franchiseId) throws Exception {
+        return mockMvc.perform(get(path, franchiseId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    /**
+     * Espera a que el stream se cierre y devuelve lo escrito.
+     *
+     * @param stream resultado del stream.
+     * @return cuerpo completo.
+     * @throws Exception si no se cierra a tiempo.
+     */
+    private static String awaitCompletion(MvcResult stream) throws Exception {
+        stream.getAsyncResult(TimeUnit.SECONDS.toMillis(10));
+        return stream.getResponse().getContentAsString();
+    }
+
+    /**
+     * Comprueba que los fragmentos aparecen en ese orden.
+     *
+     * @param body cuerpo del stream.
+     * @param fragments fragmentos esperados.
+     */
+    private static void assertOrdered(String body, String... fragments) {
+        int from = 0;
+        for (String fragment : fragments) {
+            int at = body.indexOf(fragment, from);
+            assertTrue(at >= 0, () -> "Missing " + fragment + " after position in:\n" + body);
+            from = at + fragment.length();
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.sebastianrodriguez.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
+import com.sebastianrodriguez.backend.dto.BranchDetailResponse;
+import com.sebastianrodriguez.backend.dto.BranchTopStockProductResponse;
+import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductResponse;
+import com.sebastianrodriguez.backend.dto.ProductUpdateRequest;
+import com.sebastianrodriguez.backend.dto.Versioned;
+import com.sebastianrodriguez.backend.exception.ConflictException;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseDetailStreamer;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import com.sebastianrodriguez.backend.service.StockWriteBehind;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica la escritura diferida de los ajustes de stock: lecturas con los deltas pendientes,
+ * descarga en lote, limite de pendientes, reemplazo de stock, aislamiento de filas que fallan y
+ * descarga al detener.
+ *
+ * <p>El intervalo es de una hora para que las descargas solo ocurran cuando la prueba las pide o
+ * al superar el limite de pendientes.</p>
+ */
+@SpringBootTest(properties = {
+        "app.stock-write-behind.enabled=true",
+        "app.stock-write-behind.flush-interval=1h",
+        "app.stock-write-behind.max-pending=3",
+        "app.franchise-stream.chunk-size=2"
+})
+@ActiveProfiles("test")
+class StockWriteBehindTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private FranchiseService franchiseService;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockWriteBehind stockWriteBehind;
+
+    @Autowired
+    private FranchiseDetailStreamer franchiseDetailStreamer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long franchiseId;
+
+    private long branchId;
+
+    /**
+     * Descarga lo que otras pruebas dejaron pendiente y crea la sucursal de la prueba.
+     */
+    @BeforeEach
+    void seed() {
+        stockWriteBehind.flush();
+        franchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Diferida")).id();
+        branchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Diferida")).id();
+    }
+
+    /**
+     * Los ajustes se ven en las lecturas antes de llegar a la base y la descarga los aplica netos.
+     */
+    @Test
+    void readsIncludePendingDeltasUntilFlush() {
+        long productId = createProduct("Producto Diferido", 10);
+
+        assertEquals(15, productService.adjustStock(productId, 5).stock());
+        assertEquals(12, productService.adjustStock(productId, -3).stock());
+
+        assertEquals(10, stockInDatabase(productId));
+        assertEquals(12, productService.get(productId).stock());
+        assertEquals(12, productService.listByBranch(branchId, null, 20).items().get(0).stock());
+        assertEquals(12, productService.getAll(new ArrayList<>(List.of(productId))).products().get(0).stock());
+
+        assertEquals(1, stockWriteBehind.flush());
+        assertEquals(12, stockInDatabase(productId));
+        assertEquals(12, productService.get(productId).stock());
+        assertThrows(NotFoundException.class, () -> productService.adjustStock(-1L, 1));
+
+        long fullProductId = createProduct("Producto Lleno Diferido", Integer.MAX_VALUE - 5);
+        assertThrows(ConflictException.class, () -> productService.adjustStock(fullProductId, 6));
+        assertEquals(Integer.MAX_VALUE, productService.adjustStock(fullProductId, 5).stock());
+    }
+
+    /**
+     * Los detalles, sus revisiones y el reporte de mayor stock incluyen los ajustes pendientes, y la
+     * revision no retrocede al descargar.
+     */
+    @Test
+    void detailsRevisionsAndTopStockIncludePendingDeltas() {
+        long first = createProduct("Producto Primero", 10);
+        long second = createProduct("Producto Segundo", 8);
+        long third = createProduct("Producto Tercero", 6);
+        long branchRevision = branchService.revision(branchId);
+        long franchiseRevision = franchiseService.revision(franchiseId);
+        assertEquals(first, franchiseService.topStockByBranch(franchiseId, 1).get(0).productId());
+
+        productService.adjustStock(third, 9);
+        productService.adjustStock(first, -5);
+
+        assertEquals(branchRevision + 2, branchService.revision(branchId));
+        assertEquals(franchiseRevision + 2, franchiseService.revision(franchiseId));
+        Versioned<BranchDetailResponse> branch = branchService.getVersioned(branchId);
+        assertEquals(branchRevision + 2, branch.revision());
+        assertEquals(List.of(5, 8, 15), branch.body().products().stream().map(ProductResponse::stock).toList());
+        assertEquals(15, franchiseService.get(franchiseId).branches().get(0).products().get(2).stock());
+        assertEquals(List.of(third), franchiseService.topStockByBranch(franchiseId, 1).stream()
+                .map(BranchTopStockProductResponse::productId).toList());
+        assertEquals(List.of(third, second), franchiseService.topStockByBranch(franchiseId, 2).stream()
+                .map(BranchTopStockProductResponse::productId).toList());
+        assertEquals(List.of(15, 8), franchiseService.topStockByBranch(franchiseId, 2).stream()
+                .map(BranchTopStockProductResponse::stock).toList());
+
+        stockWriteBehind.flush();
+        assertTrue(branchService.revision(branchId) > branchRevision + 2);
+        assertTrue(franchiseService.revision(franchiseId) > franchiseRevision + 2);
+        assertEquals(List.of(third, second), franchiseService.topStockByBranch(franchiseId, 2).stream()
+                .map(BranchTopStockProductResponse::productId).toList());
+    }
+
+    /**
+     * Si otra instancia resto del mismo producto, la descarga no deja el stock negativo: el delta se
+     * descarta, el stock visible vuelve al de la base y la revision cambia.
+     */
+    @Test
+    void flushNeverDrivesStockNegativeAcrossInstances() {
+        long productId = createProduct("Producto Compartido", 5);
+        assertEquals(1, productService.adjustStock(productId, -4).stock());
+        long revision = branchService.revision(branchId);
+        // Otra instancia ya descargo una resta de 3 sobre el mismo producto.
+        jdbcTemplate.update("update products set stock = 2 where id = ?", productId);
+
+        assertEquals(0, stockWriteBehind.flush());
+
+        assertEquals(2, stockInDatabase(productId));
+        assertEquals(2, productService.get(productId).stock());
+        assertTrue(branchService.revision(branchId) > revision);
+    }
+
+    /**
+     * Mientras la transaccion de la descarga espera una fila bloqueada, las lecturas y los ajustes
+     * siguen respondiendo con el stock visible; al confirmar, los ajustes hechos mientras tanto
+     * siguen pendientes sobre el stock escrito.
+     */
+    @Test
+    void readsAndAdjustsDoNotWaitForFlushTransaction() throws Exception {
+        long productId = createProduct("Producto En Descarga", 10);
+        productService.adjustStock(productId, 5);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.queryForObject("select stock from products where id = ? for update", Integer.class, productId);
+                locked.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(30, TimeUnit.SECONDS));
+            Future<Integer> flush = executor.submit(stockWriteBehind::flush);
+            // Da tiempo a que el lote quede esperando la fila bloqueada.
+            Thread.sleep(200);
+
+            assertEquals(15, executor.submit(() -> productService.get(productId).stock()).get(1, TimeUnit.SECONDS));
+            assertEquals(12, executor.submit(() -> productService.adjustStock(productId, -3).stock())
+                    .get(1, TimeUnit.SECONDS));
+
+            release.countDown();
+            holder.get(30, TimeUnit.SECONDS);
+            assertEquals(1, flush.get(30, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(15, stockInDatabase(productId));
+        assertEquals(12, productService.get(productId).stock());
+        assertEquals(1, stockWriteBehind.flush());
+        assertEquals(12, stockInDatabase(productId));
+    }
+
+    /**
+     * Los ajustes pendientes de otra franquicia no rearman el detalle cacheado.
+     */
+    @Test
+    void detailsWithoutPendingProductsKeepTheCachedInstance() {
+        long productId = createProduct("Producto Ajeno", 4);
+        long otherFranchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Quieta")).id();
+        long otherBranchId = branchService.create(otherFranchiseId, new BranchCreateRequest("Sucursal Quieta")).id();
+        productService.create(otherBranchId, new ProductCreateRequest("Producto Quieto", 2));
+
+        productService.adjustStock(productId, 1);
+
+        assertSame(franchiseService.get(otherFranchiseId), franchiseService.get(otherFranchiseId));
+        assertSame(branchService.get(otherBranchId), branchService.get(otherBranchId));
+        assertEquals(5, franchiseService.get(franchiseId).branches().getFirst().products().getFirst().stock());
+    }
+
+    /**
+     * El detalle en streaming se lee por bloques de dos filas, incluye las sucursales vacias y los
+     * ajustes pendientes, y coincide con el detalle regular.
+     */
+    @Test
+    void streamedDetailReadsChunksWithPendingDeltas() throws Exception {
+        long first = createProduct("Producto Bloque Uno", 1);
+        createProduct("Producto Bloque Dos", 2);
+        long third = createProduct("Producto Bloque Tres", 3);
+        long emptyBranchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Vacia Diferida")).id();
+        long lastBranchId = branchService.create(franchiseId, new BranchCreateRequest("Sucursal Final Diferida")).id();
+        productService.create(lastBranchId, new ProductCreateRequest("Producto Final", 9));
+        productService.adjustStock(first, 4);
+        productService.adjustStock(third, -2);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        franchiseDetailStreamer.write(franchiseService.getSummary(franchiseId), out);
+
+        JsonNode streamed = objectMapper.readTree(out.toByteArray());
+        JsonNode regular = objectMapper.readTree(objectMapper.writeValueAsBytes(franchiseService.get(franchiseId)));
+        assertEquals(regular, streamed);
+        JsonNode branches = streamed.get("branches");
+        assertEquals(3, branches.size());
+        assertEquals(List.of(5, 2, 1), branches.get(0).get("products").findValues("stock").stream()
+                .map(JsonNode::asInt).toList());
+        assertEquals(emptyBranchId, branches.get(1).get("id").asLong());
+        assertEquals(0, branches.get(1).get("products").size());
+        assertEquals(lastBranchId, branches.get(2).get("id").asLong());
+        assertEquals(1, branches.get(2).get("products").size());
+    }
+
+    /**
+     * Un {@code PUT} en curso bloquea solo su producto: los ajustes y la descarga de otros productos
+     * siguen, y el producto reemplazado queda pendiente hasta que la transaccion termina.
+     */
+    @Test
+    void overwriteInProgressOnlyHoldsItsProduct() throws Exception {
+        long replaced = createProduct("Producto En Reemplazo", 10);
+        productService.adjustStock(replaced, 2);
+        long otherFranchiseId = franchiseService.create(new FranchiseCreateRequest("Franquicia Paralela")).id();
+        long otherBranchId = branchService.create(otherFranchiseId, new BranchCreateRequest("Sucursal Paralela")).id();
+        long other = productService.create(otherBranchId, new ProductCreateRequest("Producto Paralelo", 5)).id();
+
+        CountDownLatch updated = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> overwrite = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                productService.update(replaced, new ProductUpdateRequest("Producto En Reemplazo", 30));
+                updated.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(updated.await(30, TimeUnit.SECONDS));
+
+            assertEquals(8, productService.adjustStock(other, 3).stock());
+            assertEquals(1, stockWriteBehind.flush());
+            assertEquals(8, stockInDatabase(other));
+            assertEquals(12, productService.get(replaced).stock());
+
+            release.countDown();
+            overwrite.get(30, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(30, productService.get(replaced).stock());
+        stockWriteBehind.flush();
+        assertEquals(30, stockInDatabase(replaced));
+    }
+
+    /**
+     * Una fila que no se puede escribir no frena la descarga del resto y se descarta tras varios
+     * intentos, dejando visible el stock de la base.
+     */
+    @Test
+    void failingProductIsIsolatedAndEventuallyDiscarded() {
+        long poisoned = createProduct("Producto Envenenado", 10);
+        long healthy = createProduct("Producto Sano", 10);
+        productService.adjustStock(poisoned, 5);
+        productService.adjustStock(healthy, 4);
+        // Otra instancia dejo la fila al maximo: sumar el delta desborda la columna.
+        jdbcTemplate.update("update products set stock = ? where id = ?", Integer.MAX_VALUE, poisoned);
+
+        assertEquals(1, stockWriteBehind.flush());
+        assertEquals(14, stockInDatabase(healthy));
+        assertEquals(15, productService.get(poisoned).stock());
+
+        stockWriteBehind.flush();
+        stockWriteBehind.flush();
+        assertEquals(Integer.MAX_VALUE, stockInDatabase(poisoned));
+        assertEquals(0, stockWriteBehind.flush());
+        assertEquals(Integer.MAX_VALUE, productService.get(poisoned).stock());
+    }
+
+    /**
+     * Con restas concurrentes acumuladas en memoria cada unidad se entrega una sola vez.
+     */
+    @Test
+    void concurrentDecrementsNeverOversell() throws Exception {
+        int initialStock = 200;
+        long productId = createProduct("Producto Escaso Diferido", initialStock);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 50; i++) {
+                        try {
+                            productService.adjustStock(productId, i % 5 == 0 ? 1 : -1);
+                            sold.addAndGet(i % 5 == 0 ? -1 : 1);
+                        } catch (ConflictException ex) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertTrue(rejected.get() > 0);
+        assertEquals(initialStock - sold.get(), productService.get(productId).stock());
+        stockWriteBehind.flush();
+        assertEquals(initialStock - sold.get(), stockInDatabase(productId));
+        assertTrue(stockInDatabase(productId) >= 0);
+    }
+
+    /**
+     * Al llegar al limite de productos pendientes la descarga se adelanta sin esperar el intervalo.
+     */
+    @Test
+    void reachingMaxPendingTriggersFlush() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            long productId = createProduct("Producto Lote " + i, 1);
+            ids.add(productId);
+            productService.adjustStock(productId, 1);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stockInDatabase(ids.get(2)) != 2 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        for (Long id : ids) {
+            assertEquals(2, stockInDatabase(id));
+        }
+    }
+
+    /**
+     * Reemplazar el stock descarta los deltas pendientes y borrar el producto los elimina.
+     */
+    @Test
+    void overwriteAndDeleteDiscardPendingDeltas() {
+        long productId = createProduct("Producto Reemplazado", 10);
+        productService.adjustStock(productId, 7);
+
+        assertEquals(40, productService.update(productId, new ProductUpdateRequest("Producto Reemplazado", 40)).stock());
+        assertEquals(40, productService.get(productId).stock());
+        stockWriteBehind.flush();
+        assertEquals(40, stockInDatabase(productId));
+
+        productService.adjustStock(productId, -5);
+        productService.delete(productId);
+        assertEquals(0, stockWriteBehind.flush());
+        assertEquals(40, stockInDatabase(productId));
+    }
+
+    /**
+     * Detener el ciclo de vida descarga lo pendiente.
+     */
+    @Test
+    void stopFlushesPendingDeltas() {
+        long productId = createProduct("Producto Apagado", 3);
+        productService.adjustStock(productId, 4);
+
+        stockWriteBehind.stop();
+        try {
+            assertEquals(7, stockInDatabase(productId));
+        } finally {
+            stockWriteBehind.start();
+        }
+        assertTrue(stockWriteBehind.isRunning());
+    }
+
+    /**
+     * Crea un producto en la sucursal de la prueba.
+     *
+     * @param name nombre del producto.
+     * @param stock stock inicial.
+     * @return id del producto.
+     */
+    private long createProduct(String name, int stock) {
+        return productService.create(branchId, new ProductCreateRequest(name, stock)).id();
+    }
+
+    /**
+     * Lee el stock escrito en la base, sin cache ni deltas pendientes.
+     *
+     * @param productId id del producto.
+     * @return stock en la tabla.
+     */
+    private int stockInDatabase(long productId) {
+        return jdbcTemplate.queryForObject("select stock from products where id = ?", Integer.class, productId);
+    }
+}
@@ -0,0 +1,89 @@
+package com.sebastianrodriguez.backend;
+
+import com.sebastianrodriguez.backend.dto.BranchCreateRequest;
+import com.sebastianrodriguez.backend.dto.FranchiseCreateRequest;
+import com.sebastianrodriguez.backend.dto.ProductCreateRequest;
+import com.sebastianrodriguez.backend.exception.NotFoundException;
+import com.sebastianrodriguez.backend.service.BranchService;
+import com.sebastianrodriguez.backend.service.FranchiseService;
+import com.sebastianrodriguez.backend.service.ProductService;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Datos de una prueba sobre la base H2 que comparten las pruebas de un mismo contexto.
+ *
+ * <p>Cada prueba crea sus propias franquicias, sucursales y productos con los servicios y los
+ * identifica por id, sin depender de lo que otras pruebas dejaron en la base. Al terminar, las
+ * franquicias creadas se eliminan con su subarbol, para que no aparezcan en los listados ni en los
+ * agregados de las pruebas siguientes.</p>
+ */
+final class TestHierarchy {
+
+    private final FranchiseService franchiseService;
+    private final BranchService branchService;
+    private final ProductService productService;
+    private final List<Long> franchiseIds = new CopyOnWriteArrayList<>();
+
+    /**
+     * Crea la jerarquia de una prueba.
+     *
+     * @param franchiseService servicio de franquicias.
+     * @param branchService servicio de sucursales.
+     * @param productService servicio de productos.
+     */
+    TestHierarchy(FranchiseService franchiseService, BranchService branchService, ProductService productService) {
+        this.franchiseService = franchiseService;
+        this.branchService = branchService;
+        this.productService = productService;
+    }
+
+    /**
+     * Crea una franquicia que se elimina al terminar la prueba.
+     *
+     * @param name nombre de la franquicia.
+     * @return id de la franquicia.
+     */
+    long franchise(String name) {
+        long id = franchiseService.create(new FranchiseCreateRequest(name)).id();
+        franchiseIds.add(id);
+        return id;
+    }
+
+    /**
+     * Crea una sucursal.
+     *
+     * @param franchiseId franquicia de la sucursal.
+     * @param name nombre de la sucursal.
+     * @return id de la sucursal.
+     */
+    long branch(long franchiseId, String name) {
+        return branchService.create(franchiseId, new BranchCreateRequest(name)).id();
+    }
+
+    /**
+     * Crea un producto.
+     *
+     * @param branchId sucursal del producto.
+     * @param name nombre del producto.
+     * @param stock stock inicial.
+     * @return id del producto.
+     */
+    long product(long branchId, String name, int stock) {
+        return productService.create(branchId, new ProductCreateRequest(name, stock)).id();
+    }
+
+    /**
+     * Elimina las franquicias creadas que la prueba no elimino.
+     */
+    void deleteAll() {
+        for (Long id : franchiseIds) {
+            try {
+                franchiseService.delete(id);
+            } catch (NotFoundException ex) {
+                // La prueba ya la elimino.
+            }
+        }
+        franchiseIds.clear();
+    }
+}
@@ -0,0 +1,229 @@
+package com.sebastianrodriguez.backend.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark de carga HTTP de lazo cerrado contra una instancia en ejecucion.
+ *
+ * <p>Siembra una franquicia por la API y mide throughput y percentiles de latencia de los
+ * endpoints existentes. Para comparar modos se ejecuta dos veces contra la aplicacion levantada con
+ * {@code VIRTUAL_THREADS=false} y {@code VIRTUAL_THREADS=true}, o contra una instancia servlet y otra
+ * con {@code WEB_STACK=reactive} sobre la misma base. Parametros (propiedades del sistema):
+ * {@code bench.url} (por defecto {@code http://localhost:8080}), {@code bench.seed-url} (instancia
+ * servlet que recibe la siembra y las escrituras; por defecto {@code bench.url}),
+ * {@code bench.writes} ({@code true}; en {@code false} solo mide lecturas), {@code bench.clients}
+ * (200), {@code bench.duration} (30 s), {@code bench.warmup} (5 s), {@code bench.branches} (20) y
+ * {@code bench.products} (10 por sucursal).</p>
+ */
+public final class HttpLoadBenchmark {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final String seedUrl;
+
+    private HttpLoadBenchmark(String baseUrl, String seedUrl) {
+        this.baseUrl = baseUrl;
+        this.seedUrl = seedUrl;
+    }
+
+    /**
+     * Punto de entrada.
+     *
+     * @param args no se usan; la configuracion va por propiedades del sistema.
+     * @throws Exception si falla la siembra o la carga.
+     */
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.url", "http://localhost:8080");
+        HttpLoadBenchmark bench = new HttpLoadBenchmark(url, System.getProperty("bench.seed-url", url));
+        int clients = Integer.getInteger("bench.clients", 200);
+        Duration duration = Duration.ofSeconds(Integer.getInteger("bench.duration", 30));
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("bench.warmup", 5));
+        Dataset data = bench.seed(Integer.getInteger("bench.branches", 20), Integer.getInteger("bench.products", 10));
+
+        List<Scenario> scenarios = new ArrayList<>(List.of(
+                new Scenario("GET /api/products/{id}", () -> bench.get("/api/products/" + data.randomProduct())),
+                new Scenario("GET /api/branches/{id}", () -> bench.get("/api/branches/" + data.randomBranch())),
+                new Scenario("GET /api/branches/{id}/products", () -> bench.get(
+                        "/api/branches/" + data.randomBranch() + "/products")),
+                new Scenario("GET /api/franchises/{id}", () -> bench.get("/api/franchises/" + data.franchiseId())),
+                new Scenario("GET /api/franchises/{id}/branches", () -> bench.get(
+                        "/api/franchises/" + data.franchiseId() + "/branches")),
+                new Scenario("GET /api/franchises/{id}/top-stock", () -> bench.get(
+                        "/api/franchises/" + data.franchiseId() + "/top-stock-products?k=3")),
+                new Scenario("GET /api/franchises?limit=50", () -> bench.get("/api/franchises?limit=50"))
+        ));
+        if (Boolean.parseBoolean(System.getProperty("bench.writes", "true"))) {
+            scenarios.add(new Scenario("PATCH /api/products/{id}/stock", () -> bench.send(HttpRequest.newBuilder()
+                    .uri(URI.create(bench.seedUrl + "/api/products/" + data.randomProduct() + "/stock"))
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"delta\":1}")))));
+        }
+
+        System.out.printf("%-36s %10s %9s %9s %9s %8s%n", "endpoint", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (Scenario scenario : scenarios) {
+            run(scenario, clients, warmup);
+            Result result = run(scenario, clients, duration);
+            System.out.printf("%-36s %10.1f %9.2f %9.2f %9.2f %8d%n", scenario.name(), result.throughput(),
+                    result.percentile(0.50), result.percentile(0.99), result.percentile(1.0), result.errors());
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Ejecuta un escenario con clientes concurrentes durante el tiempo indicado.
+     *
+     * @param scenario escenario a medir.
+     * @param clients clientes concurrentes (uno por hilo virtual).
+     * @param duration duracion de la medicion.
+     * @return latencias y errores agregados.
+     * @throws Exception si falla la espera de los clientes.
+     */
+    private static Result run(Scenario scenario, int clients, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<ClientResult>> futures = new ArrayList<>(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    long errors = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        int status = scenario.request().call();
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                        if (status >= 400) {
+                            errors++;
+                        }
+                    }
+                    return new ClientResult(Arrays.copyOf(latencies, count), errors);
+                }));
+            }
+        }
+        List<long[]> all = new ArrayList<>();
+        long errors = 0;
+        for (Future<ClientResult> future : futures) {
+            all.add(future.get().latencies());
+            errors += future.get().errors();
+        }
+        long[] merged = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(merged, errors, duration);
+    }
+
+    /**
+     * Crea la franquicia, sucursales y productos usados por los escenarios.
+     *
+     * @param branches cantidad de sucursales.
+     * @param productsPerBranch productos por sucursal.
+     * @return ids sembrados.
+     * @throws Exception si falla alguna llamada.
+     */
+    private Dataset seed(int branches, int productsPerBranch) throws Exception {
+        long franchiseId = post("/api/franchises", "{\"name\":\"Bench\"}");
+        long[] branchIds = new long[branches];
+        long[] productIds = new long[branches * productsPerBranch];
+        for (int b = 0; b < branches; b++) {
+            branchIds[b] = post("/api/franchises/" + franchiseId + "/branches", "{\"name\":\"Bench " + b + "\"}");
+            for (int p = 0; p < productsPerBranch; p++) {
+                productIds[b * productsPerBranch + p] = post("/api/branches/" + branchIds[b] + "/products",
+                        "{\"name\":\"Bench " + b + "-" + p + "\",\"stock\":1000}");
+            }
+        }
+        return new Dataset(franchiseId, branchIds, productIds);
+    }
+
+    /**
+     * Crea un recurso en la instancia de siembra y devuelve su id.
+     *
+     * @param path ruta del recurso.
+     * @param json cuerpo JSON.
+     * @return id creado.
+     * @throws Exception si la llamada falla o no responde 201.
+     */
+    private long post(String path, String json) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(seedUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ID.matcher(response.body());
+        if (response.statusCode() != 201 || !matcher.find()) {
+            throw new IllegalStateException("Seed failed for " + path + ": " + response.statusCode());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * Ejecuta un GET.
+     *
+     * @param path ruta a consultar.
+     * @return codigo de estado.
+     * @throws Exception si falla la llamada.
+     */
+    private int get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+    }
+
+    /**
+     * Envia una solicitud descartando el cuerpo de la respuesta.
+     *
+     * @param request solicitud a enviar.
+     * @return codigo de estado.
+     * @throws Exception si falla la llamada.
+     */
+    private int send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private record Scenario(String name, Callable<Integer> request) {
+    }
+
+    private record Dataset(long franchiseId, long[] branchIds, long[] productIds) {
+
+        long randomBranch() {
+            return branchIds[ThreadLocalRandom.current().nextInt(branchIds.length)];
+        }
+
+        long randomProduct() {
+            return productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+        }
+    }
+
+    private record ClientResult(long[] latencies, long errors) {
+    }
+
+    private record Result(long[] sortedLatencies, long errors, Duration duration) {
+
+        double throughput() {
+            return sortedLatencies.length / (duration.toNanos() / 1e9);
+        }
+
+        double percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}